@@ -0,0 +1,48 @@
+package org.dol.database.benchmark;
+
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.ColumnTypeParser;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+
+/**
+ * 基准测试用的合成 catalog ({@link SyntheticCatalogGenerator}). 相同 seed 生成相同结构, 便于生成一对 target/current 做 diff.
+ */
+public abstract class BenchmarkCatalogs {
+
+    public static DatabaseSchema catalog(int tableCount, long seed) {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(seed);
+        generator.setTableCount(tableCount);
+        return generator.generate();
+    }
+
+    /**
+     * 按 step 间隔修改表: 改末列注释、追加列、删除最后一个索引, 模拟一次典型的发布变更.
+     */
+    public static DatabaseSchema mutate(DatabaseSchema schema, int step) {
+        int i = 0;
+        for (TableSchema table : schema.getTables()) {
+            if (i++ % step != 0) {
+                continue;
+            }
+            ColumnSchema last = table.getColumns().get(table.getColumns().size() - 1);
+            last.setRemarks("changed");
+            table.getColumns().add(column(table, "added_col", "varchar(64)"));
+            if (!table.getIndexes().isEmpty()) {
+                table.getIndexes().remove(table.getIndexes().size() - 1);
+            }
+        }
+        return schema;
+    }
+
+    private static ColumnSchema column(TableSchema table, String columnName, String columnType) {
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(table);
+        column.setColumnName(columnName);
+        column.setNullable(true);
+        ColumnTypeParser.parse(columnType, column);
+        return column;
+    }
+}
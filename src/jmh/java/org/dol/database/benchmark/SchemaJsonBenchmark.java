@@ -0,0 +1,85 @@
+package org.dol.database.benchmark;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.utils.SchemaJsonReader;
+import org.dol.database.utils.SchemaJsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 导出与导入. 每秒处理的字节数由 {@link Bytes} 计数器作为辅助结果 ("bytes") 输出.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SchemaJsonBenchmark {
+
+    @Param({"1000", "10000"})
+    private int tables;
+
+    private DatabaseSchema schema;
+    private byte[] json;
+    private final SchemaJsonWriter writer = new SchemaJsonWriter();
+    private final SchemaJsonReader reader = new SchemaJsonReader();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        schema = BenchmarkCatalogs.catalog(tables, 42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(schema, out);
+        json = out.toByteArray();
+    }
+
+    @Benchmark
+    public long write(Bytes bytes) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        writer.write(schema, out);
+        bytes.bytes += out.count;
+        return out.count;
+    }
+
+    @Benchmark
+    public DatabaseSchema read(Bytes bytes) throws IOException {
+        bytes.bytes += json.length;
+        return reader.read(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * 处理的 JSON 字节数, JMH 按每秒速率报告.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * 只计数的输出, 排除 ByteArrayOutputStream 扩容的开销.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.dol.database.benchmark;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.DatabaseSchemaLoader;
+import org.dol.database.test.FakeMetadataServer;
+import org.dol.database.utils.MigrationStatement;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SqlScripts;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DatabaseSchemaLoader#load} 的加载耗时.
+ * <p>
+ * loadH2 对进程内 H2 (MySQL 模式) 走 JDBC 元数据路径; loadJdbcMetadata / loadBulk 对
+ * {@link FakeMetadataServer} 分别走逐表 JDBC 元数据与 information_schema 批量查询,
+ * latencyMillis 模拟每次往返的网络延迟.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaLoaderBenchmark {
+
+    @Param({"100", "1000"})
+    private int tables;
+
+    @Param({"0"})
+    private long latencyMillis;
+
+    private Connection h2;
+    private Connection fake;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DatabaseSchema catalog = BenchmarkCatalogs.catalog(tables, 11);
+        h2 = DriverManager.getConnection("jdbc:h2:mem:loader_" + tables + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        String ddl = ScriptGenerator.generate(catalog);
+        try (Statement statement = h2.createStatement()) {
+            for (MigrationStatement migrationStatement : SqlScripts.split(ddl)) {
+                statement.execute(migrationStatement.getSql());
+            }
+        }
+        fake = new FakeMetadataServer(catalog, "bench").latency(latencyMillis, 0).connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement statement = h2.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        h2.close();
+        fake.close();
+    }
+
+    @Benchmark
+    public DatabaseSchema loadH2() throws Exception {
+        return DatabaseSchemaLoader.load(h2, null, null, "t_", false);
+    }
+
+    @Benchmark
+    public DatabaseSchema loadJdbcMetadata() throws Exception {
+        return DatabaseSchemaLoader.load(fake, null, null, "t_", false);
+    }
+
+    @Benchmark
+    public DatabaseSchema loadBulk() throws Exception {
+        return DatabaseSchemaLoader.load(fake, null, null, "t_", true);
+    }
+}
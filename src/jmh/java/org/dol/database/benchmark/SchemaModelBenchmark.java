@@ -0,0 +1,79 @@
+package org.dol.database.benchmark;
+
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.DataTypeEnum;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型上的高频查找: 按表名取表、按列名取列、按类型名取 {@link DataTypeEnum}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaModelBenchmark {
+
+    private static final int LOOKUPS = 1024;
+    private static final String[] TYPE_NAMES = {
+            "bigint", "INT", "Varchar", "decimal", "DATETIME", "text", "tinyint", "json", "unknown_type"
+    };
+
+    @Param({"1000"})
+    private int tables;
+
+    private DatabaseSchema schema;
+    private String[] tableNames;
+    private TableSchema[] lookupTables;
+    private String[] columnNames;
+    private String[] typeNames;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schema = BenchmarkCatalogs.catalog(tables, 7);
+        List<TableSchema> all = new ArrayList<>(schema.getTables());
+        Random random = new Random(7);
+        tableNames = new String[LOOKUPS];
+        lookupTables = new TableSchema[LOOKUPS];
+        columnNames = new String[LOOKUPS];
+        typeNames = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            TableSchema table = all.get(random.nextInt(all.size()));
+            List<ColumnSchema> columns = table.getColumns();
+            tableNames[i] = table.getTableName();
+            lookupTables[i] = table;
+            columnNames[i] = columns.get(random.nextInt(columns.size())).getColumnName().toUpperCase();
+            typeNames[i] = TYPE_NAMES[random.nextInt(TYPE_NAMES.length)];
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (LOOKUPS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public TableSchema getTableSchema() {
+        return schema.getTableSchema(tableNames[next()]);
+    }
+
+    @Benchmark
+    public ColumnSchema getColumn() {
+        int i = next();
+        return lookupTables[i].getColumn(columnNames[i]);
+    }
+
+    @Benchmark
+    public DataTypeEnum dataTypeEnumGet() {
+        return DataTypeEnum.get(typeNames[next()]);
+    }
+}
@@ -0,0 +1,42 @@
+package org.dol.database.benchmark;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.utils.ScriptGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整库 DDL 生成与 diff 脚本生成.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ScriptGeneratorBenchmark {
+
+    @Param({"1000", "10000"})
+    private int tables;
+
+    private DatabaseSchema target;
+    private DatabaseSchema current;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = BenchmarkCatalogs.catalog(tables, 42);
+        // 每 10 张表修改 1 张
+        current = BenchmarkCatalogs.mutate(BenchmarkCatalogs.catalog(tables, 42), 10);
+    }
+
+    @Benchmark
+    public String generate() {
+        return ScriptGenerator.generate(target);
+    }
+
+    @Benchmark
+    public String generateModifySQL() {
+        return ScriptGenerator.generateModifySQL(target, current, true);
+    }
+}
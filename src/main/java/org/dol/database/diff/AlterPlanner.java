@@ -0,0 +1,190 @@
+package org.dol.database.diff;
+
+import org.dol.database.schema.CharacterSets;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.DataTypeEnum;
+import org.dol.database.schema.IndexSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按 MySQL 8 Online DDL 规则为表变更制定 ALTER 计划.
+ * <p>
+ * 每个变更被归类为 {@link OnlineDdl}, 仅索引名不同的 删除+新增 合并为 RENAME INDEX;
+ * 由 {@link RenameDetector} 识别出的列/索引重命名生成 RENAME/CHANGE COLUMN 与 RENAME INDEX.
+ * 分类偏保守: 无法确认可 INSTANT/INPLACE 的变更一律按 COPY 处理.
+ */
+public abstract class AlterPlanner {
+
+    /**
+     * VARCHAR 最大字节数小于该值时使用 1 字节长度前缀.
+     */
+    private static final int ONE_BYTE_LENGTH_PREFIX_LIMIT = 256;
+
+    /**
+     * 为 MODIFIED 表生成 ALTER 步骤; 被删除的列不生成步骤 (与 generateModifySQL 一致, 不删除列).
+     */
+    public static List<AlterStep> plan(TableDiff tableDiff) {
+        List<AlterStep> steps = new ArrayList<>();
+        if (tableDiff == null || tableDiff.getChangeType() != ChangeType.MODIFIED) {
+            return steps;
+        }
+        for (ColumnDiff columnDiff : tableDiff.getColumns()) {
+            if (columnDiff.getChangeType() == ChangeType.ADDED) {
+                steps.add(AlterStep.column(AlterStep.Action.ADD_COLUMN, classifyAddColumn(columnDiff.getTarget()), columnDiff.getTarget()));
+            } else if (columnDiff.getChangeType() == ChangeType.MODIFIED) {
+                steps.add(AlterStep.column(AlterStep.Action.MODIFY_COLUMN, classifyModifyColumn(columnDiff), columnDiff.getTarget()));
+            } else if (columnDiff.getChangeType() == ChangeType.RENAMED) {
+                steps.add(renameColumn(columnDiff));
+            }
+        }
+
+        PrimaryKeyDiff primaryKeyDiff = tableDiff.getPrimaryKey();
+        if (primaryKeyDiff != null) {
+            if (primaryKeyDiff.getChangeType() == ChangeType.ADDED) {
+                steps.add(AlterStep.primaryKey(AlterStep.Action.ADD_PRIMARY_KEY, OnlineDdl.INPLACE_REBUILD, primaryKeyDiff.getTarget()));
+            } else if (primaryKeyDiff.getChangeType() == ChangeType.MODIFIED) {
+                // DROP + ADD 放在同一语句中才能 INPLACE
+                steps.add(AlterStep.primaryKey(AlterStep.Action.REPLACE_PRIMARY_KEY, OnlineDdl.INPLACE_REBUILD, primaryKeyDiff.getTarget()));
+            } else {
+                steps.add(AlterStep.primaryKey(AlterStep.Action.DROP_PRIMARY_KEY, OnlineDdl.COPY, null));
+            }
+        }
+
+        List<IndexSchema> removed = new ArrayList<>();
+        for (IndexDiff indexDiff : tableDiff.getIndexes()) {
+            if (indexDiff.getChangeType() == ChangeType.REMOVED) {
+                removed.add(indexDiff.getCurrent());
+            }
+        }
+        for (IndexDiff indexDiff : tableDiff.getIndexes()) {
+            if (indexDiff.getChangeType() == ChangeType.RENAMED) {
+                steps.add(AlterStep.index(AlterStep.Action.RENAME_INDEX, OnlineDdl.INPLACE_METADATA, indexDiff.getTarget(), indexDiff.getCurrent()));
+            } else if (indexDiff.getChangeType() == ChangeType.MODIFIED) {
+                if (SchemaDiffer.onlyVisibilityChanged(indexDiff.getTarget(), indexDiff.getCurrent(), tableDiff.getRenamedColumns())) {
+                    steps.add(AlterStep.index(AlterStep.Action.ALTER_INDEX_VISIBILITY, OnlineDdl.INPLACE_METADATA, indexDiff.getTarget(), indexDiff.getCurrent()));
+                } else {
+                    steps.add(AlterStep.index(AlterStep.Action.REPLACE_INDEX, classifyAddIndex(indexDiff.getTarget()), indexDiff.getTarget(), indexDiff.getCurrent()));
+                }
+            } else if (indexDiff.getChangeType() == ChangeType.ADDED) {
+                IndexSchema renamedFrom = takeSameDefinition(removed, indexDiff.getTarget());
+                if (renamedFrom != null) {
+                    steps.add(AlterStep.index(AlterStep.Action.RENAME_INDEX, OnlineDdl.INPLACE_METADATA, indexDiff.getTarget(), renamedFrom));
+                } else {
+                    steps.add(AlterStep.index(AlterStep.Action.ADD_INDEX, classifyAddIndex(indexDiff.getTarget()), indexDiff.getTarget(), null));
+                }
+            }
+        }
+        for (IndexSchema index : removed) {
+            steps.add(AlterStep.index(AlterStep.Action.DROP_INDEX, OnlineDdl.INPLACE_METADATA, index, null));
+        }
+        return steps;
+    }
+
+    /**
+     * 普通索引可 INPLACE 并发构建; FULLTEXT / SPATIAL 索引构建期间不允许并发 DML
+     * (首个 FULLTEXT 索引还会重建表), 按 COPY 处理.
+     */
+    public static OnlineDdl classifyAddIndex(IndexSchema index) {
+        return index.isFulltext() || index.isSpatial() ? OnlineDdl.COPY : OnlineDdl.INPLACE_BUILD;
+    }
+
+    /**
+     * 新增列追加到表尾: 8.0.12 起为 INSTANT; 新增自增列需要重建并阻塞写入.
+     */
+    public static OnlineDdl classifyAddColumn(ColumnSchema column) {
+        return column.isAutoIncrement() ? OnlineDdl.COPY : OnlineDdl.INSTANT;
+    }
+
+    /**
+     * 仅改名为 INPLACE 元数据操作; 同时有其它属性变化时取两者中代价较高者.
+     */
+    private static AlterStep renameColumn(ColumnDiff columnDiff) {
+        if (columnDiff.getChangedAttributes().isEmpty()) {
+            return AlterStep.column(AlterStep.Action.RENAME_COLUMN, OnlineDdl.INPLACE_METADATA,
+                    columnDiff.getTarget(), columnDiff.getCurrent());
+        }
+        OnlineDdl onlineDdl = classifyModifyColumn(columnDiff).max(OnlineDdl.INPLACE_METADATA);
+        return AlterStep.column(AlterStep.Action.CHANGE_COLUMN, onlineDdl, columnDiff.getTarget(), columnDiff.getCurrent());
+    }
+
+    /**
+     * 按发生变化的属性取代价最高的分类.
+     */
+    public static OnlineDdl classifyModifyColumn(ColumnDiff columnDiff) {
+        Set<ColumnAttribute> changed = columnDiff.getChangedAttributes();
+        OnlineDdl result = OnlineDdl.INSTANT;
+        for (ColumnAttribute attribute : changed) {
+            switch (attribute) {
+                case COMMENT:
+                case DEFAULT_VALUE:
+                    break;
+                case ENUM_VALUES:
+                    if (!enumValuesAppended(columnDiff.getCurrent(), columnDiff.getTarget())) {
+                        return OnlineDdl.COPY;
+                    }
+                    break;
+                case LENGTH:
+                    if (!varcharExtendedInPlace(columnDiff.getCurrent(), columnDiff.getTarget())) {
+                        return OnlineDdl.COPY;
+                    }
+                    result = result.max(OnlineDdl.INPLACE_METADATA);
+                    break;
+                case NULLABLE:
+                    result = result.max(OnlineDdl.INPLACE_REBUILD);
+                    break;
+                default:
+                    return OnlineDdl.COPY;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ENUM/SET 仅在末尾追加取值且存储字节数不变时为 INSTANT.
+     */
+    private static boolean enumValuesAppended(ColumnSchema current, ColumnSchema target) {
+        List<String> currentValues = current.getEnumValues();
+        List<String> targetValues = target.getEnumValues();
+        if (currentValues == null || targetValues == null || targetValues.size() < currentValues.size()) {
+            return false;
+        }
+        for (int i = 0; i < currentValues.size(); i++) {
+            if (!currentValues.get(i).equals(targetValues.get(i))) {
+                return false;
+            }
+        }
+        if (target.getDataTypeEnum() == DataTypeEnum.SET) {
+            return (currentValues.size() + 7) / 8 == (targetValues.size() + 7) / 8;
+        }
+        return (currentValues.size() <= 255) == (targetValues.size() <= 255);
+    }
+
+    /**
+     * VARCHAR/VARBINARY 扩容且长度前缀字节数不变时为 INPLACE 元数据操作.
+     */
+    private static boolean varcharExtendedInPlace(ColumnSchema current, ColumnSchema target) {
+        DataTypeEnum type = target.getDataTypeEnum();
+        if (type != DataTypeEnum.VARCHAR && type != DataTypeEnum.NVARCHAR && type != DataTypeEnum.VARBINARY) {
+            return false;
+        }
+        if (target.getColumnSize() < current.getColumnSize()) {
+            return false;
+        }
+        int bytesPerChar = type == DataTypeEnum.VARBINARY ? 1 : CharacterSets.maxBytesPerChar(target.getCharacterSet());
+        boolean currentShort = current.getColumnSize() * bytesPerChar < ONE_BYTE_LENGTH_PREFIX_LIMIT;
+        boolean targetShort = target.getColumnSize() * bytesPerChar < ONE_BYTE_LENGTH_PREFIX_LIMIT;
+        return currentShort == targetShort;
+    }
+
+    private static IndexSchema takeSameDefinition(List<IndexSchema> removed, IndexSchema target) {
+        for (int i = 0; i < removed.size(); i++) {
+            if (!SchemaDiffer.indexChanged(target, removed.get(i))) {
+                return removed.remove(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.IndexSchema;
+import org.dol.database.schema.KeySchema;
+
+/**
+ * ALTER TABLE 中的一个子句及其 Online DDL 分类, 由 {@link AlterPlanner} 生成.
+ */
+@Getter
+@AllArgsConstructor
+public class AlterStep {
+
+    public enum Action {
+        ADD_COLUMN,
+        MODIFY_COLUMN,
+        RENAME_COLUMN,
+        CHANGE_COLUMN,
+        ADD_PRIMARY_KEY,
+        DROP_PRIMARY_KEY,
+        REPLACE_PRIMARY_KEY,
+        ADD_INDEX,
+        DROP_INDEX,
+        REPLACE_INDEX,
+        RENAME_INDEX,
+        ALTER_INDEX_VISIBILITY
+    }
+
+    private final Action action;
+    private final OnlineDdl onlineDdl;
+    /**
+     * 列操作的目标列.
+     */
+    private final ColumnSchema column;
+    /**
+     * RENAME_COLUMN / CHANGE_COLUMN 时为原列.
+     */
+    private final ColumnSchema fromColumn;
+    /**
+     * 索引操作的目标索引; DROP_INDEX 时为被删除的索引.
+     */
+    private final IndexSchema index;
+    /**
+     * REPLACE_INDEX / RENAME_INDEX 时为原索引.
+     */
+    private final IndexSchema fromIndex;
+    /**
+     * ADD_PRIMARY_KEY / REPLACE_PRIMARY_KEY 的目标主键.
+     */
+    private final KeySchema primaryKey;
+
+    static AlterStep column(Action action, OnlineDdl onlineDdl, ColumnSchema column) {
+        return column(action, onlineDdl, column, null);
+    }
+
+    static AlterStep column(Action action, OnlineDdl onlineDdl, ColumnSchema column, ColumnSchema fromColumn) {
+        return new AlterStep(action, onlineDdl, column, fromColumn, null, null, null);
+    }
+
+    static AlterStep index(Action action, OnlineDdl onlineDdl, IndexSchema index, IndexSchema fromIndex) {
+        return new AlterStep(action, onlineDdl, null, null, index, fromIndex, null);
+    }
+
+    static AlterStep primaryKey(Action action, OnlineDdl onlineDdl, KeySchema primaryKey) {
+        return new AlterStep(action, onlineDdl, null, null, null, null, primaryKey);
+    }
+}
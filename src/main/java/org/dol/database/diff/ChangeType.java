@@ -0,0 +1,27 @@
+package org.dol.database.diff;
+
+/**
+ * 对象 (表、列、索引、主键) 的变更类型, 以 target 相对 current 而言.
+ */
+public enum ChangeType {
+
+    /**
+     * 仅存在于 target.
+     */
+    ADDED,
+
+    /**
+     * 仅存在于 current.
+     */
+    REMOVED,
+
+    /**
+     * 两边都存在但定义不同.
+     */
+    MODIFIED,
+
+    /**
+     * 名称不同但识别为同一对象 (见 {@link RenameDetector}), 可能同时伴随其它属性变更.
+     */
+    RENAMED
+}
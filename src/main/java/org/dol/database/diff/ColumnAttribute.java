@@ -0,0 +1,56 @@
+package org.dol.database.diff;
+
+import org.dol.database.schema.ColumnSchema;
+
+/**
+ * 参与比较的列属性.
+ */
+public enum ColumnAttribute {
+
+    TYPE,
+    LENGTH,
+    SCALE,
+    UNSIGNED,
+    ZEROFILL,
+    AUTO_INCREMENT,
+    ENUM_VALUES,
+    COLLATION,
+    NULLABLE,
+    DEFAULT_VALUE,
+    COMMENT;
+
+    /**
+     * 读取该属性在 column 上的值.
+     */
+    public Object valueOf(ColumnSchema column) {
+        if (column == null) {
+            return null;
+        }
+        switch (this) {
+            case TYPE:
+                return column.getDataTypeEnum() != null ? column.getDataTypeEnum().getDataTypeName() : column.getDataTypeName();
+            case LENGTH:
+                return SchemaDiffer.lengthOf(column);
+            case SCALE:
+                return column.getDecimalDigits();
+            case UNSIGNED:
+                return column.getUnsigned();
+            case ZEROFILL:
+                return column.isZerofill();
+            case AUTO_INCREMENT:
+                return column.isAutoIncrement();
+            case ENUM_VALUES:
+                return column.getEnumValues();
+            case COLLATION:
+                return column.getCollation();
+            case NULLABLE:
+                return column.isNullable();
+            case DEFAULT_VALUE:
+                return column.getDefaultValue();
+            case COMMENT:
+                return column.getRemarks();
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.ColumnSchema;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 列变更. ADDED 时 current 为 null, REMOVED 时 target 为 null;
+ * MODIFIED / RENAMED 时 changedAttributes 给出除列名外发生变化的属性.
+ */
+@Getter
+@AllArgsConstructor
+public class ColumnDiff {
+
+    private final ChangeType changeType;
+    private final ColumnSchema target;
+    private final ColumnSchema current;
+    private final Set<ColumnAttribute> changedAttributes;
+
+    public static ColumnDiff added(ColumnSchema target) {
+        return new ColumnDiff(ChangeType.ADDED, target, null, Collections.emptySet());
+    }
+
+    public static ColumnDiff removed(ColumnSchema current) {
+        return new ColumnDiff(ChangeType.REMOVED, null, current, Collections.emptySet());
+    }
+
+    public String getColumnName() {
+        return target != null ? target.getColumnName() : current.getColumnName();
+    }
+
+    public boolean isChanged(ColumnAttribute attribute) {
+        return changedAttributes.contains(attribute);
+    }
+
+    public Object getOldValue(ColumnAttribute attribute) {
+        return attribute.valueOf(current);
+    }
+
+    public Object getNewValue(ColumnAttribute attribute) {
+        return attribute.valueOf(target);
+    }
+}
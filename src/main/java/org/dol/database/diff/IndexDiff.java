@@ -0,0 +1,22 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.IndexSchema;
+
+/**
+ * 索引变更. ADDED 时 current 为 null, REMOVED 时 target 为 null;
+ * RENAMED 时两者定义相同, 仅索引名不同.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexDiff {
+
+    private final ChangeType changeType;
+    private final IndexSchema target;
+    private final IndexSchema current;
+
+    public String getIndexName() {
+        return target != null ? target.getIndexName() : current.getIndexName();
+    }
+}
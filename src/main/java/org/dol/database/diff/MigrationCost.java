@@ -0,0 +1,35 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单表迁移的代价估算, 由 {@link MigrationCostEstimator} 计算.
+ */
+@Getter
+@AllArgsConstructor
+public class MigrationCost {
+
+    private final TableDiff tableDiff;
+    /**
+     * 代价最高的步骤分类, 无 ALTER 步骤时为 null.
+     */
+    private final OnlineDdl onlineDdl;
+    /**
+     * 重建表需要重写的字节数 (数据 + 索引).
+     */
+    private final long rebuildBytes;
+    /**
+     * 不重建表的索引构建需要扫描的字节数.
+     */
+    private final long buildBytes;
+    private final long estimatedMillis;
+
+    public String getTableName() {
+        return tableDiff.getTableName();
+    }
+
+    public long getTotalBytes() {
+        return rebuildBytes + buildBytes;
+    }
+}
@@ -0,0 +1,77 @@
+package org.dol.database.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dol.database.schema.TableSchema;
+
+import java.util.List;
+
+/**
+ * 基于表大小 (information_schema.TABLES 的 DATA_LENGTH / INDEX_LENGTH) 估算 ALTER TABLE 的代价.
+ * <p>
+ * 重建类变更按 数据+索引 全量重写计算, 建索引按扫描一次数据计算, 元数据变更按固定耗时计算.
+ * 吞吐量默认值偏保守, 可按实际硬件调整.
+ */
+@Getter
+@Setter
+public class MigrationCostEstimator {
+
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * INPLACE 重建表的吞吐量.
+     */
+    private long inplaceRebuildBytesPerSecond = 32 * MB;
+    /**
+     * COPY 重建表的吞吐量 (逐行复制, 比 INPLACE 慢).
+     */
+    private long copyBytesPerSecond = 16 * MB;
+    /**
+     * INPLACE 建索引时扫描数据的吞吐量.
+     */
+    private long indexBuildBytesPerSecond = 64 * MB;
+    /**
+     * 每条元数据类语句 (INSTANT / INPLACE 元数据) 的固定耗时.
+     */
+    private long metadataMillis = 100;
+
+    public MigrationCost estimate(TableDiff tableDiff) {
+        if (tableDiff.getChangeType() != ChangeType.MODIFIED) {
+            long millis = tableDiff.getChangeType() == ChangeType.ADDED ? metadataMillis : 0;
+            return new MigrationCost(tableDiff, null, 0, 0, millis);
+        }
+        TableSchema current = tableDiff.getCurrent();
+        List<AlterStep> steps = AlterPlanner.plan(tableDiff);
+        OnlineDdl worst = null;
+        boolean hasInstant = false;
+        boolean hasInplaceMetadata = false;
+        int indexBuilds = 0;
+        for (AlterStep step : steps) {
+            OnlineDdl onlineDdl = step.getOnlineDdl();
+            worst = onlineDdl.max(worst);
+            if (onlineDdl == OnlineDdl.INSTANT) {
+                hasInstant = true;
+            } else if (onlineDdl == OnlineDdl.INPLACE_METADATA) {
+                hasInplaceMetadata = true;
+            } else if (onlineDdl == OnlineDdl.INPLACE_BUILD) {
+                indexBuilds++;
+            }
+        }
+        long millis = 0;
+        if (hasInstant) {
+            millis += metadataMillis;
+        }
+        if (hasInplaceMetadata) {
+            millis += metadataMillis;
+        }
+        long buildBytes = indexBuilds * current.getDataLength();
+        millis += buildBytes * 1000 / indexBuildBytesPerSecond;
+        long rebuildBytes = 0;
+        if (worst != null && worst.isRebuild()) {
+            rebuildBytes = current.getDataLength() + current.getIndexLength();
+            long bytesPerSecond = worst == OnlineDdl.COPY ? copyBytesPerSecond : inplaceRebuildBytesPerSecond;
+            millis += metadataMillis + rebuildBytes * 1000 / bytesPerSecond;
+        }
+        return new MigrationCost(tableDiff, worst, rebuildBytes, buildBytes, millis);
+    }
+}
@@ -0,0 +1,51 @@
+package org.dol.database.diff;
+
+import lombok.Getter;
+
+/**
+ * MySQL 8 Online DDL 分类, 按代价从低到高排列.
+ */
+@Getter
+public enum OnlineDdl {
+
+    /**
+     * ALGORITHM=INSTANT, 仅修改数据字典.
+     */
+    INSTANT("INSTANT", null, true, false),
+
+    /**
+     * ALGORITHM=INPLACE, 仅修改元数据, 如 DROP INDEX、RENAME INDEX、同长度前缀内扩展 VARCHAR.
+     */
+    INPLACE_METADATA("INPLACE", "NONE", true, false),
+
+    /**
+     * ALGORITHM=INPLACE, 不重建表但需要扫描数据, 如 ADD INDEX.
+     */
+    INPLACE_BUILD("INPLACE", "NONE", false, false),
+
+    /**
+     * ALGORITHM=INPLACE 并重建表, 允许并发 DML, 如修改 NULL/NOT NULL、替换主键.
+     */
+    INPLACE_REBUILD("INPLACE", "NONE", false, true),
+
+    /**
+     * ALGORITHM=COPY, 重建表且阻塞写入, 如修改列类型.
+     */
+    COPY("COPY", "SHARED", false, true);
+
+    private final String algorithm;
+    private final String lock;
+    private final boolean metadataOnly;
+    private final boolean rebuild;
+
+    OnlineDdl(String algorithm, String lock, boolean metadataOnly, boolean rebuild) {
+        this.algorithm = algorithm;
+        this.lock = lock;
+        this.metadataOnly = metadataOnly;
+        this.rebuild = rebuild;
+    }
+
+    public OnlineDdl max(OnlineDdl other) {
+        return other != null && other.compareTo(this) > 0 ? other : this;
+    }
+}
@@ -0,0 +1,29 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.PartitionDefinition;
+import org.dol.database.schema.PartitionSchema;
+
+import java.util.List;
+
+/**
+ * 分区变更. ADDED 表示表由非分区改为分区, REMOVED 表示取消分区, 二者以及
+ * MODIFIED 且 repartition 为 true 时都需要用目标分区方式重建整表.
+ * <p>
+ * 其余 MODIFIED 按分区增量处理: 先 DROP dropped, 再 REORGANIZE reorganized INTO reorganizedInto,
+ * 最后 ADD added. HASH/KEY 分区只比较分区数.
+ */
+@Getter
+@AllArgsConstructor
+public class PartitionDiff {
+
+    private final ChangeType changeType;
+    private final PartitionSchema target;
+    private final PartitionSchema current;
+    private final boolean repartition;
+    private final List<PartitionDefinition> dropped;
+    private final List<PartitionDefinition> reorganized;
+    private final List<PartitionDefinition> reorganizedInto;
+    private final List<PartitionDefinition> added;
+}
@@ -0,0 +1,17 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.KeySchema;
+
+/**
+ * 主键变更. ADDED 时 current 为 null, REMOVED 时 target 为 null.
+ */
+@Getter
+@AllArgsConstructor
+public class PrimaryKeyDiff {
+
+    private final ChangeType changeType;
+    private final KeySchema target;
+    private final KeySchema current;
+}
@@ -0,0 +1,195 @@
+package org.dol.database.diff;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.DataTypeEnum;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.Utils;
+
+import java.util.*;
+
+/**
+ * 基于相似度识别列与索引的重命名, 避免 删除+新增 导致的重建与数据丢失.
+ * <p>
+ * 列: 类型必须相同, 再按长度/精度、位置、注释、可空与默认值打分, 得分不低于 {@link #minColumnScore}
+ * 且匹配唯一时视为重命名. 索引: 唯一性与成员列 (按已识别的列重命名映射) 完全相同时视为重命名.
+ */
+@Getter
+@Setter
+public class RenameDetector {
+
+    private static final double SIZE_WEIGHT = 0.3;
+    private static final double POSITION_WEIGHT = 0.25;
+    private static final double NEIGHBOR_WEIGHT = 0.2;
+    private static final double REMARKS_WEIGHT = 0.3;
+    private static final double EMPTY_REMARKS_WEIGHT = 0.1;
+    private static final double NULLABLE_DEFAULT_WEIGHT = 0.15;
+
+    /**
+     * 视为重命名的最低得分, 取值 0~1.
+     */
+    private double minColumnScore = 0.6;
+
+    /**
+     * 计算 current 中的列被重命名为 target 中的列的可能性, 类型不同时为 0.
+     */
+    public double columnSimilarity(TableSchema targetTable,
+                                   ColumnSchema target,
+                                   TableSchema currentTable,
+                                   ColumnSchema current) {
+        DataTypeEnum targetType = target.getDataTypeEnum();
+        boolean sameType = targetType != null
+                ? targetType == current.getDataTypeEnum()
+                : target.getDataTypeName() != null && target.getDataTypeName().equalsIgnoreCase(current.getDataTypeName());
+        if (!sameType) {
+            return 0;
+        }
+        double score = 0;
+        if (target.getColumnSize() == current.getColumnSize()
+                && target.getDecimalDigits() == current.getDecimalDigits()
+                && target.getDisplayWidth() == current.getDisplayWidth()
+                && Objects.equals(target.getUnsigned(), current.getUnsigned())) {
+            score += SIZE_WEIGHT;
+        }
+        int targetPosition = targetTable.getColumns().indexOf(target);
+        int currentPosition = currentTable.getColumns().indexOf(current);
+        if (targetPosition == currentPosition) {
+            score += POSITION_WEIGHT;
+        } else if (targetPosition > 0 && currentPosition > 0
+                && targetTable.getColumns().get(targetPosition - 1).getColumnName()
+                .equalsIgnoreCase(currentTable.getColumns().get(currentPosition - 1).getColumnName())) {
+            score += NEIGHBOR_WEIGHT;
+        }
+        boolean targetHasRemarks = Utils.hasText(target.getRemarks());
+        boolean currentHasRemarks = Utils.hasText(current.getRemarks());
+        if (targetHasRemarks && currentHasRemarks && target.getRemarks().trim().equals(current.getRemarks().trim())) {
+            score += REMARKS_WEIGHT;
+        } else if (!targetHasRemarks && !currentHasRemarks) {
+            score += EMPTY_REMARKS_WEIGHT;
+        }
+        if (target.isNullable() == current.isNullable()
+                && Objects.equals(target.getDefaultValue(), current.getDefaultValue())) {
+            score += NULLABLE_DEFAULT_WEIGHT;
+        }
+        return score;
+    }
+
+    /**
+     * 将 tableDiff 中匹配的 REMOVED/ADDED 列对替换为 RENAMED.
+     *
+     * @return 小写的 current 列名 -> target 列名
+     */
+    public Map<String, String> detectColumnRenames(TableDiff tableDiff) {
+        List<ColumnDiff> columns = tableDiff.getColumns();
+        List<ColumnDiff> added = new ArrayList<>();
+        List<ColumnDiff> removed = new ArrayList<>();
+        for (ColumnDiff columnDiff : columns) {
+            if (columnDiff.getChangeType() == ChangeType.ADDED) {
+                added.add(columnDiff);
+            } else if (columnDiff.getChangeType() == ChangeType.REMOVED) {
+                removed.add(columnDiff);
+            }
+        }
+        if (added.isEmpty() || removed.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        TableSchema targetTable = tableDiff.getTarget();
+        TableSchema currentTable = tableDiff.getCurrent();
+        double[][] scores = new double[added.size()][removed.size()];
+        for (int a = 0; a < added.size(); a++) {
+            for (int r = 0; r < removed.size(); r++) {
+                scores[a][r] = columnSimilarity(targetTable, added.get(a).getTarget(), currentTable, removed.get(r).getCurrent());
+            }
+        }
+
+        Map<String, String> renamedColumns = new HashMap<>();
+        for (int a = 0; a < added.size(); a++) {
+            int best = bestMatch(scores, a);
+            if (best < 0) {
+                continue;
+            }
+            ColumnSchema target = added.get(a).getTarget();
+            ColumnSchema current = removed.get(best).getCurrent();
+            Set<ColumnAttribute> changed = SchemaDiffer.compareColumns(targetTable, target, currentTable, current);
+            ColumnDiff renamed = new ColumnDiff(ChangeType.RENAMED, target, current,
+                    changed != null ? changed : Collections.emptySet());
+            columns.set(columns.indexOf(added.get(a)), renamed);
+            columns.remove(removed.get(best));
+            renamedColumns.put(current.getColumnName().toLowerCase(), target.getColumnName());
+        }
+        return renamedColumns;
+    }
+
+    /**
+     * 将 tableDiff 中定义相同的 REMOVED/ADDED 索引对替换为 RENAMED.
+     *
+     * @param renamedColumns {@link #detectColumnRenames(TableDiff)} 的结果
+     */
+    public void detectIndexRenames(TableDiff tableDiff, Map<String, String> renamedColumns) {
+        List<IndexDiff> indexes = tableDiff.getIndexes();
+        List<IndexDiff> removed = new ArrayList<>();
+        for (IndexDiff indexDiff : indexes) {
+            if (indexDiff.getChangeType() == ChangeType.REMOVED) {
+                removed.add(indexDiff);
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+        // 先收集匹配结果, 循环结束后再一次性重建列表
+        Map<IndexDiff, IndexDiff> renamed = new IdentityHashMap<>();
+        Set<IndexDiff> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (IndexDiff indexDiff : indexes) {
+            if (indexDiff.getChangeType() != ChangeType.ADDED) {
+                continue;
+            }
+            for (Iterator<IndexDiff> it = removed.iterator(); it.hasNext(); ) {
+                IndexDiff removedDiff = it.next();
+                if (!SchemaDiffer.indexChanged(indexDiff.getTarget(), removedDiff.getCurrent(), renamedColumns)) {
+                    renamed.put(indexDiff, new IndexDiff(ChangeType.RENAMED, indexDiff.getTarget(), removedDiff.getCurrent()));
+                    matched.add(removedDiff);
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        if (renamed.isEmpty()) {
+            return;
+        }
+        List<IndexDiff> result = new ArrayList<>(indexes.size() - matched.size());
+        for (IndexDiff indexDiff : indexes) {
+            if (!matched.contains(indexDiff)) {
+                result.add(renamed.getOrDefault(indexDiff, indexDiff));
+            }
+        }
+        indexes.clear();
+        indexes.addAll(result);
+    }
+
+    /**
+     * 返回与第 a 个新增列唯一最佳匹配的被删除列下标; 得分不足或存在并列时返回 -1.
+     * 同时要求该被删除列的最佳匹配也是第 a 个新增列.
+     */
+    private int bestMatch(double[][] scores, int a) {
+        int best = -1;
+        boolean tie = false;
+        for (int r = 0; r < scores[a].length; r++) {
+            if (best < 0 || scores[a][r] > scores[a][best]) {
+                best = r;
+                tie = false;
+            } else if (scores[a][r] == scores[a][best]) {
+                tie = true;
+            }
+        }
+        if (best < 0 || tie || scores[a][best] < minColumnScore) {
+            return -1;
+        }
+        for (int other = 0; other < scores.length; other++) {
+            if (other != a && scores[other][best] >= scores[a][best]) {
+                return -1;
+            }
+        }
+        return best;
+    }
+}
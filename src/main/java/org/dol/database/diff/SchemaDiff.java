@@ -0,0 +1,43 @@
+package org.dol.database.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 两个 DatabaseSchema 之间的结构化差异, 由 {@link SchemaDiffer} 计算.
+ * <p>
+ * 表按表名 (忽略大小写) 排序, 仅包含有变更的表. SQL 由
+ * {@link org.dol.database.utils.ScriptGenerator#toSQL(SchemaDiff, boolean)} 单独渲染.
+ */
+@Getter
+@AllArgsConstructor
+public class SchemaDiff {
+
+    private final List<TableDiff> tables;
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    public List<TableDiff> getTables(ChangeType changeType) {
+        List<TableDiff> result = new ArrayList<>();
+        for (TableDiff table : tables) {
+            if (table.getChangeType() == changeType) {
+                result.add(table);
+            }
+        }
+        return result;
+    }
+
+    public TableDiff getTable(String tableName) {
+        for (TableDiff table : tables) {
+            if (table.getTableName().equalsIgnoreCase(tableName)) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,529 @@
+package org.dol.database.diff;
+
+import org.dol.database.schema.*;
+import org.dol.database.utils.SchemaFlightRecorder;
+import org.dol.database.utils.Utils;
+
+import java.util.*;
+
+/**
+ * 逐字段比较两个 schema, 生成 {@link SchemaDiff}.
+ * <p>
+ * 比较规则与 DDL 渲染一致: 只比较会体现在 DDL 中的属性 (如 TEXT 的长度不参与比较),
+ * 列属性一旦全部相等即不分配任何对象.
+ */
+public abstract class SchemaDiffer {
+
+    /**
+     * 计算使 currentSchema 对齐到 targetSchema 所需的变更.
+     *
+     * @param targetSchema  目标 schema (期望的最终状态)
+     * @param currentSchema 当前 schema (线上现有状态)
+     * @param ignoreTables  忽略的表名 (支持 * 通配符, 如 "log_*")
+     */
+    public static SchemaDiff diff(DatabaseSchema targetSchema, DatabaseSchema currentSchema, String... ignoreTables) {
+        return diff(targetSchema, currentSchema, null, ignoreTables);
+    }
+
+    /**
+     * 同 {@link #diff(DatabaseSchema, DatabaseSchema, String...)}, 并使用 renameDetector 识别列与索引的重命名.
+     *
+     * @param renameDetector 为 null 时不识别重命名
+     */
+    public static SchemaDiff diff(DatabaseSchema targetSchema,
+                                  DatabaseSchema currentSchema,
+                                  RenameDetector renameDetector,
+                                  String... ignoreTables) {
+        List<TableDiff> tableDiffs = new ArrayList<>();
+        for (TableSchema targetTable : sorted(targetSchema.getTables())) {
+            if (ignoreTables.length > 0 && shouldIgnore(targetTable.getTableName(), ignoreTables)) {
+                continue;
+            }
+            TableDiff tableDiff = diffTable(targetTable, currentSchema.getTableSchema(targetTable.getTableName()), renameDetector);
+            if (tableDiff != null) {
+                tableDiffs.add(tableDiff);
+            }
+        }
+        for (TableSchema currentTable : sorted(currentSchema.getTables())) {
+            if (ignoreTables.length > 0 && shouldIgnore(currentTable.getTableName(), ignoreTables)) {
+                continue;
+            }
+            if (targetSchema.getTableSchema(currentTable.getTableName()) == null) {
+                tableDiffs.add(new TableDiff(ChangeType.REMOVED, null, currentTable));
+            }
+        }
+        return new SchemaDiff(tableDiffs);
+    }
+
+    /**
+     * 比较单表. currentTable 为 null 时返回 ADDED; 无变更时返回 null.
+     */
+    public static TableDiff diffTable(TableSchema targetTable, TableSchema currentTable) {
+        return diffTable(targetTable, currentTable, null);
+    }
+
+    /**
+     * 比较单表, renameDetector 不为 null 时识别列与索引的重命名.
+     * 列重命名后, 引用该列的索引与主键不再视为变更 (MySQL 会随列一起更新).
+     */
+    public static TableDiff diffTable(TableSchema targetTable, TableSchema currentTable, RenameDetector renameDetector) {
+        Object event = SchemaFlightRecorder.beginTableDiff(targetTable.getTableName());
+        TableDiff tableDiff = compareTable(targetTable, currentTable, renameDetector);
+        if (event != null) {
+            SchemaFlightRecorder.commitTableDiff(event,
+                    tableDiff == null ? null : tableDiff.getChangeType().name(),
+                    tableDiff == null ? 0 : tableDiff.getColumns().size() + tableDiff.getIndexes().size());
+        }
+        return tableDiff;
+    }
+
+    private static TableDiff compareTable(TableSchema targetTable, TableSchema currentTable, RenameDetector renameDetector) {
+        if (currentTable == null) {
+            return new TableDiff(ChangeType.ADDED, targetTable, null);
+        }
+        TableDiff tableDiff = new TableDiff(ChangeType.MODIFIED, targetTable, currentTable);
+        diffColumns(tableDiff, targetTable, currentTable);
+        Map<String, String> renamedColumns = renameDetector != null
+                ? renameDetector.detectColumnRenames(tableDiff)
+                : Collections.emptyMap();
+        tableDiff.setRenamedColumns(renamedColumns);
+        diffPrimaryKey(tableDiff, targetTable.getPrimaryKey(), currentTable.getPrimaryKey(), renamedColumns);
+        diffIndexes(tableDiff, targetTable.getIndexes(), currentTable.getIndexes(), renamedColumns);
+        if (renameDetector != null) {
+            renameDetector.detectIndexRenames(tableDiff, renamedColumns);
+        }
+        diffPartitions(tableDiff, targetTable.getPartitioning(), currentTable.getPartitioning());
+        return tableDiff.isEmpty() ? null : tableDiff;
+    }
+
+    private static void diffColumns(TableDiff tableDiff, TableSchema targetTable, TableSchema currentTable) {
+        List<ColumnSchema> targetColumns = targetTable.getColumns();
+        List<ColumnSchema> currentColumns = currentTable.getColumns();
+        if (sameColumnNames(targetColumns, currentColumns)) {
+            // 列名与顺序一致 (最常见的情况) 时逐位比较, 不建立查找表
+            for (int i = 0; i < targetColumns.size(); i++) {
+                ColumnSchema targetCol = targetColumns.get(i);
+                ColumnSchema currentCol = currentColumns.get(i);
+                Set<ColumnAttribute> changed = compareColumns(targetTable, targetCol, currentTable, currentCol);
+                if (changed != null) {
+                    tableDiff.getColumns().add(new ColumnDiff(ChangeType.MODIFIED, targetCol, currentCol, changed));
+                }
+            }
+            return;
+        }
+        Map<String, ColumnSchema> currentColMap = new HashMap<>();
+        for (ColumnSchema col : currentColumns) {
+            currentColMap.put(col.getColumnName().toLowerCase(), col);
+        }
+        Set<String> targetColNames = new HashSet<>();
+        for (ColumnSchema targetCol : targetColumns) {
+            String key = targetCol.getColumnName().toLowerCase();
+            targetColNames.add(key);
+            ColumnSchema currentCol = currentColMap.get(key);
+            if (currentCol == null) {
+                tableDiff.getColumns().add(ColumnDiff.added(targetCol));
+                continue;
+            }
+            Set<ColumnAttribute> changed = compareColumns(targetTable, targetCol, currentTable, currentCol);
+            if (changed != null) {
+                tableDiff.getColumns().add(new ColumnDiff(ChangeType.MODIFIED, targetCol, currentCol, changed));
+            }
+        }
+        for (ColumnSchema currentCol : currentColumns) {
+            if (!targetColNames.contains(currentCol.getColumnName().toLowerCase())) {
+                tableDiff.getColumns().add(ColumnDiff.removed(currentCol));
+            }
+        }
+    }
+
+    private static boolean sameColumnNames(List<ColumnSchema> targetColumns, List<ColumnSchema> currentColumns) {
+        if (targetColumns.size() != currentColumns.size()) {
+            return false;
+        }
+        for (int i = 0; i < targetColumns.size(); i++) {
+            if (!targetColumns.get(i).getColumnName().equalsIgnoreCase(currentColumns.get(i).getColumnName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 逐属性比较两列, 无差异时返回 null.
+     */
+    public static Set<ColumnAttribute> compareColumns(TableSchema targetTable,
+                                                      ColumnSchema target,
+                                                      TableSchema currentTable,
+                                                      ColumnSchema current) {
+        if (target == current) {
+            return null;
+        }
+        Set<ColumnAttribute> changed = null;
+        DataTypeEnum targetType = target.getDataTypeEnum();
+        DataTypeEnum currentType = current.getDataTypeEnum();
+        boolean sameType = targetType != null || currentType != null
+                ? targetType == currentType
+                : equalsIgnoreCase(target.getDataTypeName(), current.getDataTypeName());
+        if (!sameType) {
+            changed = add(changed, ColumnAttribute.TYPE);
+        } else if (targetType != null && targetType.hasLength()) {
+            if (lengthOf(target) != lengthOf(current)) {
+                changed = add(changed, ColumnAttribute.LENGTH);
+            }
+            if (hasScale(targetType) && target.getDecimalDigits() != current.getDecimalDigits()) {
+                changed = add(changed, ColumnAttribute.SCALE);
+            }
+        } else if (targetType != null && targetType.hasFractionalSeconds()
+                && target.getDecimalDigits() != current.getDecimalDigits()) {
+            changed = add(changed, ColumnAttribute.SCALE);
+        }
+        if (targetType != null && targetType.hasLength() || currentType != null && currentType.hasLength()) {
+            if (!Objects.equals(target.getUnsigned(), current.getUnsigned())) {
+                changed = add(changed, ColumnAttribute.UNSIGNED);
+            }
+            if (target.isZerofill() != current.isZerofill()) {
+                changed = add(changed, ColumnAttribute.ZEROFILL);
+            }
+            if (target.isAutoIncrement() != current.isAutoIncrement()) {
+                changed = add(changed, ColumnAttribute.AUTO_INCREMENT);
+            }
+        }
+        if (!Objects.equals(emptyToNull(target.getEnumValues()), emptyToNull(current.getEnumValues()))) {
+            changed = add(changed, ColumnAttribute.ENUM_VALUES);
+        }
+        if (!equalsIgnoreCase(explicitCollation(targetTable, target), explicitCollation(currentTable, current))) {
+            changed = add(changed, ColumnAttribute.COLLATION);
+        }
+        if (target.isNullable() != current.isNullable()) {
+            changed = add(changed, ColumnAttribute.NULLABLE);
+        }
+        if (!sameDefault(target, current)) {
+            changed = add(changed, ColumnAttribute.DEFAULT_VALUE);
+        }
+        if (!Objects.equals(emptyToNull(target.getRemarks()), emptyToNull(current.getRemarks()))) {
+            changed = add(changed, ColumnAttribute.COMMENT);
+        }
+        return changed;
+    }
+
+    private static void diffPrimaryKey(TableDiff tableDiff,
+                                       KeySchema targetPK,
+                                       KeySchema currentPK,
+                                       Map<String, String> renamedColumns) {
+        boolean hasTarget = targetPK != null && Utils.notEmpty(targetPK.getMemberColumns());
+        boolean hasCurrent = currentPK != null && Utils.notEmpty(currentPK.getMemberColumns());
+        if (hasTarget && !hasCurrent) {
+            tableDiff.setPrimaryKey(new PrimaryKeyDiff(ChangeType.ADDED, targetPK, null));
+        } else if (!hasTarget && hasCurrent) {
+            tableDiff.setPrimaryKey(new PrimaryKeyDiff(ChangeType.REMOVED, null, currentPK));
+        } else if (hasTarget && memberChanged(targetPK.getMemberColumns(), currentPK.getMemberColumns(), renamedColumns)) {
+            tableDiff.setPrimaryKey(new PrimaryKeyDiff(ChangeType.MODIFIED, targetPK, currentPK));
+        }
+    }
+
+    private static void diffIndexes(TableDiff tableDiff,
+                                    List<IndexSchema> targetIndexes,
+                                    List<IndexSchema> currentIndexes,
+                                    Map<String, String> renamedColumns) {
+        if (sameIndexNames(targetIndexes, currentIndexes)) {
+            for (int i = 0; i < targetIndexes.size(); i++) {
+                IndexSchema targetIdx = targetIndexes.get(i);
+                IndexSchema currentIdx = currentIndexes.get(i);
+                if (indexChanged(targetIdx, currentIdx, renamedColumns)) {
+                    tableDiff.getIndexes().add(new IndexDiff(ChangeType.MODIFIED, targetIdx, currentIdx));
+                }
+            }
+            return;
+        }
+        Map<String, IndexSchema> currentIdxMap = new HashMap<>();
+        for (IndexSchema idx : currentIndexes) {
+            currentIdxMap.put(idx.getIndexName().toLowerCase(), idx);
+        }
+        Set<String> targetIdxNames = new HashSet<>();
+        for (IndexSchema targetIdx : targetIndexes) {
+            String key = targetIdx.getIndexName().toLowerCase();
+            targetIdxNames.add(key);
+            IndexSchema currentIdx = currentIdxMap.get(key);
+            if (currentIdx == null) {
+                tableDiff.getIndexes().add(new IndexDiff(ChangeType.ADDED, targetIdx, null));
+            } else if (indexChanged(targetIdx, currentIdx, renamedColumns)) {
+                tableDiff.getIndexes().add(new IndexDiff(ChangeType.MODIFIED, targetIdx, currentIdx));
+            }
+        }
+        for (IndexSchema currentIdx : currentIndexes) {
+            if (!targetIdxNames.contains(currentIdx.getIndexName().toLowerCase())) {
+                tableDiff.getIndexes().add(new IndexDiff(ChangeType.REMOVED, null, currentIdx));
+            }
+        }
+    }
+
+    private static boolean sameIndexNames(List<IndexSchema> targetIndexes, List<IndexSchema> currentIndexes) {
+        if (targetIndexes.size() != currentIndexes.size()) {
+            return false;
+        }
+        for (int i = 0; i < targetIndexes.size(); i++) {
+            if (!targetIndexes.get(i).getIndexName().equalsIgnoreCase(currentIndexes.get(i).getIndexName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分区方式或表达式不同时整表重新分区; 否则按名称比较分区:
+     * 仅存在于 current 的分区删除, 公共前缀之后的分区若只是追加则 ADD, 否则 REORGANIZE.
+     * HASH/KEY 分区只比较分区数.
+     */
+    private static void diffPartitions(TableDiff tableDiff, PartitionSchema target, PartitionSchema current) {
+        if (target == null && current == null) {
+            return;
+        }
+        List<PartitionDefinition> none = Collections.emptyList();
+        if (current == null) {
+            tableDiff.setPartition(new PartitionDiff(ChangeType.ADDED, target, null, true, none, none, none, none));
+            return;
+        }
+        if (target == null) {
+            tableDiff.setPartition(new PartitionDiff(ChangeType.REMOVED, null, current, true, none, none, none, none));
+            return;
+        }
+        if (!equalsIgnoreCase(target.getMethod(), current.getMethod())
+                || !Objects.equals(normalizeExpression(target.getExpression()), normalizeExpression(current.getExpression()))) {
+            tableDiff.setPartition(new PartitionDiff(ChangeType.MODIFIED, target, current, true, none, none, none, none));
+            return;
+        }
+        List<PartitionDefinition> targetParts = target.getPartitions();
+        List<PartitionDefinition> currentParts = current.getPartitions();
+        if (target.isHashOrKey()) {
+            if (targetParts.size() != currentParts.size()) {
+                tableDiff.setPartition(new PartitionDiff(ChangeType.MODIFIED, target, current, false, none, none, none, none));
+            }
+            return;
+        }
+
+        List<PartitionDefinition> dropped = new ArrayList<>();
+        List<PartitionDefinition> kept = new ArrayList<>();
+        for (PartitionDefinition partition : currentParts) {
+            if (target.getPartition(partition.getPartitionName()) == null) {
+                dropped.add(partition);
+            } else {
+                kept.add(partition);
+            }
+        }
+        int common = 0;
+        while (common < kept.size() && common < targetParts.size()
+                && samePartition(kept.get(common), targetParts.get(common))) {
+            common++;
+        }
+        List<PartitionDefinition> reorganized = new ArrayList<>(kept.subList(common, kept.size()));
+        List<PartitionDefinition> rest = new ArrayList<>(targetParts.subList(common, targetParts.size()));
+        List<PartitionDefinition> added = none;
+        List<PartitionDefinition> reorganizedInto = none;
+        if (reorganized.isEmpty()) {
+            added = rest;
+        } else {
+            reorganizedInto = rest;
+        }
+        if (!dropped.isEmpty() || !reorganized.isEmpty() || !added.isEmpty()) {
+            tableDiff.setPartition(new PartitionDiff(ChangeType.MODIFIED, target, current, false,
+                    dropped, reorganized, reorganizedInto, added));
+        }
+    }
+
+    private static boolean samePartition(PartitionDefinition from, PartitionDefinition to) {
+        return from.getPartitionName().equalsIgnoreCase(to.getPartitionName())
+                && Objects.equals(normalizeExpression(from.getDescription()), normalizeExpression(to.getDescription()));
+    }
+
+    /**
+     * 索引定义 (唯一性、类型、键部分、注释与可见性) 是否不同, 不比较索引名.
+     */
+    public static boolean indexChanged(IndexSchema fromIndex, IndexSchema toIndex) {
+        return indexChanged(fromIndex, toIndex, Collections.emptyMap());
+    }
+
+    /**
+     * 同 {@link #indexChanged(IndexSchema, IndexSchema)}, toIndex 的成员列名先按 renamedColumns 映射.
+     *
+     * @param renamedColumns 小写的 current 列名 -> target 列名
+     */
+    public static boolean indexChanged(IndexSchema fromIndex, IndexSchema toIndex, Map<String, String> renamedColumns) {
+        return fromIndex.isVisible() != toIndex.isVisible()
+                || indexDefinitionChanged(fromIndex, toIndex, renamedColumns);
+    }
+
+    /**
+     * 只有可见性不同, 可用 ALTER INDEX ... VISIBLE/INVISIBLE 修改而无需重建索引.
+     */
+    public static boolean onlyVisibilityChanged(IndexSchema fromIndex, IndexSchema toIndex, Map<String, String> renamedColumns) {
+        return fromIndex.isVisible() != toIndex.isVisible()
+                && !indexDefinitionChanged(fromIndex, toIndex, renamedColumns);
+    }
+
+    private static boolean indexDefinitionChanged(IndexSchema fromIndex, IndexSchema toIndex, Map<String, String> renamedColumns) {
+        return fromIndex.isUnique() != toIndex.isUnique()
+                || !indexTypeOf(fromIndex).equals(indexTypeOf(toIndex))
+                || !Objects.equals(emptyToNull(fromIndex.getComment()), emptyToNull(toIndex.getComment()))
+                || memberChanged(fromIndex.getMemberColumns(), toIndex.getMemberColumns(), renamedColumns)
+                || (fromIndex.hasExplicitKeyParts() || toIndex.hasExplicitKeyParts())
+                && keyPartsChanged(fromIndex.getKeyParts(), toIndex.getKeyParts(), renamedColumns);
+    }
+
+    private static String indexTypeOf(IndexSchema index) {
+        return index.getIndexType() == null ? "BTREE" : index.getIndexType().toUpperCase();
+    }
+
+    /**
+     * 比较前缀长度、排序方向与函数表达式; 列名由 memberChanged 比较.
+     */
+    private static boolean keyPartsChanged(List<IndexPart> fromParts, List<IndexPart> toParts, Map<String, String> renamedColumns) {
+        if (fromParts.size() != toParts.size()) {
+            return true;
+        }
+        for (int i = 0; i < fromParts.size(); i++) {
+            IndexPart from = fromParts.get(i);
+            IndexPart to = toParts.get(i);
+            if (from.isFunctional() != to.isFunctional()
+                    || !Objects.equals(from.getSubPart(), to.getSubPart())
+                    || from.isDescending() != to.isDescending()) {
+                return true;
+            }
+            if (from.isFunctional() && !normalizeExpression(from.getExpression()).equals(normalizeExpression(to.getExpression()))) {
+                return true;
+            }
+            if (!from.isFunctional() && !renamedColumns.isEmpty()) {
+                String toName = to.getColumn().getColumnName();
+                toName = renamedColumns.getOrDefault(toName.toLowerCase(), toName);
+                if (!from.getColumn().getColumnName().equalsIgnoreCase(toName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去掉空白与反引号并转为小写, 避免 information_schema 返回格式差异造成误判.
+     */
+    private static String normalizeExpression(String expression) {
+        if (expression == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(expression.length());
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (!Character.isWhitespace(c) && c != '`') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    public static boolean memberChanged(List<ColumnSchema> fromMemberColumns, List<ColumnSchema> toMemberColumns) {
+        return memberChanged(fromMemberColumns, toMemberColumns, Collections.emptyMap());
+    }
+
+    private static boolean memberChanged(List<ColumnSchema> fromMemberColumns,
+                                         List<ColumnSchema> toMemberColumns,
+                                         Map<String, String> renamedColumns) {
+        if (fromMemberColumns.size() != toMemberColumns.size()) {
+            return true;
+        }
+        for (int i = 0; i < fromMemberColumns.size(); i++) {
+            String toName = toMemberColumns.get(i).getColumnName();
+            if (!renamedColumns.isEmpty()) {
+                toName = renamedColumns.getOrDefault(toName.toLowerCase(), toName);
+            }
+            if (!Objects.equals(fromMemberColumns.get(i).getColumnName(), toName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean shouldIgnore(String tableName, String[] ignoreTables) {
+        String lowerTableName = tableName.toLowerCase();
+        for (String ignoreTable : ignoreTables) {
+            ignoreTable = ignoreTable.toLowerCase();
+            if (ignoreTable.equals(lowerTableName)) {
+                return true;
+            }
+            if (ignoreTable.contains("*")) {
+                ignoreTable = ignoreTable.replaceAll("\\*", "");
+                if (lowerTableName.contains(ignoreTable)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * DDL 中渲染的长度: 整数取显示宽度, BIT/BOOLEAN 固定为 1.
+     * 比较与 {@link ColumnAttribute#valueOf} 共用, 保证标记为变化的长度取值也不同.
+     */
+    static int lengthOf(ColumnSchema column) {
+        DataTypeEnum type = column.getDataTypeEnum();
+        if (type == DataTypeEnum.BIT || type == DataTypeEnum.BOOLEAN) {
+            return 1;
+        }
+        if (type != null && type.isIntFamily()) {
+            return column.getDisplayWidth() > 0 ? column.getDisplayWidth() : column.getColumnSize() + 1;
+        }
+        return column.getColumnSize();
+    }
+
+    private static boolean hasScale(DataTypeEnum type) {
+        return type == DataTypeEnum.DECIMAL || type == DataTypeEnum.NUMERIC || type == DataTypeEnum.DOUBLE
+                || type == DataTypeEnum.FLOAT || type == DataTypeEnum.REAL;
+    }
+
+    /**
+     * 与表默认排序规则不同时才会在 DDL 中显式声明, 否则视为 null.
+     */
+    private static String explicitCollation(TableSchema table, ColumnSchema column) {
+        if (Utils.hasText(table.getCollation())
+                && Utils.hasText(column.getCollation())
+                && !column.getCollation().equalsIgnoreCase(table.getCollation())) {
+            return column.getCollation();
+        }
+        return null;
+    }
+
+    private static boolean sameDefault(ColumnSchema target, ColumnSchema current) {
+        String targetDefault = emptyToNull(target.getDefaultValue());
+        String currentDefault = emptyToNull(current.getDefaultValue());
+        if (targetDefault == null || currentDefault == null) {
+            return targetDefault == currentDefault;
+        }
+        // 非字符串默认值 (如 CURRENT_TIMESTAMP) 大小写不敏感
+        return target.isStringColumn() ? targetDefault.equals(currentDefault) : targetDefault.equalsIgnoreCase(currentDefault);
+    }
+
+    private static Set<ColumnAttribute> add(Set<ColumnAttribute> changed, ColumnAttribute attribute) {
+        if (changed == null) {
+            changed = EnumSet.of(attribute);
+        } else {
+            changed.add(attribute);
+        }
+        return changed;
+    }
+
+    private static boolean equalsIgnoreCase(String a, String b) {
+        return a == null ? b == null : a.equalsIgnoreCase(b);
+    }
+
+    private static String emptyToNull(String value) {
+        return Utils.hasLength(value) ? value : null;
+    }
+
+    private static <T> List<T> emptyToNull(List<T> values) {
+        return Utils.isEmpty(values) ? null : values;
+    }
+
+    private static List<TableSchema> sorted(Collection<TableSchema> tables) {
+        List<TableSchema> sorted = new ArrayList<>(tables);
+        sorted.sort(TableSchema.TABLE_NAME_ORDER);
+        return sorted;
+    }
+}
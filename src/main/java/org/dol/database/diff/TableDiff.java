@@ -0,0 +1,57 @@
+package org.dol.database.diff;
+
+import lombok.Getter;
+import org.dol.database.schema.TableSchema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单表变更. ADDED/REMOVED 表只携带表定义, MODIFIED 表携带列、主键、索引与分区的变更.
+ */
+@Getter
+public class TableDiff {
+
+    private final ChangeType changeType;
+    private final TableSchema target;
+    private final TableSchema current;
+    private final List<ColumnDiff> columns;
+    private final List<IndexDiff> indexes;
+    private PrimaryKeyDiff primaryKey;
+    private PartitionDiff partition;
+    /**
+     * 识别出的列重命名, 小写的 current 列名 -> target 列名; 比较索引时按此映射成员列.
+     */
+    private Map<String, String> renamedColumns = Collections.emptyMap();
+
+    public TableDiff(ChangeType changeType, TableSchema target, TableSchema current) {
+        this.changeType = changeType;
+        this.target = target;
+        this.current = current;
+        boolean modified = changeType == ChangeType.MODIFIED;
+        this.columns = modified ? new ArrayList<>() : Collections.emptyList();
+        this.indexes = modified ? new ArrayList<>() : Collections.emptyList();
+    }
+
+    public String getTableName() {
+        return target != null ? target.getTableName() : current.getTableName();
+    }
+
+    public boolean isEmpty() {
+        return changeType == ChangeType.MODIFIED && columns.isEmpty() && indexes.isEmpty() && primaryKey == null && partition == null;
+    }
+
+    void setPrimaryKey(PrimaryKeyDiff primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    void setPartition(PartitionDiff partition) {
+        this.partition = partition;
+    }
+
+    void setRenamedColumns(Map<String, String> renamedColumns) {
+        this.renamedColumns = renamedColumns;
+    }
+}
@@ -0,0 +1,32 @@
+package org.dol.database.schema;
+
+/**
+ * MySQL 字符集相关的常量, 供 ALTER 分类与存储估算共用.
+ */
+public abstract class CharacterSets {
+
+    /**
+     * 字符集单字符最大字节数; 未知字符集按 utf8mb4 处理.
+     */
+    public static int maxBytesPerChar(String characterSet) {
+        if (characterSet == null) {
+            return 4;
+        }
+        switch (characterSet.toLowerCase()) {
+            case "latin1":
+            case "ascii":
+            case "binary":
+                return 1;
+            case "gbk":
+            case "gb2312":
+            case "big5":
+            case "ucs2":
+                return 2;
+            case "utf8":
+            case "utf8mb3":
+                return 3;
+            default:
+                return 4;
+        }
+    }
+}
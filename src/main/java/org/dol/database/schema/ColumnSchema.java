@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.dol.database.utils.Utils;
 
+import java.util.List;
 import java.util.regex.Matcher;
 
 
@@ -54,9 +55,24 @@ public class ColumnSchema {
     private Boolean cachedDeleteUser;
     @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
     private Boolean cachedVersion;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private Boolean cachedDelete;
     private String csPropertyName;
     private String characterSet;
     private String collation;
+    /**
+     * information_schema.COLUMNS.COLUMN_TYPE 原文, 如 {@code int(10) unsigned zerofill}.
+     */
+    private String columnType;
+    /**
+     * 整数类型的显示宽度, 如 int(11) 中的 11; 未声明时为 0.
+     */
+    private int displayWidth;
+    private boolean zerofill;
+    /**
+     * ENUM / SET 的可选值, 其它类型为 null.
+     */
+    private List<String> enumValues;
 
     public Double getColumnLength() {
         if (decimalDigits > 0) {
@@ -244,7 +260,7 @@ public class ColumnSchema {
             return true;
         }
         return (isIntColumn() || dataTypeEnum == DataTypeEnum.BIGINT)
-                && (columnName.toUpperCase().endsWith("TIME") || columnName.toUpperCase().endsWith("DATE"));
+                && (Utils.endsWithIgnoreCase(columnName, "TIME") || Utils.endsWithIgnoreCase(columnName, "DATE"));
     }
 
     public boolean isDeletedColumn() {
@@ -460,12 +476,12 @@ public class ColumnSchema {
 
     public boolean isUrlColumn() {
         return isStringColumn()
-                && (this.columnName.toLowerCase().endsWith("url")
-                || this.columnName.toLowerCase().endsWith("website"));
+                && (Utils.endsWithIgnoreCase(this.columnName, "url")
+                || Utils.endsWithIgnoreCase(this.columnName, "website"));
     }
 
     public boolean isEmailColumn() {
-        return isStringColumn() && this.columnName.toLowerCase().endsWith("email");
+        return isStringColumn() && Utils.endsWithIgnoreCase(this.columnName, "email");
     }
 
     public boolean isRemarkColumn() {
@@ -485,7 +501,7 @@ public class ColumnSchema {
     }
 
     public boolean isMobileColumn() {
-        return isStringColumn() && this.getColumnName().toUpperCase().endsWith("MOBILE");
+        return isStringColumn() && Utils.endsWithIgnoreCase(this.getColumnName(), "MOBILE");
     }
 
     public String getNullCsType() {
@@ -536,6 +552,9 @@ public class ColumnSchema {
     }
 
     public boolean isDeleteColumn() {
-        return SchemaConstraints.DELETE_COLUMN.contains(this.columnName.toUpperCase());
+        if (cachedDelete == null) {
+            cachedDelete = SchemaConstraints.DELETE_COLUMN.contains(this.columnName.toUpperCase());
+        }
+        return cachedDelete;
     }
 }
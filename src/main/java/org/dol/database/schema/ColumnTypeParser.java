@@ -0,0 +1,144 @@
+package org.dol.database.schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MySQL 列类型解析器.
+ * <p>
+ * 支持 JDBC TYPE_NAME ({@code INT UNSIGNED}) 与 information_schema COLUMN_TYPE
+ * ({@code int(10) unsigned zerofill}, {@code decimal(18,4)}, {@code enum('a','b')}, {@code varchar(64)}).
+ * 手写扫描, 不使用正则; 除 ENUM/SET 的取值与未知类型名外不分配对象.
+ */
+public abstract class ColumnTypeParser {
+
+    /**
+     * 解析列类型并写入 column 的 dataTypeName、columnSize、decimalDigits、displayWidth、
+     * unsigned、zerofill、enumValues.
+     */
+    public static void parse(String typeName, ColumnSchema column) {
+        if (typeName == null) {
+            return;
+        }
+        final int length = typeName.length();
+        int pos = skipSpaces(typeName, 0);
+        final int nameStart = pos;
+        while (pos < length && typeName.charAt(pos) != '(' && !isSpace(typeName.charAt(pos))) {
+            pos++;
+        }
+        final int nameEnd = pos;
+        if (nameEnd == nameStart) {
+            return;
+        }
+        final DataTypeEnum dataTypeEnum = DataTypeEnum.get(typeName, nameStart, nameEnd);
+        if (dataTypeEnum != null) {
+            column.setDataTypeName(dataTypeEnum.getDataTypeName());
+        } else {
+            column.setDataTypeName(typeName.substring(nameStart, nameEnd).toUpperCase());
+        }
+
+        pos = skipSpaces(typeName, pos);
+        if (pos < length && typeName.charAt(pos) == '(') {
+            if (dataTypeEnum != null && dataTypeEnum.isEnumOrSet()) {
+                pos = parseValues(typeName, pos + 1, column);
+            } else {
+                pos = parseSize(typeName, pos + 1, dataTypeEnum, column);
+            }
+        }
+
+        while (pos < length) {
+            pos = skipSpaces(typeName, pos);
+            final int wordStart = pos;
+            while (pos < length && !isSpace(typeName.charAt(pos))) {
+                pos++;
+            }
+            final int wordLength = pos - wordStart;
+            if (wordLength == 8 && typeName.regionMatches(true, wordStart, "UNSIGNED", 0, 8)) {
+                column.setUnsigned(true);
+            } else if (wordLength == 8 && typeName.regionMatches(true, wordStart, "ZEROFILL", 0, 8)) {
+                // MySQL 中 ZEROFILL 隐含 UNSIGNED
+                column.setZerofill(true);
+                column.setUnsigned(true);
+            }
+        }
+    }
+
+    private static int parseSize(String typeName, int pos, DataTypeEnum dataTypeEnum, ColumnSchema column) {
+        final int length = typeName.length();
+        int size = 0;
+        int scale = -1;
+        boolean hasSize = false;
+        while (pos < length) {
+            final char c = typeName.charAt(pos++);
+            if (c >= '0' && c <= '9') {
+                if (scale >= 0) {
+                    scale = scale * 10 + (c - '0');
+                } else {
+                    size = size * 10 + (c - '0');
+                    hasSize = true;
+                }
+            } else if (c == ',') {
+                scale = 0;
+            } else if (c == ')') {
+                break;
+            }
+        }
+        if (!hasSize) {
+            return pos;
+        }
+        if (dataTypeEnum != null && dataTypeEnum.isIntFamily()) {
+            column.setDisplayWidth(size);
+        } else if (dataTypeEnum != null && dataTypeEnum.hasFractionalSeconds()) {
+            // 小数秒精度, 如 datetime(3)
+            column.setDecimalDigits(size);
+        } else {
+            column.setColumnSize(size);
+            if (scale >= 0) {
+                column.setDecimalDigits(scale);
+            }
+        }
+        return pos;
+    }
+
+    private static int parseValues(String typeName, int pos, ColumnSchema column) {
+        final int length = typeName.length();
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        while (pos < length) {
+            final char c = typeName.charAt(pos++);
+            if (c == ')') {
+                break;
+            }
+            if (c != '\'') {
+                continue;
+            }
+            value.setLength(0);
+            while (pos < length) {
+                final char v = typeName.charAt(pos++);
+                if (v == '\'') {
+                    if (pos < length && typeName.charAt(pos) == '\'') {
+                        value.append('\'');
+                        pos++;
+                        continue;
+                    }
+                    break;
+                }
+                value.append(v);
+            }
+            values.add(value.toString());
+        }
+        column.setEnumValues(values);
+        return pos;
+    }
+
+    private static int skipSpaces(String typeName, int pos) {
+        while (pos < typeName.length() && isSpace(typeName.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -2,9 +2,6 @@ package org.dol.database.schema;
 
 import lombok.Getter;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @Getter
 public enum DataTypeEnum {
 
@@ -177,15 +174,36 @@ public enum DataTypeEnum {
     // TEXT(0, "VARCHAR", "String", "java.lang.String"),
 
     /**
-     * The Constant KEYED_DATA_TYPE_ENUM.
+     * 按类型名大小写无关的完美哈希表, 在类初始化时搜索一个无冲突的乘数.
+     * 查找时不分配任何对象 (不再 toUpperCase).
      */
-    private static final Map<String, DataTypeEnum> KEYED_DATA_TYPE_ENUM = new HashMap<>();
+    private static final DataTypeEnum[] HASH_TABLE;
+    private static final int            HASH_MASK;
+    private static final int            HASH_MULTIPLIER;
+    private static final int            MAX_NAME_LENGTH;
 
     static {
         final DataTypeEnum[] values = DataTypeEnum.values();
+        int maxLength = 0;
         for (final DataTypeEnum dataTypeEnum : values) {
-            KEYED_DATA_TYPE_ENUM.put(dataTypeEnum.dataTypeName, dataTypeEnum);
+            maxLength = Math.max(maxLength, dataTypeEnum.dataTypeName.length());
+        }
+        int size = Integer.highestOneBit(values.length * 2 - 1) << 1;
+        DataTypeEnum[] table = null;
+        int multiplier = 0;
+        while (table == null) {
+            for (int m = 31; m < 31 + 4096 && table == null; m += 2) {
+                table = tryBuild(values, size - 1, m);
+                multiplier = m;
+            }
+            if (table == null) {
+                size <<= 1;
+            }
         }
+        HASH_TABLE = table;
+        HASH_MASK = size - 1;
+        HASH_MULTIPLIER = multiplier;
+        MAX_NAME_LENGTH = maxLength;
     }
 
     private final String dataTypeName;
@@ -214,7 +232,55 @@ public enum DataTypeEnum {
     }
 
     public static DataTypeEnum get(String dataTypeName) {
-        return KEYED_DATA_TYPE_ENUM.get(dataTypeName.toUpperCase());
+        return dataTypeName == null ? null : get(dataTypeName, 0, dataTypeName.length());
+    }
+
+    /**
+     * 大小写无关地查找 {@code name[start, end)} 对应的类型, 不分配对象.
+     *
+     * @return 对应的类型, 未知类型返回 null
+     */
+    public static DataTypeEnum get(CharSequence name, int start, int end) {
+        final int length = end - start;
+        if (length <= 0 || length > MAX_NAME_LENGTH) {
+            return null;
+        }
+        final DataTypeEnum candidate = HASH_TABLE[hash(name, start, end, HASH_MULTIPLIER) & HASH_MASK];
+        if (candidate == null || candidate.dataTypeName.length() != length) {
+            return null;
+        }
+        final String candidateName = candidate.dataTypeName;
+        for (int i = 0; i < length; i++) {
+            if (upper(name.charAt(start + i)) != candidateName.charAt(i)) {
+                return null;
+            }
+        }
+        return candidate;
+    }
+
+    private static DataTypeEnum[] tryBuild(DataTypeEnum[] values, int mask, int multiplier) {
+        final DataTypeEnum[] table = new DataTypeEnum[mask + 1];
+        for (final DataTypeEnum dataTypeEnum : values) {
+            final String name = dataTypeEnum.dataTypeName;
+            final int slot = hash(name, 0, name.length(), multiplier) & mask;
+            if (table[slot] != null) {
+                return null;
+            }
+            table[slot] = dataTypeEnum;
+        }
+        return table;
+    }
+
+    private static int hash(CharSequence name, int start, int end, int multiplier) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = h * multiplier + upper(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static char upper(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
     }
 
     /**
@@ -262,6 +328,24 @@ public enum DataTypeEnum {
         return this == ENUM || this == SET;
     }
 
+    /**
+     * DDL 中是否带长度/精度声明, 如 VARCHAR(64)、DECIMAL(18,4).
+     * TEXT/BLOB、日期时间、ENUM/SET、JSON 与空间类型不带长度.
+     */
+    public boolean hasLength() {
+        return !(this == TEXT || this == LONGTEXT || this == TINYTEXT || this == MEDIUMTEXT || this == NTEXT
+                || this == BLOB || this == LONGBLOB || this == MEDIUMBLOB || this == TINYBLOB
+                || this == DATE || this == DATETIME || this == TIME || this == TIMESTAMP || this == YEAR
+                || isEnumOrSet() || isJson() || isSpatial());
+    }
+
+    /**
+     * 是否可声明小数秒精度, 如 DATETIME(3)、TIMESTAMP(6)、TIME(3). 精度保存在 decimalDigits 中.
+     */
+    public boolean hasFractionalSeconds() {
+        return this == DATETIME || this == TIMESTAMP || this == TIME;
+    }
+
     /** 是否是整数家族 (INT, INTEGER, BIGINT, SMALLINT, TINYINT, MEDIUMINT). */
     public boolean isIntFamily() {
         return this == INT || this == INTEGER || this == MEDIUMINT
@@ -3,6 +3,7 @@ package org.dol.database.schema;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.dol.database.utils.SchemaFlightRecorder;
 import org.dol.database.utils.Utils;
 
 import java.sql.*;
@@ -11,6 +12,8 @@ import java.util.*;
 @Slf4j
 public class DatabaseSchemaLoader {
 
+    private static volatile SchemaLoadListener registeredListener;
+
     private DatabaseSchemaLoader() {
     }
 
@@ -86,7 +89,6 @@ public class DatabaseSchemaLoader {
                 final String columnName = rs.getString("COLUMN_NAME");
                 final int dataType = rs.getInt("DATA_TYPE");
                 final String rawTypeName = rs.getString("TYPE_NAME");
-                String dataTypeName = rawTypeName.split("\\s")[0];
 
                 final int columnSize = rs.getInt("COLUMN_SIZE");
                 final int decimalDigits = rs.getInt("DECIMAL_DIGITS");
@@ -101,19 +103,21 @@ public class DatabaseSchemaLoader {
                 columnSchema.setRemarks(remarks);
                 columnSchema.setColumnSize(columnSize);
                 columnSchema.setDataType(dataType);
-                columnSchema.setDataTypeName(dataTypeName);
+                ColumnTypeParser.parse(rawTypeName, columnSchema);
                 columnSchema.setAutoIncrement("YES".equalsIgnoreCase(isAutoincrement));
                 columnSchema.setDecimalDigits(decimalDigits);
                 columnSchema.setDefaultValue(defaultValue);
                 columnSchema.setNullable(nullAble == 1);
-                if (rawTypeName.contains("UNSIGNED")) {
-                    columnSchema.setUnsigned(true);
-                }
                 if (!columnDefs.isEmpty()) {
                     Map<String, Object> colDef = columnDefs.get(columnName);
                     if (colDef != null) {
                         columnSchema.setCharacterSet((String) colDef.get("CHARACTER_SET_NAME"));
                         columnSchema.setCollation((String) colDef.get("COLLATION_NAME"));
+                        String columnType = (String) colDef.get("COLUMN_TYPE");
+                        if (columnType != null) {
+                            columnSchema.setColumnType(columnType);
+                            ColumnTypeParser.parse(columnType, columnSchema);
+                        }
                     }
                 }
                 columnSchemas.add(columnSchema);
@@ -122,15 +126,19 @@ public class DatabaseSchemaLoader {
         return columnSchemas;
     }
 
-    private static Map<String, Map<String, Object>> getTableDefFromDB(Connection connection, String catalog) {
+    private static Map<String, Map<String, Object>> getTableDefFromDB(Connection connection, String catalog, Collection<String> tableNames) {
         Map<String, Map<String, Object>> tableDef = new HashMap<>();
-        String sql = "SELECT * from information_schema.`TABLES` s where s.table_schema=?";
+        String sql = "SELECT * from information_schema.`TABLES` s where s.table_schema=?" + tableFilter("s.TABLE_NAME", tableNames);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, catalog);
+            bindCatalog(ps, catalog, tableNames);
             try (ResultSet resultSet = ps.executeQuery()) {
                 while (resultSet.next()) {
                     Map<String, Object> table = new HashMap<>();
                     table.put("TABLE_COLLATION", resultSet.getString("TABLE_COLLATION"));
+                    table.put("ENGINE", resultSet.getString("ENGINE"));
+                    table.put("TABLE_ROWS", resultSet.getLong("TABLE_ROWS"));
+                    table.put("DATA_LENGTH", resultSet.getLong("DATA_LENGTH"));
+                    table.put("INDEX_LENGTH", resultSet.getLong("INDEX_LENGTH"));
                     tableDef.put(resultSet.getString("TABLE_NAME"), table);
                 }
             }
@@ -142,20 +150,22 @@ public class DatabaseSchemaLoader {
 
     /**
      * 一次查询加载整个 catalog 的所有列字符集/排序规则信息.
-     * 返回结构: tableName -> columnName -> {CHARACTER_SET_NAME, COLLATION_NAME}
+     * 返回结构: tableName -> columnName -> {CHARACTER_SET_NAME, COLLATION_NAME, COLUMN_TYPE}
      */
-    private static Map<String, Map<String, Map<String, Object>>> getAllColumnDefsFromDB(Connection connection, String catalog) {
+    private static Map<String, Map<String, Map<String, Object>>> getAllColumnDefsFromDB(Connection connection, String catalog, Collection<String> tableNames) {
         Map<String, Map<String, Map<String, Object>>> result = new HashMap<>();
-        String sql = "SELECT TABLE_NAME,COLUMN_NAME,CHARACTER_SET_NAME,COLLATION_NAME from information_schema.COLUMNS where TABLE_SCHEMA=?";
+        String sql = "SELECT TABLE_NAME,COLUMN_NAME,CHARACTER_SET_NAME,COLLATION_NAME,COLUMN_TYPE from information_schema.COLUMNS where TABLE_SCHEMA=?"
+                + tableFilter("TABLE_NAME", tableNames);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, catalog);
+            bindCatalog(ps, catalog, tableNames);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     String tableName = rs.getString("TABLE_NAME");
                     String columnName = rs.getString("COLUMN_NAME");
-                    Map<String, Object> colDef = new HashMap<>(2);
+                    Map<String, Object> colDef = new HashMap<>(4);
                     colDef.put("CHARACTER_SET_NAME", rs.getString("CHARACTER_SET_NAME"));
                     colDef.put("COLLATION_NAME", rs.getString("COLLATION_NAME"));
+                    colDef.put("COLUMN_TYPE", rs.getString("COLUMN_TYPE"));
                     result.computeIfAbsent(tableName, k -> new HashMap<>()).put(columnName, colDef);
                 }
             }
@@ -232,10 +242,31 @@ public class DatabaseSchemaLoader {
                                       String schema,
                                       String tablePrefix,
                                       boolean loadFromDb) {
+        return load(driverClassName, jdbcUrl, userName, password, catalog, schema, tablePrefix, loadFromDb, null);
+    }
+
+    /**
+     * @param listener 加载事件监听器, 为 null 时使用 ServiceLoader 注册的监听器
+     */
+    @SneakyThrows
+    public static DatabaseSchema load(String driverClassName,
+                                      String jdbcUrl,
+                                      String userName,
+                                      String password,
+                                      String catalog,
+                                      String schema,
+                                      String tablePrefix,
+                                      boolean loadFromDb,
+                                      SchemaLoadListener listener) {
+        if (listener == null) {
+            listener = registeredListener();
+        }
         Connection connection = null;
         try {
+            long start = System.nanoTime();
             connection = getConnection(driverClassName, jdbcUrl, userName, password);
-            return load(connection, catalog, schema, tablePrefix, loadFromDb);
+            listener.onConnectionAcquired(System.nanoTime() - start);
+            return load(connection, catalog, schema, tablePrefix, loadFromDb, listener);
         } finally {
             closeConnection(connection);
         }
@@ -246,6 +277,37 @@ public class DatabaseSchemaLoader {
                                       String schema,
                                       String tablePrefix,
                                       boolean loadFromDb) throws Exception {
+        return load(connection, catalog, schema, tablePrefix, loadFromDb, null);
+    }
+
+    /**
+     * @param listener 加载事件监听器, 为 null 时使用 ServiceLoader 注册的监听器
+     */
+    public static DatabaseSchema load(Connection connection,
+                                      String catalog,
+                                      String schema,
+                                      String tablePrefix,
+                                      boolean loadFromDb,
+                                      SchemaLoadListener listener) throws Exception {
+        return load(connection, catalog, schema, tablePrefix, loadFromDb, listener, null);
+    }
+
+    /**
+     * 只加载 tableNames 中的表 (忽略大小写), information_schema 批量查询同样按表名过滤.
+     *
+     * @param tableNames 为 null 时加载整个 catalog
+     */
+    public static DatabaseSchema load(Connection connection,
+                                      String catalog,
+                                      String schema,
+                                      String tablePrefix,
+                                      boolean loadFromDb,
+                                      SchemaLoadListener listener,
+                                      Collection<String> tableNames) throws Exception {
+        if (listener == null) {
+            listener = registeredListener();
+        }
+        final long loadStart = System.nanoTime();
         if (Utils.isEmpty(catalog)) {
             catalog = connection.getCatalog();
         }
@@ -258,46 +320,231 @@ public class DatabaseSchemaLoader {
         if (Utils.isEmpty(schema)) {
             schema = catalog;
         }
+        listener.onLoadStart(catalog);
+        final Object loadEvent = SchemaFlightRecorder.beginCatalogLoad(catalog);
+        long loadedRows = 0;
 
         DatabaseSchema databaseSchema = new DatabaseSchema();
         final DatabaseMetaData databaseMetaData = connection.getMetaData();
-        final String[] types = {"table", "view"};
+        // H2 等按 SQL 标准返回 BASE TABLE, MySQL 驱动把它当作 TABLE 的同义词
+        final String[] types = {"table", "view", "BASE TABLE"};
         final List<TableSchema> tableSchemas = new ArrayList<>();
 
         // 批量预加载: 1 条 SQL 获取所有表定义, 1 条 SQL 获取所有列字符集 (代替 N+1 查询)
-        Map<String, Map<String, Object>> tableDefs = loadFromDb ? getTableDefFromDB(connection, catalog) : Collections.emptyMap();
-        Map<String, Map<String, Map<String, Object>>> allColumnDefs = loadFromDb ? getAllColumnDefsFromDB(connection, catalog) : Collections.emptyMap();
-        Map<String, String> tableComments = getTableComments(connection, catalog);
+        Map<String, Map<String, Object>> tableDefs = Collections.emptyMap();
+        Map<String, Map<String, Map<String, Object>>> allColumnDefs = Collections.emptyMap();
+        Map<String, List<Map<String, String>>> allForeignKeys = Collections.emptyMap();
+        Map<String, List<Map<String, Object>>> allIndexes = null;
+        Map<String, PartitionSchema> allPartitions = Collections.emptyMap();
+        long start;
+        int rows;
+        Object event;
+        if (loadFromDb) {
+            start = System.nanoTime();
+            event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.TABLE_DEFINITIONS);
+            tableDefs = getTableDefFromDB(connection, catalog, tableNames);
+            rows = tableDefs.size();
+            SchemaFlightRecorder.commitBulkQuery(event, rows);
+            listener.onBulkQuery(SchemaLoadPhase.TABLE_DEFINITIONS, rows, System.nanoTime() - start);
+            loadedRows += rows;
 
+            start = System.nanoTime();
+            event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.COLUMN_DEFINITIONS);
+            allColumnDefs = getAllColumnDefsFromDB(connection, catalog, tableNames);
+            rows = countRows(allColumnDefs.values());
+            SchemaFlightRecorder.commitBulkQuery(event, rows);
+            listener.onBulkQuery(SchemaLoadPhase.COLUMN_DEFINITIONS, rows, System.nanoTime() - start);
+            loadedRows += rows;
+        }
+        start = System.nanoTime();
+        event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.TABLE_COMMENTS);
+        Map<String, String> tableComments = getTableComments(connection, catalog, tableNames);
+        rows = tableComments.size();
+        SchemaFlightRecorder.commitBulkQuery(event, rows);
+        listener.onBulkQuery(SchemaLoadPhase.TABLE_COMMENTS, rows, System.nanoTime() - start);
+        loadedRows += rows;
+        if (loadFromDb) {
+            start = System.nanoTime();
+            event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.FOREIGN_KEYS);
+            allForeignKeys = getAllForeignKeysFromDB(connection, catalog, tableNames);
+            rows = countRows(allForeignKeys.values());
+            SchemaFlightRecorder.commitBulkQuery(event, rows);
+            listener.onBulkQuery(SchemaLoadPhase.FOREIGN_KEYS, rows, System.nanoTime() - start);
+            loadedRows += rows;
+
+            start = System.nanoTime();
+            event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.INDEX_STATISTICS);
+            allIndexes = getAllIndexesFromDB(connection, catalog, tableNames);
+            rows = allIndexes == null ? 0 : countRows(allIndexes.values());
+            SchemaFlightRecorder.commitBulkQuery(event, rows);
+            listener.onBulkQuery(SchemaLoadPhase.INDEX_STATISTICS, rows, System.nanoTime() - start);
+            loadedRows += rows;
+
+            start = System.nanoTime();
+            event = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.PARTITIONS);
+            allPartitions = getAllPartitionsFromDB(connection, catalog, tableNames);
+            rows = 0;
+            for (PartitionSchema partitioning : allPartitions.values()) {
+                rows += partitioning.getPartitions().size();
+            }
+            SchemaFlightRecorder.commitBulkQuery(event, rows);
+            listener.onBulkQuery(SchemaLoadPhase.PARTITIONS, rows, System.nanoTime() - start);
+            loadedRows += rows;
+        }
+
+        start = System.nanoTime();
+        final Object tableListEvent = SchemaFlightRecorder.beginBulkQuery(catalog, SchemaLoadPhase.TABLE_LIST);
+        final Set<String> wantedTables = lowerCaseNames(tableNames);
         try (ResultSet rs = databaseMetaData.getTables(catalog, schema, null, types)) {
+            final long tableListNanos = System.nanoTime() - start;
             while (rs.next()) {
+                if (wantedTables != null && !wantedTables.contains(rs.getString("TABLE_NAME").toLowerCase())) {
+                    continue;
+                }
+                final long tableStart = System.nanoTime();
+                final Object tableEvent = SchemaFlightRecorder.beginTableLoad(rs.getString("TABLE_NAME"));
+                int tableRows = 0;
                 final TableSchema tableSchema = new TableSchema(tablePrefix);
                 tableSchema.setTableCatalog(rs.getString("TABLE_CAT"));
                 tableSchema.setTableName(rs.getString("TABLE_NAME"));
                 tableSchema.setComment(rs.getString("REMARKS"));
-                Map<String, Map<String, Object>> columnDefs = allColumnDefs.getOrDefault(tableSchema.getTableName(), Collections.emptyMap());
+                final String tableName = tableSchema.getTableName();
+                Map<String, Map<String, Object>> columnDefs = allColumnDefs.getOrDefault(tableName, Collections.emptyMap());
+                start = System.nanoTime();
                 final List<ColumnSchema> columnSchemas = getColumns(connection, catalog, schema, tableSchema, columnDefs);
+                listener.onTableQuery(tableName, SchemaLoadPhase.COLUMNS, columnSchemas.size(), System.nanoTime() - start);
+                tableRows += columnSchemas.size();
                 tableSchema.setColumns(columnSchemas);
-                tableSchema.setIndexes(getIndexes(connection, catalog, schema, tableSchema));
+                if (allIndexes != null) {
+                    tableSchema.setIndexes(toIndexes(tableSchema, allIndexes.getOrDefault(tableName, Collections.emptyList())));
+                } else {
+                    start = System.nanoTime();
+                    tableSchema.setIndexes(getIndexes(connection, catalog, schema, tableSchema));
+                    rows = countMembers(tableSchema.getIndexes());
+                    listener.onTableQuery(tableName, SchemaLoadPhase.INDEXES, rows, System.nanoTime() - start);
+                    tableRows += rows;
+                }
+                start = System.nanoTime();
                 tableSchema.setPrimaryKey(getPrimaryKey(connection, catalog, schema, tableSchema));
+                rows = tableSchema.getPrimaryKey().getMemberColumns().size();
+                listener.onTableQuery(tableName, SchemaLoadPhase.PRIMARY_KEY, rows, System.nanoTime() - start);
+                tableRows += rows;
                 tableSchema.setView(rs.getString(4).equals("VIEW"));
+                List<Map<String, String>> foreignKeyRows = allForeignKeys.get(tableName);
+                if (foreignKeyRows != null) {
+                    tableSchema.setForeignKeys(toForeignKeys(tableSchema, catalog, foreignKeyRows));
+                }
+                tableSchema.setPartitioning(allPartitions.get(tableName));
                 if (tableSchema.isTable() && !tableDefs.isEmpty()) {
-                    Map<String, Object> td = tableDefs.get(tableSchema.getTableName());
+                    Map<String, Object> td = tableDefs.get(tableName);
                     if (td != null) {
                         tableSchema.setCollation((String) td.get("TABLE_COLLATION"));
+                        tableSchema.setEngine((String) td.get("ENGINE"));
+                        tableSchema.setTableRows((Long) td.get("TABLE_ROWS"));
+                        tableSchema.setDataLength((Long) td.get("DATA_LENGTH"));
+                        tableSchema.setIndexLength((Long) td.get("INDEX_LENGTH"));
                     }
                 }
                 // 补充 comment (从批量查询结果)
                 if (!Utils.hasText(tableSchema.getComment())) {
-                    tableSchema.setComment(tableComments.getOrDefault(tableSchema.getTableName(), ""));
+                    tableSchema.setComment(tableComments.getOrDefault(tableName, ""));
                 }
                 tableSchemas.add(tableSchema);
+                SchemaFlightRecorder.commitTableLoad(tableEvent, tableRows, tableSchema.getDataLength() + tableSchema.getIndexLength());
+                listener.onTableLoaded(tableName, System.nanoTime() - tableStart);
+                loadedRows += tableRows;
             }
+            SchemaFlightRecorder.commitBulkQuery(tableListEvent, tableSchemas.size());
+            listener.onBulkQuery(SchemaLoadPhase.TABLE_LIST, tableSchemas.size(), tableListNanos);
         }
         databaseSchema.setTables(tableSchemas);
+        SchemaFlightRecorder.commitCatalogLoad(loadEvent, tableSchemas.size(), loadedRows);
+        listener.onLoadFinish(catalog, tableSchemas.size(), System.nanoTime() - loadStart);
         return databaseSchema;
     }
 
+    /**
+     * ServiceLoader 注册的监听器, 首次使用时加载.
+     */
+    private static SchemaLoadListener registeredListener() {
+        SchemaLoadListener listener = registeredListener;
+        if (listener == null) {
+            List<SchemaLoadListener> listeners = new ArrayList<>();
+            try {
+                for (SchemaLoadListener registered : ServiceLoader.load(SchemaLoadListener.class)) {
+                    listeners.add(registered);
+                }
+            } catch (ServiceConfigurationError error) {
+                log.warn("Failed to load SchemaLoadListener implementations", error);
+            }
+            listener = SchemaLoadListener.composite(listeners);
+            registeredListener = listener;
+        }
+        return listener;
+    }
+
+    private static Set<String> lowerCaseNames(Collection<String> tableNames) {
+        if (tableNames == null) {
+            return null;
+        }
+        Set<String> names = new HashSet<>(tableNames.size() * 2);
+        for (String tableName : tableNames) {
+            names.add(tableName.toLowerCase());
+        }
+        return names;
+    }
+
+    /**
+     * tableNames 为 null 时不过滤, 否则生成 {@code AND column IN (?,...)}, 由 {@link #bindCatalog} 绑定参数.
+     */
+    private static String tableFilter(String column, Collection<String> tableNames) {
+        if (tableNames == null) {
+            return "";
+        }
+        if (tableNames.isEmpty()) {
+            return " AND 1=0";
+        }
+        StringBuilder sb = new StringBuilder(" AND ").append(column).append(" IN (?");
+        for (int i = 1; i < tableNames.size(); i++) {
+            sb.append(",?");
+        }
+        return sb.append(")").toString();
+    }
+
+    private static void bindCatalog(PreparedStatement ps, String catalog, Collection<String> tableNames) throws SQLException {
+        ps.setString(1, catalog);
+        if (tableNames != null) {
+            int index = 2;
+            for (String tableName : tableNames) {
+                ps.setString(index++, tableName);
+            }
+        }
+    }
+
+    private static int countRows(Collection<? extends Map<?, ?>> grouped) {
+        int rows = 0;
+        for (Map<?, ?> group : grouped) {
+            rows += group.size();
+        }
+        return rows;
+    }
+
+    private static int countRows(Iterable<? extends List<?>> grouped) {
+        int rows = 0;
+        for (List<?> group : grouped) {
+            rows += group.size();
+        }
+        return rows;
+    }
+
+    private static int countMembers(List<IndexSchema> indexes) {
+        int rows = 0;
+        for (IndexSchema index : indexes) {
+            rows += index.getMemberColumns().size();
+        }
+        return rows;
+    }
+
     private static Connection getConnection(String driverClassName,
                                             String jdbcUrl,
                                             String userName,
@@ -310,15 +557,188 @@ public class DatabaseSchemaLoader {
         }
     }
 
+    /**
+     * 一次查询加载整个 catalog 的所有外键列.
+     * 返回结构: tableName -> 按约束名、列序号排序的行 (列名同查询字段名)
+     */
+    private static Map<String, List<Map<String, String>>> getAllForeignKeysFromDB(Connection connection, String catalog, Collection<String> tableNames) {
+        Map<String, List<Map<String, String>>> result = new HashMap<>();
+        String sql = "SELECT k.TABLE_NAME,k.CONSTRAINT_NAME,k.COLUMN_NAME,k.REFERENCED_TABLE_SCHEMA,"
+                + "k.REFERENCED_TABLE_NAME,k.REFERENCED_COLUMN_NAME,r.UPDATE_RULE,r.DELETE_RULE"
+                + " FROM information_schema.KEY_COLUMN_USAGE k"
+                + " JOIN information_schema.REFERENTIAL_CONSTRAINTS r"
+                + " ON r.CONSTRAINT_SCHEMA=k.CONSTRAINT_SCHEMA AND r.TABLE_NAME=k.TABLE_NAME AND r.CONSTRAINT_NAME=k.CONSTRAINT_NAME"
+                + " WHERE k.TABLE_SCHEMA=? AND k.REFERENCED_TABLE_NAME IS NOT NULL" + tableFilter("k.TABLE_NAME", tableNames)
+                + " ORDER BY k.TABLE_NAME,k.CONSTRAINT_NAME,k.ORDINAL_POSITION";
+        String[] fields = {"CONSTRAINT_NAME", "COLUMN_NAME", "REFERENCED_TABLE_SCHEMA",
+                "REFERENCED_TABLE_NAME", "REFERENCED_COLUMN_NAME", "UPDATE_RULE", "DELETE_RULE"};
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindCatalog(ps, catalog, tableNames);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, String> row = new HashMap<>(8);
+                    for (String field : fields) {
+                        row.put(field, rs.getString(field));
+                    }
+                    result.computeIfAbsent(rs.getString("TABLE_NAME"), k -> new ArrayList<>()).add(row);
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to load foreign keys from information_schema", ex);
+        }
+        return result;
+    }
+
+    /**
+     * 一次查询加载整个 catalog 的所有索引键部分 (不含主键), 查询失败时返回 null.
+     * IS_VISIBLE 与 EXPRESSION 仅 MySQL 8 提供, 不存在时按可见、非函数索引处理.
+     * 返回结构: tableName -> 按索引名、SEQ_IN_INDEX 排序的行
+     */
+    private static Map<String, List<Map<String, Object>>> getAllIndexesFromDB(Connection connection, String catalog, Collection<String> tableNames) {
+        Map<String, List<Map<String, Object>>> result = new HashMap<>();
+        String sql = "SELECT * FROM information_schema.STATISTICS WHERE TABLE_SCHEMA=? AND INDEX_NAME<>'PRIMARY'" + tableFilter("TABLE_NAME", tableNames)
+                + " ORDER BY TABLE_NAME,INDEX_NAME,SEQ_IN_INDEX";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindCatalog(ps, catalog, tableNames);
+            try (ResultSet rs = ps.executeQuery()) {
+                Set<String> labels = new HashSet<>();
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    labels.add(metaData.getColumnLabel(i).toUpperCase());
+                }
+                boolean hasVisible = labels.contains("IS_VISIBLE");
+                boolean hasExpression = labels.contains("EXPRESSION");
+                while (rs.next()) {
+                    Map<String, Object> row = new HashMap<>(16);
+                    row.put("INDEX_NAME", rs.getString("INDEX_NAME"));
+                    row.put("NON_UNIQUE", rs.getInt("NON_UNIQUE"));
+                    row.put("COLUMN_NAME", rs.getString("COLUMN_NAME"));
+                    row.put("COLLATION", rs.getString("COLLATION"));
+                    row.put("CARDINALITY", rs.getLong("CARDINALITY"));
+                    int subPart = rs.getInt("SUB_PART");
+                    row.put("SUB_PART", rs.wasNull() ? null : subPart);
+                    row.put("INDEX_TYPE", rs.getString("INDEX_TYPE"));
+                    row.put("INDEX_COMMENT", rs.getString("INDEX_COMMENT"));
+                    row.put("IS_VISIBLE", hasVisible ? rs.getString("IS_VISIBLE") : "YES");
+                    row.put("EXPRESSION", hasExpression ? rs.getString("EXPRESSION") : null);
+                    result.computeIfAbsent(rs.getString("TABLE_NAME"), k -> new ArrayList<>()).add(row);
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to load indexes from information_schema, falling back to JDBC metadata", ex);
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * 一次查询加载整个 catalog 的所有分区表. 子分区只保留所属分区.
+     * 返回结构: tableName -> 分区定义 (非分区表不在结果中)
+     */
+    private static Map<String, PartitionSchema> getAllPartitionsFromDB(Connection connection, String catalog, Collection<String> tableNames) {
+        Map<String, PartitionSchema> result = new HashMap<>();
+        String sql = "SELECT TABLE_NAME,PARTITION_NAME,PARTITION_METHOD,PARTITION_EXPRESSION,PARTITION_DESCRIPTION,"
+                + "PARTITION_COMMENT,TABLE_ROWS FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA=? AND PARTITION_NAME IS NOT NULL" + tableFilter("TABLE_NAME", tableNames)
+                + " ORDER BY TABLE_NAME,PARTITION_ORDINAL_POSITION,SUBPARTITION_ORDINAL_POSITION";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            bindCatalog(ps, catalog, tableNames);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    PartitionSchema partitioning = result.computeIfAbsent(rs.getString("TABLE_NAME"), k -> new PartitionSchema());
+                    partitioning.setMethod(rs.getString("PARTITION_METHOD"));
+                    partitioning.setExpression(rs.getString("PARTITION_EXPRESSION"));
+                    String partitionName = rs.getString("PARTITION_NAME");
+                    List<PartitionDefinition> partitions = partitioning.getPartitions();
+                    if (!partitions.isEmpty() && partitions.get(partitions.size() - 1).getPartitionName().equals(partitionName)) {
+                        continue;
+                    }
+                    PartitionDefinition partition = new PartitionDefinition(partitionName, rs.getString("PARTITION_DESCRIPTION"));
+                    partition.setComment(rs.getString("PARTITION_COMMENT"));
+                    partition.setTableRows(rs.getLong("TABLE_ROWS"));
+                    partitions.add(partition);
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to load partitions from information_schema", ex);
+        }
+        return result;
+    }
+
+    private static List<IndexSchema> toIndexes(TableSchema tableSchema, List<Map<String, Object>> rows) {
+        List<IndexSchema> indexes = new ArrayList<>();
+        IndexSchema index = null;
+        for (Map<String, Object> row : rows) {
+            String indexName = (String) row.get("INDEX_NAME");
+            if (index == null || !index.getIndexName().equals(indexName)) {
+                index = new IndexSchema();
+                index.setIndexName(indexName);
+                index.setUnique((Integer) row.get("NON_UNIQUE") == 0);
+                index.setIndexType((String) row.get("INDEX_TYPE"));
+                index.setComment((String) row.get("INDEX_COMMENT"));
+                index.setVisible(!"NO".equalsIgnoreCase((String) row.get("IS_VISIBLE")));
+                index.setMemberColumns(new ArrayList<>());
+                index.setKeyParts(new ArrayList<>());
+                indexes.add(index);
+            }
+            IndexPart part;
+            String expression = (String) row.get("EXPRESSION");
+            if (expression != null) {
+                part = IndexPart.ofExpression(expression);
+            } else {
+                ColumnSchema column = tableSchema.getColumn((String) row.get("COLUMN_NAME"));
+                if (column == null) {
+                    continue;
+                }
+                part = IndexPart.of(column);
+                part.setSubPart((Integer) row.get("SUB_PART"));
+                index.getMemberColumns().add(column);
+            }
+            part.setDescending("D".equals(row.get("COLLATION")));
+            index.getKeyParts().add(part);
+            index.setOrder((String) row.get("COLLATION"));
+            // 最后一个键部分的基数即整个索引的基数
+            index.setCardinality((Long) row.get("CARDINALITY"));
+        }
+        return indexes;
+    }
+
+    private static List<ForeignKeySchema> toForeignKeys(TableSchema tableSchema, String catalog, List<Map<String, String>> rows) {
+        List<ForeignKeySchema> foreignKeys = new ArrayList<>();
+        ForeignKeySchema foreignKey = null;
+        for (Map<String, String> row : rows) {
+            String constraintName = row.get("CONSTRAINT_NAME");
+            if (foreignKey == null || !foreignKey.getConstraintName().equals(constraintName)) {
+                foreignKey = new ForeignKeySchema();
+                foreignKey.setConstraintName(constraintName);
+                foreignKey.setMemberColumns(new ArrayList<>());
+                String referencedCatalog = row.get("REFERENCED_TABLE_SCHEMA");
+                foreignKey.setReferencedCatalog(referencedCatalog == null || referencedCatalog.equalsIgnoreCase(catalog) ? null : referencedCatalog);
+                foreignKey.setReferencedTableName(row.get("REFERENCED_TABLE_NAME"));
+                foreignKey.setReferencedColumnNames(new ArrayList<>());
+                foreignKey.setUpdateRule(row.get("UPDATE_RULE"));
+                foreignKey.setDeleteRule(row.get("DELETE_RULE"));
+                foreignKeys.add(foreignKey);
+            }
+            ColumnSchema column = tableSchema.getColumn(row.get("COLUMN_NAME"));
+            if (column != null) {
+                foreignKey.getMemberColumns().add(column);
+                foreignKey.getReferencedColumnNames().add(row.get("REFERENCED_COLUMN_NAME"));
+            }
+        }
+        return foreignKeys;
+    }
+
     /**
      * 一次查询加载整个 catalog 的所有表注释.
      * 替代原来的 N 条 SHOW CREATE TABLE 查询.
      */
-    private static Map<String, String> getTableComments(Connection connection, String catalog) {
+    private static Map<String, String> getTableComments(Connection connection, String catalog, Collection<String> tableNames) {
         Map<String, String> comments = new HashMap<>();
-        String sql = "SELECT TABLE_NAME, TABLE_COMMENT FROM information_schema.TABLES WHERE TABLE_SCHEMA=?";
+        String sql = "SELECT TABLE_NAME, TABLE_COMMENT FROM information_schema.TABLES WHERE TABLE_SCHEMA=?"
+                + tableFilter("TABLE_NAME", tableNames);
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, catalog);
+            bindCatalog(ps, catalog, tableNames);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     String comment = rs.getString("TABLE_COMMENT");
@@ -0,0 +1,33 @@
+package org.dol.database.schema;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 外键约束. 被引用的表可能不在同一个 {@link DatabaseSchema} 中, 因此只保存表名与列名.
+ */
+@Data
+public class ForeignKeySchema {
+
+    private String constraintName;
+    private List<ColumnSchema> memberColumns;
+    /**
+     * 被引用表所在的库, 与当前库相同时为 null.
+     */
+    private String referencedCatalog;
+    private String referencedTableName;
+    private List<String> referencedColumnNames;
+    /**
+     * RESTRICT / CASCADE / SET NULL / NO ACTION / SET DEFAULT.
+     */
+    private String updateRule;
+    private String deleteRule;
+
+    /**
+     * 引用的是自身 (如树形结构的 parent_id).
+     */
+    public boolean isSelfReference(TableSchema table) {
+        return referencedCatalog == null && table.getTableName().equalsIgnoreCase(referencedTableName);
+    }
+}
@@ -0,0 +1,42 @@
+package org.dol.database.schema;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 索引的一个键部分: 列 (可带前缀长度与降序) 或函数索引表达式.
+ */
+@Getter
+@Setter
+public class IndexPart {
+
+    /**
+     * 函数索引键部分时为 null.
+     */
+    private ColumnSchema column;
+    /**
+     * 前缀长度, 字符类型为字符数, 二进制类型为字节数; 整列索引时为 null.
+     */
+    private Integer subPart;
+    private boolean descending;
+    /**
+     * MySQL 8 函数索引表达式 (不含外层括号).
+     */
+    private String expression;
+
+    public static IndexPart of(ColumnSchema column) {
+        IndexPart part = new IndexPart();
+        part.setColumn(column);
+        return part;
+    }
+
+    public static IndexPart ofExpression(String expression) {
+        IndexPart part = new IndexPart();
+        part.setExpression(expression);
+        return part;
+    }
+
+    public boolean isFunctional() {
+        return column == null;
+    }
+}
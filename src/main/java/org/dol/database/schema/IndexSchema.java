@@ -2,6 +2,7 @@ package org.dol.database.schema;
 
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -11,7 +12,60 @@ public class IndexSchema {
     private boolean isUnique;
     private short type;
     private String order;
+    /**
+     * 列键部分对应的列, 不含函数索引表达式.
+     */
     private List<ColumnSchema> memberColumns;
+    /**
+     * BTREE / HASH / FULLTEXT / SPATIAL, 为 null 时按 BTREE 处理.
+     */
+    private String indexType;
+    private boolean visible = true;
+    /**
+     * information_schema.STATISTICS 中最后一个键部分的 CARDINALITY (估算值).
+     */
+    private long cardinality;
+    private String comment;
+    private List<IndexPart> keyParts;
+
+    /**
+     * 完整的键部分; 未设置时由 memberColumns 生成 (整列、升序).
+     */
+    public List<IndexPart> getKeyParts() {
+        if (keyParts != null) {
+            return keyParts;
+        }
+        List<IndexPart> parts = new ArrayList<>();
+        if (memberColumns != null) {
+            for (ColumnSchema column : memberColumns) {
+                parts.add(IndexPart.of(column));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 是否显式设置了键部分; 为 false 时键部分完全由 memberColumns 决定 (整列、升序).
+     */
+    public boolean hasExplicitKeyParts() {
+        return keyParts != null;
+    }
+
+    public boolean hasKeyParts() {
+        return keyParts != null ? !keyParts.isEmpty() : memberColumns != null && !memberColumns.isEmpty();
+    }
+
+    public boolean isFulltext() {
+        return "FULLTEXT".equalsIgnoreCase(indexType);
+    }
+
+    public boolean isSpatial() {
+        return "SPATIAL".equalsIgnoreCase(indexType);
+    }
+
+    public boolean isBtree() {
+        return indexType == null || "BTREE".equalsIgnoreCase(indexType);
+    }
 
     public String getDisplayNameAndValues(String prefix) {
         final StringBuilder sb = new StringBuilder();
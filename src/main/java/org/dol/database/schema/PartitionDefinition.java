@@ -0,0 +1,37 @@
+package org.dol.database.schema;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 单个分区.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionDefinition {
+
+    private String partitionName;
+    /**
+     * information_schema.PARTITIONS.PARTITION_DESCRIPTION: RANGE 为上界 (或 MAXVALUE),
+     * LIST 为取值列表, HASH/KEY 为 null.
+     */
+    private String description;
+    private String comment;
+    /**
+     * 分区行数估算值.
+     */
+    private long tableRows;
+
+    public PartitionDefinition(String partitionName, String description) {
+        this.partitionName = partitionName;
+        this.description = description;
+    }
+
+    public boolean isMaxValue() {
+        return description != null && description.trim().equalsIgnoreCase("MAXVALUE");
+    }
+}
@@ -0,0 +1,53 @@
+package org.dol.database.schema;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表的分区方式与分区列表. 子分区不在模型中.
+ */
+@Getter
+@Setter
+public class PartitionSchema {
+
+    /**
+     * RANGE / RANGE COLUMNS / LIST / LIST COLUMNS / HASH / LINEAR HASH / KEY / LINEAR KEY.
+     */
+    private String method;
+    /**
+     * 分区表达式, COLUMNS 与 KEY 分区为列名列表.
+     */
+    private String expression;
+    private List<PartitionDefinition> partitions = new ArrayList<>();
+
+    public boolean isRange() {
+        return method != null && method.toUpperCase().startsWith("RANGE");
+    }
+
+    public boolean isList() {
+        return method != null && method.toUpperCase().startsWith("LIST");
+    }
+
+    /**
+     * HASH / KEY 分区只有分区数, 没有取值定义.
+     */
+    public boolean isHashOrKey() {
+        return !isRange() && !isList();
+    }
+
+    public boolean isColumns() {
+        return method != null && method.toUpperCase().endsWith("COLUMNS");
+    }
+
+    public PartitionDefinition getPartition(String partitionName) {
+        for (PartitionDefinition partition : partitions) {
+            if (partition.getPartitionName().equalsIgnoreCase(partitionName)) {
+                return partition;
+            }
+        }
+        return null;
+    }
+}
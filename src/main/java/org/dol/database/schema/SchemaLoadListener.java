@@ -0,0 +1,90 @@
+package org.dol.database.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * {@link DatabaseSchemaLoader} 的加载事件回调, 在加载线程中同步调用, 耗时单位为纳秒.
+ * rows 为该次查询产生的条目数 (表、列、索引列等).
+ * <p>
+ * 未显式传入监听器时, 加载器使用通过 {@link ServiceLoader} 注册
+ * (META-INF/services/org.dol.database.schema.SchemaLoadListener) 的全部实现.
+ */
+public interface SchemaLoadListener {
+
+    SchemaLoadListener NONE = new SchemaLoadListener() {
+    };
+
+    default void onLoadStart(String catalog) {
+    }
+
+    default void onConnectionAcquired(long nanos) {
+    }
+
+    /**
+     * 整个 catalog 一次的查询: getTables 与 information_schema 批量查询.
+     */
+    default void onBulkQuery(SchemaLoadPhase phase, int rows, long nanos) {
+    }
+
+    /**
+     * 单表的 getColumns / getIndexInfo / getPrimaryKeys.
+     */
+    default void onTableQuery(String tableName, SchemaLoadPhase phase, int rows, long nanos) {
+    }
+
+    /**
+     * 单表加载完成, nanos 为该表所有查询与组装的总耗时.
+     */
+    default void onTableLoaded(String tableName, long nanos) {
+    }
+
+    default void onLoadFinish(String catalog, int tableCount, long nanos) {
+    }
+
+    /**
+     * 依次通知 listeners; 为空时返回 {@link #NONE}.
+     */
+    static SchemaLoadListener composite(List<? extends SchemaLoadListener> listeners) {
+        if (listeners.isEmpty()) {
+            return NONE;
+        }
+        if (listeners.size() == 1) {
+            return listeners.get(0);
+        }
+        List<SchemaLoadListener> copy = Collections.unmodifiableList(new ArrayList<>(listeners));
+        return new SchemaLoadListener() {
+            @Override
+            public void onLoadStart(String catalog) {
+                copy.forEach(listener -> listener.onLoadStart(catalog));
+            }
+
+            @Override
+            public void onConnectionAcquired(long nanos) {
+                copy.forEach(listener -> listener.onConnectionAcquired(nanos));
+            }
+
+            @Override
+            public void onBulkQuery(SchemaLoadPhase phase, int rows, long nanos) {
+                copy.forEach(listener -> listener.onBulkQuery(phase, rows, nanos));
+            }
+
+            @Override
+            public void onTableQuery(String tableName, SchemaLoadPhase phase, int rows, long nanos) {
+                copy.forEach(listener -> listener.onTableQuery(tableName, phase, rows, nanos));
+            }
+
+            @Override
+            public void onTableLoaded(String tableName, long nanos) {
+                copy.forEach(listener -> listener.onTableLoaded(tableName, nanos));
+            }
+
+            @Override
+            public void onLoadFinish(String catalog, int tableCount, long nanos) {
+                copy.forEach(listener -> listener.onLoadFinish(catalog, tableCount, nanos));
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package org.dol.database.schema;
+
+/**
+ * 将加载事件转为计数器与直方图, 通过 {@link Sink} 接入任意指标库 (Micrometer、Prometheus client 等),
+ * 本库不依赖具体实现. phase 作为标签, 整体与单表耗时的 phase 为 null.
+ */
+public class SchemaLoadMetricsListener implements SchemaLoadListener {
+
+    public static final String QUERIES = "schema.load.queries";
+    public static final String ROWS = "schema.load.rows";
+    public static final String QUERY_DURATION = "schema.load.query.duration";
+    public static final String TABLE_DURATION = "schema.load.table.duration";
+    public static final String LOAD_DURATION = "schema.load.duration";
+    public static final String TABLES = "schema.load.tables";
+
+    public interface Sink {
+
+        void increment(String name, SchemaLoadPhase phase, long amount);
+
+        void record(String name, SchemaLoadPhase phase, long nanos);
+    }
+
+    private final Sink sink;
+
+    public SchemaLoadMetricsListener(Sink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void onConnectionAcquired(long nanos) {
+        sink.record(QUERY_DURATION, SchemaLoadPhase.CONNECTION, nanos);
+    }
+
+    @Override
+    public void onBulkQuery(SchemaLoadPhase phase, int rows, long nanos) {
+        query(phase, rows, nanos);
+    }
+
+    @Override
+    public void onTableQuery(String tableName, SchemaLoadPhase phase, int rows, long nanos) {
+        query(phase, rows, nanos);
+    }
+
+    @Override
+    public void onTableLoaded(String tableName, long nanos) {
+        sink.record(TABLE_DURATION, null, nanos);
+    }
+
+    @Override
+    public void onLoadFinish(String catalog, int tableCount, long nanos) {
+        sink.increment(TABLES, null, tableCount);
+        sink.record(LOAD_DURATION, null, nanos);
+    }
+
+    private void query(SchemaLoadPhase phase, int rows, long nanos) {
+        sink.increment(QUERIES, phase, 1);
+        sink.increment(ROWS, phase, rows);
+        sink.record(QUERY_DURATION, phase, nanos);
+    }
+}
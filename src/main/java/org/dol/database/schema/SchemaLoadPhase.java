@@ -0,0 +1,32 @@
+package org.dol.database.schema;
+
+/**
+ * {@link DatabaseSchemaLoader} 的加载阶段. 批量阶段整个 catalog 只执行一次, 其余阶段每表执行一次.
+ */
+public enum SchemaLoadPhase {
+
+    CONNECTION(true),
+    /**
+     * DatabaseMetaData.getTables, 行数为表数.
+     */
+    TABLE_LIST(true),
+    TABLE_DEFINITIONS(true),
+    COLUMN_DEFINITIONS(true),
+    TABLE_COMMENTS(true),
+    FOREIGN_KEYS(true),
+    INDEX_STATISTICS(true),
+    PARTITIONS(true),
+    COLUMNS(false),
+    INDEXES(false),
+    PRIMARY_KEY(false);
+
+    private final boolean bulk;
+
+    SchemaLoadPhase(boolean bulk) {
+        this.bulk = bulk;
+    }
+
+    public boolean isBulk() {
+        return bulk;
+    }
+}
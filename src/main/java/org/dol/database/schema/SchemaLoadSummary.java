@@ -0,0 +1,140 @@
+package org.dol.database.schema;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置的加载统计: 各阶段调用次数、行数与耗时, 最慢的表, 整体吞吐.
+ * 可多次加载复用, 统计累加; 方法线程安全.
+ */
+public class SchemaLoadSummary implements SchemaLoadListener {
+
+    private final Map<SchemaLoadPhase, long[]> phases = new EnumMap<>(SchemaLoadPhase.class);
+    private final Map<String, Long> tableNanos = new HashMap<>();
+    private String catalog;
+    private int tableCount;
+    private long totalNanos;
+
+    @Override
+    public synchronized void onLoadStart(String catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public void onConnectionAcquired(long nanos) {
+        add(SchemaLoadPhase.CONNECTION, 0, nanos);
+    }
+
+    @Override
+    public void onBulkQuery(SchemaLoadPhase phase, int rows, long nanos) {
+        add(phase, rows, nanos);
+    }
+
+    @Override
+    public void onTableQuery(String tableName, SchemaLoadPhase phase, int rows, long nanos) {
+        add(phase, rows, nanos);
+    }
+
+    @Override
+    public synchronized void onTableLoaded(String tableName, long nanos) {
+        tableNanos.merge(tableName, nanos, Long::sum);
+    }
+
+    @Override
+    public synchronized void onLoadFinish(String catalog, int tableCount, long nanos) {
+        this.tableCount += tableCount;
+        this.totalNanos += nanos;
+    }
+
+    private synchronized void add(SchemaLoadPhase phase, int rows, long nanos) {
+        long[] stats = phases.computeIfAbsent(phase, k -> new long[3]);
+        stats[0]++;
+        stats[1] += rows;
+        stats[2] += nanos;
+    }
+
+    public synchronized long getCalls(SchemaLoadPhase phase) {
+        long[] stats = phases.get(phase);
+        return stats == null ? 0 : stats[0];
+    }
+
+    public synchronized long getRows(SchemaLoadPhase phase) {
+        long[] stats = phases.get(phase);
+        return stats == null ? 0 : stats[1];
+    }
+
+    public synchronized long getNanos(SchemaLoadPhase phase) {
+        long[] stats = phases.get(phase);
+        return stats == null ? 0 : stats[2];
+    }
+
+    /**
+     * 除 TABLE_LIST 外所有查询产生的行数 (TABLE_LIST 的行与各表重复).
+     */
+    public synchronized long getTotalRows() {
+        long rows = 0;
+        for (Map.Entry<SchemaLoadPhase, long[]> entry : phases.entrySet()) {
+            if (entry.getKey() != SchemaLoadPhase.TABLE_LIST) {
+                rows += entry.getValue()[1];
+            }
+        }
+        return rows;
+    }
+
+    public synchronized int getTableCount() {
+        return tableCount;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized double getRowsPerSecond() {
+        return totalNanos == 0 ? 0 : getTotalRows() * 1_000_000_000.0 / totalNanos;
+    }
+
+    /**
+     * 耗时最长的 topN 张表, 按耗时降序, 值为纳秒.
+     */
+    public synchronized LinkedHashMap<String, Long> slowestTables(int topN) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(tableNanos.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        LinkedHashMap<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < topN; i++) {
+            result.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return result;
+    }
+
+    public synchronized String report(int topN) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("schema load");
+        if (catalog != null) {
+            sb.append(" `").append(catalog).append('`');
+        }
+        sb.append(": ").append(tableCount).append(" table(s) in ").append(millis(totalNanos)).append(" ms, ")
+                .append(getTotalRows()).append(" rows (").append(Math.round(getRowsPerSecond())).append(" rows/s)\n");
+        for (Map.Entry<SchemaLoadPhase, long[]> entry : phases.entrySet()) {
+            long[] stats = entry.getValue();
+            sb.append("  ").append(entry.getKey()).append(": ").append(stats[0]).append(" call(s), ")
+                    .append(stats[1]).append(" rows, ").append(millis(stats[2])).append(" ms\n");
+        }
+        Map<String, Long> slowest = slowestTables(topN);
+        if (!slowest.isEmpty()) {
+            sb.append("  slowest tables:\n");
+            for (Map.Entry<String, Long> entry : slowest.entrySet()) {
+                sb.append("    ").append(entry.getKey()).append(' ').append(millis(entry.getValue())).append(" ms\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report(10);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
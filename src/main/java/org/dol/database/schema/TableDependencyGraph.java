@@ -0,0 +1,149 @@
+package org.dol.database.schema;
+
+import java.util.*;
+
+/**
+ * 按外键依赖对表分层: 每层的表只依赖前面各层的表, 同层的表可以并行创建.
+ * <p>
+ * 自引用与指向集合外 (其它库或未包含) 的外键不构成依赖. 处于循环依赖中 (或依赖循环) 的表
+ * 放在最后一层, 它们之间的外键需在建表后再以 ALTER TABLE 添加, 见 {@link #isDeferred}.
+ */
+public class TableDependencyGraph {
+
+    private final List<List<TableSchema>> levels;
+    private final Set<String> cyclicTableNames;
+
+    private TableDependencyGraph(List<List<TableSchema>> levels, Set<String> cyclicTableNames) {
+        this.levels = levels;
+        this.cyclicTableNames = cyclicTableNames;
+    }
+
+    public static TableDependencyGraph of(DatabaseSchema databaseSchema) {
+        return of(databaseSchema.getTables());
+    }
+
+    public static TableDependencyGraph of(Collection<TableSchema> tables) {
+        List<List<TableSchema>> levels = new ArrayList<>();
+        if (!hasForeignKeys(tables)) {
+            // 常见情况: 没有外键, 只有一层, 不建索引结构
+            List<TableSchema> level = new ArrayList<>(tables);
+            if (!level.isEmpty()) {
+                level.sort(TableSchema.TABLE_NAME_ORDER);
+                levels.add(level);
+            }
+            return new TableDependencyGraph(levels, Collections.emptySet());
+        }
+        Map<String, TableSchema> tableMap = new HashMap<>(tables.size() * 2);
+        for (TableSchema table : tables) {
+            tableMap.put(table.getTableName().toLowerCase(), table);
+        }
+        // 只记录依赖数大于 0 的表
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<TableSchema>> dependents = new HashMap<>();
+        for (TableSchema table : tables) {
+            Set<String> dependencies = dependencies(table, tableMap);
+            if (dependencies.isEmpty()) {
+                continue;
+            }
+            pending.put(table.getTableName().toLowerCase(), dependencies.size());
+            for (String dependency : dependencies) {
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(table);
+            }
+        }
+
+        List<TableSchema> level = new ArrayList<>();
+        for (TableSchema table : tables) {
+            if (!pending.containsKey(table.getTableName().toLowerCase())) {
+                level.add(table);
+            }
+        }
+        int resolved = 0;
+        while (!level.isEmpty()) {
+            level.sort(TableSchema.TABLE_NAME_ORDER);
+            levels.add(level);
+            resolved += level.size();
+            List<TableSchema> next = new ArrayList<>();
+            for (TableSchema table : level) {
+                for (TableSchema dependent : dependents.getOrDefault(table.getTableName().toLowerCase(), Collections.emptyList())) {
+                    String key = dependent.getTableName().toLowerCase();
+                    int remaining = pending.get(key) - 1;
+                    if (remaining == 0) {
+                        pending.remove(key);
+                        next.add(dependent);
+                    } else {
+                        pending.put(key, remaining);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        Set<String> cyclicTableNames = new HashSet<>();
+        if (resolved < tables.size()) {
+            List<TableSchema> cyclic = new ArrayList<>();
+            for (TableSchema table : tables) {
+                if (pending.containsKey(table.getTableName().toLowerCase())) {
+                    cyclic.add(table);
+                    cyclicTableNames.add(table.getTableName().toLowerCase());
+                }
+            }
+            cyclic.sort(TableSchema.TABLE_NAME_ORDER);
+            levels.add(cyclic);
+        }
+        return new TableDependencyGraph(levels, cyclicTableNames);
+    }
+
+    /**
+     * table 的外键所引用的、在 tableMap 中的其它表 (小写表名).
+     */
+    private static Set<String> dependencies(TableSchema table, Map<String, TableSchema> tableMap) {
+        if (table.getForeignKeys() == null || table.getForeignKeys().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> dependencies = new HashSet<>();
+        for (ForeignKeySchema foreignKey : table.getForeignKeys()) {
+            if (foreignKey.getReferencedCatalog() != null || foreignKey.isSelfReference(table)) {
+                continue;
+            }
+            String referenced = foreignKey.getReferencedTableName().toLowerCase();
+            if (tableMap.containsKey(referenced)) {
+                dependencies.add(referenced);
+            }
+        }
+        return dependencies;
+    }
+
+    private static boolean hasForeignKeys(Collection<TableSchema> tables) {
+        for (TableSchema table : tables) {
+            if (table.getForeignKeys() != null && !table.getForeignKeys().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 各层的表, 层内按表名排序; 存在循环依赖时最后一层为 {@link #getCyclicTables()}.
+     */
+    public List<List<TableSchema>> getLevels() {
+        return levels;
+    }
+
+    public boolean hasCycle() {
+        return !cyclicTableNames.isEmpty();
+    }
+
+    public List<TableSchema> getCyclicTables() {
+        return hasCycle() ? levels.get(levels.size() - 1) : Collections.emptyList();
+    }
+
+    /**
+     * 外键两端都处于最后的循环层 (且非自引用), 需建表后再添加.
+     */
+    public boolean isDeferred(TableSchema table, ForeignKeySchema foreignKey) {
+        return foreignKey.getReferencedCatalog() == null
+                && !foreignKey.isSelfReference(table)
+                && cyclicTableNames.contains(table.getTableName().toLowerCase())
+                && cyclicTableNames.contains(foreignKey.getReferencedTableName().toLowerCase());
+    }
+}
@@ -4,8 +4,11 @@ package org.dol.database.schema;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.dol.database.utils.TableStatements;
 import org.dol.database.utils.Utils;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
@@ -15,6 +18,12 @@ import java.util.stream.Collectors;
 @Setter
 public class TableSchema {
 
+    /**
+     * 按表名不区分大小写排序, 生成脚本与比较结果时使用, 保证输出稳定.
+     */
+    public static final Comparator<TableSchema> TABLE_NAME_ORDER =
+            Comparator.comparing(TableSchema::getTableName, String.CASE_INSENSITIVE_ORDER);
+
     private final String prefix;
     private String tableCatalog;
     private String tableName;
@@ -23,6 +32,11 @@ public class TableSchema {
     private ColumnSchema statusColumn;
     private KeySchema primaryKey;
     private List<IndexSchema> indexes;
+    private List<ForeignKeySchema> foreignKeys = new ArrayList<>();
+    /**
+     * 非分区表为 null.
+     */
+    private PartitionSchema partitioning;
     private boolean isView;
     private List<ColumnSchema> columns;
     private ColumnSchema createTimeColumn;
@@ -35,6 +49,15 @@ public class TableSchema {
     @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
     private String nameWithoutPrefix;
     private String collation;
+    private String engine;
+    /**
+     * information_schema.TABLES 中的统计值, InnoDB 下为估算值.
+     */
+    private long tableRows;
+    private long dataLength;
+    private long indexLength;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private volatile TableStatements statements;
 
     public TableSchema(String prefix) {
         this.prefix = prefix;
@@ -52,13 +75,33 @@ public class TableSchema {
         return createTimeColumn;
     }
 
+    /**
+     * 按下标遍历, 不分配迭代器, 供比较与渲染的热路径调用.
+     */
     public ColumnSchema getColumn(String columnName) {
-        return columns.stream().filter(c -> c.getColumnName().equalsIgnoreCase(columnName))
-                .findFirst().orElse(null);
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnSchema column = columns.get(i);
+            if (column.getColumnName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
     }
 
     public boolean hasColumn(String columnName) {
-        return columns.stream().anyMatch(c -> c.getColumnName().equalsIgnoreCase(columnName));
+        return getColumn(columnName) != null;
+    }
+
+    /**
+     * 按当前结构编译的 DAO 语句模板, 首次调用时编译并缓存; 此后对列和索引的修改不会反映到模板中.
+     */
+    public TableStatements getStatements() {
+        TableStatements compiled = statements;
+        if (compiled == null) {
+            compiled = TableStatements.compile(this);
+            statements = compiled;
+        }
+        return compiled;
     }
 
     public ColumnSchema getCreateUserColumn() {
@@ -134,21 +177,29 @@ public class TableSchema {
     }
 
     public ColumnSchema getDeleteUserColumn() {
-        return columns.stream().filter(ColumnSchema::isDeleteUserColumn)
-                .findFirst().orElse(null);
+        for (final ColumnSchema columnSchema : columns) {
+            if (columnSchema.isDeleteUserColumn()) {
+                return columnSchema;
+            }
+        }
+        return null;
     }
 
     public ColumnSchema getDeleteTimeColumn() {
-        return columns.stream().filter(ColumnSchema::isDeleteTimeColumn)
-                .findFirst().orElse(null);
+        for (final ColumnSchema columnSchema : columns) {
+            if (columnSchema.isDeleteTimeColumn()) {
+                return columnSchema;
+            }
+        }
+        return null;
     }
 
     public boolean hasDeleteUserColumn() {
-        return columns.stream().anyMatch(ColumnSchema::isDeleteUserColumn);
+        return getDeleteUserColumn() != null;
     }
 
     public boolean hasDeleteTimeColumn() {
-        return columns.stream().anyMatch(ColumnSchema::isDeleteTimeColumn);
+        return getDeleteTimeColumn() != null;
     }
 
     public ColumnSchema getUpdateTimeColumn() {
@@ -164,7 +215,12 @@ public class TableSchema {
     }
 
     public boolean hasKeywordColumn() {
-        return this.columns.stream().anyMatch(ColumnSchema::isKeywordColumn);
+        for (final ColumnSchema columnSchema : columns) {
+            if (columnSchema.isKeywordColumn()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public List<ColumnSchema> getKeywordColumns() {
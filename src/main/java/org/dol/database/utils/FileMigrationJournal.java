@@ -0,0 +1,62 @@
+package org.dol.database.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 基于文本文件的 {@link MigrationJournal}: 每条已执行语句追加一行
+ * "指纹\t执行时间(毫秒)\t表名", 每次写入后立即 flush.
+ */
+public class FileMigrationJournal implements MigrationJournal {
+
+    private final Path file;
+    private final Set<String> applied = new HashSet<>();
+
+    public FileMigrationJournal(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    String fingerprint = tab >= 0 ? line.substring(0, tab) : line;
+                    if (!fingerprint.isEmpty()) {
+                        applied.add(fingerprint);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isApplied(MigrationStatement statement) {
+        return applied.contains(statement.getFingerprint());
+    }
+
+    @Override
+    public synchronized void markApplied(MigrationStatement statement) throws IOException {
+        if (!applied.add(statement.getFingerprint())) {
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(statement.getFingerprint());
+            writer.write('\t');
+            writer.write(Long.toString(System.currentTimeMillis()));
+            writer.write('\t');
+            writer.write(Utils.ifNull(statement.getTableName(), ""));
+            writer.write('\n');
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,86 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 目标 schema 与多个分片的比较结果, 按变更脚本分组.
+ */
+@Getter
+@AllArgsConstructor
+public class FleetDiff {
+
+    /**
+     * 按分片数从多到少排列.
+     */
+    private final List<FleetDiffGroup> groups;
+    private final List<ShardError> errors;
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * 所有分片均已与目标 schema 一致.
+     */
+    public boolean isInSync() {
+        return errors.isEmpty() && groups.stream().allMatch(FleetDiffGroup::isInSync);
+    }
+
+    public FleetDiffGroup getGroup(String shardName) {
+        for (FleetDiffGroup group : groups) {
+            if (group.getShardNames().contains(shardName)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 每组一行: 序号、指纹前 12 位、分片数及分片名.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < groups.size(); i++) {
+            appendGroupLine(sb, i, groups.get(i));
+        }
+        for (ShardError error : errors) {
+            sb.append("-- failed `").append(error.getShardName()).append("`: ").append(error.getError()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 每组输出一份脚本, 前附分组注释; 已一致的组只输出注释.
+     */
+    public String toScript() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < groups.size(); i++) {
+            FleetDiffGroup group = groups.get(i);
+            appendGroupLine(sb, i, group);
+            sb.append(group.getScript());
+            if (!group.isInSync()) {
+                sb.append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendGroupLine(StringBuilder sb, int index, FleetDiffGroup group) {
+        sb.append("-- group ").append(index + 1)
+                .append(" [").append(group.getFingerprint(), 0, 12).append("]")
+                .append(group.isInSync() ? " in sync" : "")
+                .append(", ").append(group.getShardNames().size()).append(" shard(s): ")
+                .append(Utils.join(group.getShardNames(), ','))
+                .append("\n");
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ShardError {
+        private final String shardName;
+        private final Throwable error;
+    }
+}
@@ -0,0 +1,31 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 变更脚本完全相同的一组分片, 由 {@link FleetDiffer} 生成.
+ */
+@Getter
+@AllArgsConstructor
+public class FleetDiffGroup {
+
+    /**
+     * 脚本的 SHA-256 (十六进制).
+     */
+    private final String fingerprint;
+    private final String script;
+    /**
+     * 组内分片名, 按名称排序.
+     */
+    private final List<String> shardNames;
+
+    /**
+     * 组内分片已与目标 schema 一致.
+     */
+    public boolean isInSync() {
+        return script.isEmpty();
+    }
+}
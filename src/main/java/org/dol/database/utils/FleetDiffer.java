@@ -0,0 +1,85 @@
+package org.dol.database.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.DatabaseSchema;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 将一个目标 schema 与多个分片并行比较, 变更脚本相同的分片归为一组,
+ * 每组只输出一份 ALTER 脚本.
+ * <p>
+ * 分组依据为 {@link ScriptGenerator#toSQL} 生成脚本的 SHA-256 指纹.
+ */
+@Slf4j
+public abstract class FleetDiffer {
+
+    /**
+     * 在 ForkJoinPool.commonPool() 上并行比较.
+     */
+    public static FleetDiff diff(DatabaseSchema targetSchema,
+                                 Map<String, DatabaseSchema> shardSchemas,
+                                 boolean includeNewTable,
+                                 String... ignoreTables) {
+        return diff(targetSchema, shardSchemas, includeNewTable, ForkJoinPool.commonPool(), ignoreTables);
+    }
+
+    /**
+     * 在 executor 上并行比较 targetSchema 与每个分片.
+     * 单个分片失败不影响其它分片, 失败信息记录在 {@link FleetDiff#getErrors()} 中.
+     *
+     * @param shardSchemas 分片名 -> 分片当前 schema
+     */
+    public static FleetDiff diff(DatabaseSchema targetSchema,
+                                 Map<String, DatabaseSchema> shardSchemas,
+                                 boolean includeNewTable,
+                                 Executor executor,
+                                 String... ignoreTables) {
+        List<String> shardNames = new ArrayList<>(shardSchemas.keySet());
+        shardNames.sort(String.CASE_INSENSITIVE_ORDER);
+        List<CompletableFuture<String>> futures = new ArrayList<>(shardNames.size());
+        for (String shardName : shardNames) {
+            DatabaseSchema shardSchema = shardSchemas.get(shardName);
+            futures.add(CompletableFuture.supplyAsync(() -> ScriptGenerator.toSQL(
+                    SchemaDiffer.diff(targetSchema, shardSchema, ignoreTables), includeNewTable), executor));
+        }
+
+        Map<String, String> scripts = new HashMap<>();
+        Map<String, List<String>> members = new LinkedHashMap<>();
+        List<FleetDiff.ShardError> errors = new ArrayList<>();
+        for (int i = 0; i < shardNames.size(); i++) {
+            String shardName = shardNames.get(i);
+            try {
+                String script = futures.get(i).join();
+                String fingerprint = fingerprint(script);
+                scripts.putIfAbsent(fingerprint, script);
+                members.computeIfAbsent(fingerprint, key -> new ArrayList<>()).add(shardName);
+            } catch (CompletionException | CancellationException exception) {
+                Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+                log.error("Failed to diff shard: {}", shardName, cause);
+                errors.add(new FleetDiff.ShardError(shardName, cause));
+            }
+        }
+
+        List<FleetDiffGroup> groups = new ArrayList<>(members.size());
+        for (Map.Entry<String, List<String>> entry : members.entrySet()) {
+            groups.add(new FleetDiffGroup(entry.getKey(), scripts.get(entry.getKey()), entry.getValue()));
+        }
+        // 稳定排序: 分片数相同的组保持首个分片名的顺序
+        groups.sort(Comparator.comparingInt((FleetDiffGroup group) -> group.getShardNames().size()).reversed());
+        return new FleetDiff(groups, errors);
+    }
+
+    /**
+     * 脚本的 SHA-256 指纹 (小写十六进制).
+     */
+    public static String fingerprint(String script) {
+        return Utils.sha256Hex(script);
+    }
+}
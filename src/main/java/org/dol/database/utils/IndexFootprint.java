@@ -0,0 +1,22 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 单个索引 (或主键) 的键宽度估算.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexFootprint {
+
+    private final String indexName;
+    /**
+     * 键的最大字节数, 按字符集最大字节宽度计算, 用于检查 InnoDB 键长限制.
+     */
+    private final int keyBytes;
+    /**
+     * 二级索引一条记录的平均字节数 (键 + 主键列), 主键为 0.
+     */
+    private final int avgEntryBytes;
+}
@@ -0,0 +1,300 @@
+package org.dol.database.utils;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通过 JDBC 执行 {@link ScriptGenerator} 生成的 DDL / ALTER 脚本.
+ * <p>
+ * 语句按表分组: 同一张表的语句在同一连接上按脚本顺序执行, 不同表的语句并行执行;
+ * 同一批语句中通过外键 (REFERENCES) 关联的表归为同一组; 脚本需先创建被引用的表, {@link ScriptGenerator#generate(org.dol.database.schema.DatabaseSchema)} 已按此排序.
+ * 同时占用的连接数 (即对该库的并发数) 不超过 {@link #maxConcurrency}.
+ * 无法识别表名的语句 (如 SET) 归为同一组按顺序执行; 会话级设置请在 DataSource 中配置.
+ * <p>
+ * 某条语句失败后, 同表的后续语句不再执行, 其它表不受影响 (除非 {@link #stopOnError}).
+ * 配置 {@link #journal} 后, 已成功的语句会被记录, 重新执行同一脚本时跳过;
+ * 指纹包含脚本标识与语句序号, 其它脚本中内容相同的语句不会被跳过.
+ */
+@Slf4j
+@Getter
+@Setter
+public class MigrationExecutor {
+
+    private static final MigrationListener NO_OP_LISTENER = new MigrationListener() {
+    };
+
+    private final DataSource dataSource;
+    /**
+     * 最大并发连接数.
+     */
+    private int maxConcurrency = 4;
+    /**
+     * 单条语句超时秒数, 0 表示不限制.
+     */
+    private int statementTimeoutSeconds;
+    /**
+     * 任一语句失败后不再开始新的表.
+     */
+    private boolean stopOnError;
+    private MigrationJournal journal;
+    private MigrationListener listener = NO_OP_LISTENER;
+
+    public MigrationExecutor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public MigrationReport execute(String script) {
+        return execute(SqlScripts.split(script));
+    }
+
+    /**
+     * 同 {@link #execute(String)}, journal 指纹使用给定的脚本标识 (如版本号) 而不是脚本内容,
+     * 重新生成或追加语句后的同一版本脚本仍能跳过已执行的前序语句.
+     */
+    public MigrationReport execute(String scriptId, String script) {
+        return execute(SqlScripts.split(script, 0, scriptId));
+    }
+
+    /**
+     * 依次执行各层脚本 (如 {@link ScriptGenerator#generateLevels}), 层内并行.
+     * 某层有语句失败时, 后续各层不再执行, 计入 notRun. listener 的 onStart / onFinish 按层回调.
+     */
+    public MigrationReport executeLevels(List<String> levelScripts) {
+        long start = System.currentTimeMillis();
+        List<MigrationStatement> applied = new ArrayList<>();
+        List<MigrationStatement> skipped = new ArrayList<>();
+        List<MigrationReport.StatementError> failed = new ArrayList<>();
+        List<MigrationStatement> notRun = new ArrayList<>();
+        List<MigrationReport.StatementError> journalErrors = new ArrayList<>();
+        String scriptId = Utils.sha256Hex(String.join("\n", levelScripts));
+        int nextIndex = 0;
+        for (String levelScript : levelScripts) {
+            List<MigrationStatement> statements = SqlScripts.split(levelScript, nextIndex, scriptId);
+            nextIndex += statements.size();
+            if (!failed.isEmpty() || !notRun.isEmpty()) {
+                notRun.addAll(statements);
+                continue;
+            }
+            MigrationReport report = execute(statements);
+            applied.addAll(report.getApplied());
+            skipped.addAll(report.getSkipped());
+            failed.addAll(report.getFailed());
+            notRun.addAll(report.getNotRun());
+            journalErrors.addAll(report.getJournalErrors());
+        }
+        return new MigrationReport(applied, skipped, failed, notRun, journalErrors, System.currentTimeMillis() - start);
+    }
+
+    public MigrationReport execute(List<MigrationStatement> statements) {
+        long start = System.currentTimeMillis();
+        Run run = new Run(statements.size());
+        listener.onStart(statements.size());
+
+        // 与本批中其它表的语句通过外键关联的表合并为同一组, 按脚本顺序执行, 被引用的表先创建;
+        // 被引用的表不在本批中 (如已在前一层创建) 时不合并, 同层的表仍可并行
+        Set<String> tableNames = new HashSet<>();
+        for (MigrationStatement statement : statements) {
+            if (statement.getTableName() != null) {
+                tableNames.add(statement.getTableName().toLowerCase());
+            }
+        }
+        Map<String, String> groups = new HashMap<>();
+        for (MigrationStatement statement : statements) {
+            if (statement.getTableName() != null) {
+                for (String referenced : SqlScripts.referencedTables(statement.getSql())) {
+                    if (tableNames.contains(referenced.toLowerCase())) {
+                        union(groups, statement.getTableName().toLowerCase(), referenced.toLowerCase());
+                    }
+                }
+            }
+        }
+        Map<String, List<MigrationStatement>> lanes = new LinkedHashMap<>();
+        for (MigrationStatement statement : statements) {
+            String key = statement.getTableName() == null ? "" : find(groups, statement.getTableName().toLowerCase());
+            lanes.computeIfAbsent(key, k -> new ArrayList<>()).add(statement);
+        }
+        // 语句多的表先开始, 减少最后单个连接拖尾
+        List<List<MigrationStatement>> sortedLanes = new ArrayList<>(lanes.values());
+        sortedLanes.sort(Comparator.comparingInt((List<MigrationStatement> lane) -> lane.size()).reversed());
+        Queue<List<MigrationStatement>> queue = new ConcurrentLinkedQueue<>(sortedLanes);
+
+        int workers = Math.max(1, Math.min(maxConcurrency, sortedLanes.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new MigrationThreadFactory());
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> work(queue, run)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Migration worker failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        } finally {
+            pool.shutdown();
+        }
+        List<MigrationStatement> lane;
+        while ((lane = queue.poll()) != null) {
+            run.notRun.addAll(lane);
+        }
+
+        MigrationReport report = new MigrationReport(
+                sortedByIndex(run.applied),
+                sortedByIndex(run.skipped),
+                sortedErrors(run.failed),
+                sortedByIndex(run.notRun),
+                sortedErrors(run.journalErrors),
+                System.currentTimeMillis() - start);
+        listener.onFinish(report);
+        return report;
+    }
+
+    private void work(Queue<List<MigrationStatement>> queue, Run run) {
+        Connection connection = null;
+        try {
+            List<MigrationStatement> lane;
+            while (!Thread.currentThread().isInterrupted() && (lane = queue.poll()) != null) {
+                if (stopOnError && run.failedFlag.get()) {
+                    run.notRun.addAll(lane);
+                    continue;
+                }
+                if (connection == null) {
+                    try {
+                        connection = dataSource.getConnection();
+                    } catch (SQLException e) {
+                        // 本线程放弃, 剩余的表由其它线程执行
+                        fail(run, lane.get(0), e);
+                        run.notRun.addAll(lane.subList(1, lane.size()));
+                        return;
+                    }
+                }
+                executeLane(connection, lane, run);
+            }
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("close connection", e);
+                }
+            }
+        }
+    }
+
+    private void executeLane(Connection connection, List<MigrationStatement> lane, Run run) {
+        for (int i = 0; i < lane.size(); i++) {
+            MigrationStatement statement = lane.get(i);
+            if (journal != null && journal.isApplied(statement)) {
+                run.skipped.add(statement);
+                listener.onStatementSkipped(statement, run.completed.incrementAndGet(), run.total);
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            try (Statement jdbcStatement = connection.createStatement()) {
+                if (statementTimeoutSeconds > 0) {
+                    jdbcStatement.setQueryTimeout(statementTimeoutSeconds);
+                }
+                jdbcStatement.execute(statement.getSql());
+            } catch (Exception e) {
+                log.error("Failed to execute migration statement {}", statement, e);
+                fail(run, statement, e);
+                run.notRun.addAll(lane.subList(i + 1, lane.size()));
+                return;
+            }
+            if (journal != null) {
+                try {
+                    journal.markApplied(statement);
+                } catch (Exception e) {
+                    // 语句已生效, 不计为失败
+                    log.error("Failed to record migration statement {} in journal", statement, e);
+                    run.journalErrors.add(new MigrationReport.StatementError(statement, e));
+                    listener.onJournalFailed(statement, e);
+                }
+            }
+            run.applied.add(statement);
+            listener.onStatementApplied(statement, System.currentTimeMillis() - start,
+                    run.completed.incrementAndGet(), run.total);
+        }
+    }
+
+    private void fail(Run run, MigrationStatement statement, Exception e) {
+        run.failedFlag.set(true);
+        run.failed.add(new MigrationReport.StatementError(statement, e));
+        listener.onStatementFailed(statement, e, run.completed.incrementAndGet(), run.total);
+    }
+
+    static String find(Map<String, String> groups, String tableName) {
+        String root = tableName;
+        String parent;
+        while ((parent = groups.get(root)) != null) {
+            root = parent;
+        }
+        return root;
+    }
+
+    static void union(Map<String, String> groups, String tableName, String otherTableName) {
+        String root = find(groups, tableName);
+        String otherRoot = find(groups, otherTableName);
+        if (!root.equals(otherRoot)) {
+            groups.put(otherRoot, root);
+        }
+    }
+
+    private static List<MigrationStatement> sortedByIndex(Collection<MigrationStatement> statements) {
+        List<MigrationStatement> sorted = new ArrayList<>(statements);
+        sorted.sort(Comparator.comparingInt(MigrationStatement::getIndex));
+        return sorted;
+    }
+
+    private static List<MigrationReport.StatementError> sortedErrors(Collection<MigrationReport.StatementError> errors) {
+        List<MigrationReport.StatementError> sorted = new ArrayList<>(errors);
+        sorted.sort(Comparator.comparingInt(error -> error.getStatement().getIndex()));
+        return sorted;
+    }
+
+    /**
+     * 单次执行的状态, 由各工作线程并发更新.
+     */
+    private static class Run {
+        private final int total;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicBoolean failedFlag = new AtomicBoolean();
+        private final Queue<MigrationStatement> applied = new ConcurrentLinkedQueue<>();
+        private final Queue<MigrationStatement> skipped = new ConcurrentLinkedQueue<>();
+        private final Queue<MigrationStatement> notRun = new ConcurrentLinkedQueue<>();
+        private final Queue<MigrationReport.StatementError> failed = new ConcurrentLinkedQueue<>();
+        private final Queue<MigrationReport.StatementError> journalErrors = new ConcurrentLinkedQueue<>();
+
+        Run(int total) {
+            this.total = total;
+        }
+    }
+
+    private static class MigrationThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "migration-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
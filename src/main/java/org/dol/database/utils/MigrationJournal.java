@@ -0,0 +1,14 @@
+package org.dol.database.utils;
+
+import java.io.IOException;
+
+/**
+ * 记录已成功执行的语句, 中断后重新执行同一脚本时跳过这些语句.
+ * 实现需线程安全, {@link MigrationExecutor} 会在多个线程中调用.
+ */
+public interface MigrationJournal {
+
+    boolean isApplied(MigrationStatement statement);
+
+    void markApplied(MigrationStatement statement) throws IOException;
+}
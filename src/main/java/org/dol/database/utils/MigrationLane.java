@@ -0,0 +1,23 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.diff.MigrationCost;
+
+import java.util.List;
+
+/**
+ * 一条可与其它 lane 并行执行的迁移脚本, 由 {@link MigrationScheduler#lanes} 生成.
+ */
+@Getter
+@AllArgsConstructor
+public class MigrationLane {
+
+    private final int index;
+    /**
+     * lane 中的表, 按估算耗时从低到高排列, 新增的表之间按外键依赖排序.
+     */
+    private final List<MigrationCost> tables;
+    private final long estimatedMillis;
+    private final String script;
+}
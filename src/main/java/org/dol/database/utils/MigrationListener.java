@@ -0,0 +1,29 @@
+package org.dol.database.utils;
+
+/**
+ * {@link MigrationExecutor} 的进度回调, 在执行语句的工作线程中调用, 实现需线程安全.
+ * completed 为已结束 (执行成功、跳过或失败) 的语句数.
+ */
+public interface MigrationListener {
+
+    default void onStart(int total) {
+    }
+
+    default void onStatementSkipped(MigrationStatement statement, int completed, int total) {
+    }
+
+    default void onStatementApplied(MigrationStatement statement, long elapsedMillis, int completed, int total) {
+    }
+
+    default void onStatementFailed(MigrationStatement statement, Throwable error, int completed, int total) {
+    }
+
+    /**
+     * 语句已执行成功, 但写入 journal 失败; 重新执行时该语句不会被跳过.
+     */
+    default void onJournalFailed(MigrationStatement statement, Throwable error) {
+    }
+
+    default void onFinish(MigrationReport report) {
+    }
+}
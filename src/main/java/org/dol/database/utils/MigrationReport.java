@@ -0,0 +1,41 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * {@link MigrationExecutor} 的执行结果, 各列表均按语句序号排序.
+ */
+@Getter
+@AllArgsConstructor
+public class MigrationReport {
+
+    private final List<MigrationStatement> applied;
+    /**
+     * journal 中已记录为执行过的语句.
+     */
+    private final List<MigrationStatement> skipped;
+    private final List<StatementError> failed;
+    /**
+     * 因同表前序语句失败或 stopOnError 而未执行的语句.
+     */
+    private final List<MigrationStatement> notRun;
+    /**
+     * 已执行成功 (计入 applied) 但写入 journal 失败的语句, 重新执行时不会被跳过.
+     */
+    private final List<StatementError> journalErrors;
+    private final long elapsedMillis;
+
+    public boolean isSuccess() {
+        return failed.isEmpty() && notRun.isEmpty();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StatementError {
+        private final MigrationStatement statement;
+        private final Throwable error;
+    }
+}
@@ -0,0 +1,175 @@
+package org.dol.database.utils;
+
+import org.dol.database.diff.*;
+import org.dol.database.schema.ForeignKeySchema;
+import org.dol.database.schema.TableDependencyGraph;
+import org.dol.database.schema.TableSchema;
+
+import java.util.*;
+
+/**
+ * 按估算代价编排迁移脚本: 代价低的表先执行, 或拆分为多条耗时均衡、可并行执行的 lane.
+ * <p>
+ * 脚本格式与 {@link ScriptGenerator#toOnlineSQL(SchemaDiff, boolean)} 相同,
+ * 每张表前附一行代价注释.
+ */
+public abstract class MigrationScheduler {
+
+    private static final Comparator<MigrationCost> CHEAPEST_FIRST =
+            Comparator.comparingLong(MigrationCost::getEstimatedMillis)
+                    .thenComparingLong(MigrationCost::getTotalBytes)
+                    .thenComparing(MigrationCost::getTableName, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * 估算 diff 中每张新增/变更表的代价, 按代价从低到高排序.
+     */
+    public static List<MigrationCost> estimate(SchemaDiff schemaDiff, MigrationCostEstimator estimator) {
+        List<MigrationCost> costs = new ArrayList<>();
+        for (TableDiff tableDiff : schemaDiff.getTables()) {
+            if (tableDiff.getChangeType() != ChangeType.REMOVED) {
+                costs.add(estimator.estimate(tableDiff));
+            }
+        }
+        costs.sort(CHEAPEST_FIRST);
+        return costs;
+    }
+
+    /**
+     * 生成按代价从低到高排列的迁移脚本; 新增的表之间仍按外键依赖排序,
+     * 循环依赖中的外键在最后以 ALTER TABLE 添加.
+     */
+    public static String cheapestFirst(SchemaDiff schemaDiff, MigrationCostEstimator estimator, boolean includeNewTable) {
+        TableDependencyGraph graph = ScriptGenerator.newTableGraph(schemaDiff.getTables());
+        List<MigrationCost> costs = estimate(schemaDiff, estimator);
+        ScriptGenerator.orderNewTables(costs, MigrationScheduler::isAdded, cost -> cost.getTableDiff().getTarget(), graph);
+        StringBuilder sb = new StringBuilder();
+        for (MigrationCost cost : costs) {
+            appendTableScript(sb, cost, includeNewTable, graph);
+        }
+        if (includeNewTable && graph.hasCycle()) {
+            sb.append(ScriptGenerator.deferredForeignKeys(graph, table -> true));
+        }
+        appendWarnings(sb, schemaDiff);
+        return sb.toString();
+    }
+
+    /**
+     * 将迁移拆分为 laneCount 条耗时尽量均衡的 lane (最长处理时间优先分配), lane 内按代价从低到高排列.
+     * 通过外键关联的新增表作为一个整体分配到同一条 lane, lane 内按依赖排序,
+     * 循环依赖中的外键在该 lane 末尾以 ALTER TABLE 添加.
+     * 被删除表的警告附在第一条 lane 末尾.
+     */
+    public static List<MigrationLane> lanes(SchemaDiff schemaDiff,
+                                            MigrationCostEstimator estimator,
+                                            int laneCount,
+                                            boolean includeNewTable) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be positive: " + laneCount);
+        }
+        TableDependencyGraph graph = ScriptGenerator.newTableGraph(schemaDiff.getTables());
+        List<List<MigrationCost>> units = units(estimate(schemaDiff, estimator));
+        List<List<MigrationCost>> assigned = new ArrayList<>(laneCount);
+        long[] laneMillis = new long[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            assigned.add(new ArrayList<>());
+        }
+        for (int i = units.size() - 1; i >= 0; i--) {
+            int lightest = 0;
+            for (int lane = 1; lane < laneCount; lane++) {
+                if (laneMillis[lane] < laneMillis[lightest]) {
+                    lightest = lane;
+                }
+            }
+            assigned.get(lightest).addAll(units.get(i));
+            laneMillis[lightest] += estimatedMillis(units.get(i));
+        }
+
+        List<MigrationLane> lanes = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            List<MigrationCost> laneCosts = assigned.get(lane);
+            laneCosts.sort(CHEAPEST_FIRST);
+            ScriptGenerator.orderNewTables(laneCosts, MigrationScheduler::isAdded, cost -> cost.getTableDiff().getTarget(), graph);
+            StringBuilder sb = new StringBuilder();
+            Set<TableSchema> laneTables = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (MigrationCost cost : laneCosts) {
+                appendTableScript(sb, cost, includeNewTable, graph);
+                laneTables.add(cost.getTableDiff().getTarget());
+            }
+            if (includeNewTable && graph.hasCycle()) {
+                sb.append(ScriptGenerator.deferredForeignKeys(graph, laneTables::contains));
+            }
+            if (lane == 0) {
+                appendWarnings(sb, schemaDiff);
+            }
+            lanes.add(new MigrationLane(lane, laneCosts, laneMillis[lane], sb.toString()));
+        }
+        return lanes;
+    }
+
+    /**
+     * 按 LPT 分配的单元: 通过外键关联的新增表合并为一个单元, 其它表各自一个单元;
+     * 单元按总耗时从低到高排列.
+     */
+    private static List<List<MigrationCost>> units(List<MigrationCost> costs) {
+        Set<String> newTableNames = new HashSet<>();
+        for (MigrationCost cost : costs) {
+            if (isAdded(cost)) {
+                newTableNames.add(cost.getTableName().toLowerCase());
+            }
+        }
+        Map<String, String> groups = new HashMap<>();
+        for (MigrationCost cost : costs) {
+            if (!isAdded(cost) || cost.getTableDiff().getTarget().getForeignKeys() == null) {
+                continue;
+            }
+            for (ForeignKeySchema foreignKey : cost.getTableDiff().getTarget().getForeignKeys()) {
+                String referenced = foreignKey.getReferencedTableName().toLowerCase();
+                if (foreignKey.getReferencedCatalog() == null && newTableNames.contains(referenced)) {
+                    MigrationExecutor.union(groups, cost.getTableName().toLowerCase(), referenced);
+                }
+            }
+        }
+        Map<String, List<MigrationCost>> units = new LinkedHashMap<>();
+        for (MigrationCost cost : costs) {
+            String key = isAdded(cost) ? MigrationExecutor.find(groups, cost.getTableName().toLowerCase()) : cost.getTableName();
+            units.computeIfAbsent(key, k -> new ArrayList<>()).add(cost);
+        }
+        List<List<MigrationCost>> sorted = new ArrayList<>(units.values());
+        sorted.sort(Comparator.comparingLong(MigrationScheduler::estimatedMillis));
+        return sorted;
+    }
+
+    private static long estimatedMillis(List<MigrationCost> unit) {
+        long millis = 0;
+        for (MigrationCost cost : unit) {
+            millis += cost.getEstimatedMillis();
+        }
+        return millis;
+    }
+
+    private static void appendTableScript(StringBuilder sb, MigrationCost cost, boolean includeNewTable, TableDependencyGraph graph) {
+        int start = sb.length();
+        sb.append("-- `").append(cost.getTableName()).append("`: ");
+        if (cost.getOnlineDdl() != null) {
+            sb.append(cost.getOnlineDdl().name()).append(", ");
+        }
+        sb.append("rebuild ").append(cost.getRebuildBytes()).append(" bytes, ")
+                .append("scan ").append(cost.getBuildBytes()).append(" bytes, ")
+                .append("estimated ").append(cost.getEstimatedMillis()).append(" ms\n");
+        int scriptStart = sb.length();
+        ScriptGenerator.appendOnlineTableScript(sb, cost.getTableDiff(), includeNewTable, graph);
+        if (sb.length() == scriptStart) {
+            sb.setLength(start);
+        }
+    }
+
+    private static boolean isAdded(MigrationCost cost) {
+        return cost.getTableDiff().getChangeType() == ChangeType.ADDED;
+    }
+
+    private static void appendWarnings(StringBuilder sb, SchemaDiff schemaDiff) {
+        for (TableDiff tableDiff : schemaDiff.getTables(ChangeType.REMOVED)) {
+            ScriptGenerator.appendTableWarning(sb, tableDiff.getCurrent());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 迁移脚本中的一条语句.
+ */
+@Getter
+@AllArgsConstructor
+public class MigrationStatement {
+
+    /**
+     * 在脚本中的序号, 从 0 开始.
+     */
+    private final int index;
+    /**
+     * CREATE/ALTER/DROP TABLE 的表名; 无法识别时为 null.
+     */
+    private final String tableName;
+    private final String sql;
+    /**
+     * 脚本标识、序号与 sql 的 SHA-256, 用于 {@link MigrationJournal} 记录.
+     */
+    private final String fingerprint;
+
+    @Override
+    public String toString() {
+        return "#" + index + " " + (tableName != null ? "`" + tableName + "`" : "<no table>");
+    }
+}
@@ -0,0 +1,44 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.IndexSchema;
+
+/**
+ * 可删除的冗余索引, 由 {@link RedundantIndexAnalyzer} 生成.
+ */
+@Getter
+@AllArgsConstructor
+public class RedundantIndex {
+
+    public enum Type {
+        /**
+         * 与另一个索引的列完全相同.
+         */
+        DUPLICATE,
+        /**
+         * 非唯一索引, 其列是另一个索引的最左前缀.
+         */
+        LEFT_PREFIX,
+        /**
+         * 与主键列相同, 或 (非唯一时) 是主键的最左前缀.
+         */
+        PRIMARY_KEY_OVERLAP
+    }
+
+    private final String tableName;
+    private final IndexSchema index;
+    private final Type type;
+    /**
+     * 覆盖该索引的索引名, 主键为 PRIMARY.
+     */
+    private final String coveredBy;
+    /**
+     * 删除后预计节省的索引字节数, 表行数未知时为 0.
+     */
+    private final long estimatedBytes;
+
+    public String getIndexName() {
+        return index.getIndexName();
+    }
+}
@@ -0,0 +1,200 @@
+package org.dol.database.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dol.database.schema.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 查找重复、被最左前缀覆盖以及与主键重叠的索引, 并生成 DROP INDEX 建议.
+ * <p>
+ * 唯一索引承担约束, 只有与主键或另一个唯一索引完全相同时才视为冗余.
+ * 前缀长度、排序方向与函数表达式参与比较; 最左前缀与主键重叠只对 BTREE 索引判断.
+ * 列比较忽略大小写; 多个索引相互覆盖时保留唯一索引或名称靠前的一个.
+ */
+@Slf4j
+public abstract class RedundantIndexAnalyzer {
+
+    private static final String PRIMARY = "PRIMARY";
+
+    private static final Comparator<IndexSchema> KEEP_ORDER =
+            Comparator.comparing((IndexSchema index) -> !index.isUnique())
+                    .thenComparing(IndexSchema::getIndexName, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * 在 ForkJoinPool.commonPool() 上并行分析各表.
+     */
+    public static List<RedundantIndex> analyze(DatabaseSchema databaseSchema) {
+        return analyze(databaseSchema, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在 executor 上并行分析各表, 结果按表名、索引名排序. 单表失败只记录日志.
+     */
+    public static List<RedundantIndex> analyze(DatabaseSchema databaseSchema, Executor executor) {
+        List<TableSchema> tables = new ArrayList<>(databaseSchema.getTables());
+        tables.sort(TableSchema.TABLE_NAME_ORDER);
+        List<CompletableFuture<List<RedundantIndex>>> futures = new ArrayList<>(tables.size());
+        for (TableSchema table : tables) {
+            futures.add(CompletableFuture.supplyAsync(() -> analyze(table), executor));
+        }
+        List<RedundantIndex> result = new ArrayList<>();
+        for (int i = 0; i < tables.size(); i++) {
+            try {
+                result.addAll(futures.get(i).join());
+            } catch (CompletionException e) {
+                log.error("Failed to analyze indexes of table: {}", tables.get(i).getTableName(), e.getCause());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 分析单表, 结果按索引名排序.
+     */
+    public static List<RedundantIndex> analyze(TableSchema table) {
+        List<RedundantIndex> result = new ArrayList<>();
+        if (table.getIndexes() == null || table.getIndexes().isEmpty()) {
+            return result;
+        }
+        List<IndexSchema> indexes = new ArrayList<>();
+        for (IndexSchema index : table.getIndexes()) {
+            if (index.hasKeyParts()) {
+                indexes.add(index);
+            }
+        }
+        indexes.sort(KEEP_ORDER);
+        KeySchema primaryKey = table.getPrimaryKey();
+        List<String> pkColumns = primaryKey != null && Utils.notEmpty(primaryKey.getMemberColumns())
+                ? columnNames(primaryKey.getMemberColumns()) : Collections.emptyList();
+
+        Set<IndexSchema> redundant = new HashSet<>();
+        for (IndexSchema index : indexes) {
+            List<String> columns = keyPartNames(index);
+            RedundantIndex.Type type = null;
+            String coveredBy = null;
+            if (index.isBtree() && !pkColumns.isEmpty() && (columns.equals(pkColumns) || !index.isUnique() && isPrefix(columns, pkColumns))) {
+                type = RedundantIndex.Type.PRIMARY_KEY_OVERLAP;
+                coveredBy = PRIMARY;
+            } else {
+                int coveringSize = 0;
+                for (IndexSchema other : indexes) {
+                    if (other == index || redundant.contains(other) || !sameIndexType(index, other)) {
+                        continue;
+                    }
+                    List<String> otherColumns = keyPartNames(other);
+                    if (columns.equals(otherColumns)) {
+                        // other 排在前面 (唯一或名称靠前) 时保留 other
+                        if (KEEP_ORDER.compare(other, index) < 0 && (other.isUnique() || !index.isUnique())) {
+                            type = RedundantIndex.Type.DUPLICATE;
+                            coveredBy = other.getIndexName();
+                            break;
+                        }
+                    } else if (!index.isUnique() && index.isBtree() && isPrefix(columns, otherColumns) && otherColumns.size() > coveringSize) {
+                        // 取最长的覆盖索引
+                        type = RedundantIndex.Type.LEFT_PREFIX;
+                        coveredBy = other.getIndexName();
+                        coveringSize = otherColumns.size();
+                    }
+                }
+            }
+            if (type != null) {
+                redundant.add(index);
+                result.add(new RedundantIndex(table.getTableName(), index, type, coveredBy, estimateBytes(table, index)));
+            }
+        }
+        result.sort(Comparator.comparing(RedundantIndex::getIndexName, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    /**
+     * 生成 DROP INDEX 脚本, 每张表一条 ALTER TABLE, 每个索引前附一行说明.
+     */
+    public static String toSQL(List<RedundantIndex> redundantIndexes) {
+        Map<String, List<RedundantIndex>> byTable = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (RedundantIndex redundantIndex : redundantIndexes) {
+            byTable.computeIfAbsent(redundantIndex.getTableName(), k -> new ArrayList<>()).add(redundantIndex);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<RedundantIndex>> entry : byTable.entrySet()) {
+            for (RedundantIndex redundantIndex : entry.getValue()) {
+                sb.append("-- `").append(redundantIndex.getIndexName()).append("` ")
+                        .append(describe(redundantIndex.getType())).append(" `")
+                        .append(redundantIndex.getCoveredBy()).append("`");
+                if (redundantIndex.getEstimatedBytes() > 0) {
+                    sb.append(", saves ~").append(redundantIndex.getEstimatedBytes()).append(" bytes");
+                }
+                sb.append("\n");
+            }
+            sb.append("ALTER TABLE `").append(entry.getKey()).append("`\n");
+            for (RedundantIndex redundantIndex : entry.getValue()) {
+                sb.append("DROP INDEX `").append(redundantIndex.getIndexName()).append("`,\n");
+            }
+            sb.setLength(sb.length() - 2);
+            sb.append(";\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String describe(RedundantIndex.Type type) {
+        switch (type) {
+            case DUPLICATE:
+                return "duplicates";
+            case LEFT_PREFIX:
+                return "is a left prefix of";
+            default:
+                return "overlaps";
+        }
+    }
+
+    private static List<String> columnNames(List<ColumnSchema> columns) {
+        List<String> names = new ArrayList<>(columns.size());
+        for (ColumnSchema column : columns) {
+            names.add(column.getColumnName().toLowerCase());
+        }
+        return names;
+    }
+
+    /**
+     * 键部分的比较用名称: 小写列名, 附加前缀长度与 DESC; 函数索引为小写表达式.
+     */
+    private static List<String> keyPartNames(IndexSchema index) {
+        List<IndexPart> keyParts = index.getKeyParts();
+        List<String> names = new ArrayList<>(keyParts.size());
+        for (IndexPart part : keyParts) {
+            String name = part.isFunctional()
+                    ? "(" + part.getExpression().replace(" ", "").toLowerCase() + ")"
+                    : part.getColumn().getColumnName().toLowerCase();
+            if (part.getSubPart() != null) {
+                name += "(" + part.getSubPart() + ")";
+            }
+            if (part.isDescending()) {
+                name += " desc";
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    private static boolean sameIndexType(IndexSchema index, IndexSchema other) {
+        return index.isBtree() ? other.isBtree() : index.getIndexType().equalsIgnoreCase(other.getIndexType());
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> columns) {
+        return prefix.size() < columns.size() && columns.subList(0, prefix.size()).equals(prefix);
+    }
+
+    /**
+     * 行数 × 索引记录平均字节数, 见 {@link StorageEstimator#avgIndexEntryBytes}.
+     */
+    private static long estimateBytes(TableSchema table, IndexSchema index) {
+        if (table.getTableRows() <= 0) {
+            return 0;
+        }
+        return table.getTableRows() * StorageEstimator.avgIndexEntryBytes(table, index);
+    }
+}
@@ -0,0 +1,43 @@
+package org.dol.database.utils;
+
+import org.dol.database.diff.ColumnDiff;
+import org.dol.database.diff.IndexDiff;
+import org.dol.database.diff.TableDiff;
+import org.dol.database.schema.TableSchema;
+
+/**
+ * {@link SchemaWatcher} 发布的变更事件, 在轮询线程中调用, 实现需线程安全且不应长时间阻塞.
+ * 同一张被修改的表依次收到各列、各索引的事件, 最后收到整表的 {@link #onTableChanged}.
+ */
+public interface SchemaChangeListener {
+
+    default void onTableAdded(String catalog, TableSchema table) {
+    }
+
+    default void onTableDropped(String catalog, TableSchema table) {
+    }
+
+    /**
+     * 列新增、删除或属性变化.
+     */
+    default void onColumnChanged(String catalog, TableSchema table, ColumnDiff change) {
+    }
+
+    /**
+     * 索引新增、删除或定义变化.
+     */
+    default void onIndexChanged(String catalog, TableSchema table, IndexDiff change) {
+    }
+
+    /**
+     * 表被修改, tableDiff 含主键与分区等全部变更.
+     */
+    default void onTableChanged(String catalog, TableDiff tableDiff) {
+    }
+
+    /**
+     * 轮询失败, 之后按退避间隔重试.
+     */
+    default void onError(String catalog, Throwable error) {
+    }
+}
@@ -0,0 +1,633 @@
+package org.dol.database.utils;
+
+import org.dol.database.schema.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 两个 DatabaseSchema 版本之间的二进制增量, 粒度为表与列.
+ * <p>
+ * 新增表写完整定义; 删除表只写表名; 修改的表写表属性、列顺序 (未变的列只写原下标, 变化的列写完整定义)
+ * 以及主键、索引、外键与分区. 修改与删除的表附带基线表编码的 CRC32, {@link #apply} 时校验基线是否一致.
+ * <p>
+ * {@link #apply} 不修改 base, 未变化的 TableSchema 按引用复用; 修改的表重新构造, 其中未变的列从基线复制.
+ */
+public abstract class SchemaDelta {
+
+    private static final int MAGIC = 0x53444C31;
+
+    private static final int DROP_TABLE = 1;
+    private static final int ADD_TABLE = 2;
+    private static final int MODIFY_TABLE = 3;
+
+    /**
+     * 计算从 base 到 target 的增量; 两者相同时只有文件头.
+     */
+    public static byte[] encode(DatabaseSchema base, DatabaseSchema target) {
+        Output ops = new Output(4096);
+        Output scratch = new Output(4096);
+        int count = 0;
+        for (TableSchema table : base.getTables()) {
+            if (target.getTableSchema(table.getTableName()) == null) {
+                ops.writeByte(DROP_TABLE);
+                ops.writeString(table.getTableName());
+                ops.writeInt(crc(tableBytes(scratch, table)));
+                count++;
+            }
+        }
+        for (TableSchema table : target.getTables()) {
+            TableSchema baseTable = base.getTableSchema(table.getTableName());
+            if (baseTable == table) {
+                continue;
+            }
+            if (baseTable == null) {
+                ops.writeByte(ADD_TABLE);
+                writeTable(ops, table);
+                count++;
+                continue;
+            }
+            byte[] before = tableBytes(scratch, baseTable);
+            if (!Arrays.equals(before, tableBytes(scratch, table))) {
+                ops.writeByte(MODIFY_TABLE);
+                ops.writeString(baseTable.getTableName());
+                ops.writeInt(crc(before));
+                writeModifiedTable(ops, scratch, baseTable, table);
+                count++;
+            }
+        }
+        Output out = new Output(ops.size() + 16);
+        out.writeInt(MAGIC);
+        out.writeVarInt(count);
+        out.write(ops);
+        return out.toByteArray();
+    }
+
+    /**
+     * 对 base 应用增量, 返回新版本; base 本身不被修改.
+     *
+     * @throws IllegalStateException    base 与生成增量时的基线不一致
+     * @throws IllegalArgumentException delta 格式错误
+     */
+    public static DatabaseSchema apply(DatabaseSchema base, byte[] delta) {
+        Input in = new Input(delta);
+        if (delta.length < 4 || in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a schema delta");
+        }
+        Map<String, TableSchema> tables = new LinkedHashMap<>();
+        for (TableSchema table : base.getTables()) {
+            tables.put(table.getTableName().toLowerCase(), table);
+        }
+        Output scratch = new Output(4096);
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            int op = in.readByte();
+            if (op == ADD_TABLE) {
+                TableSchema table = readTable(in);
+                tables.put(table.getTableName().toLowerCase(), table);
+                continue;
+            }
+            String tableName = in.readString();
+            TableSchema baseTable = tables.get(tableName.toLowerCase());
+            if (baseTable == null || crc(tableBytes(scratch, baseTable)) != in.readInt()) {
+                throw new IllegalStateException("Delta base mismatch for table " + tableName);
+            }
+            if (op == DROP_TABLE) {
+                tables.remove(tableName.toLowerCase());
+            } else if (op == MODIFY_TABLE) {
+                TableSchema table = readModifiedTable(in, scratch, baseTable);
+                tables.put(table.getTableName().toLowerCase(), table);
+            } else {
+                throw new IllegalArgumentException("Unknown delta operation " + op);
+            }
+        }
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("Trailing bytes in schema delta");
+        }
+        DatabaseSchema schema = new DatabaseSchema();
+        schema.setTables(tables.values());
+        return schema;
+    }
+
+    private static byte[] tableBytes(Output scratch, TableSchema table) {
+        scratch.reset();
+        writeTable(scratch, table);
+        return scratch.toByteArray();
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeTable(Output out, TableSchema table) {
+        writeTableHeader(out, table);
+        List<ColumnSchema> columns = columns(table);
+        out.writeVarInt(columns.size());
+        for (ColumnSchema column : columns) {
+            writeColumn(out, column);
+        }
+        writeTableKeys(out, table);
+    }
+
+    private static TableSchema readTable(Input in) {
+        TableSchema table = readTableHeader(in);
+        int count = in.readVarInt();
+        List<ColumnSchema> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            columns.add(readColumn(in, table));
+        }
+        table.setColumns(columns);
+        readTableKeys(in, table);
+        return table;
+    }
+
+    /**
+     * 列顺序中每项为 varint: 偶数为基线列下标 × 2, 1 表示其后跟完整的列定义.
+     */
+    private static void writeModifiedTable(Output out, Output scratch, TableSchema baseTable, TableSchema table) {
+        writeTableHeader(out, table);
+        List<ColumnSchema> baseColumns = columns(baseTable);
+        Map<String, Integer> baseIndexes = new HashMap<>(baseColumns.size() * 2);
+        for (int i = 0; i < baseColumns.size(); i++) {
+            baseIndexes.put(baseColumns.get(i).getColumnName().toLowerCase(), i);
+        }
+        List<ColumnSchema> columns = columns(table);
+        out.writeVarInt(columns.size());
+        for (ColumnSchema column : columns) {
+            Integer baseIndex = baseIndexes.get(column.getColumnName().toLowerCase());
+            if (baseIndex != null && sameColumn(scratch, baseColumns.get(baseIndex), column)) {
+                out.writeVarInt(baseIndex << 1);
+            } else {
+                out.writeVarInt(1);
+                writeColumn(out, column);
+            }
+        }
+        writeTableKeys(out, table);
+    }
+
+    private static TableSchema readModifiedTable(Input in, Output scratch, TableSchema baseTable) {
+        TableSchema table = readTableHeader(in);
+        List<ColumnSchema> baseColumns = columns(baseTable);
+        int count = in.readVarInt();
+        List<ColumnSchema> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int entry = in.readVarInt();
+            if (entry == 1) {
+                columns.add(readColumn(in, table));
+            } else {
+                columns.add(copyColumn(scratch, baseColumns.get(entry >>> 1), table));
+            }
+        }
+        table.setColumns(columns);
+        readTableKeys(in, table);
+        return table;
+    }
+
+    private static boolean sameColumn(Output scratch, ColumnSchema baseColumn, ColumnSchema column) {
+        if (baseColumn == column) {
+            return true;
+        }
+        scratch.reset();
+        writeColumn(scratch, baseColumn);
+        int split = scratch.size();
+        writeColumn(scratch, column);
+        return scratch.halvesEqual(split);
+    }
+
+    /**
+     * 通过编解码复制列, 与增量格式覆盖的字段保持一致; 新列的 tableSchema 指向 table.
+     */
+    private static ColumnSchema copyColumn(Output scratch, ColumnSchema column, TableSchema table) {
+        scratch.reset();
+        writeColumn(scratch, column);
+        return readColumn(new Input(scratch.toByteArray()), table);
+    }
+
+    private static List<ColumnSchema> columns(TableSchema table) {
+        return table.getColumns() != null ? table.getColumns() : Collections.emptyList();
+    }
+
+    private static void writeTableHeader(Output out, TableSchema table) {
+        out.writeString(table.getPrefix());
+        out.writeString(table.getTableName());
+        out.writeString(table.getTableCatalog());
+        out.writeString(table.getComment());
+        out.writeString(table.getEngine());
+        out.writeString(table.getCollation());
+        out.writeByte(table.isView() ? 1 : 0);
+        out.writeVarLong(table.getTableRows());
+        out.writeVarLong(table.getDataLength());
+        out.writeVarLong(table.getIndexLength());
+    }
+
+    private static TableSchema readTableHeader(Input in) {
+        TableSchema table = new TableSchema(in.readString());
+        table.setTableName(in.readString());
+        table.setTableCatalog(in.readString());
+        table.setComment(in.readString());
+        table.setEngine(in.readString());
+        table.setCollation(in.readString());
+        table.setView(in.readByte() != 0);
+        table.setTableRows(in.readVarLong());
+        table.setDataLength(in.readVarLong());
+        table.setIndexLength(in.readVarLong());
+        return table;
+    }
+
+    private static void writeColumn(Output out, ColumnSchema column) {
+        out.writeString(column.getColumnName());
+        out.writeString(column.getDataTypeName());
+        out.writeString(column.getColumnType());
+        out.writeVarLong(column.getDataType());
+        out.writeVarLong(column.getColumnSize());
+        out.writeVarLong(column.getDecimalDigits());
+        out.writeVarLong(column.getDisplayWidth());
+        out.writeByte((Boolean.TRUE.equals(column.getUnsigned()) ? 1 : 0)
+                | (column.isZerofill() ? 2 : 0)
+                | (column.isNullable() ? 4 : 0)
+                | (column.isPrimary() ? 8 : 0)
+                | (column.isAutoIncrement() ? 16 : 0));
+        out.writeStrings(column.getEnumValues());
+        out.writeString(column.getDefaultValue());
+        out.writeString(column.getRemarks());
+        out.writeString(column.getCharacterSet());
+        out.writeString(column.getCollation());
+    }
+
+    private static ColumnSchema readColumn(Input in, TableSchema table) {
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(table);
+        column.setColumnName(in.readString());
+        String dataTypeName = in.readString();
+        if (dataTypeName != null) {
+            column.setDataTypeName(dataTypeName);
+        }
+        column.setColumnType(in.readString());
+        column.setDataType((int) in.readVarLong());
+        column.setColumnSize((int) in.readVarLong());
+        column.setDecimalDigits((int) in.readVarLong());
+        column.setDisplayWidth((int) in.readVarLong());
+        int flags = in.readByte();
+        column.setUnsigned((flags & 1) != 0);
+        column.setZerofill((flags & 2) != 0);
+        column.setNullable((flags & 4) != 0);
+        column.setPrimary((flags & 8) != 0);
+        column.setAutoIncrement((flags & 16) != 0);
+        column.setEnumValues(in.readStrings());
+        column.setDefaultValue(in.readString());
+        column.setRemarks(in.readString());
+        column.setCharacterSet(in.readString());
+        column.setCollation(in.readString());
+        return column;
+    }
+
+    /**
+     * primaryColumn、主键、索引、外键与分区; 列按列名引用.
+     */
+    private static void writeTableKeys(Output out, TableSchema table) {
+        out.writeString(table.getPrimaryColumn() != null ? table.getPrimaryColumn().getColumnName() : null);
+        KeySchema primaryKey = table.getPrimaryKey();
+        out.writeByte(primaryKey != null ? 1 : 0);
+        if (primaryKey != null) {
+            out.writeString(primaryKey.getKeyName());
+            out.writeColumnNames(primaryKey.getMemberColumns());
+        }
+        List<IndexSchema> indexes = table.getIndexes() != null ? table.getIndexes() : Collections.emptyList();
+        out.writeVarInt(indexes.size());
+        for (IndexSchema index : indexes) {
+            out.writeString(index.getIndexName());
+            out.writeByte((index.isUnique() ? 1 : 0) | (index.isVisible() ? 2 : 0) | (index.hasExplicitKeyParts() ? 4 : 0));
+            out.writeVarLong(index.getType());
+            out.writeString(index.getOrder());
+            out.writeString(index.getIndexType());
+            out.writeVarLong(index.getCardinality());
+            out.writeString(index.getComment());
+            out.writeColumnNames(index.getMemberColumns());
+            if (index.hasExplicitKeyParts()) {
+                out.writeVarInt(index.getKeyParts().size());
+                for (IndexPart part : index.getKeyParts()) {
+                    out.writeByte((part.isFunctional() ? 1 : 0) | (part.isDescending() ? 2 : 0) | (part.getSubPart() != null ? 4 : 0));
+                    out.writeString(part.isFunctional() ? part.getExpression() : part.getColumn().getColumnName());
+                    if (part.getSubPart() != null) {
+                        out.writeVarLong(part.getSubPart());
+                    }
+                }
+            }
+        }
+        List<ForeignKeySchema> foreignKeys = table.getForeignKeys() != null ? table.getForeignKeys() : Collections.emptyList();
+        out.writeVarInt(foreignKeys.size());
+        for (ForeignKeySchema foreignKey : foreignKeys) {
+            out.writeString(foreignKey.getConstraintName());
+            out.writeColumnNames(foreignKey.getMemberColumns());
+            out.writeString(foreignKey.getReferencedCatalog());
+            out.writeString(foreignKey.getReferencedTableName());
+            out.writeStrings(foreignKey.getReferencedColumnNames());
+            out.writeString(foreignKey.getUpdateRule());
+            out.writeString(foreignKey.getDeleteRule());
+        }
+        PartitionSchema partitioning = table.getPartitioning();
+        out.writeByte(partitioning != null ? 1 : 0);
+        if (partitioning != null) {
+            out.writeString(partitioning.getMethod());
+            out.writeString(partitioning.getExpression());
+            out.writeVarInt(partitioning.getPartitions().size());
+            for (PartitionDefinition partition : partitioning.getPartitions()) {
+                out.writeString(partition.getPartitionName());
+                out.writeString(partition.getDescription());
+                out.writeString(partition.getComment());
+                out.writeVarLong(partition.getTableRows());
+            }
+        }
+    }
+
+    private static void readTableKeys(Input in, TableSchema table) {
+        String primaryColumn = in.readString();
+        if (primaryColumn != null) {
+            table.setPrimaryColumn(column(table, primaryColumn));
+        }
+        if (in.readByte() != 0) {
+            KeySchema primaryKey = new KeySchema();
+            primaryKey.setKeyName(in.readString());
+            primaryKey.setMemberColumns(readColumns(in, table));
+            table.setPrimaryKey(primaryKey);
+        }
+        int indexCount = in.readVarInt();
+        List<IndexSchema> indexes = new ArrayList<>(indexCount);
+        for (int i = 0; i < indexCount; i++) {
+            IndexSchema index = new IndexSchema();
+            index.setIndexName(in.readString());
+            int flags = in.readByte();
+            index.setUnique((flags & 1) != 0);
+            index.setVisible((flags & 2) != 0);
+            index.setType((short) in.readVarLong());
+            index.setOrder(in.readString());
+            index.setIndexType(in.readString());
+            index.setCardinality(in.readVarLong());
+            index.setComment(in.readString());
+            index.setMemberColumns(readColumns(in, table));
+            if ((flags & 4) != 0) {
+                int partCount = in.readVarInt();
+                List<IndexPart> keyParts = new ArrayList<>(partCount);
+                for (int p = 0; p < partCount; p++) {
+                    int partFlags = in.readByte();
+                    String value = in.readString();
+                    IndexPart part = (partFlags & 1) != 0 ? IndexPart.ofExpression(value) : IndexPart.of(column(table, value));
+                    part.setDescending((partFlags & 2) != 0);
+                    if ((partFlags & 4) != 0) {
+                        part.setSubPart((int) in.readVarLong());
+                    }
+                    keyParts.add(part);
+                }
+                index.setKeyParts(keyParts);
+            }
+            indexes.add(index);
+        }
+        table.setIndexes(indexes);
+        int foreignKeyCount = in.readVarInt();
+        for (int i = 0; i < foreignKeyCount; i++) {
+            ForeignKeySchema foreignKey = new ForeignKeySchema();
+            foreignKey.setConstraintName(in.readString());
+            foreignKey.setMemberColumns(readColumns(in, table));
+            foreignKey.setReferencedCatalog(in.readString());
+            foreignKey.setReferencedTableName(in.readString());
+            foreignKey.setReferencedColumnNames(in.readStrings());
+            foreignKey.setUpdateRule(in.readString());
+            foreignKey.setDeleteRule(in.readString());
+            table.getForeignKeys().add(foreignKey);
+        }
+        if (in.readByte() != 0) {
+            PartitionSchema partitioning = new PartitionSchema();
+            partitioning.setMethod(in.readString());
+            partitioning.setExpression(in.readString());
+            int partitionCount = in.readVarInt();
+            for (int i = 0; i < partitionCount; i++) {
+                PartitionDefinition partition = new PartitionDefinition(in.readString(), in.readString());
+                partition.setComment(in.readString());
+                partition.setTableRows(in.readVarLong());
+                partitioning.getPartitions().add(partition);
+            }
+            table.setPartitioning(partitioning);
+        }
+    }
+
+    private static List<ColumnSchema> readColumns(Input in, TableSchema table) {
+        List<String> names = in.readStrings();
+        if (names == null) {
+            return null;
+        }
+        List<ColumnSchema> columns = new ArrayList<>(names.size());
+        for (String name : names) {
+            columns.add(column(table, name));
+        }
+        return columns;
+    }
+
+    /**
+     * 列在 table.columns 中不存在时 (如基线本身不一致) 构造只有列名的列.
+     */
+    private static ColumnSchema column(TableSchema table, String columnName) {
+        ColumnSchema column = table.getColumn(columnName);
+        if (column == null) {
+            column = new ColumnSchema();
+            column.setTableSchema(table);
+            column.setColumnName(columnName);
+        }
+        return column;
+    }
+
+    /**
+     * 可增长的字节缓冲. 计数为 varint, 数值为 zigzag varint, 字符串为 varint (UTF-8 字节数 + 1) 加内容, 0 表示 null.
+     */
+    private static final class Output {
+
+        private byte[] bytes;
+        private int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        /**
+         * [0, split) 与 [split, size) 的内容是否相同.
+         */
+        boolean halvesEqual(int split) {
+            if (size - split != split) {
+                return false;
+            }
+            for (int i = 0; i < split; i++) {
+                if (bytes[i] != bytes[split + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void write(Output other) {
+            ensure(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            writeUnsigned(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void writeStrings(List<String> values) {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeColumnNames(List<ColumnSchema> columns) {
+            if (columns == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(columns.size() + 1);
+            for (ColumnSchema column : columns) {
+                writeString(column.getColumnName());
+            }
+        }
+
+        private void writeUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        int readByte() {
+            check(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        int readInt() {
+            check(4);
+            return (bytes[position++] & 0xFF) << 24
+                    | (bytes[position++] & 0xFF) << 16
+                    | (bytes[position++] & 0xFF) << 8
+                    | (bytes[position++] & 0xFF);
+        }
+
+        int readVarInt() {
+            return (int) readUnsigned();
+        }
+
+        long readVarLong() {
+            long value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            check(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        List<String> readStrings() {
+            int count = readVarInt() - 1;
+            if (count < 0) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private long readUnsigned() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in schema delta");
+        }
+
+        private void check(int length) {
+            if (length < 0 || position + length > bytes.length) {
+                throw new IllegalArgumentException("Truncated schema delta");
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.dol.database.utils;
+
+import jdk.jfr.*;
+
+/**
+ * JFR 事件定义, 只在 {@link SchemaFlightRecorder#isEnabled()} 为 true 时加载,
+ * 以免在没有 jdk.jfr 的 JDK 上触发 NoClassDefFoundError.
+ */
+final class SchemaFlightEvents {
+
+    private static final String CATEGORY = "Database Schema";
+
+    private SchemaFlightEvents() {
+    }
+
+    @Name("org.dol.database.CatalogLoad")
+    @Label("Catalog Load")
+    @Category({CATEGORY, "Load"})
+    static final class CatalogLoad extends Event {
+        @Label("Catalog")
+        String catalog;
+        @Label("Tables")
+        int tables;
+        @Label("Rows")
+        long rows;
+    }
+
+    @Name("org.dol.database.BulkMetadataQuery")
+    @Label("Bulk Metadata Query")
+    @Category({CATEGORY, "Load"})
+    @StackTrace(false)
+    static final class BulkQuery extends Event {
+        @Label("Catalog")
+        String catalog;
+        @Label("Phase")
+        String phase;
+        @Label("Rows")
+        int rows;
+    }
+
+    @Name("org.dol.database.TableLoad")
+    @Label("Table Load")
+    @Category({CATEGORY, "Load"})
+    @StackTrace(false)
+    static final class TableLoad extends Event {
+        @Label("Table")
+        String tableName;
+        @Label("Rows")
+        int rows;
+        @Label("Table Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.dol.database.TableDiff")
+    @Label("Table Diff")
+    @Category({CATEGORY, "Diff"})
+    @StackTrace(false)
+    static final class TableDiff extends Event {
+        @Label("Table")
+        String tableName;
+        @Label("Change Type")
+        String changeType;
+        @Label("Changes")
+        int changes;
+    }
+
+    @Name("org.dol.database.DdlRender")
+    @Label("DDL Render")
+    @Category({CATEGORY, "Script"})
+    @StackTrace(false)
+    static final class DdlRender extends Event {
+        @Label("Table")
+        String tableName;
+        @Label("Statement")
+        String statement;
+        @Label("Rows")
+        int rows;
+        @Label("Script Size")
+        @DataAmount
+        long bytes;
+    }
+
+    static Object beginCatalogLoad(String catalog) {
+        CatalogLoad event = new CatalogLoad();
+        event.catalog = catalog;
+        event.begin();
+        return event;
+    }
+
+    static void commitCatalogLoad(Object token, int tables, long rows) {
+        CatalogLoad event = (CatalogLoad) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.tables = tables;
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    static Object beginBulkQuery(String catalog, String phase) {
+        BulkQuery event = new BulkQuery();
+        event.catalog = catalog;
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    static void commitBulkQuery(Object token, int rows) {
+        BulkQuery event = (BulkQuery) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    static Object beginTableLoad(String tableName) {
+        TableLoad event = new TableLoad();
+        event.tableName = tableName;
+        event.begin();
+        return event;
+    }
+
+    static void commitTableLoad(Object token, int rows, long bytes) {
+        TableLoad event = (TableLoad) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginTableDiff(String tableName) {
+        TableDiff event = new TableDiff();
+        event.tableName = tableName;
+        event.begin();
+        return event;
+    }
+
+    static void commitTableDiff(Object token, String changeType, int changes) {
+        TableDiff event = (TableDiff) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.changeType = changeType;
+            event.changes = changes;
+            event.commit();
+        }
+    }
+
+    static Object beginDdlRender(String tableName, String statement) {
+        DdlRender event = new DdlRender();
+        event.tableName = tableName;
+        event.statement = statement;
+        event.begin();
+        return event;
+    }
+
+    static void commitDdlRender(Object token, int rows, long bytes) {
+        DdlRender event = (DdlRender) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.dol.database.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dol.database.schema.SchemaLoadPhase;
+
+/**
+ * 向 Java Flight Recorder 提交加载、比较与 DDL 渲染事件, 便于在同一份录制中对照 GC 与锁竞争.
+ * <p>
+ * 通过系统属性 {@value #ENABLED_PROPERTY}=true 开启, 启动时确定且不可更改: 关闭时各 begin 方法返回 null,
+ * commit 方法直接返回, 不创建任何事件对象. 运行时没有 jdk.jfr 的 JDK 8 (8u262 之前) 上始终关闭.
+ * 开启后各事件是否记录仍由录制配置 (.jfc) 决定.
+ * <p>
+ * begin 方法返回的对象只能传回对应的 commit 方法.
+ */
+@Slf4j
+public abstract class SchemaFlightRecorder {
+
+    public static final String ENABLED_PROPERTY = "org.dol.database.jfr";
+
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY) && flightRecorderAvailable();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static Object beginCatalogLoad(String catalog) {
+        return ENABLED ? SchemaFlightEvents.beginCatalogLoad(catalog) : null;
+    }
+
+    /**
+     * @param rows 所有查询返回的元数据条目数
+     */
+    public static void commitCatalogLoad(Object event, int tables, long rows) {
+        if (event != null) {
+            SchemaFlightEvents.commitCatalogLoad(event, tables, rows);
+        }
+    }
+
+    public static Object beginBulkQuery(String catalog, SchemaLoadPhase phase) {
+        return ENABLED ? SchemaFlightEvents.beginBulkQuery(catalog, phase.name()) : null;
+    }
+
+    public static void commitBulkQuery(Object event, int rows) {
+        if (event != null) {
+            SchemaFlightEvents.commitBulkQuery(event, rows);
+        }
+    }
+
+    public static Object beginTableLoad(String tableName) {
+        return ENABLED ? SchemaFlightEvents.beginTableLoad(tableName) : null;
+    }
+
+    /**
+     * @param bytes information_schema 中的数据与索引大小, 未知时为 0
+     */
+    public static void commitTableLoad(Object event, int rows, long bytes) {
+        if (event != null) {
+            SchemaFlightEvents.commitTableLoad(event, rows, bytes);
+        }
+    }
+
+    public static Object beginTableDiff(String tableName) {
+        return ENABLED ? SchemaFlightEvents.beginTableDiff(tableName) : null;
+    }
+
+    /**
+     * @param changeType 无变化时为 null
+     */
+    public static void commitTableDiff(Object event, String changeType, int changes) {
+        if (event != null) {
+            SchemaFlightEvents.commitTableDiff(event, changeType, changes);
+        }
+    }
+
+    /**
+     * @param statement CREATE TABLE / ALTER TABLE
+     */
+    public static Object beginDdlRender(String tableName, String statement) {
+        return ENABLED ? SchemaFlightEvents.beginDdlRender(tableName, statement) : null;
+    }
+
+    /**
+     * @param bytes 生成的 SQL 长度 (按字符计, DDL 基本为 ASCII)
+     */
+    public static void commitDdlRender(Object event, int rows, long bytes) {
+        if (event != null) {
+            SchemaFlightEvents.commitDdlRender(event, rows, bytes);
+        }
+    }
+
+    private static boolean flightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, SchemaFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError error) {
+            log.warn("{} is set but jdk.jfr is not available, flight recorder events are disabled", ENABLED_PROPERTY);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package org.dol.database.utils;
+
+import org.dol.database.diff.SchemaDiff;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地文件的 schema 历史, 只追加.
+ * <p>
+ * tables.dat 保存表版本 (长度 + {@link SchemaJsonWriter} 输出的 JSON), 按内容 SHA-256 去重, 相同内容只保存一次;
+ * history.idx 每次 {@link #append} 追加一条记录: 时间戳与发生变化的表 (新版本在 tables.dat 中的偏移, 删除为 -1),
+ * 记录带 CRC32, 打开时截掉写了一半的尾记录. 每张表的版本时间线常驻内存, 时间点查询为二分查找.
+ * <p>
+ * 追加的 DatabaseSchema 视为不可变: 与上次追加相同实例的 TableSchema 不重新编码 ({@link SchemaWatcher}
+ * 与 {@link SchemaDelta#apply} 都复用未变化的实例). 时间戳精度为毫秒, 且必须不早于上一次追加.
+ */
+public class SchemaHistoryStore implements Closeable {
+
+    private static final String TABLES_FILE = "tables.dat";
+    private static final String INDEX_FILE = "history.idx";
+    private static final int DIGEST_LENGTH = 32;
+
+    private final Path directory;
+    private final FileChannel tables;
+    private final FileChannel index;
+    private final Map<String, Timeline> timelines = new HashMap<>();
+    private final Map<Digest, Long> offsets = new HashMap<>();
+    private long[] snapshots = new long[16];
+    private int snapshotCount;
+
+    public SchemaHistoryStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        tables = FileChannel.open(directory.resolve(TABLES_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        readIndex();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void append(DatabaseSchema schema) throws IOException {
+        append(schema, Instant.now());
+    }
+
+    /**
+     * 追加一次快照, 只写入与上一版本不同的表.
+     *
+     * @return 发生变化 (新增、修改、删除) 的表数
+     */
+    public synchronized int append(DatabaseSchema schema, Instant loadedAt) throws IOException {
+        long timestamp = loadedAt.toEpochMilli();
+        if (snapshotCount > 0 && timestamp < snapshots[snapshotCount - 1]) {
+            throw new IllegalArgumentException("Snapshot " + loadedAt + " is older than the last one "
+                    + Instant.ofEpochMilli(snapshots[snapshotCount - 1]));
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeLong(timestamp);
+        out.writeInt(0);
+        int changes = 0;
+        Set<String> present = new HashSet<>();
+        SchemaJsonWriter writer = new SchemaJsonWriter();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        for (TableSchema table : schema.getTables()) {
+            String key = table.getTableName().toLowerCase();
+            present.add(key);
+            Timeline timeline = timelines.get(key);
+            if (timeline != null && timeline.isCurrent(table)) {
+                continue;
+            }
+            json.reset();
+            writer.write(table, json);
+            Digest digest = new Digest(sha256(json.toByteArray()));
+            if (timeline != null && digest.equals(timeline.digest)) {
+                timeline.instance = new WeakReference<>(table);
+                continue;
+            }
+            Long offset = offsets.get(digest);
+            if (offset == null) {
+                offset = writeTable(json.toByteArray());
+                offsets.put(digest, offset);
+            }
+            if (timeline == null) {
+                timeline = new Timeline();
+                timelines.put(key, timeline);
+            }
+            timeline.add(timestamp, offset, digest);
+            timeline.instance = new WeakReference<>(table);
+            out.writeUTF(table.getTableName());
+            out.writeLong(offset);
+            out.write(digest.bytes);
+            changes++;
+        }
+        for (Map.Entry<String, Timeline> entry : timelines.entrySet()) {
+            Timeline timeline = entry.getValue();
+            if (!present.contains(entry.getKey()) && timeline.latestOffset() >= 0) {
+                timeline.add(timestamp, -1, null);
+                timeline.instance = null;
+                out.writeUTF(entry.getKey());
+                out.writeLong(-1);
+                changes++;
+            }
+        }
+        out.flush();
+        byte[] bytes = record.toByteArray();
+        ByteBuffer.wrap(bytes, 8, 4).putInt(changes);
+        writeRecord(bytes);
+        addSnapshot(timestamp);
+        return changes;
+    }
+
+    /**
+     * 所有快照的时间, 按时间升序.
+     */
+    public synchronized List<Instant> getSnapshots() {
+        List<Instant> result = new ArrayList<>(snapshotCount);
+        for (int i = 0; i < snapshotCount; i++) {
+            result.add(Instant.ofEpochMilli(snapshots[i]));
+        }
+        return result;
+    }
+
+    /**
+     * instant 时刻的整库结构; 早于第一次快照时为空库.
+     */
+    public DatabaseSchema asOf(Instant instant) throws IOException {
+        long timestamp = instant.toEpochMilli();
+        List<Long> versions = new ArrayList<>();
+        synchronized (this) {
+            for (Timeline timeline : timelines.values()) {
+                long offset = timeline.offsetAt(timestamp);
+                if (offset >= 0) {
+                    versions.add(offset);
+                }
+            }
+        }
+        List<TableSchema> result = new ArrayList<>(versions.size());
+        for (Long offset : versions) {
+            result.add(readTable(offset));
+        }
+        DatabaseSchema schema = new DatabaseSchema();
+        schema.setTables(result);
+        return schema;
+    }
+
+    /**
+     * instant 时刻的一张表; 当时不存在时为 null.
+     */
+    public TableSchema asOf(Instant instant, String tableName) throws IOException {
+        long offset;
+        synchronized (this) {
+            Timeline timeline = timelines.get(tableName.toLowerCase());
+            offset = timeline != null ? timeline.offsetAt(instant.toEpochMilli()) : -1;
+        }
+        return offset >= 0 ? readTable(offset) : null;
+    }
+
+    /**
+     * 一张表的全部版本, 按时间升序; 包括删除 (table 为 null).
+     */
+    public List<TableVersion> history(String tableName) throws IOException {
+        long[] timestamps;
+        long[] versionOffsets;
+        synchronized (this) {
+            Timeline timeline = timelines.get(tableName.toLowerCase());
+            if (timeline == null) {
+                return Collections.emptyList();
+            }
+            timestamps = Arrays.copyOf(timeline.timestamps, timeline.size);
+            versionOffsets = Arrays.copyOf(timeline.offsets, timeline.size);
+        }
+        List<TableVersion> versions = new ArrayList<>(timestamps.length);
+        String name = tableName;
+        for (int i = 0; i < timestamps.length; i++) {
+            TableSchema table = versionOffsets[i] >= 0 ? readTable(versionOffsets[i]) : null;
+            if (table != null) {
+                name = table.getTableName();
+            }
+            versions.add(new TableVersion(name, Instant.ofEpochMilli(timestamps[i]), table));
+        }
+        return versions;
+    }
+
+    /**
+     * 从 from 时刻到 to 时刻的变更, 与 {@code SchemaDiffer.diff(asOf(to), asOf(from))} 相同,
+     * 但只读取两个时刻版本不同的表.
+     */
+    public SchemaDiff diff(Instant from, Instant to) throws IOException {
+        long fromTimestamp = from.toEpochMilli();
+        long toTimestamp = to.toEpochMilli();
+        List<long[]> changed = new ArrayList<>();
+        synchronized (this) {
+            for (Timeline timeline : timelines.values()) {
+                long fromOffset = timeline.offsetAt(fromTimestamp);
+                long toOffset = timeline.offsetAt(toTimestamp);
+                if (fromOffset != toOffset) {
+                    changed.add(new long[]{fromOffset, toOffset});
+                }
+            }
+        }
+        List<TableSchema> fromTables = new ArrayList<>();
+        List<TableSchema> toTables = new ArrayList<>();
+        for (long[] offsets : changed) {
+            if (offsets[0] >= 0) {
+                fromTables.add(readTable(offsets[0]));
+            }
+            if (offsets[1] >= 0) {
+                toTables.add(readTable(offsets[1]));
+            }
+        }
+        DatabaseSchema fromSchema = new DatabaseSchema();
+        fromSchema.setTables(fromTables);
+        DatabaseSchema toSchema = new DatabaseSchema();
+        toSchema.setTables(toTables);
+        return SchemaDiffer.diff(toSchema, fromSchema);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            tables.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private TableSchema readTable(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(tables, header, offset);
+        ByteBuffer json = ByteBuffer.allocate(header.getInt(0));
+        readFully(tables, json, offset + 4);
+        return new SchemaJsonReader().readTable(new ByteArrayInputStream(json.array()));
+    }
+
+    private long writeTable(byte[] json) throws IOException {
+        long offset = tables.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + json.length);
+        buffer.putInt(json.length).put(json).flip();
+        writeFully(tables, buffer, offset);
+        return offset;
+    }
+
+    /**
+     * 记录格式: 长度, 内容, 内容的 CRC32. 先强制写入表版本, 再写索引记录.
+     */
+    private void writeRecord(byte[] bytes) throws IOException {
+        tables.force(false);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).putInt((int) crc.getValue()).flip();
+        writeFully(index, buffer, index.size());
+        index.force(false);
+    }
+
+    private void readIndex() throws IOException {
+        long size = index.size();
+        long position = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(index.position(0)), 65536));
+        while (position + 4 <= size) {
+            int length = in.readInt();
+            if (length < 12 || position + 8 + length > size) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, length);
+            if (in.readInt() != (int) crc.getValue()) {
+                break;
+            }
+            applyRecord(bytes);
+            position += 8 + length;
+        }
+        if (position < size) {
+            // 上次写入中断留下的不完整记录
+            index.truncate(position);
+        }
+    }
+
+    private void applyRecord(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        long timestamp = in.readLong();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF().toLowerCase();
+            long offset = in.readLong();
+            Digest digest = null;
+            if (offset >= 0) {
+                byte[] digestBytes = new byte[DIGEST_LENGTH];
+                in.readFully(digestBytes);
+                digest = new Digest(digestBytes);
+                offsets.put(digest, offset);
+            }
+            Timeline timeline = timelines.get(key);
+            if (timeline == null) {
+                timeline = new Timeline();
+                timelines.put(key, timeline);
+            }
+            timeline.add(timestamp, offset, digest);
+        }
+        addSnapshot(timestamp);
+    }
+
+    private void addSnapshot(long timestamp) {
+        if (snapshotCount == snapshots.length) {
+            snapshots = Arrays.copyOf(snapshots, snapshotCount * 2);
+        }
+        snapshots[snapshotCount++] = timestamp;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated schema history at " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * 一张表的版本时间线, 时间戳非递减; offset 为 -1 表示该时刻被删除.
+     */
+    private static final class Timeline {
+
+        private long[] timestamps = new long[4];
+        private long[] offsets = new long[4];
+        private int size;
+        private Digest digest;
+        private WeakReference<TableSchema> instance;
+
+        void add(long timestamp, long offset, Digest digest) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            timestamps[size] = timestamp;
+            offsets[size] = offset;
+            size++;
+            this.digest = digest;
+        }
+
+        long latestOffset() {
+            return size > 0 ? offsets[size - 1] : -1;
+        }
+
+        boolean isCurrent(TableSchema table) {
+            return instance != null && instance.get() == table && latestOffset() >= 0;
+        }
+
+        /**
+         * timestamp 时刻生效的版本, 同一时刻多次追加时取最后一次.
+         */
+        long offsetAt(long timestamp) {
+            int low = 0;
+            int high = size - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] <= timestamp) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found >= 0 ? offsets[found] : -1;
+        }
+    }
+
+    private static final class Digest {
+
+        private final byte[] bytes;
+        private final int hash;
+
+        Digest(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Digest && Arrays.equals(bytes, ((Digest) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,768 @@
+package org.dol.database.utils;
+
+import org.dol.database.schema.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读取 {@link SchemaJsonWriter} 输出的 JSON, 手写的 UTF-8 拉取式解析, 边解析边构造模型, 不构造中间对象树.
+ * <p>
+ * 列引用在整张表读完后按列名解析, 与字段顺序无关; 经投影去掉 columns 后, 引用的列只有列名与 tableSchema.
+ * 未知字段被跳过. 实例无状态, 可并发调用.
+ */
+public class SchemaJsonReader {
+
+    public DatabaseSchema read(InputStream in) throws IOException {
+        JsonInput json = new JsonInput(in);
+        List<TableSchema> tables = new ArrayList<>();
+        json.expect('{');
+        while (json.hasNext('}')) {
+            if ("tables".equals(json.name())) {
+                json.expect('[');
+                while (json.hasNext(']')) {
+                    tables.add(readTable(json));
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        DatabaseSchema schema = new DatabaseSchema();
+        schema.setTables(tables);
+        return schema;
+    }
+
+    /**
+     * 读取 {@link SchemaJsonWriter#write(TableSchema, java.io.OutputStream)} 输出的单张表.
+     */
+    public TableSchema readTable(InputStream in) throws IOException {
+        return readTable(new JsonInput(in));
+    }
+
+    private static TableSchema readTable(JsonInput json) throws IOException {
+        json.expect('{');
+        if (!json.hasNext('}')) {
+            return new TableSchema(null);
+        }
+        String name = json.name();
+        String prefix = null;
+        if ("prefix".equals(name)) {
+            prefix = json.string();
+            name = json.hasNext('}') ? json.name() : null;
+        }
+        TableSchema table = new TableSchema(prefix);
+        table.setIndexes(new ArrayList<>());
+        ColumnRefs refs = new ColumnRefs();
+        String primaryColumn = null;
+        while (name != null) {
+            switch (name) {
+                case "tableName":
+                    table.setTableName(json.string());
+                    break;
+                case "tableCatalog":
+                    table.setTableCatalog(json.string());
+                    break;
+                case "comment":
+                    table.setComment(json.string());
+                    break;
+                case "engine":
+                    table.setEngine(json.string());
+                    break;
+                case "collation":
+                    table.setCollation(json.string());
+                    break;
+                case "view":
+                    table.setView(json.bool());
+                    break;
+                case "tableRows":
+                    table.setTableRows(json.number());
+                    break;
+                case "dataLength":
+                    table.setDataLength(json.number());
+                    break;
+                case "indexLength":
+                    table.setIndexLength(json.number());
+                    break;
+                case "columns":
+                    List<ColumnSchema> columns = new ArrayList<>();
+                    json.expect('[');
+                    while (json.hasNext(']')) {
+                        columns.add(readColumn(json, table));
+                    }
+                    table.setColumns(columns);
+                    break;
+                case "primaryColumn":
+                    primaryColumn = json.string();
+                    break;
+                case "primaryKey":
+                    table.setPrimaryKey(readPrimaryKey(json, refs));
+                    break;
+                case "indexes":
+                    json.expect('[');
+                    while (json.hasNext(']')) {
+                        table.getIndexes().add(readIndex(json, refs));
+                    }
+                    break;
+                case "foreignKeys":
+                    json.expect('[');
+                    while (json.hasNext(']')) {
+                        table.getForeignKeys().add(readForeignKey(json, refs));
+                    }
+                    break;
+                case "partitioning":
+                    table.setPartitioning(readPartitioning(json));
+                    break;
+                default:
+                    json.skipValue();
+            }
+            name = json.hasNext('}') ? json.name() : null;
+        }
+        if (table.getColumns() == null) {
+            table.setColumns(new ArrayList<>());
+        }
+        refs.resolve(table);
+        if (primaryColumn != null) {
+            table.setPrimaryColumn(refs.column(table, primaryColumn));
+        }
+        return table;
+    }
+
+    private static ColumnSchema readColumn(JsonInput json, TableSchema table) throws IOException {
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(table);
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "columnName":
+                    column.setColumnName(json.string());
+                    break;
+                case "dataTypeName":
+                    String dataTypeName = json.string();
+                    if (dataTypeName != null) {
+                        column.setDataTypeName(dataTypeName);
+                    }
+                    break;
+                case "columnType":
+                    column.setColumnType(json.string());
+                    break;
+                case "dataType":
+                    column.setDataType((int) json.number());
+                    break;
+                case "columnSize":
+                    column.setColumnSize((int) json.number());
+                    break;
+                case "decimalDigits":
+                    column.setDecimalDigits((int) json.number());
+                    break;
+                case "displayWidth":
+                    column.setDisplayWidth((int) json.number());
+                    break;
+                case "unsigned":
+                    column.setUnsigned(json.bool());
+                    break;
+                case "zerofill":
+                    column.setZerofill(json.bool());
+                    break;
+                case "enumValues":
+                    column.setEnumValues(readStrings(json));
+                    break;
+                case "nullable":
+                    column.setNullable(json.bool());
+                    break;
+                case "defaultValue":
+                    column.setDefaultValue(json.string());
+                    break;
+                case "remarks":
+                    column.setRemarks(json.string());
+                    break;
+                case "primary":
+                    column.setPrimary(json.bool());
+                    break;
+                case "autoIncrement":
+                    column.setAutoIncrement(json.bool());
+                    break;
+                case "characterSet":
+                    column.setCharacterSet(json.string());
+                    break;
+                case "collation":
+                    column.setCollation(json.string());
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return column;
+    }
+
+    private static KeySchema readPrimaryKey(JsonInput json, ColumnRefs refs) throws IOException {
+        KeySchema primaryKey = new KeySchema();
+        primaryKey.setMemberColumns(new ArrayList<>());
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "keyName":
+                    primaryKey.setKeyName(json.string());
+                    break;
+                case "columns":
+                    refs.add(primaryKey.getMemberColumns(), readStrings(json));
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return primaryKey;
+    }
+
+    private static IndexSchema readIndex(JsonInput json, ColumnRefs refs) throws IOException {
+        IndexSchema index = new IndexSchema();
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "indexName":
+                    index.setIndexName(json.string());
+                    break;
+                case "unique":
+                    index.setUnique(json.bool());
+                    break;
+                case "type":
+                    index.setType((short) json.number());
+                    break;
+                case "order":
+                    index.setOrder(json.string());
+                    break;
+                case "indexType":
+                    index.setIndexType(json.string());
+                    break;
+                case "visible":
+                    index.setVisible(json.bool());
+                    break;
+                case "cardinality":
+                    index.setCardinality(json.number());
+                    break;
+                case "comment":
+                    index.setComment(json.string());
+                    break;
+                case "columns":
+                    index.setMemberColumns(new ArrayList<>());
+                    refs.add(index.getMemberColumns(), readStrings(json));
+                    break;
+                case "keyParts":
+                    List<IndexPart> keyParts = new ArrayList<>();
+                    json.expect('[');
+                    while (json.hasNext(']')) {
+                        keyParts.add(readKeyPart(json, refs));
+                    }
+                    index.setKeyParts(keyParts);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        if (index.getMemberColumns() == null) {
+            index.setMemberColumns(new ArrayList<>());
+        }
+        return index;
+    }
+
+    private static IndexPart readKeyPart(JsonInput json, ColumnRefs refs) throws IOException {
+        IndexPart part = new IndexPart();
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "column":
+                    refs.add(part, json.string());
+                    break;
+                case "expression":
+                    part.setExpression(json.string());
+                    break;
+                case "subPart":
+                    part.setSubPart((int) json.number());
+                    break;
+                case "descending":
+                    part.setDescending(json.bool());
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return part;
+    }
+
+    private static ForeignKeySchema readForeignKey(JsonInput json, ColumnRefs refs) throws IOException {
+        ForeignKeySchema foreignKey = new ForeignKeySchema();
+        foreignKey.setMemberColumns(new ArrayList<>());
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "constraintName":
+                    foreignKey.setConstraintName(json.string());
+                    break;
+                case "columns":
+                    refs.add(foreignKey.getMemberColumns(), readStrings(json));
+                    break;
+                case "referencedCatalog":
+                    foreignKey.setReferencedCatalog(json.string());
+                    break;
+                case "referencedTableName":
+                    foreignKey.setReferencedTableName(json.string());
+                    break;
+                case "referencedColumns":
+                    foreignKey.setReferencedColumnNames(readStrings(json));
+                    break;
+                case "updateRule":
+                    foreignKey.setUpdateRule(json.string());
+                    break;
+                case "deleteRule":
+                    foreignKey.setDeleteRule(json.string());
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return foreignKey;
+    }
+
+    private static PartitionSchema readPartitioning(JsonInput json) throws IOException {
+        PartitionSchema partitioning = new PartitionSchema();
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "method":
+                    partitioning.setMethod(json.string());
+                    break;
+                case "expression":
+                    partitioning.setExpression(json.string());
+                    break;
+                case "partitions":
+                    json.expect('[');
+                    while (json.hasNext(']')) {
+                        partitioning.getPartitions().add(readPartition(json));
+                    }
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return partitioning;
+    }
+
+    private static PartitionDefinition readPartition(JsonInput json) throws IOException {
+        PartitionDefinition partition = new PartitionDefinition();
+        json.expect('{');
+        while (json.hasNext('}')) {
+            switch (json.name()) {
+                case "partitionName":
+                    partition.setPartitionName(json.string());
+                    break;
+                case "description":
+                    partition.setDescription(json.string());
+                    break;
+                case "comment":
+                    partition.setComment(json.string());
+                    break;
+                case "tableRows":
+                    partition.setTableRows(json.number());
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        return partition;
+    }
+
+    private static List<String> readStrings(JsonInput json) throws IOException {
+        if (json.nullValue()) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        json.expect('[');
+        while (json.hasNext(']')) {
+            values.add(json.string());
+        }
+        return values;
+    }
+
+    /**
+     * 一张表内待解析的列名引用.
+     */
+    private static final class ColumnRefs {
+
+        private final List<List<ColumnSchema>> targets = new ArrayList<>();
+        private final List<List<String>> names = new ArrayList<>();
+        private final List<IndexPart> parts = new ArrayList<>();
+        private final List<String> partNames = new ArrayList<>();
+
+        void add(List<ColumnSchema> target, List<String> columnNames) {
+            if (columnNames != null) {
+                targets.add(target);
+                names.add(columnNames);
+            }
+        }
+
+        void add(IndexPart part, String columnName) {
+            parts.add(part);
+            partNames.add(columnName);
+        }
+
+        void resolve(TableSchema table) {
+            for (int i = 0; i < targets.size(); i++) {
+                List<ColumnSchema> target = targets.get(i);
+                for (String columnName : names.get(i)) {
+                    target.add(column(table, columnName));
+                }
+            }
+            for (int i = 0; i < parts.size(); i++) {
+                parts.get(i).setColumn(column(table, partNames.get(i)));
+            }
+        }
+
+        ColumnSchema column(TableSchema table, String columnName) {
+            ColumnSchema column = table.getColumn(columnName);
+            if (column == null) {
+                column = new ColumnSchema();
+                column.setTableSchema(table);
+                column.setColumnName(columnName);
+            }
+            return column;
+        }
+    }
+
+    /**
+     * 带缓冲的 UTF-8 JSON 词法读取. ASCII 且无转义的字符串直接从缓冲区构造, 其余逐字节解码.
+     */
+    private static final class JsonInput {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[65536];
+        private int position;
+        private int limit;
+        private char[] chars = new char[256];
+        private final String[] names = new String[128];
+
+        JsonInput(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * 跳过空白与逗号; 下一个字符为 end 时消费它并返回 false.
+         */
+        boolean hasNext(char end) throws IOException {
+            int c = peek();
+            if (c == ',') {
+                position++;
+                c = peek();
+            }
+            if (c == end) {
+                position++;
+                return false;
+            }
+            if (c < 0) {
+                throw error("Unexpected end of JSON input");
+            }
+            return true;
+        }
+
+        /**
+         * 字段名重复出现, 命中缓存时不分配字符串, switch 也可复用已缓存的 hashCode.
+         */
+        String name() throws IOException {
+            expect('"');
+            String name = null;
+            int hash = 0;
+            for (int i = position; i < limit; i++) {
+                final byte b = buffer[i];
+                if (b == '"') {
+                    name = cachedName(position, i, hash);
+                    position = i + 1;
+                    break;
+                }
+                if (b == '\\' || b < 0x20) {
+                    break;
+                }
+                hash = 31 * hash + b;
+            }
+            if (name == null) {
+                name = decodeString();
+            }
+            expect(':');
+            return name;
+        }
+
+        private String cachedName(int start, int end, int hash) {
+            final int slot = (hash ^ (hash >>> 7)) & (names.length - 1);
+            final String cached = names[slot];
+            if (cached != null && cached.length() == end - start) {
+                int i = 0;
+                while (i < cached.length() && cached.charAt(i) == buffer[start + i]) {
+                    i++;
+                }
+                if (i == cached.length()) {
+                    return cached;
+                }
+            }
+            return names[slot] = ascii(start, end);
+        }
+
+        private String ascii(int start, int end) {
+            final int length = end - start;
+            if (length > chars.length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) buffer[start + i];
+            }
+            return new String(chars, 0, length);
+        }
+
+        void expect(char expected) throws IOException {
+            int c = peek();
+            if (c != expected) {
+                throw error("Expected '" + expected + "' but found " + describe(c));
+            }
+            position++;
+        }
+
+        boolean nullValue() throws IOException {
+            if (peek() == 'n') {
+                literal("null");
+                return true;
+            }
+            return false;
+        }
+
+        String string() throws IOException {
+            if (nullValue()) {
+                return null;
+            }
+            expect('"');
+            final int start = position;
+            for (int i = start; i < limit; i++) {
+                final byte b = buffer[i];
+                if (b == '"') {
+                    position = i + 1;
+                    return ascii(start, i);
+                }
+                if (b == '\\' || b < 0x20) {
+                    break;
+                }
+            }
+            return decodeString();
+        }
+
+        long number() throws IOException {
+            int c = peek();
+            if (c == 'n') {
+                literal("null");
+                return 0;
+            }
+            boolean negative = c == '-';
+            if (negative) {
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (true) {
+                if (position == limit && !fill()) {
+                    break;
+                }
+                final byte b = buffer[position];
+                if (b < '0' || b > '9') {
+                    if (b == '.' || b == 'e' || b == 'E') {
+                        // 模型中只有整数, 小数部分截断
+                        skipScalar();
+                    }
+                    break;
+                }
+                value = value * 10 + (b - '0');
+                digits++;
+                position++;
+            }
+            if (digits == 0) {
+                throw error("Expected number");
+            }
+            return negative ? -value : value;
+        }
+
+        boolean bool() throws IOException {
+            int c = peek();
+            if (c == 't') {
+                literal("true");
+                return true;
+            }
+            if (c == 'f') {
+                literal("false");
+                return false;
+            }
+            if (c == 'n') {
+                literal("null");
+                return false;
+            }
+            throw error("Expected boolean but found " + describe(c));
+        }
+
+        void skipValue() throws IOException {
+            int c = peek();
+            if (c == '{') {
+                position++;
+                while (hasNext('}')) {
+                    name();
+                    skipValue();
+                }
+            } else if (c == '[') {
+                position++;
+                while (hasNext(']')) {
+                    skipValue();
+                }
+            } else if (c == '"') {
+                string();
+            } else if (c < 0) {
+                throw error("Unexpected end of JSON input");
+            } else {
+                skipScalar();
+            }
+        }
+
+        private void skipScalar() throws IOException {
+            while (position < limit || fill()) {
+                final byte b = buffer[position];
+                if (b == ',' || b == '}' || b == ']' || isSpace(b)) {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private void literal(String literal) throws IOException {
+            final int length = literal.length();
+            if (position + length <= limit) {
+                for (int i = 0; i < length; i++) {
+                    if (buffer[position + i] != literal.charAt(i)) {
+                        throw error("Expected " + literal);
+                    }
+                }
+                position += length;
+                return;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (read() != literal.charAt(i)) {
+                    throw error("Expected " + literal);
+                }
+            }
+        }
+
+        /**
+         * 含转义或非 ASCII 字符, 或跨越缓冲区边界的字符串.
+         */
+        private String decodeString() throws IOException {
+            int length = 0;
+            while (true) {
+                int b = read();
+                if (b < 0) {
+                    throw error("Unterminated string");
+                }
+                if (b == '"') {
+                    return new String(chars, 0, length);
+                }
+                if (length + 2 > chars.length) {
+                    char[] grown = new char[chars.length * 2];
+                    System.arraycopy(chars, 0, grown, 0, length);
+                    chars = grown;
+                }
+                if (b == '\\') {
+                    chars[length++] = escape();
+                } else if (b < 0x80) {
+                    chars[length++] = (char) b;
+                } else if (b < 0xE0) {
+                    chars[length++] = (char) (((b & 0x1F) << 6) | continuation());
+                } else if (b < 0xF0) {
+                    chars[length++] = (char) (((b & 0x0F) << 12) | (continuation() << 6) | continuation());
+                } else {
+                    int codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                    chars[length++] = Character.highSurrogate(codePoint);
+                    chars[length++] = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+
+        private char escape() throws IOException {
+            int c = read();
+            switch (c) {
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'u':
+                    int value = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    return (char) value;
+                case '"':
+                case '\\':
+                case '/':
+                    return (char) c;
+                default:
+                    throw error("Invalid escape " + describe(c));
+            }
+        }
+
+        private int continuation() throws IOException {
+            int b = read();
+            if ((b & 0xC0) != 0x80) {
+                throw error("Malformed UTF-8");
+            }
+            return b & 0x3F;
+        }
+
+        /**
+         * 跳过空白, 返回下一个字节但不消费; 输入结束时为 -1.
+         */
+        private int peek() throws IOException {
+            while (position < limit || fill()) {
+                final byte b = buffer[position];
+                if (!isSpace(b)) {
+                    return b;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            position = 0;
+            limit = Math.max(in.read(buffer), 0);
+            return limit > 0;
+        }
+
+        private static boolean isSpace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+        }
+
+        private static String describe(int c) {
+            return c < 0 ? "end of input" : "'" + (char) c + "'";
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at buffer offset " + position);
+        }
+    }
+}
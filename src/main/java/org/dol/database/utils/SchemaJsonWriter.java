@@ -0,0 +1,474 @@
+package org.dol.database.utils;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dol.database.schema.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DatabaseSchema 的流式 JSON 输出, 不使用反射, 按 UTF-8 直接写入 OutputStream, 不构造中间对象树.
+ * <p>
+ * ColumnSchema.tableSchema 回指不输出, 由嵌套关系表达; 主键、索引、外键与 primaryColumn 按列名引用同表的列.
+ * tableFields / columnFields / indexFields 为 null 时输出全部字段, 否则只输出集合中的字段;
+ * prefix、tableName、columnName、indexName 总是输出. 实例配置可复用, 每次 write 独立, 可并发调用.
+ */
+@Getter
+@Setter
+public class SchemaJsonWriter {
+
+    private Set<String> tableFields;
+    private Set<String> columnFields;
+    private Set<String> indexFields;
+
+    /**
+     * 输出 {@code {"tables":[...]}}, 结束时 flush 但不关闭 out.
+     */
+    public void write(DatabaseSchema schema, OutputStream out) throws IOException {
+        JsonOutput json = new JsonOutput(out);
+        json.beginObject();
+        json.name("tables");
+        json.beginArray();
+        for (TableSchema table : schema.getTables()) {
+            writeTable(json, table);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    /**
+     * 输出单张表的 JSON 对象, 结束时 flush 但不关闭 out.
+     */
+    public void write(TableSchema table, OutputStream out) throws IOException {
+        JsonOutput json = new JsonOutput(out);
+        writeTable(json, table);
+        json.flush();
+    }
+
+    private void writeTable(JsonOutput json, TableSchema table) throws IOException {
+        json.beginObject();
+        // SchemaJsonReader 依赖 prefix 位于第一个字段来构造 TableSchema
+        json.name("prefix").value(table.getPrefix());
+        json.name("tableName").value(table.getTableName());
+        Set<String> fields = tableFields;
+        string(json, fields, "tableCatalog", table.getTableCatalog());
+        string(json, fields, "comment", table.getComment());
+        string(json, fields, "engine", table.getEngine());
+        string(json, fields, "collation", table.getCollation());
+        if (include(fields, "view")) {
+            json.name("view").value(table.isView());
+        }
+        if (include(fields, "tableRows")) {
+            json.name("tableRows").value(table.getTableRows());
+        }
+        if (include(fields, "dataLength")) {
+            json.name("dataLength").value(table.getDataLength());
+        }
+        if (include(fields, "indexLength")) {
+            json.name("indexLength").value(table.getIndexLength());
+        }
+        List<ColumnSchema> columns = table.getColumns();
+        if (columns != null && include(fields, "columns")) {
+            json.name("columns");
+            json.beginArray();
+            for (int i = 0; i < columns.size(); i++) {
+                writeColumn(json, columns.get(i));
+            }
+            json.endArray();
+        }
+        if (table.getPrimaryColumn() != null && include(fields, "primaryColumn")) {
+            json.name("primaryColumn").value(table.getPrimaryColumn().getColumnName());
+        }
+        KeySchema primaryKey = table.getPrimaryKey();
+        if (primaryKey != null && include(fields, "primaryKey")) {
+            json.name("primaryKey");
+            json.beginObject();
+            string(json, null, "keyName", primaryKey.getKeyName());
+            columnNames(json, "columns", primaryKey.getMemberColumns());
+            json.endObject();
+        }
+        List<IndexSchema> indexes = table.getIndexes();
+        if (indexes != null && include(fields, "indexes")) {
+            json.name("indexes");
+            json.beginArray();
+            for (int i = 0; i < indexes.size(); i++) {
+                writeIndex(json, indexes.get(i));
+            }
+            json.endArray();
+        }
+        List<ForeignKeySchema> foreignKeys = table.getForeignKeys();
+        if (foreignKeys != null && !foreignKeys.isEmpty() && include(fields, "foreignKeys")) {
+            json.name("foreignKeys");
+            json.beginArray();
+            for (ForeignKeySchema foreignKey : foreignKeys) {
+                writeForeignKey(json, foreignKey);
+            }
+            json.endArray();
+        }
+        if (table.getPartitioning() != null && include(fields, "partitioning")) {
+            writePartitioning(json, table.getPartitioning());
+        }
+        json.endObject();
+    }
+
+    private void writeColumn(JsonOutput json, ColumnSchema column) throws IOException {
+        Set<String> fields = columnFields;
+        json.beginObject();
+        json.name("columnName").value(column.getColumnName());
+        string(json, fields, "dataTypeName", column.getDataTypeName());
+        string(json, fields, "columnType", column.getColumnType());
+        if (include(fields, "dataType")) {
+            json.name("dataType").value(column.getDataType());
+        }
+        if (include(fields, "columnSize")) {
+            json.name("columnSize").value(column.getColumnSize());
+        }
+        if (include(fields, "decimalDigits")) {
+            json.name("decimalDigits").value(column.getDecimalDigits());
+        }
+        if (include(fields, "displayWidth")) {
+            json.name("displayWidth").value(column.getDisplayWidth());
+        }
+        if (include(fields, "unsigned")) {
+            json.name("unsigned").value(Boolean.TRUE.equals(column.getUnsigned()));
+        }
+        if (include(fields, "zerofill")) {
+            json.name("zerofill").value(column.isZerofill());
+        }
+        if (column.getEnumValues() != null && include(fields, "enumValues")) {
+            json.name("enumValues");
+            json.beginArray();
+            for (String value : column.getEnumValues()) {
+                json.value(value);
+            }
+            json.endArray();
+        }
+        if (include(fields, "nullable")) {
+            json.name("nullable").value(column.isNullable());
+        }
+        string(json, fields, "defaultValue", column.getDefaultValue());
+        string(json, fields, "remarks", column.getRemarks());
+        if (include(fields, "primary")) {
+            json.name("primary").value(column.isPrimary());
+        }
+        if (include(fields, "autoIncrement")) {
+            json.name("autoIncrement").value(column.isAutoIncrement());
+        }
+        string(json, fields, "characterSet", column.getCharacterSet());
+        string(json, fields, "collation", column.getCollation());
+        json.endObject();
+    }
+
+    private void writeIndex(JsonOutput json, IndexSchema index) throws IOException {
+        Set<String> fields = indexFields;
+        json.beginObject();
+        json.name("indexName").value(index.getIndexName());
+        if (include(fields, "unique")) {
+            json.name("unique").value(index.isUnique());
+        }
+        if (include(fields, "type")) {
+            json.name("type").value(index.getType());
+        }
+        string(json, fields, "order", index.getOrder());
+        string(json, fields, "indexType", index.getIndexType());
+        if (include(fields, "visible")) {
+            json.name("visible").value(index.isVisible());
+        }
+        if (include(fields, "cardinality")) {
+            json.name("cardinality").value(index.getCardinality());
+        }
+        string(json, fields, "comment", index.getComment());
+        if (include(fields, "columns")) {
+            columnNames(json, "columns", index.getMemberColumns());
+        }
+        if (index.hasExplicitKeyParts() && include(fields, "keyParts")) {
+            json.name("keyParts");
+            json.beginArray();
+            for (IndexPart part : index.getKeyParts()) {
+                json.beginObject();
+                if (part.isFunctional()) {
+                    json.name("expression").value(part.getExpression());
+                } else {
+                    json.name("column").value(part.getColumn().getColumnName());
+                }
+                if (part.getSubPart() != null) {
+                    json.name("subPart").value(part.getSubPart());
+                }
+                if (part.isDescending()) {
+                    json.name("descending").value(true);
+                }
+                json.endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    private static void writeForeignKey(JsonOutput json, ForeignKeySchema foreignKey) throws IOException {
+        json.beginObject();
+        json.name("constraintName").value(foreignKey.getConstraintName());
+        columnNames(json, "columns", foreignKey.getMemberColumns());
+        string(json, null, "referencedCatalog", foreignKey.getReferencedCatalog());
+        string(json, null, "referencedTableName", foreignKey.getReferencedTableName());
+        if (foreignKey.getReferencedColumnNames() != null) {
+            json.name("referencedColumns");
+            json.beginArray();
+            for (String columnName : foreignKey.getReferencedColumnNames()) {
+                json.value(columnName);
+            }
+            json.endArray();
+        }
+        string(json, null, "updateRule", foreignKey.getUpdateRule());
+        string(json, null, "deleteRule", foreignKey.getDeleteRule());
+        json.endObject();
+    }
+
+    private static void writePartitioning(JsonOutput json, PartitionSchema partitioning) throws IOException {
+        json.name("partitioning");
+        json.beginObject();
+        string(json, null, "method", partitioning.getMethod());
+        string(json, null, "expression", partitioning.getExpression());
+        json.name("partitions");
+        json.beginArray();
+        for (PartitionDefinition partition : partitioning.getPartitions()) {
+            json.beginObject();
+            json.name("partitionName").value(partition.getPartitionName());
+            string(json, null, "description", partition.getDescription());
+            string(json, null, "comment", partition.getComment());
+            json.name("tableRows").value(partition.getTableRows());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void columnNames(JsonOutput json, String name, Collection<ColumnSchema> columns) throws IOException {
+        if (columns == null) {
+            return;
+        }
+        json.name(name);
+        json.beginArray();
+        for (ColumnSchema column : columns) {
+            json.value(column.getColumnName());
+        }
+        json.endArray();
+    }
+
+    private static void string(JsonOutput json, Set<String> fields, String name, String value) throws IOException {
+        if (value != null && include(fields, name)) {
+            json.name(name).value(value);
+        }
+    }
+
+    private static boolean include(Set<String> fields, String name) {
+        return fields == null || fields.contains(name);
+    }
+
+    /**
+     * 带缓冲的 UTF-8 JSON 输出. 逗号由 needComma 决定, 不需要嵌套栈.
+     */
+    private static final class JsonOutput {
+
+        private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private boolean needComma;
+
+        JsonOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        void beginObject() throws IOException {
+            separator();
+            write('{');
+            needComma = false;
+        }
+
+        void endObject() throws IOException {
+            write('}');
+            needComma = true;
+        }
+
+        void beginArray() throws IOException {
+            separator();
+            write('[');
+            needComma = false;
+        }
+
+        void endArray() throws IOException {
+            write(']');
+            needComma = true;
+        }
+
+        /**
+         * 字段名均为 ASCII 常量, 不转义.
+         */
+        JsonOutput name(String name) throws IOException {
+            separator();
+            final int length = name.length();
+            ensure(length + 3);
+            buffer[position++] = '"';
+            for (int i = 0; i < length; i++) {
+                buffer[position++] = (byte) name.charAt(i);
+            }
+            buffer[position++] = '"';
+            buffer[position++] = ':';
+            needComma = false;
+            return this;
+        }
+
+        void value(String value) throws IOException {
+            separator();
+            needComma = true;
+            if (value == null) {
+                writeAscii("null");
+                return;
+            }
+            final int length = value.length();
+            int i = 0;
+            if (length + 2 <= buffer.length) {
+                // ASCII 且无需转义的前缀直接写入缓冲区
+                ensure(length + 2);
+                buffer[position++] = '"';
+                while (i < length) {
+                    final char c = value.charAt(i);
+                    if (c < 0x20 || c >= 0x80 || c == '"' || c == '\\') {
+                        break;
+                    }
+                    buffer[position++] = (byte) c;
+                    i++;
+                }
+            } else {
+                write('"');
+            }
+            for (; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        write('\\');
+                    }
+                    write(c);
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else if (c < 0x800) {
+                    write(0xC0 | (c >> 6));
+                    write(0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    write(0xF0 | (codePoint >> 18));
+                    write(0x80 | ((codePoint >> 12) & 0x3F));
+                    write(0x80 | ((codePoint >> 6) & 0x3F));
+                    write(0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // 不成对的代理字符无法编码为 UTF-8
+                    escapeUnicode(c);
+                } else {
+                    write(0xE0 | (c >> 12));
+                    write(0x80 | ((c >> 6) & 0x3F));
+                    write(0x80 | (c & 0x3F));
+                }
+            }
+            write('"');
+        }
+
+        void value(long value) throws IOException {
+            separator();
+            needComma = true;
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                write('-');
+                value = -value;
+            }
+            ensure(20);
+            int end = position + digits(value);
+            int index = end;
+            do {
+                buffer[--index] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            position = end;
+        }
+
+        void value(boolean value) throws IOException {
+            separator();
+            needComma = true;
+            writeAscii(value ? "true" : "false");
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void separator() throws IOException {
+            if (needComma) {
+                write(',');
+            }
+        }
+
+        private void escapeControl(char c) throws IOException {
+            final char escaped = c == '\n' ? 'n' : c == '\r' ? 'r' : c == '\t' ? 't' : c == '\b' ? 'b' : c == '\f' ? 'f' : 0;
+            if (escaped == 0) {
+                escapeUnicode(c);
+                return;
+            }
+            write('\\');
+            write(escaped);
+        }
+
+        private void escapeUnicode(char c) throws IOException {
+            write('\\');
+            write('u');
+            write(HEX[(c >> 12) & 0xF]);
+            write(HEX[(c >> 8) & 0xF]);
+            write(HEX[(c >> 4) & 0xF]);
+            write(HEX[c & 0xF]);
+        }
+
+        private static int digits(long value) {
+            int digits = 1;
+            while (value >= 10) {
+                value /= 10;
+                digits++;
+            }
+            return digits;
+        }
+
+        private void writeAscii(String text) throws IOException {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer[position++] = (byte) text.charAt(i);
+            }
+        }
+
+        private void ensure(int length) throws IOException {
+            if (position + length > buffer.length) {
+                flushBuffer();
+            }
+        }
+
+        private void write(int b) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
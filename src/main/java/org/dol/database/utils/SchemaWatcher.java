@@ -0,0 +1,399 @@
+package org.dol.database.utils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.dol.database.diff.ColumnDiff;
+import org.dol.database.diff.IndexDiff;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.diff.TableDiff;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.DatabaseSchemaLoader;
+import org.dol.database.schema.TableSchema;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 后台监视多个 catalog 的结构变化, 向订阅者发布表、列、索引级别的变更事件.
+ * <p>
+ * 每次轮询只执行一条按表汇总 information_schema 行校验和的查询 ({@link #CHECKSUM_SQL}),
+ * 校验和变化的表才按表名重新加载并与快照比较. 轮询间隔带随机抖动, 连续失败时按指数退避.
+ * 同一 catalog 的多个订阅者共享一次轮询.
+ */
+@Slf4j
+@Getter
+@Setter
+public class SchemaWatcher implements Closeable {
+
+    /**
+     * 每行为 (TABLE_NAME, CHECKSUM), 同一张表的多行在客户端相加. 覆盖表选项、列、索引、外键与分区;
+     * 不含行数等统计信息. 索引可见性 (IS_VISIBLE) 仅 MySQL 8 提供, 需要时通过 {@link #setChecksumSql} 加入.
+     */
+    public static final String CHECKSUM_SQL =
+            "SELECT TABLE_NAME, CRC32(CONCAT_WS('|', TABLE_TYPE, ENGINE, TABLE_COLLATION, CREATE_OPTIONS, TABLE_COMMENT)) AS CHECKSUM"
+                    + " FROM information_schema.TABLES WHERE TABLE_SCHEMA=?"
+                    + " UNION ALL SELECT TABLE_NAME, SUM(CRC32(CONCAT_WS('|', COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE,"
+                    + " COLUMN_DEFAULT, CHARACTER_SET_NAME, COLLATION_NAME, EXTRA, COLUMN_COMMENT)))"
+                    + " FROM information_schema.COLUMNS WHERE TABLE_SCHEMA=? GROUP BY TABLE_NAME"
+                    + " UNION ALL SELECT TABLE_NAME, SUM(CRC32(CONCAT_WS('|', INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME, NON_UNIQUE,"
+                    + " SUB_PART, COLLATION, INDEX_TYPE, INDEX_COMMENT)))"
+                    + " FROM information_schema.STATISTICS WHERE TABLE_SCHEMA=? GROUP BY TABLE_NAME"
+                    + " UNION ALL SELECT TABLE_NAME, SUM(CRC32(CONCAT_WS('|', CONSTRAINT_NAME, COLUMN_NAME, REFERENCED_TABLE_SCHEMA,"
+                    + " REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME)))"
+                    + " FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA=? AND REFERENCED_TABLE_NAME IS NOT NULL GROUP BY TABLE_NAME"
+                    + " UNION ALL SELECT TABLE_NAME, SUM(CRC32(CONCAT_WS('|', PARTITION_NAME, PARTITION_METHOD, PARTITION_EXPRESSION,"
+                    + " PARTITION_DESCRIPTION)))"
+                    + " FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA=? AND PARTITION_NAME IS NOT NULL GROUP BY TABLE_NAME";
+
+    /**
+     * 为每次轮询提供一个新连接, 轮询结束后关闭.
+     */
+    public interface ConnectionSource {
+        Connection getConnection() throws SQLException;
+    }
+
+    private long intervalMillis = 30_000;
+    /**
+     * 每次间隔在 ±jitterRatio 范围内随机调整, 避免多个实例同时轮询.
+     */
+    private double jitterRatio = 0.2;
+    private long maxBackoffMillis = 10 * 60_000;
+    private String tablePrefix;
+    private boolean loadFromDb = true;
+    /**
+     * 返回 (TABLE_NAME, CHECKSUM) 的查询, 所有参数均绑定为 catalog.
+     */
+    private String checksumSql = CHECKSUM_SQL;
+
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final ScheduledExecutorService scheduler;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final boolean ownsScheduler;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final ConcurrentMap<String, CatalogWatch> watches = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final ConcurrentMap<String, List<SchemaChangeListener>> listeners = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private volatile boolean closed;
+
+    /**
+     * 使用内部的单个守护线程轮询所有 catalog, {@link #close()} 时关闭.
+     */
+    public SchemaWatcher() {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-watcher");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    /**
+     * 在调用方提供的 scheduler 上轮询, {@link #close()} 时不关闭 scheduler.
+     */
+    public SchemaWatcher(ScheduledExecutorService scheduler) {
+        this(scheduler, false);
+    }
+
+    private SchemaWatcher(ScheduledExecutorService scheduler, boolean ownsScheduler) {
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    /**
+     * 开始监视 catalog: 同步加载基线快照 (不发布事件), 之后按间隔轮询. 已在监视时直接返回当前快照;
+     * 并发监视同一 catalog 时只保留先完成加载的一个.
+     */
+    public DatabaseSchema watch(String catalog, ConnectionSource connections) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("SchemaWatcher is closed");
+        }
+        CatalogWatch existing = watches.get(catalog);
+        if (existing != null) {
+            return existing.snapshot();
+        }
+        // 基线加载完成后才发布, 并发的 watch / poll 不会看到空的快照与校验和
+        CatalogWatch watch = new CatalogWatch(catalog, connections);
+        synchronized (watch) {
+            try (Connection connection = connections.getConnection()) {
+                watch.checksums = checksums(connection, catalog);
+                DatabaseSchema baseline = DatabaseSchemaLoader.load(connection, catalog, null, tablePrefix, loadFromDb, null);
+                for (TableSchema table : baseline.getTables()) {
+                    watch.tables.put(table.getTableName().toLowerCase(), table);
+                }
+            }
+        }
+        existing = watches.putIfAbsent(catalog, watch);
+        if (existing != null) {
+            return existing.snapshot();
+        }
+        if (closed) {
+            watches.remove(catalog, watch);
+            throw new IllegalStateException("SchemaWatcher is closed");
+        }
+        schedule(watch, intervalMillis);
+        return watch.snapshot();
+    }
+
+    public void unwatch(String catalog) {
+        CatalogWatch watch = watches.remove(catalog);
+        if (watch != null) {
+            watch.cancel();
+        }
+    }
+
+    /**
+     * 订阅 catalog 的变更事件, 可在 {@link #watch} 之前调用.
+     */
+    public void subscribe(String catalog, SchemaChangeListener listener) {
+        listeners.computeIfAbsent(catalog, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void unsubscribe(String catalog, SchemaChangeListener listener) {
+        List<SchemaChangeListener> catalogListeners = listeners.get(catalog);
+        if (catalogListeners != null) {
+            catalogListeners.remove(listener);
+        }
+    }
+
+    /**
+     * 最近一次轮询后的快照, 未监视时返回 null.
+     */
+    public DatabaseSchema getSnapshot(String catalog) {
+        CatalogWatch watch = watches.get(catalog);
+        return watch == null ? null : watch.snapshot();
+    }
+
+    /**
+     * 立即轮询一次并发布事件, 与后台轮询互斥.
+     *
+     * @return 新增、删除或修改的表数
+     */
+    public int poll(String catalog) throws Exception {
+        CatalogWatch watch = watches.get(catalog);
+        if (watch == null) {
+            throw new IllegalStateException("Catalog is not watched: " + catalog);
+        }
+        return poll(watch);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (CatalogWatch watch : watches.values()) {
+            watch.cancel();
+        }
+        watches.clear();
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private int poll(CatalogWatch watch) throws Exception {
+        synchronized (watch) {
+            try (Connection connection = watch.connections.getConnection()) {
+                Map<String, Long> checksums = checksums(connection, watch.catalog);
+                if (checksums.equals(watch.checksums)) {
+                    return 0;
+                }
+                List<String> reload = new ArrayList<>();
+                for (Map.Entry<String, Long> entry : checksums.entrySet()) {
+                    if (!entry.getValue().equals(watch.checksums.get(entry.getKey()))) {
+                        reload.add(entry.getKey());
+                    }
+                }
+                DatabaseSchema reloaded = reload.isEmpty() ? null
+                        : DatabaseSchemaLoader.load(connection, watch.catalog, null, tablePrefix, loadFromDb, null, reload);
+
+                int changed = 0;
+                for (String tableName : reload) {
+                    String key = tableName.toLowerCase();
+                    TableSchema target = reloaded.getTableSchema(tableName);
+                    TableSchema current = watch.tables.get(key);
+                    if (target == null) {
+                        // 校验和查询之后被删除: 保留旧校验和, 由下一次轮询发布删除事件
+                        Long previous = watch.checksums.get(tableName);
+                        if (previous == null) {
+                            checksums.remove(tableName);
+                        } else {
+                            checksums.put(tableName, previous);
+                        }
+                        continue;
+                    }
+                    watch.tables.put(key, target);
+                    if (current == null) {
+                        changed++;
+                        publishAdded(watch.catalog, target);
+                        continue;
+                    }
+                    TableDiff tableDiff = SchemaDiffer.diffTable(target, current);
+                    if (tableDiff != null) {
+                        changed++;
+                        publishChanged(watch.catalog, tableDiff);
+                    }
+                }
+                for (String tableName : watch.checksums.keySet()) {
+                    if (!checksums.containsKey(tableName)) {
+                        TableSchema dropped = watch.tables.remove(tableName.toLowerCase());
+                        if (dropped != null) {
+                            changed++;
+                            publishDropped(watch.catalog, dropped);
+                        }
+                    }
+                }
+                watch.checksums = checksums;
+                return changed;
+            }
+        }
+    }
+
+    private Map<String, Long> checksums(Connection connection, String catalog) throws SQLException {
+        Map<String, Long> checksums = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(checksumSql)) {
+            int parameters = 0;
+            for (int i = 0; i < checksumSql.length(); i++) {
+                if (checksumSql.charAt(i) == '?') {
+                    ps.setString(++parameters, catalog);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    checksums.merge(rs.getString(1), rs.getLong(2), Long::sum);
+                }
+            }
+        }
+        return checksums;
+    }
+
+    private void schedule(CatalogWatch watch, long delayMillis) {
+        if (closed || watch.cancelled) {
+            return;
+        }
+        try {
+            watch.future = scheduler.schedule(() -> run(watch), jitter(delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Schema watcher scheduler rejected poll for catalog: {}", watch.catalog);
+        }
+    }
+
+    private void run(CatalogWatch watch) {
+        if (closed || watch.cancelled) {
+            return;
+        }
+        long delayMillis;
+        try {
+            poll(watch);
+            watch.failures = 0;
+            delayMillis = intervalMillis;
+        } catch (Exception ex) {
+            watch.failures++;
+            delayMillis = backoffMillis(watch.failures);
+            log.warn("Failed to poll schema of catalog: {}, retry in {} ms", watch.catalog, delayMillis, ex);
+            for (SchemaChangeListener listener : listenersOf(watch.catalog)) {
+                try {
+                    listener.onError(watch.catalog, ex);
+                } catch (RuntimeException listenerError) {
+                    log.warn("Schema change listener failed", listenerError);
+                }
+            }
+        }
+        schedule(watch, delayMillis);
+    }
+
+    private long backoffMillis(int failures) {
+        long limit = Math.max(maxBackoffMillis, intervalMillis);
+        long delay = intervalMillis;
+        for (int i = 0; i < failures && delay < limit; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, limit);
+    }
+
+    private long jitter(long delayMillis) {
+        long spread = (long) (delayMillis * jitterRatio);
+        if (spread <= 0) {
+            return delayMillis;
+        }
+        return delayMillis - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+    }
+
+    private List<SchemaChangeListener> listenersOf(String catalog) {
+        List<SchemaChangeListener> catalogListeners = listeners.get(catalog);
+        return catalogListeners == null ? Collections.emptyList() : catalogListeners;
+    }
+
+    private void publishAdded(String catalog, TableSchema table) {
+        for (SchemaChangeListener listener : listenersOf(catalog)) {
+            try {
+                listener.onTableAdded(catalog, table);
+            } catch (RuntimeException ex) {
+                log.warn("Schema change listener failed on table added: {}", table.getTableName(), ex);
+            }
+        }
+    }
+
+    private void publishDropped(String catalog, TableSchema table) {
+        for (SchemaChangeListener listener : listenersOf(catalog)) {
+            try {
+                listener.onTableDropped(catalog, table);
+            } catch (RuntimeException ex) {
+                log.warn("Schema change listener failed on table dropped: {}", table.getTableName(), ex);
+            }
+        }
+    }
+
+    private void publishChanged(String catalog, TableDiff tableDiff) {
+        TableSchema table = tableDiff.getTarget();
+        for (SchemaChangeListener listener : listenersOf(catalog)) {
+            try {
+                for (ColumnDiff columnDiff : tableDiff.getColumns()) {
+                    listener.onColumnChanged(catalog, table, columnDiff);
+                }
+                for (IndexDiff indexDiff : tableDiff.getIndexes()) {
+                    listener.onIndexChanged(catalog, table, indexDiff);
+                }
+                listener.onTableChanged(catalog, tableDiff);
+            } catch (RuntimeException ex) {
+                log.warn("Schema change listener failed on table changed: {}", tableDiff.getTableName(), ex);
+            }
+        }
+    }
+
+    private static final class CatalogWatch {
+        private final String catalog;
+        private final ConnectionSource connections;
+        /**
+         * 表名小写 -> 最近一次加载的表定义.
+         */
+        private final Map<String, TableSchema> tables = new HashMap<>();
+        private Map<String, Long> checksums = Collections.emptyMap();
+        private int failures;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+
+        private CatalogWatch(String catalog, ConnectionSource connections) {
+            this.catalog = catalog;
+            this.connections = connections;
+        }
+
+        private synchronized DatabaseSchema snapshot() {
+            DatabaseSchema schema = new DatabaseSchema();
+            schema.setTables(new ArrayList<>(tables.values()));
+            return schema;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
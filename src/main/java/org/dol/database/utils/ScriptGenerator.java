@@ -1,56 +1,443 @@
 package org.dol.database.utils;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dol.database.diff.*;
 import org.dol.database.schema.*;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Slf4j
 public abstract class ScriptGenerator {
 
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 按外键依赖顺序 (同层按表名) 生成各表 DDL, 开启 FOREIGN_KEY_CHECKS 时也可按顺序执行;
+     * 循环依赖中的外键在脚本最后以 ALTER TABLE 添加. 需要并行执行时使用 {@link #generateLevels}.
+     */
     public static String generate(DatabaseSchema databaseSchema) {
+        TableDependencyGraph graph = TableDependencyGraph.of(databaseSchema);
         StringBuilder sbDB = new StringBuilder();
-        for (TableSchema table : databaseSchema.getTables()) {
-            try {
-                String tableScript = tableDDL(table);
-                sbDB.append(tableScript);
-            } catch (Exception exception) {
-                log.error("Failed to generate DDL for table: {}", table.getTableName(), exception);
+        for (List<TableSchema> level : graph.getLevels()) {
+            for (TableSchema table : level) {
+                int mark = sbDB.length();
+                try {
+                    appendTableDDL(sbDB, table, graph);
+                } catch (Exception exception) {
+                    sbDB.setLength(mark);
+                    log.error("Failed to generate DDL for table: {}", table.getTableName(), exception);
+                }
             }
         }
+        if (graph.hasCycle()) {
+            sbDB.append(deferredForeignKeys(graph, table -> true));
+        }
         return sbDB.toString();
     }
 
+    /**
+     * 逐表生成 DDL 并直接写入 out, 所有表共用一个缓冲区. 表的顺序同 {@link #generate(DatabaseSchema)}.
+     */
+    public static void generate(DatabaseSchema databaseSchema, Appendable out) throws IOException {
+        forEachTableDDL(databaseSchema, out::append);
+    }
+
+    /**
+     * 生成单表 DDL 并写入 out, 供逐表产生模型的调用方流式输出, 不必持有整个 schema.
+     */
+    public static void generate(TableSchema table, Appendable out) throws IOException {
+        generate(table, out, new StringBuilder(BUFFER_SIZE));
+    }
+
+    /**
+     * 同 {@link #generate(TableSchema, Appendable)}, DDL 先写入调用方复用的 buffer (会被清空), 再追加到 out.
+     */
+    public static void generate(TableSchema table, Appendable out, StringBuilder buffer) throws IOException {
+        buffer.setLength(0);
+        appendTableDDL(buffer, table);
+        out.append(buffer);
+    }
+
+    /**
+     * 逐表生成 DDL 并直接写入 writer, 通过复用的 char[] 写出, 不产生中间 String.
+     */
+    public static void generate(DatabaseSchema databaseSchema, Writer writer) throws IOException {
+        char[] chars = new char[BUFFER_SIZE];
+        forEachTableDDL(databaseSchema, buffer -> {
+            int length = buffer.length();
+            for (int offset = 0; offset < length; offset += chars.length) {
+                int end = Math.min(length, offset + chars.length);
+                buffer.getChars(offset, end, chars, 0);
+                writer.write(chars, 0, end - offset);
+            }
+        });
+    }
+
+    /**
+     * 逐表生成 DDL, 以 UTF-8 编码写入 channel, 编码使用一个复用的 ByteBuffer.
+     */
+    public static void generate(DatabaseSchema databaseSchema, WritableByteChannel channel) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        forEachTableDDL(databaseSchema, buffer -> {
+            CharBuffer chars = CharBuffer.wrap(buffer);
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                writeFully(channel, bytes);
+            } while (result.isOverflow());
+            do {
+                result = encoder.flush(bytes);
+                writeFully(channel, bytes);
+            } while (result.isOverflow());
+        });
+    }
+
+    /**
+     * 在 ForkJoinPool.commonPool() 上并行生成各表 DDL.
+     */
+    public static ScriptResult generateParallel(DatabaseSchema databaseSchema) {
+        return generate(databaseSchema, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在 executor 上并行生成各表 DDL, 结果的顺序同 {@link #generate(DatabaseSchema)}.
+     * 单表失败不会中断整体生成, 失败信息记录在 {@link ScriptResult#getErrors()} 中.
+     */
+    public static ScriptResult generate(DatabaseSchema databaseSchema, Executor executor) {
+        TableDependencyGraph graph = TableDependencyGraph.of(databaseSchema);
+        List<TableSchema> tables = new ArrayList<>(databaseSchema.getTables().size());
+        for (List<TableSchema> level : graph.getLevels()) {
+            tables.addAll(level);
+        }
+        ScriptResult result = renderParallel(tables, executor, table -> tableDDL(table, graph), "");
+        if (!graph.hasCycle()) {
+            return result;
+        }
+        return new ScriptResult(result.getScript() + deferredForeignKeys(graph, table -> true), result.getErrors());
+    }
+
+    /**
+     * 按外键依赖分层生成 DDL, 每层一段脚本: 同层的表互不依赖, 可并行执行;
+     * 层与层之间须按顺序执行, 因此无需关闭 FOREIGN_KEY_CHECKS.
+     * 存在循环依赖时, 循环内的外键在最后追加的一段 ALTER TABLE 脚本中添加.
+     */
+    public static List<String> generateLevels(DatabaseSchema databaseSchema) {
+        TableDependencyGraph graph = TableDependencyGraph.of(databaseSchema);
+        List<String> scripts = new ArrayList<>(graph.getLevels().size() + 1);
+        for (List<TableSchema> level : graph.getLevels()) {
+            StringBuilder sb = new StringBuilder();
+            for (TableSchema table : level) {
+                appendTableDDL(sb, table, graph);
+            }
+            scripts.add(sb.toString());
+        }
+        if (graph.hasCycle()) {
+            scripts.add(deferredForeignKeys(graph, table -> true));
+        }
+        return scripts;
+    }
+
+    static String deferredForeignKeys(TableDependencyGraph graph, Predicate<TableSchema> filter) {
+        StringBuilder sb = new StringBuilder();
+        for (TableSchema table : graph.getCyclicTables()) {
+            if (!filter.test(table)) {
+                continue;
+            }
+            for (ForeignKeySchema foreignKey : table.getForeignKeys()) {
+                if (graph.isDeferred(table, foreignKey)) {
+                    sb.append("ALTER TABLE `").append(table.getTableName()).append("`\nADD ");
+                    appendForeignKey(sb, foreignKey);
+                    sb.append(";\n\n");
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static ScriptResult renderParallel(List<TableSchema> tables,
+                                               Executor executor,
+                                               Function<TableSchema, String> renderer,
+                                               String separator) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(tables.size());
+        for (TableSchema table : tables) {
+            futures.add(CompletableFuture.supplyAsync(() -> renderer.apply(table), executor));
+        }
+        StringBuilder script = new StringBuilder();
+        List<ScriptResult.TableError> errors = new ArrayList<>();
+        for (int i = 0; i < tables.size(); i++) {
+            String tableName = tables.get(i).getTableName();
+            try {
+                String tableScript = futures.get(i).join();
+                if (Utils.hasText(tableScript)) {
+                    script.append(tableScript).append(separator);
+                }
+            } catch (CompletionException | CancellationException exception) {
+                Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+                log.error("Failed to generate script for table: {}", tableName, cause);
+                errors.add(new ScriptResult.TableError(tableName, cause));
+            }
+        }
+        return new ScriptResult(script.toString(), errors);
+    }
+
+    private static List<TableSchema> sortedTables(Collection<TableSchema> tables) {
+        List<TableSchema> sorted = new ArrayList<>(tables);
+        sorted.sort(TableSchema.TABLE_NAME_ORDER);
+        return sorted;
+    }
+
+    private static void forEachTableDDL(DatabaseSchema databaseSchema, TableSink sink) throws IOException {
+        TableDependencyGraph graph = TableDependencyGraph.of(databaseSchema);
+        StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+        for (List<TableSchema> level : graph.getLevels()) {
+            for (TableSchema table : level) {
+                buffer.setLength(0);
+                try {
+                    appendTableDDL(buffer, table, graph);
+                } catch (Exception exception) {
+                    log.error("Failed to generate DDL for table: {}", table.getTableName(), exception);
+                    continue;
+                }
+                sink.write(buffer);
+            }
+        }
+        if (graph.hasCycle()) {
+            buffer.setLength(0);
+            buffer.append(deferredForeignKeys(graph, table -> true));
+            sink.write(buffer);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer bytes) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private interface TableSink {
+        void write(StringBuilder tableDDL) throws IOException;
+    }
+
     private static String tableDDL(TableSchema table) {
+        return tableDDL(table, null);
+    }
+
+    private static String tableDDL(TableSchema table, TableDependencyGraph graph) {
         StringBuilder sbTable = new StringBuilder();
+        appendTableDDL(sbTable, table, graph);
+        return sbTable.toString();
+    }
+
+    private static void appendTableDDL(StringBuilder sbTable, TableSchema table) {
+        appendTableDDL(sbTable, table, null);
+    }
+
+    /**
+     * @param graph 不为 null 时, 被 graph 标记为延后的外键不写入 CREATE TABLE
+     */
+    private static void appendTableDDL(StringBuilder sbTable, TableSchema table, TableDependencyGraph graph) {
+        Object event = SchemaFlightRecorder.beginDdlRender(table.getTableName(), "CREATE TABLE");
+        int start = sbTable.length();
+        appendCreateTable(sbTable, table, graph);
+        SchemaFlightRecorder.commitDdlRender(event, table.getColumns().size(), sbTable.length() - start);
+    }
+
+    private static void appendCreateTable(StringBuilder sbTable, TableSchema table, TableDependencyGraph graph) {
         sbTable.append("CREATE TABLE `").append(table.getTableName()).append("` (\n");
+        boolean first = true;
         for (ColumnSchema column : table.getColumns()) {
-            sbTable.append(columnDef(table, column));
+            first = appendSeparator(sbTable, first);
+            appendColumnDef(sbTable, table, column);
         }
         KeySchema primaryKey = table.getPrimaryKey();
         if (primaryKey != null && Utils.notEmpty(primaryKey.getMemberColumns())) {
+            first = appendSeparator(sbTable, first);
             sbTable.append("  PRIMARY KEY (");
-            sbTable.append(joinNames(primaryKey.getMemberColumns()));
-            sbTable.append("),\n");
+            appendNames(sbTable, primaryKey.getMemberColumns());
+            sbTable.append(")");
         }
         List<IndexSchema> indexes = table.getIndexes();
         for (IndexSchema index : indexes) {
-            if (Utils.isEmpty(index.getMemberColumns())) {
+            if (!index.hasKeyParts()) {
                 continue;
             }
-            if (index.isUnique()) {
-                sbTable.append("  UNIQUE KEY `").append(index.getIndexName()).append("` (");
+            first = appendSeparator(sbTable, first);
+            sbTable.append("  ").append(indexKeyword(index)).append("KEY `").append(index.getIndexName()).append("` ");
+            appendIndexDefinition(sbTable, index);
+        }
+        if (table.getForeignKeys() != null) {
+            for (ForeignKeySchema foreignKey : table.getForeignKeys()) {
+                if (graph != null && graph.isDeferred(table, foreignKey)) {
+                    continue;
+                }
+                first = appendSeparator(sbTable, first);
+                sbTable.append("  ");
+                appendForeignKey(sbTable, foreignKey);
+            }
+        }
+        sbTable.append("\n) ENGINE=InnoDB");
+        if (table.getPartitioning() != null) {
+            sbTable.append("\n");
+            appendPartitionBy(sbTable, table.getPartitioning());
+        }
+        sbTable.append(";\n\n");
+    }
+
+    /**
+     * PARTITION BY 子句; HASH/KEY 只写分区数.
+     */
+    private static void appendPartitionBy(StringBuilder sb, PartitionSchema partitioning) {
+        sb.append("PARTITION BY ").append(partitioning.getMethod())
+                .append(" (").append(partitioning.getExpression()).append(")\n");
+        if (partitioning.isHashOrKey()) {
+            sb.append("PARTITIONS ").append(partitioning.getPartitions().size());
+            return;
+        }
+        appendPartitionDefinitions(sb, partitioning, partitioning.getPartitions());
+    }
+
+    private static void appendPartitionDefinitions(StringBuilder sb, PartitionSchema partitioning, List<PartitionDefinition> partitions) {
+        sb.append("(");
+        boolean first = true;
+        for (PartitionDefinition partition : partitions) {
+            if (!first) {
+                sb.append(",\n ");
+            }
+            first = false;
+            sb.append("PARTITION `").append(partition.getPartitionName()).append("` VALUES ");
+            if (partitioning.isList()) {
+                sb.append("IN (").append(partition.getDescription()).append(")");
+            } else if (partition.isMaxValue() && !partitioning.isColumns()) {
+                sb.append("LESS THAN MAXVALUE");
             } else {
-                sbTable.append("  KEY `").append(index.getIndexName()).append("` (");
+                sb.append("LESS THAN (").append(partition.getDescription()).append(")");
+            }
+            if (Utils.hasText(partition.getComment())) {
+                sb.append(" COMMENT '");
+                appendEscaped(sb, partition.getComment());
+                sb.append("'");
             }
-            sbTable.append(joinNames(index.getMemberColumns()));
-            sbTable.append(") USING BTREE,\n");
         }
-        return sbTable.substring(0, sbTable.length() - 2) + "\n) ENGINE=InnoDB;\n\n";
+        sb.append(")");
     }
 
-    private static String columnDef(TableSchema table, ColumnSchema column) {
-        StringBuilder sbTable = new StringBuilder();
+    /**
+     * 分区变更需要独立的 ALTER TABLE 语句 (不能与列/索引变更合并), 无变更时返回 null.
+     */
+    private static String partitionChangeScript(TableDiff tableDiff) {
+        PartitionDiff partitionDiff = tableDiff.getPartition();
+        if (partitionDiff == null) {
+            return null;
+        }
+        String alterTable = "ALTER TABLE `" + tableDiff.getTableName() + "`\n";
+        StringBuilder sb = new StringBuilder();
+        PartitionSchema target = partitionDiff.getTarget();
+        if (partitionDiff.isRepartition()) {
+            sb.append(alterTable);
+            if (target == null) {
+                sb.append("REMOVE PARTITIONING");
+            } else {
+                appendPartitionBy(sb, target);
+            }
+            return sb.append(";").toString();
+        }
+        if (target.isHashOrKey()) {
+            int delta = target.getPartitions().size() - partitionDiff.getCurrent().getPartitions().size();
+            sb.append(alterTable);
+            if (delta > 0) {
+                sb.append("ADD PARTITION PARTITIONS ").append(delta);
+            } else {
+                sb.append("COALESCE PARTITION ").append(-delta);
+            }
+            return sb.append(";").toString();
+        }
+        if (!partitionDiff.getDropped().isEmpty()) {
+            sb.append(alterTable).append("DROP PARTITION ");
+            appendPartitionNames(sb, partitionDiff.getDropped());
+            sb.append(";\n");
+        }
+        if (!partitionDiff.getReorganized().isEmpty()) {
+            sb.append(alterTable).append("REORGANIZE PARTITION ");
+            appendPartitionNames(sb, partitionDiff.getReorganized());
+            sb.append(" INTO\n");
+            appendPartitionDefinitions(sb, target, partitionDiff.getReorganizedInto());
+            sb.append(";\n");
+        }
+        if (!partitionDiff.getAdded().isEmpty()) {
+            sb.append(alterTable).append("ADD PARTITION\n");
+            appendPartitionDefinitions(sb, target, partitionDiff.getAdded());
+            sb.append(";\n");
+        }
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    private static void appendPartitionNames(StringBuilder sb, List<PartitionDefinition> partitions) {
+        boolean first = true;
+        for (PartitionDefinition partition : partitions) {
+            if (!first) {
+                sb.append(",");
+            }
+            first = false;
+            sb.append("`").append(partition.getPartitionName()).append("`");
+        }
+    }
+
+    private static void appendForeignKey(StringBuilder sb, ForeignKeySchema foreignKey) {
+        if (Utils.hasText(foreignKey.getConstraintName())) {
+            sb.append("CONSTRAINT `").append(foreignKey.getConstraintName()).append("` ");
+        }
+        sb.append("FOREIGN KEY (");
+        appendNames(sb, foreignKey.getMemberColumns());
+        sb.append(") REFERENCES ");
+        if (foreignKey.getReferencedCatalog() != null) {
+            sb.append("`").append(foreignKey.getReferencedCatalog()).append("`.");
+        }
+        sb.append("`").append(foreignKey.getReferencedTableName()).append("` (");
+        List<String> referencedColumnNames = foreignKey.getReferencedColumnNames();
+        for (int i = 0; i < referencedColumnNames.size(); i++) {
+            sb.append(i == 0 ? "`" : ",`").append(referencedColumnNames.get(i)).append("`");
+        }
+        sb.append(")");
+        appendReferentialAction(sb, " ON DELETE ", foreignKey.getDeleteRule());
+        appendReferentialAction(sb, " ON UPDATE ", foreignKey.getUpdateRule());
+    }
+
+    /**
+     * RESTRICT / NO ACTION 为 MySQL 默认行为, 不输出.
+     */
+    private static void appendReferentialAction(StringBuilder sb, String clause, String rule) {
+        if (Utils.hasText(rule) && !"RESTRICT".equalsIgnoreCase(rule) && !"NO ACTION".equalsIgnoreCase(rule)) {
+            sb.append(clause).append(rule.toUpperCase());
+        }
+    }
+
+    private static boolean appendSeparator(StringBuilder sb, boolean first) {
+        if (!first) {
+            sb.append(",\n");
+        }
+        return false;
+    }
+
+    private static void appendColumnDef(StringBuilder sbTable, TableSchema table, ColumnSchema column) {
         sbTable.append("  `").append(column.getColumnName()).append("` ");
         appendType(sbTable, column);
 
@@ -65,19 +452,32 @@ public abstract class ScriptGenerator {
 
         if (Utils.hasLength(column.getDefaultValue())) {
             if (column.isStringColumn()) {
-                String defaultValue = column.getDefaultValue();
-                defaultValue = defaultValue.replaceAll("'", "''");
-                sbTable.append(" DEFAULT '").append(defaultValue).append("'");
+                sbTable.append(" DEFAULT '");
+                appendEscaped(sbTable, column.getDefaultValue());
+                sbTable.append("'");
             } else {
                 sbTable.append(" DEFAULT ").append(column.getDefaultValue());
             }
 
         }
         if (Utils.hasLength(column.getRemarks())) {
-            String remarks = column.getRemarks().replaceAll("'", "''");
-            sbTable.append(" COMMENT '").append(remarks).append("'");
+            sbTable.append(" COMMENT '");
+            appendEscaped(sbTable, column.getRemarks());
+            sbTable.append("'");
+        }
+    }
+
+    /**
+     * 追加 SQL 字符串字面量内容, 单引号转义为两个单引号.
+     */
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'') {
+                sb.append('\'');
+            }
+            sb.append(c);
         }
-        return sbTable.append(",\n").toString();
     }
 
     private static void appendType(StringBuilder sbTable, ColumnSchema column) {
@@ -87,42 +487,22 @@ public abstract class ScriptGenerator {
         } else {
             sbTable.append(column.getDataTypeName());
         }
-        boolean noWidth =
-                typeEnum == null
-                        || typeEnum == DataTypeEnum.TEXT
-                        || typeEnum == DataTypeEnum.LONGTEXT
-                        || typeEnum == DataTypeEnum.TINYTEXT
-                        || typeEnum == DataTypeEnum.MEDIUMTEXT
-                        || typeEnum == DataTypeEnum.NTEXT
-                        || typeEnum == DataTypeEnum.BLOB
-                        || typeEnum == DataTypeEnum.LONGBLOB
-                        || typeEnum == DataTypeEnum.MEDIUMBLOB
-                        || typeEnum == DataTypeEnum.TINYBLOB
-                        || typeEnum == DataTypeEnum.DATE
-                        || typeEnum == DataTypeEnum.DATETIME
-                        || typeEnum == DataTypeEnum.TIME
-                        || typeEnum == DataTypeEnum.TIMESTAMP
-                        || typeEnum == DataTypeEnum.YEAR
-                        || typeEnum == DataTypeEnum.ENUM
-                        || typeEnum == DataTypeEnum.SET
-                        || typeEnum == DataTypeEnum.JSON
-                        || typeEnum == DataTypeEnum.GEOMETRY
-                        || typeEnum == DataTypeEnum.POINT
-                        || typeEnum == DataTypeEnum.LINESTRING
-                        || typeEnum == DataTypeEnum.POLYGON
-                        || typeEnum == DataTypeEnum.MULTIPOINT
-                        || typeEnum == DataTypeEnum.MULTILINESTRING
-                        || typeEnum == DataTypeEnum.MULTIPOLYGON
-                        || typeEnum == DataTypeEnum.GEOMETRYCOLLECTION;
+        boolean noWidth = typeEnum == null || !typeEnum.hasLength();
 
         if (noWidth) {
+            if (typeEnum != null && typeEnum.hasFractionalSeconds() && column.getDecimalDigits() > 0) {
+                sbTable.append("(").append(column.getDecimalDigits()).append(")");
+            } else if (Utils.notEmpty(column.getEnumValues())) {
+                appendEnumValues(sbTable, column.getEnumValues());
+            }
             return;
         }
 
         if (typeEnum == DataTypeEnum.BIT || typeEnum == DataTypeEnum.BOOLEAN) {
             sbTable.append("(1)");
         } else if (typeEnum == DataTypeEnum.INT || typeEnum == DataTypeEnum.INTEGER || typeEnum == DataTypeEnum.BIGINT || typeEnum == DataTypeEnum.MEDIUMINT || typeEnum == DataTypeEnum.SMALLINT || typeEnum == DataTypeEnum.TINYINT) {
-            sbTable.append("(").append(column.getColumnSize() + 1).append(")");
+            int width = column.getDisplayWidth() > 0 ? column.getDisplayWidth() : column.getColumnSize() + 1;
+            sbTable.append("(").append(width).append(")");
         } else if (typeEnum == DataTypeEnum.DECIMAL || typeEnum == DataTypeEnum.NUMERIC || typeEnum == DataTypeEnum.DOUBLE || typeEnum == DataTypeEnum.FLOAT || typeEnum == DataTypeEnum.REAL) {
             sbTable.append("(").append(column.getColumnSize()).append(",").append(column.getDecimalDigits()).append(")");
         } else {
@@ -131,18 +511,32 @@ public abstract class ScriptGenerator {
         if (column.getUnsigned()) {
             sbTable.append(" UNSIGNED");
         }
+        if (column.isZerofill()) {
+            sbTable.append(" ZEROFILL");
+        }
         if (column.isAutoIncrement()) {
             sbTable.append(" AUTO_INCREMENT");
         }
     }
 
-    private static String joinNames(List<ColumnSchema> memberColumns) {
-        StringBuilder sb = new StringBuilder();
+    private static void appendEnumValues(StringBuilder sbTable, List<String> values) {
+        sbTable.append("(");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sbTable.append(",");
+            }
+            sbTable.append("'");
+            appendEscaped(sbTable, values.get(i));
+            sbTable.append("'");
+        }
+        sbTable.append(")");
+    }
+
+    private static void appendNames(StringBuilder sb, List<ColumnSchema> memberColumns) {
         sb.append("`").append(memberColumns.get(0).getColumnName()).append("`");
         for (int i = 1; i < memberColumns.size(); i++) {
             sb.append(",`").append(memberColumns.get(i).getColumnName()).append("`");
         }
-        return sb.toString();
     }
 
     /**
@@ -158,149 +552,511 @@ public abstract class ScriptGenerator {
                                            DatabaseSchema currentSchema,
                                            boolean includeNewTable,
                                            String... ignoreTables) {
-        StringBuilder updateScript = new StringBuilder();
-        Collection<TableSchema> targetTables = targetSchema.getTables();
-        Collection<TableSchema> currentTables = currentSchema.getTables();
+        return toSQL(SchemaDiffer.diff(targetSchema, currentSchema, ignoreTables), includeNewTable);
+    }
 
-        // 预建当前表名 Map, 避免 O(n*m) stream 查找
-        Map<String, TableSchema> currentTableMap = new HashMap<>();
-        for (TableSchema ct : currentTables) {
-            currentTableMap.put(ct.getTableName().toLowerCase(), ct);
+    /**
+     * {@link #generateModifySQL(DatabaseSchema, DatabaseSchema, boolean, String...)} 的并行版本.
+     * 各表的比较与 ALTER 渲染在 executor 上并行执行, 按表名 (忽略大小写) 排序拼接,
+     * 新增的表按外键依赖排序 (见 {@link #toSQL}); 单表失败记录在 {@link ScriptResult#getErrors()} 中.
+     */
+    public static ScriptResult generateModifySQL(DatabaseSchema targetSchema,
+                                                 DatabaseSchema currentSchema,
+                                                 boolean includeNewTable,
+                                                 Executor executor,
+                                                 String... ignoreTables) {
+        List<TableSchema> targetTables = new ArrayList<>();
+        List<TableSchema> newTables = new ArrayList<>();
+        for (TableSchema targetTable : sortedTables(targetSchema.getTables())) {
+            if (ignoreTables.length == 0 || !SchemaDiffer.shouldIgnore(targetTable.getTableName(), ignoreTables)) {
+                targetTables.add(targetTable);
+                if (currentSchema.getTableSchema(targetTable.getTableName()) == null) {
+                    newTables.add(targetTable);
+                }
+            }
         }
-        Map<String, TableSchema> targetTableMap = new HashMap<>();
-        for (TableSchema tt : targetTables) {
-            targetTableMap.put(tt.getTableName().toLowerCase(), tt);
+        TableDependencyGraph graph = TableDependencyGraph.of(newTables);
+        orderNewTables(targetTables, table -> currentSchema.getTableSchema(table.getTableName()) == null, table -> table, graph);
+        ScriptResult result = renderParallel(targetTables, executor, targetTable -> tableChangeScript(
+                SchemaDiffer.diffTable(targetTable, currentSchema.getTableSchema(targetTable.getTableName())),
+                includeNewTable, graph), "\n\n");
+        if (includeNewTable && graph.hasCycle()) {
+            result = new ScriptResult(result.getScript() + deferredForeignKeys(graph, table -> true), result.getErrors());
         }
 
-        for (TableSchema targetTable : targetTables) {
-            if (ignoreTables.length > 0 && shouldIgnore(targetTable, ignoreTables)) {
+        StringBuilder warnings = new StringBuilder();
+        for (TableSchema currentTable : sortedTables(currentSchema.getTables())) {
+            if (ignoreTables.length > 0 && SchemaDiffer.shouldIgnore(currentTable.getTableName(), ignoreTables)) {
                 continue;
             }
-            TableSchema currentTable = currentTableMap.get(targetTable.getTableName().toLowerCase());
-            String tableScript = tableChangeScript(targetTable, currentTable, includeNewTable);
+            if (targetSchema.getTableSchema(currentTable.getTableName()) == null) {
+                appendTableWarning(warnings, currentTable);
+            }
+        }
+        if (warnings.length() == 0) {
+            return result;
+        }
+        return new ScriptResult(result.getScript() + warnings, result.getErrors());
+    }
+
+    /**
+     * 将 {@link SchemaDiff} 渲染为 ALTER/CREATE SQL 脚本, 按表名排序.
+     * 新增的表之间按外键依赖排序, 循环依赖中的外键在最后以 ALTER TABLE 添加;
+     * 需要按层并行执行时使用 {@link #toSQLLevels}.
+     *
+     * @param includeNewTable 是否为新增的表生成 CREATE TABLE
+     */
+    public static String toSQL(SchemaDiff schemaDiff, boolean includeNewTable) {
+        TableDependencyGraph graph = newTableGraph(schemaDiff.getTables());
+        List<TableDiff> tableDiffs = new ArrayList<>(schemaDiff.getTables());
+        orderNewTables(tableDiffs, ScriptGenerator::isAdded, TableDiff::getTarget, graph);
+        StringBuilder updateScript = new StringBuilder();
+        StringBuilder warnings = new StringBuilder();
+        for (TableDiff tableDiff : tableDiffs) {
+            if (tableDiff.getChangeType() == ChangeType.REMOVED) {
+                appendTableWarning(warnings, tableDiff.getCurrent());
+                continue;
+            }
+            String tableScript = tableChangeScript(tableDiff, includeNewTable, graph);
             if (Utils.hasText(tableScript)) {
                 updateScript.append(tableScript).append("\n\n");
             }
         }
+        if (includeNewTable && graph.hasCycle()) {
+            updateScript.append(deferredForeignKeys(graph, table -> true));
+        }
+        return updateScript.append(warnings).toString();
+    }
 
-        // 报告仅存在于 currentSchema 中的表
-        for (TableSchema currentTable : currentTables) {
-            if (ignoreTables.length > 0 && shouldIgnore(currentTable, ignoreTables)) {
-                continue;
+    /**
+     * diff 中新增的表构成的依赖图; 已存在的表的外键不在比较范围内.
+     */
+    static TableDependencyGraph newTableGraph(Collection<TableDiff> tableDiffs) {
+        List<TableSchema> newTables = new ArrayList<>();
+        for (TableDiff tableDiff : tableDiffs) {
+            if (isAdded(tableDiff)) {
+                newTables.add(tableDiff.getTarget());
             }
-            if (!targetTableMap.containsKey(currentTable.getTableName().toLowerCase())) {
-                updateScript.append("-- WARNING: table `")
-                        .append(currentTable.getTableName())
-                        .append("` exists in current but not in target (not dropped)\n");
+        }
+        return TableDependencyGraph.of(newTables);
+    }
+
+    /**
+     * 将 items 中的新增表按 graph 的依赖顺序重新排列, 只在新增表原来占据的位置之间移动,
+     * 其它元素位置不变; 没有外键时新增表保持原有的相对顺序.
+     */
+    static <T> void orderNewTables(List<T> items,
+                                   Predicate<T> isNew,
+                                   Function<T, TableSchema> tableOf,
+                                   TableDependencyGraph graph) {
+        if (graph.getLevels().size() <= 1) {
+            return;
+        }
+        Map<TableSchema, Integer> rank = new IdentityHashMap<>();
+        for (List<TableSchema> level : graph.getLevels()) {
+            for (TableSchema table : level) {
+                rank.put(table, rank.size());
             }
         }
+        List<Integer> slots = new ArrayList<>();
+        List<T> newItems = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (isNew.test(items.get(i))) {
+                slots.add(i);
+                newItems.add(items.get(i));
+            }
+        }
+        newItems.sort(Comparator.comparingInt(item -> rank.get(tableOf.apply(item))));
+        for (int i = 0; i < slots.size(); i++) {
+            items.set(slots.get(i), newItems.get(i));
+        }
+    }
 
-        return updateScript.toString();
+    private static boolean isAdded(TableDiff tableDiff) {
+        return tableDiff.getChangeType() == ChangeType.ADDED;
     }
 
-    private static boolean shouldIgnore(TableSchema fromTable, String[] ignoreTables) {
-        String lowerTableName = fromTable.getTableName().toLowerCase();
-        for (String ignoreTable : ignoreTables) {
-            ignoreTable = ignoreTable.toLowerCase();
-            if (ignoreTable.equals(lowerTableName)) {
-                return true;
+    /**
+     * 同 {@link #toSQL(SchemaDiff, boolean)}, 按目标表的外键依赖分层输出, 每层一段脚本,
+     * 新增的表在其引用的表之后创建. 表删除警告附在最后一段.
+     */
+    public static List<String> toSQLLevels(SchemaDiff schemaDiff, boolean includeNewTable) {
+        Map<String, TableDiff> tableDiffs = new HashMap<>();
+        List<TableSchema> targetTables = new ArrayList<>();
+        StringBuilder warnings = new StringBuilder();
+        for (TableDiff tableDiff : schemaDiff.getTables()) {
+            if (tableDiff.getChangeType() == ChangeType.REMOVED) {
+                appendTableWarning(warnings, tableDiff.getCurrent());
+            } else {
+                tableDiffs.put(tableDiff.getTableName().toLowerCase(), tableDiff);
+                targetTables.add(tableDiff.getTarget());
+            }
+        }
+        TableDependencyGraph graph = TableDependencyGraph.of(targetTables);
+        List<String> scripts = new ArrayList<>();
+        for (List<TableSchema> level : graph.getLevels()) {
+            StringBuilder sb = new StringBuilder();
+            for (TableSchema table : level) {
+                TableDiff tableDiff = tableDiffs.get(table.getTableName().toLowerCase());
+                if (tableDiff.getChangeType() == ChangeType.ADDED) {
+                    if (includeNewTable) {
+                        appendTableDDL(sb, table, graph);
+                    }
+                    continue;
+                }
+                String tableScript = tableChangeScript(tableDiff, includeNewTable);
+                if (Utils.hasText(tableScript)) {
+                    sb.append(tableScript).append("\n\n");
+                }
+            }
+            if (sb.length() > 0) {
+                scripts.add(sb.toString());
+            }
+        }
+        if (includeNewTable && graph.hasCycle()) {
+            // 已存在的表的外键不在比较范围内, 只为新增的表补充
+            String deferred = deferredForeignKeys(graph, table ->
+                    tableDiffs.get(table.getTableName().toLowerCase()).getChangeType() == ChangeType.ADDED);
+            if (!deferred.isEmpty()) {
+                scripts.add(deferred);
+            }
+        }
+        if (warnings.length() > 0) {
+            if (scripts.isEmpty()) {
+                scripts.add(warnings.toString());
+            } else {
+                scripts.set(scripts.size() - 1, scripts.get(scripts.size() - 1) + warnings);
+            }
+        }
+        return scripts;
+    }
+
+    /**
+     * 生成带 ALGORITHM=/LOCK= 子句的 ALTER 脚本 (MySQL 8 Online DDL).
+     * 每张表的变更按 {@link AlterPlanner} 的分类拆成多条语句:
+     * INSTANT、INPLACE 元数据操作、INPLACE 建索引、重建表, 依次执行.
+     *
+     * @see #generateModifySQL(DatabaseSchema, DatabaseSchema, boolean, String...)
+     */
+    public static String generateOnlineModifySQL(DatabaseSchema targetSchema,
+                                                 DatabaseSchema currentSchema,
+                                                 boolean includeNewTable,
+                                                 String... ignoreTables) {
+        return toOnlineSQL(SchemaDiffer.diff(targetSchema, currentSchema, ignoreTables), includeNewTable);
+    }
+
+    /**
+     * 将 {@link SchemaDiff} 渲染为 Online DDL 脚本, 新增表的顺序与外键处理同 {@link #toSQL}.
+     */
+    public static String toOnlineSQL(SchemaDiff schemaDiff, boolean includeNewTable) {
+        TableDependencyGraph graph = newTableGraph(schemaDiff.getTables());
+        List<TableDiff> tableDiffs = new ArrayList<>(schemaDiff.getTables());
+        orderNewTables(tableDiffs, ScriptGenerator::isAdded, TableDiff::getTarget, graph);
+        StringBuilder updateScript = new StringBuilder();
+        StringBuilder warnings = new StringBuilder();
+        for (TableDiff tableDiff : tableDiffs) {
+            if (tableDiff.getChangeType() == ChangeType.REMOVED) {
+                appendTableWarning(warnings, tableDiff.getCurrent());
+            } else {
+                appendOnlineTableScript(updateScript, tableDiff, includeNewTable, graph);
+            }
+        }
+        if (includeNewTable && graph.hasCycle()) {
+            updateScript.append(deferredForeignKeys(graph, table -> true));
+        }
+        return updateScript.append(warnings).toString();
+    }
+
+    /**
+     * 追加单表的 Online DDL 脚本: 新表为 CREATE TABLE, 变更表为按分类拆分的 ALTER 语句.
+     *
+     * @param graph 新增表的依赖图, 被标记为延后的外键不写入 CREATE TABLE, 由调用方以
+     *              {@link #deferredForeignKeys} 补充
+     */
+    static void appendOnlineTableScript(StringBuilder sb, TableDiff tableDiff, boolean includeNewTable, TableDependencyGraph graph) {
+        if (tableDiff.getChangeType() == ChangeType.ADDED) {
+            if (includeNewTable) {
+                appendTableDDL(sb, tableDiff.getTarget(), graph);
+                sb.append("\n\n");
+            }
+        } else if (tableDiff.getChangeType() == ChangeType.MODIFIED) {
+            int start = sb.length();
+            appendOnlineTableChange(sb, tableDiff);
+            if (sb.length() > start) {
+                sb.append("\n");
+            }
+        }
+    }
+
+    static void appendTableWarning(StringBuilder sb, TableSchema currentTable) {
+        sb.append("-- WARNING: table `")
+                .append(currentTable.getTableName())
+                .append("` exists in current but not in target (not dropped)\n");
+    }
+
+    private static void appendOnlineTableChange(StringBuilder sb, TableDiff tableDiff) {
+        for (ColumnDiff columnDiff : tableDiff.getColumns()) {
+            if (columnDiff.getChangeType() == ChangeType.REMOVED) {
+                sb.append("-- WARNING: column `").append(tableDiff.getTableName()).append("`.`")
+                        .append(columnDiff.getColumnName())
+                        .append("` exists in current but not in target (not dropped)\n");
             }
-            if (ignoreTable.contains("*")) {
-                ignoreTable = ignoreTable.replaceAll("\\*", "");
-                if (lowerTableName.contains(ignoreTable)) {
+        }
+        List<AlterStep> planned = AlterPlanner.plan(tableDiff);
+        Set<String> rebuildColumns = new HashSet<>();
+        OnlineDdl rebuild = null;
+        for (AlterStep step : planned) {
+            if (step.getOnlineDdl().isRebuild()) {
+                rebuild = step.getOnlineDdl().max(rebuild);
+                if (step.getColumn() != null) {
+                    rebuildColumns.add(step.getColumn().getColumnName().toLowerCase());
+                }
+            }
+        }
+        // 引用重建语句中新增/修改列的索引依赖该列的新定义 (如 TEXT 改 VARCHAR 后才能建索引,
+        // AUTO_INCREMENT 列需要同一语句中的键), 随重建语句一起执行
+        List<AlterStep> steps = new ArrayList<>();
+        List<AlterStep> rebuildSteps = new ArrayList<>();
+        for (AlterStep step : planned) {
+            if (step.getOnlineDdl().isRebuild()
+                    || buildsIndex(step) && referencesAny(step.getIndex(), rebuildColumns)) {
+                rebuildSteps.add(step);
+            } else {
+                steps.add(step);
+            }
+        }
+        TableSchema targetTable = tableDiff.getTarget();
+        appendOnlineStatement(sb, targetTable, steps, OnlineDdl.INSTANT, OnlineDdl.INSTANT);
+        appendOnlineStatement(sb, targetTable, steps, OnlineDdl.INPLACE_METADATA, OnlineDdl.INPLACE_METADATA);
+        appendOnlineStatement(sb, targetTable, steps, OnlineDdl.INPLACE_BUILD, OnlineDdl.INPLACE_BUILD);
+        if (rebuild != null) {
+            // 所有重建类变更合并为一条语句, 只重建一次
+            appendOnlineStatement(sb, targetTable, rebuildSteps, null, rebuild);
+        }
+        // 分区变更由 MySQL 自行选择算法
+        String partitionScript = partitionChangeScript(tableDiff);
+        if (partitionScript != null) {
+            sb.append(partitionScript).append("\n");
+        }
+    }
+
+    private static boolean buildsIndex(AlterStep step) {
+        return step.getAction() == AlterStep.Action.ADD_INDEX || step.getAction() == AlterStep.Action.REPLACE_INDEX;
+    }
+
+    private static boolean referencesAny(IndexSchema index, Set<String> columnNames) {
+        if (index == null || columnNames.isEmpty()) {
+            return false;
+        }
+        if (index.getMemberColumns() != null) {
+            for (ColumnSchema column : index.getMemberColumns()) {
+                if (column != null && columnNames.contains(column.getColumnName().toLowerCase())) {
                     return true;
                 }
             }
         }
+        if (!index.hasExplicitKeyParts()) {
+            return false;
+        }
+        for (IndexPart part : index.getKeyParts()) {
+            if (part.isFunctional()) {
+                String expression = part.getExpression().toLowerCase();
+                for (String columnName : columnNames) {
+                    if (expression.contains(columnName)) {
+                        return true;
+                    }
+                }
+            }
+        }
         return false;
     }
 
-    private static String tableChangeScript(TableSchema targetTable, TableSchema currentTable, boolean includeNewTable) {
-        if (currentTable == null) {
-            return includeNewTable ? tableDDL(targetTable) : null;
+    private static void appendOnlineStatement(StringBuilder sb,
+                                              TableSchema targetTable,
+                                              List<AlterStep> steps,
+                                              OnlineDdl filter,
+                                              OnlineDdl onlineDdl) {
+        int start = sb.length();
+        sb.append("ALTER TABLE `").append(targetTable.getTableName()).append("`\n");
+        int bodyStart = sb.length();
+        for (AlterStep step : steps) {
+            if (filter == null || step.getOnlineDdl() == filter) {
+                appendAlterStep(sb, targetTable, step);
+            }
+        }
+        if (sb.length() == bodyStart) {
+            sb.setLength(start);
+            return;
+        }
+        sb.append("ALGORITHM=").append(onlineDdl.getAlgorithm());
+        if (onlineDdl.getLock() != null) {
+            sb.append(", LOCK=").append(onlineDdl.getLock());
+        }
+        sb.append(";\n");
+    }
+
+    private static void appendAlterStep(StringBuilder sb, TableSchema targetTable, AlterStep step) {
+        switch (step.getAction()) {
+            case ADD_COLUMN:
+                sb.append("ADD COLUMN ");
+                appendColumnDef(sb, targetTable, step.getColumn());
+                sb.append(",\n");
+                break;
+            case MODIFY_COLUMN:
+                sb.append("MODIFY COLUMN ");
+                appendColumnDef(sb, targetTable, step.getColumn());
+                sb.append(",\n");
+                break;
+            case ADD_PRIMARY_KEY:
+                appendAddPrimaryKey(sb, step.getPrimaryKey());
+                break;
+            case DROP_PRIMARY_KEY:
+                appendDropPrimaryKey(sb);
+                break;
+            case REPLACE_PRIMARY_KEY:
+                appendDropPrimaryKey(sb);
+                appendAddPrimaryKey(sb, step.getPrimaryKey());
+                break;
+            case ADD_INDEX:
+                appendAddIndex(sb, step.getIndex());
+                break;
+            case DROP_INDEX:
+                appendDropIndex(sb, step.getIndex().getIndexName());
+                break;
+            case REPLACE_INDEX:
+                appendDropIndex(sb, step.getFromIndex().getIndexName());
+                appendAddIndex(sb, step.getIndex());
+                break;
+            case RENAME_COLUMN:
+                appendRenameColumn(sb, step.getFromColumn(), step.getColumn());
+                break;
+            case CHANGE_COLUMN:
+                appendChangeColumn(sb, targetTable, step.getFromColumn(), step.getColumn());
+                break;
+            case RENAME_INDEX:
+                appendRenameIndex(sb, step.getFromIndex(), step.getIndex());
+                break;
+            case ALTER_INDEX_VISIBILITY:
+                appendIndexVisibility(sb, step.getIndex());
+                break;
+            default:
+                throw new IllegalStateException("Unknown alter action: " + step.getAction());
         }
-        StringBuilder sb = new StringBuilder();
-        List<ColumnSchema> targetColumns = targetTable.getColumns();
-        List<ColumnSchema> currentColumns = currentTable.getColumns();
+    }
 
-        // 预建列名 Map
-        Map<String, ColumnSchema> currentColMap = new HashMap<>();
-        for (ColumnSchema col : currentColumns) {
-            currentColMap.put(col.getColumnName().toLowerCase(), col);
+    private static String tableChangeScript(TableDiff tableDiff, boolean includeNewTable) {
+        return tableChangeScript(tableDiff, includeNewTable, null);
+    }
+
+    private static String tableChangeScript(TableDiff tableDiff, boolean includeNewTable, TableDependencyGraph graph) {
+        if (tableDiff == null) {
+            return null;
         }
-        Set<String> targetColNames = new HashSet<>();
-        for (ColumnSchema col : targetColumns) {
-            targetColNames.add(col.getColumnName().toLowerCase());
+        if (tableDiff.getChangeType() == ChangeType.ADDED) {
+            return includeNewTable ? tableDDL(tableDiff.getTarget(), graph) : null;
+        }
+        if (tableDiff.getChangeType() != ChangeType.MODIFIED) {
+            return null;
         }
+        Object event = SchemaFlightRecorder.beginDdlRender(tableDiff.getTableName(), "ALTER TABLE");
+        String script = alterTableScript(tableDiff);
+        SchemaFlightRecorder.commitDdlRender(event, tableDiff.getColumns().size() + tableDiff.getIndexes().size(),
+                script == null ? 0 : script.length());
+        return script;
+    }
+
+    private static String alterTableScript(TableDiff tableDiff) {
+        TableSchema targetTable = tableDiff.getTarget();
+        StringBuilder sb = new StringBuilder();
+        sb.append("ALTER TABLE `").append(targetTable.getTableName()).append("`\n");
+        int bodyStart = sb.length();
 
         // 新增 / 修改列
-        for (ColumnSchema targetCol : targetColumns) {
-            ColumnSchema currentCol = currentColMap.get(targetCol.getColumnName().toLowerCase());
-            String targetColDef = columnDef(targetTable, targetCol);
-            if (currentCol == null) {
-                sb.append("ADD COLUMN ").append(targetColDef);
-            } else {
-                String currentColDef = columnDef(currentTable, currentCol);
-                if (!targetColDef.equalsIgnoreCase(currentColDef)) {
-                    sb.append("MODIFY COLUMN ").append(targetColDef);
+        for (ColumnDiff columnDiff : tableDiff.getColumns()) {
+            if (columnDiff.getChangeType() == ChangeType.ADDED) {
+                sb.append("ADD COLUMN ");
+            } else if (columnDiff.getChangeType() == ChangeType.MODIFIED) {
+                sb.append("MODIFY COLUMN ");
+            } else if (columnDiff.getChangeType() == ChangeType.RENAMED) {
+                if (columnDiff.getChangedAttributes().isEmpty()) {
+                    appendRenameColumn(sb, columnDiff.getCurrent(), columnDiff.getTarget());
+                } else {
+                    appendChangeColumn(sb, targetTable, columnDiff.getCurrent(), columnDiff.getTarget());
                 }
+                continue;
+            } else {
+                continue;
             }
+            appendColumnDef(sb, targetTable, columnDiff.getTarget());
+            sb.append(",\n");
         }
 
         // 报告仅存在于 current 中的列
-        for (ColumnSchema currentCol : currentColumns) {
-            if (!targetColNames.contains(currentCol.getColumnName().toLowerCase())) {
-                sb.append("-- WARNING: column `").append(currentCol.getColumnName())
+        for (ColumnDiff columnDiff : tableDiff.getColumns()) {
+            if (columnDiff.getChangeType() == ChangeType.REMOVED) {
+                sb.append("-- WARNING: column `").append(columnDiff.getColumnName())
                         .append("` exists in current but not in target (not dropped),\n");
             }
         }
 
         // 主键变更
-        KeySchema targetPK = targetTable.getPrimaryKey();
-        KeySchema currentPK = currentTable.getPrimaryKey();
-        if (targetPK == null) {
-            if (currentPK != null) {
+        PrimaryKeyDiff primaryKeyDiff = tableDiff.getPrimaryKey();
+        if (primaryKeyDiff != null) {
+            if (primaryKeyDiff.getChangeType() != ChangeType.ADDED) {
                 appendDropPrimaryKey(sb);
             }
-        } else {
-            if (currentPK == null) {
-                appendAddPrimaryKey(sb, targetPK);
-            } else if (memberChanged(targetPK.getMemberColumns(), currentPK.getMemberColumns())) {
-                appendDropPrimaryKey(sb);
-                appendAddPrimaryKey(sb, targetPK);
+            if (primaryKeyDiff.getChangeType() != ChangeType.REMOVED) {
+                appendAddPrimaryKey(sb, primaryKeyDiff.getTarget());
             }
         }
 
         // 索引变更
-        List<IndexSchema> targetIndexes = targetTable.getIndexes();
-        List<IndexSchema> currentIndexes = currentTable.getIndexes();
-        Map<String, IndexSchema> currentIdxMap = new HashMap<>();
-        for (IndexSchema idx : currentIndexes) {
-            currentIdxMap.put(idx.getIndexName().toLowerCase(), idx);
-        }
-        Set<String> targetIdxNames = new HashSet<>();
-        for (IndexSchema idx : targetIndexes) {
-            targetIdxNames.add(idx.getIndexName().toLowerCase());
-        }
-        for (IndexSchema targetIdx : targetIndexes) {
-            IndexSchema currentIdx = currentIdxMap.get(targetIdx.getIndexName().toLowerCase());
-            if (currentIdx == null) {
-                appendAddIndex(sb, targetIdx);
-            } else if (hasChange(targetIdx, currentIdx)) {
-                appendDropIndex(sb, currentIdx.getIndexName());
-                appendAddIndex(sb, targetIdx);
+        for (IndexDiff indexDiff : tableDiff.getIndexes()) {
+            if (indexDiff.getChangeType() == ChangeType.MODIFIED) {
+                if (SchemaDiffer.onlyVisibilityChanged(indexDiff.getTarget(), indexDiff.getCurrent(), tableDiff.getRenamedColumns())) {
+                    appendIndexVisibility(sb, indexDiff.getTarget());
+                } else {
+                    appendDropIndex(sb, indexDiff.getCurrent().getIndexName());
+                    appendAddIndex(sb, indexDiff.getTarget());
+                }
+            } else if (indexDiff.getChangeType() == ChangeType.ADDED) {
+                appendAddIndex(sb, indexDiff.getTarget());
+            } else if (indexDiff.getChangeType() == ChangeType.RENAMED) {
+                appendRenameIndex(sb, indexDiff.getCurrent(), indexDiff.getTarget());
             }
         }
-        for (IndexSchema currentIdx : currentIndexes) {
-            if (!targetIdxNames.contains(currentIdx.getIndexName().toLowerCase())) {
-                appendDropIndex(sb, currentIdx.getIndexName());
+        for (IndexDiff indexDiff : tableDiff.getIndexes()) {
+            if (indexDiff.getChangeType() == ChangeType.REMOVED) {
+                appendDropIndex(sb, indexDiff.getCurrent().getIndexName());
             }
         }
 
-        if (sb.length() == 0) {
-            return null;
+        String partitionScript = partitionChangeScript(tableDiff);
+        if (sb.length() == bodyStart) {
+            return partitionScript;
+        }
+        sb.setLength(sb.length() - 2);
+        sb.append(";");
+        if (partitionScript != null) {
+            sb.append("\n").append(partitionScript);
         }
-        return "ALTER TABLE `" + targetTable.getTableName() + "`\n" + sb.substring(0, sb.length() - 2) + ";";
+        return sb.toString();
+    }
+
+    private static void appendRenameColumn(StringBuilder sb, ColumnSchema fromColumn, ColumnSchema toColumn) {
+        sb.append("RENAME COLUMN `").append(fromColumn.getColumnName())
+                .append("` TO `").append(toColumn.getColumnName()).append("`,\n");
+    }
+
+    private static void appendChangeColumn(StringBuilder sb, TableSchema targetTable, ColumnSchema fromColumn, ColumnSchema toColumn) {
+        sb.append("CHANGE COLUMN `").append(fromColumn.getColumnName()).append("`");
+        appendColumnDef(sb, targetTable, toColumn);
+        sb.append(",\n");
+    }
+
+    private static void appendRenameIndex(StringBuilder sb, IndexSchema fromIndex, IndexSchema toIndex) {
+        sb.append("RENAME INDEX `").append(fromIndex.getIndexName())
+                .append("` TO `").append(toIndex.getIndexName()).append("`,\n");
     }
 
     private static void appendDropPrimaryKey(StringBuilder sbAlterTableScript) {
@@ -308,9 +1064,9 @@ public abstract class ScriptGenerator {
     }
 
     private static void appendAddPrimaryKey(StringBuilder sbAlterTableScript, KeySchema fromPrimaryKey) {
-        sbAlterTableScript.append("ADD PRIMARY KEY (")
-                .append(joinNames(fromPrimaryKey.getMemberColumns()))
-                .append("),\n");
+        sbAlterTableScript.append("ADD PRIMARY KEY (");
+        appendNames(sbAlterTableScript, fromPrimaryKey.getMemberColumns());
+        sbAlterTableScript.append("),\n");
     }
 
     private static void appendDropIndex(StringBuilder sbAlterTableScript, String indexName) {
@@ -318,38 +1074,77 @@ public abstract class ScriptGenerator {
     }
 
     private static void appendAddIndex(StringBuilder sbAlterTableScript, IndexSchema fromIndex) {
-        if (fromIndex.isUnique()) {
-            sbAlterTableScript.append("ADD UNIQUE INDEX `");
-        } else {
-            sbAlterTableScript.append("ADD INDEX `");
-        }
-        sbAlterTableScript
-                .append(fromIndex.getIndexName())
-                .append("` (")
-                .append(joinNames(fromIndex.getMemberColumns()))
-                .append(") USING BTREE,\n");
+        sbAlterTableScript.append("ADD ").append(indexKeyword(fromIndex)).append("INDEX `")
+                .append(fromIndex.getIndexName()).append("` ");
+        appendIndexDefinition(sbAlterTableScript, fromIndex);
+        sbAlterTableScript.append(",\n");
     }
 
-    private static boolean hasChange(IndexSchema fromIndex, IndexSchema toIndex) {
-        if (fromIndex.isUnique() != toIndex.isUnique()
-                || fromIndex.getMemberColumns().size() != toIndex.getMemberColumns().size()) {
-            return true;
+    private static void appendIndexVisibility(StringBuilder sb, IndexSchema index) {
+        sb.append("ALTER INDEX `").append(index.getIndexName()).append("` ")
+                .append(index.isVisible() ? "VISIBLE" : "INVISIBLE").append(",\n");
+    }
+
+    /**
+     * UNIQUE / FULLTEXT / SPATIAL 前缀 (含尾部空格), 普通索引为空串.
+     */
+    private static String indexKeyword(IndexSchema index) {
+        if (index.isFulltext()) {
+            return "FULLTEXT ";
+        }
+        if (index.isSpatial()) {
+            return "SPATIAL ";
         }
-        return memberChanged(fromIndex.getMemberColumns(), toIndex.getMemberColumns());
+        return index.isUnique() ? "UNIQUE " : "";
     }
 
-    private static boolean memberChanged(List<ColumnSchema> fromMemberColumns, List<ColumnSchema> toMemberColumns) {
-        if (fromMemberColumns.size() != toMemberColumns.size()) {
-            return true;
+    /**
+     * 键部分列表及索引选项: (`a`(20),`b` DESC,(expr)) USING BTREE COMMENT '...' INVISIBLE.
+     * FULLTEXT / SPATIAL 索引不输出 USING.
+     */
+    private static void appendIndexDefinition(StringBuilder sb, IndexSchema index) {
+        sb.append("(");
+        if (!index.hasExplicitKeyParts() && Utils.notEmpty(index.getMemberColumns())) {
+            // 未设置键部分时直接按 memberColumns 输出, 不生成临时的 IndexPart 列表
+            appendNames(sb, index.getMemberColumns());
+            sb.append(")");
+            appendIndexOptions(sb, index);
+            return;
         }
-        for (int i = 0; i < fromMemberColumns.size(); i++) {
-            ColumnSchema fromCol = fromMemberColumns.get(i);
-            ColumnSchema toCol = toMemberColumns.get(i);
-            if (!Objects.equals(fromCol.getColumnName(), toCol.getColumnName())) {
-                return true;
+        List<IndexPart> keyParts = index.getKeyParts();
+        for (int i = 0; i < keyParts.size(); i++) {
+            IndexPart part = keyParts.get(i);
+            if (i > 0) {
+                sb.append(",");
+            }
+            if (part.isFunctional()) {
+                sb.append("(").append(part.getExpression()).append(")");
+            } else {
+                sb.append("`").append(part.getColumn().getColumnName()).append("`");
+                if (part.getSubPart() != null) {
+                    sb.append("(").append(part.getSubPart()).append(")");
+                }
+            }
+            if (part.isDescending()) {
+                sb.append(" DESC");
             }
         }
-        return false;
+        sb.append(")");
+        appendIndexOptions(sb, index);
+    }
+
+    private static void appendIndexOptions(StringBuilder sb, IndexSchema index) {
+        if (!index.isFulltext() && !index.isSpatial()) {
+            sb.append(" USING ").append(index.getIndexType() == null ? "BTREE" : index.getIndexType().toUpperCase());
+        }
+        if (Utils.hasLength(index.getComment())) {
+            sb.append(" COMMENT '");
+            appendEscaped(sb, index.getComment());
+            sb.append("'");
+        }
+        if (!index.isVisible()) {
+            sb.append(" INVISIBLE");
+        }
     }
 
 }
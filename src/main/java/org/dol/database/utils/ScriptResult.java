@@ -0,0 +1,28 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 并行生成脚本的结果: 按表名排序拼接的脚本, 以及生成失败的表.
+ */
+@Getter
+@AllArgsConstructor
+public class ScriptResult {
+
+    private final String script;
+    private final List<TableError> errors;
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TableError {
+        private final String tableName;
+        private final Throwable error;
+    }
+}
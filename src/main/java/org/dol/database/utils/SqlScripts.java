@@ -0,0 +1,126 @@
+package org.dol.database.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 将 {@link ScriptGenerator} 生成的脚本拆分为单条语句.
+ */
+public abstract class SqlScripts {
+
+    private static final Pattern TABLE_STATEMENT = Pattern.compile(
+            "^(?:CREATE|ALTER|DROP|TRUNCATE)\\s+TABLE\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?(`(?:[^`]|``)+`|[\\w$.]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFERENCES = Pattern.compile(
+            "\\bREFERENCES\\s+(`(?:[^`]|``)+`|[\\w$.]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 按分号拆分语句, 忽略引号 ('...', "...", `...`) 内的分号与 "-- " / "#" 行注释.
+     * 返回的语句不含结尾分号, 空语句被丢弃.
+     */
+    public static List<MigrationStatement> split(String script) {
+        return split(script, 0);
+    }
+
+    /**
+     * 同 {@link #split(String)}, 语句序号从 firstIndex 开始.
+     */
+    public static List<MigrationStatement> split(String script, int firstIndex) {
+        return split(script, firstIndex, Utils.sha256Hex(script));
+    }
+
+    /**
+     * 同 {@link #split(String, int)}, 指纹由 scriptId、语句序号与语句内容共同决定,
+     * 不同脚本中内容相同的语句 (如后续版本重新添加的列、重复的 SET) 互不影响.
+     *
+     * @param scriptId 脚本标识, 如版本号; {@link #split(String)} 使用脚本内容的 SHA-256
+     */
+    public static List<MigrationStatement> split(String script, int firstIndex, String scriptId) {
+        List<MigrationStatement> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        int length = script.length();
+        for (int i = 0; i < length; i++) {
+            char c = script.charAt(i);
+            if (quote != 0) {
+                current.append(c);
+                if (c == '\\' && quote != '`' && i + 1 < length) {
+                    current.append(script.charAt(++i));
+                } else if (c == quote) {
+                    if (i + 1 < length && script.charAt(i + 1) == quote) {
+                        current.append(script.charAt(++i));
+                    } else {
+                        quote = 0;
+                    }
+                }
+                continue;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                current.append(c);
+            } else if (c == ';') {
+                addStatement(statements, current, firstIndex, scriptId);
+            } else if (isLineComment(script, i)) {
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current, firstIndex, scriptId);
+        return statements;
+    }
+
+    /**
+     * CREATE/ALTER/DROP/TRUNCATE TABLE 语句的表名 (去掉反引号), 其它语句返回 null.
+     */
+    public static String tableName(String sql) {
+        Matcher matcher = TABLE_STATEMENT.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        return unquote(matcher.group(1));
+    }
+
+    /**
+     * 语句中 FOREIGN KEY ... REFERENCES 引用的表名 (去掉反引号), 没有时返回空列表.
+     */
+    public static List<String> referencedTables(String sql) {
+        List<String> tableNames = new ArrayList<>(0);
+        Matcher matcher = REFERENCES.matcher(sql);
+        while (matcher.find()) {
+            tableNames.add(unquote(matcher.group(1)));
+        }
+        return tableNames;
+    }
+
+    private static String unquote(String name) {
+        if (name.startsWith("`")) {
+            return name.substring(1, name.length() - 1).replace("``", "`");
+        }
+        return name;
+    }
+
+    private static boolean isLineComment(String script, int i) {
+        char c = script.charAt(i);
+        if (c == '#') {
+            return true;
+        }
+        return c == '-' && i + 2 < script.length() && script.charAt(i + 1) == '-'
+                && Character.isWhitespace(script.charAt(i + 2));
+    }
+
+    private static void addStatement(List<MigrationStatement> statements, StringBuilder current, int firstIndex, String scriptId) {
+        String sql = current.toString().trim();
+        current.setLength(0);
+        if (!sql.isEmpty()) {
+            int index = firstIndex + statements.size();
+            String fingerprint = Utils.sha256Hex(scriptId + "\n" + index + "\n" + sql);
+            statements.add(new MigrationStatement(index, tableName(sql), sql, fingerprint));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.dol.database.utils;
+
+import org.dol.database.schema.ColumnSchema;
+
+import java.util.List;
+
+/**
+ * 预先渲染的 SQL 与参数绑定顺序, 不可变. 参数只保存列名、属性名与 JDBC 类型, 不引用模型对象.
+ */
+public final class SqlTemplate {
+
+    private final String sql;
+    private final String[] columnNames;
+    private final String[] propertyNames;
+    private final int[] sqlTypes;
+
+    SqlTemplate(String sql, List<ColumnSchema> parameters) {
+        this.sql = sql;
+        int count = parameters.size();
+        columnNames = new String[count];
+        propertyNames = new String[count];
+        sqlTypes = new int[count];
+        for (int i = 0; i < count; i++) {
+            ColumnSchema column = parameters.get(i);
+            columnNames[i] = column.getColumnName();
+            propertyNames[i] = column.getPropertyName();
+            sqlTypes[i] = column.getDataType();
+        }
+    }
+
+    /**
+     * 直接使用给定的参数数组, 调用方之后不得再修改.
+     */
+    SqlTemplate(String sql, String[] columnNames, String[] propertyNames, int[] sqlTypes) {
+        this.sql = sql;
+        this.columnNames = columnNames;
+        this.propertyNames = propertyNames;
+        this.sqlTypes = sqlTypes;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * 第 index 个 (从 0 开始) 参数对应的列名.
+     */
+    public String getColumnName(int index) {
+        return columnNames[index];
+    }
+
+    public String getPropertyName(int index) {
+        return propertyNames[index];
+    }
+
+    /**
+     * {@link java.sql.Types} 中的类型, 来自 ColumnSchema.dataType.
+     */
+    public int getSqlType(int index) {
+        return sqlTypes[index];
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
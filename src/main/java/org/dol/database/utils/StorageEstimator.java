@@ -0,0 +1,296 @@
+package org.dol.database.utils;
+
+import org.dol.database.schema.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 按 InnoDB (DYNAMIC 行格式) 存储规则估算行宽与索引键宽.
+ * <p>
+ * 字符列按字符集最大字节宽度计算 (utf8mb4 为 4 字节), 字符集未知时按 utf8mb4;
+ * 平均值假设变长列填充一半. TEXT/BLOB/JSON 等按溢出页存储, 行内只计 20 字节指针.
+ */
+public abstract class StorageEstimator {
+
+    /**
+     * InnoDB 16K 页 (DYNAMIC/COMPRESSED) 的索引键最大字节数.
+     */
+    public static final int MAX_KEY_BYTES = 3072;
+    /**
+     * 16K 页中单行最大字节数 (约半页), 超过后变长列被移出页外, 写入与读取变慢.
+     */
+    public static final int MAX_ROW_BYTES = 8126;
+
+    /**
+     * 记录头 5 字节 + 事务 ID 6 字节 + 回滚指针 7 字节.
+     */
+    private static final int ROW_OVERHEAD = 18;
+    /**
+     * 无主键时 InnoDB 生成的隐藏行 ID.
+     */
+    private static final int ROW_ID_BYTES = 6;
+    private static final int OFF_PAGE_POINTER_BYTES = 20;
+    private static final int INDEX_RECORD_OVERHEAD = 14;
+
+    public static List<TableFootprint> estimate(DatabaseSchema databaseSchema) {
+        List<TableFootprint> footprints = new ArrayList<>();
+        for (TableSchema table : databaseSchema.getTables()) {
+            if (table.isTable()) {
+                footprints.add(estimate(table));
+            }
+        }
+        footprints.sort(Comparator.comparing(TableFootprint::getTableName, String.CASE_INSENSITIVE_ORDER));
+        return footprints;
+    }
+
+    /**
+     * 只返回存在问题的表.
+     */
+    public static List<TableFootprint> findOversized(DatabaseSchema databaseSchema) {
+        List<TableFootprint> oversized = new ArrayList<>();
+        for (TableFootprint footprint : estimate(databaseSchema)) {
+            if (footprint.hasWarnings()) {
+                oversized.add(footprint);
+            }
+        }
+        return oversized;
+    }
+
+    public static TableFootprint estimate(TableSchema table) {
+        int maxRowBytes = ROW_OVERHEAD;
+        int avgRowBytes = ROW_OVERHEAD;
+        int nullableColumns = 0;
+        for (ColumnSchema column : table.getColumns()) {
+            maxRowBytes += maxRowBytes(column);
+            avgRowBytes += avgRowBytes(column);
+            if (column.isNullable()) {
+                nullableColumns++;
+            }
+        }
+        int nullBitmap = (nullableColumns + 7) / 8;
+        maxRowBytes += nullBitmap;
+        avgRowBytes += nullBitmap;
+        KeySchema primaryKey = table.getPrimaryKey();
+        boolean hasPrimaryKey = primaryKey != null && Utils.notEmpty(primaryKey.getMemberColumns());
+        if (!hasPrimaryKey) {
+            maxRowBytes += ROW_ID_BYTES;
+            avgRowBytes += ROW_ID_BYTES;
+        }
+
+        List<IndexFootprint> indexes = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        if (hasPrimaryKey) {
+            addIndex(indexes, warnings, "PRIMARY", keyBytes(primaryKey.getMemberColumns()), 0);
+        }
+        if (table.getIndexes() != null) {
+            for (IndexSchema index : table.getIndexes()) {
+                if (index.hasKeyParts() && !index.isFulltext()) {
+                    addIndex(indexes, warnings, index.getIndexName(), keyBytes(index), avgIndexEntryBytes(table, index));
+                }
+            }
+        }
+        if (maxRowBytes > MAX_ROW_BYTES) {
+            warnings.add("max row size " + maxRowBytes + " bytes exceeds " + MAX_ROW_BYTES + " bytes (half a 16K page)");
+        }
+        return new TableFootprint(table.getTableName(), maxRowBytes, avgRowBytes, indexes, warnings);
+    }
+
+    private static void addIndex(List<IndexFootprint> indexes, List<String> warnings, String indexName, int keyBytes, int avgEntryBytes) {
+        indexes.add(new IndexFootprint(indexName, keyBytes, avgEntryBytes));
+        if (keyBytes > MAX_KEY_BYTES) {
+            warnings.add("index `" + indexName + "` key is " + keyBytes + " bytes, exceeds " + MAX_KEY_BYTES + " bytes");
+        }
+    }
+
+    /**
+     * 二级索引一条记录的平均字节数: 记录开销 + 索引列 + 主键列.
+     */
+    public static int avgIndexEntryBytes(TableSchema table, IndexSchema index) {
+        int bytes = INDEX_RECORD_OVERHEAD;
+        for (IndexPart part : index.getKeyParts()) {
+            if (!part.isFunctional()) {
+                int partBytes = keyPartBytes(part);
+                ColumnSchema column = part.getColumn();
+                bytes += part.getSubPart() != null || column.getDataTypeEnum() != null && isOffPage(column.getDataTypeEnum())
+                        ? partBytes : Math.min(partBytes, avgRowBytes(column));
+            }
+        }
+        KeySchema primaryKey = table.getPrimaryKey();
+        if (primaryKey != null && Utils.notEmpty(primaryKey.getMemberColumns())) {
+            for (ColumnSchema column : primaryKey.getMemberColumns()) {
+                if (!index.getMemberColumns().contains(column)) {
+                    bytes += avgRowBytes(column);
+                }
+            }
+        } else {
+            bytes += ROW_ID_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * 索引键的最大字节数, 前缀索引按前缀长度计算; 函数索引键部分的类型未知, 不计入.
+     */
+    public static int keyBytes(IndexSchema index) {
+        int bytes = 0;
+        for (IndexPart part : index.getKeyParts()) {
+            if (!part.isFunctional()) {
+                bytes += keyPartBytes(part);
+            }
+        }
+        return bytes;
+    }
+
+    private static int keyPartBytes(IndexPart part) {
+        ColumnSchema column = part.getColumn();
+        int maxBytes = maxDataBytes(column);
+        if (part.getSubPart() == null) {
+            return maxBytes;
+        }
+        DataTypeEnum type = column.getDataTypeEnum();
+        boolean binary = type == DataTypeEnum.BINARY || type == DataTypeEnum.VARBINARY
+                || type != null && type.name().endsWith("BLOB");
+        int bytesPerChar = binary ? 1 : CharacterSets.maxBytesPerChar(column.getCharacterSet());
+        return Math.min(maxBytes, part.getSubPart() * bytesPerChar);
+    }
+
+    /**
+     * 键的最大字节数 (不含长度前缀); TEXT/BLOB 无前缀长度时按类型最大长度计算, 必然超限.
+     */
+    public static int keyBytes(List<ColumnSchema> columns) {
+        int bytes = 0;
+        for (ColumnSchema column : columns) {
+            bytes += maxDataBytes(column);
+        }
+        return bytes;
+    }
+
+    /**
+     * 列在行内占用的最大字节数, 含变长列的长度前缀.
+     */
+    public static int maxRowBytes(ColumnSchema column) {
+        DataTypeEnum type = column.getDataTypeEnum();
+        if (type != null && isOffPage(type)) {
+            return OFF_PAGE_POINTER_BYTES;
+        }
+        int bytes = maxDataBytes(column);
+        return isVariableLength(type) ? bytes + lengthPrefix(bytes) : bytes;
+    }
+
+    /**
+     * 列在行内的平均字节数: 变长列按一半计算.
+     */
+    public static int avgRowBytes(ColumnSchema column) {
+        DataTypeEnum type = column.getDataTypeEnum();
+        if (type != null && isOffPage(type)) {
+            return OFF_PAGE_POINTER_BYTES;
+        }
+        int bytes = maxDataBytes(column);
+        return isVariableLength(type) ? (bytes + 1) / 2 + lengthPrefix(bytes) : bytes;
+    }
+
+    /**
+     * 列数据的最大字节数 (不含长度前缀).
+     */
+    public static int maxDataBytes(ColumnSchema column) {
+        DataTypeEnum type = column.getDataTypeEnum();
+        if (type == null) {
+            return 8;
+        }
+        int size = column.getColumnSize();
+        switch (type) {
+            case TINYINT:
+            case BOOLEAN:
+            case YEAR:
+                return 1;
+            case SMALLINT:
+                return 2;
+            case MEDIUMINT:
+                return 3;
+            case INT:
+            case INTEGER:
+            case FLOAT:
+                return 4;
+            case BIGINT:
+            case DOUBLE:
+            case REAL:
+                return 8;
+            case DECIMAL:
+            case NUMERIC:
+                return decimalBytes(size > 0 ? size : 10, column.getDecimalDigits());
+            case BIT:
+                return (Math.max(1, size) + 7) / 8;
+            case DATE:
+                return 3;
+            case TIME:
+                return 3 + fractionalSecondBytes(column.getDecimalDigits());
+            case DATETIME:
+                return 5 + fractionalSecondBytes(column.getDecimalDigits());
+            case TIMESTAMP:
+                return 4 + fractionalSecondBytes(column.getDecimalDigits());
+            case CHAR:
+            case NCHAR:
+            case VARCHAR:
+            case NVARCHAR:
+                return Math.max(1, size) * CharacterSets.maxBytesPerChar(column.getCharacterSet());
+            case BINARY:
+            case VARBINARY:
+                return Math.max(1, size);
+            case ENUM:
+                return column.getEnumValues() != null && column.getEnumValues().size() > 255 ? 2 : 1;
+            case SET:
+                int setBytes = column.getEnumValues() != null ? (column.getEnumValues().size() + 7) / 8 : 1;
+                return setBytes > 4 ? 8 : Math.max(1, setBytes);
+            case TINYTEXT:
+            case TINYBLOB:
+                return 255;
+            case TEXT:
+            case BLOB:
+                return 65535;
+            default:
+                // MEDIUMTEXT/LONGTEXT/JSON/空间类型等, 只能以前缀建索引
+                return 16777215;
+        }
+    }
+
+    private static boolean isOffPage(DataTypeEnum type) {
+        switch (type) {
+            case TINYTEXT:
+            case TEXT:
+            case MEDIUMTEXT:
+            case LONGTEXT:
+            case NTEXT:
+            case TINYBLOB:
+            case BLOB:
+            case MEDIUMBLOB:
+            case LONGBLOB:
+                return true;
+            default:
+                return type.isJson() || type.isSpatial();
+        }
+    }
+
+    private static boolean isVariableLength(DataTypeEnum type) {
+        return type == DataTypeEnum.VARCHAR || type == DataTypeEnum.NVARCHAR || type == DataTypeEnum.VARBINARY;
+    }
+
+    private static int lengthPrefix(int maxBytes) {
+        return maxBytes > 255 ? 2 : 1;
+    }
+
+    private static int fractionalSecondBytes(int fsp) {
+        return (Math.max(0, Math.min(6, fsp)) + 1) / 2;
+    }
+
+    /**
+     * DECIMAL(M,D): 整数与小数部分各按每 9 位 4 字节, 剩余位数按 0,1,1,2,2,3,3,4,4 字节.
+     */
+    private static int decimalBytes(int precision, int scale) {
+        int[] leftover = {0, 1, 1, 2, 2, 3, 3, 4, 4};
+        int integer = Math.max(0, precision - scale);
+        int fraction = Math.max(0, scale);
+        return integer / 9 * 4 + leftover[integer % 9] + fraction / 9 * 4 + leftover[fraction % 9];
+    }
+}
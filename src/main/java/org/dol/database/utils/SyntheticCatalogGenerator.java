@@ -0,0 +1,313 @@
+package org.dol.database.utils;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.dol.database.schema.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 按 seed 生成可复现的合成 schema, 用于规模与性能测试.
+ * <p>
+ * 每张表使用由 seed 与表序号派生的独立随机源, 任一表都可单独重新生成;
+ * {@link #generateDDL(Appendable)} 逐表生成并写出, 内存占用与表数无关.
+ * {@link #generate()} 返回完整对象图, 规模受堆大小限制.
+ * <p>
+ * 审计列名取自 {@link SchemaConstraints}, 复合主键使用 {@link SchemaConstraints#COMPANY_ID}.
+ */
+@Getter
+@Setter
+public class SyntheticCatalogGenerator {
+
+    private static final int[] VARCHAR_SIZES = {16, 32, 64, 128, 255, 512, 1024};
+    private static final String LOWER_LETTER_CHAR = "abcdefghijklmnopqrstuvwxyz";
+    /**
+     * 与 Naming.auditNames 一一对应.
+     */
+    private static final String[] AUDIT_COLUMN_TYPES = {
+            "datetime", "bigint(20)", "datetime", "bigint(20)", "tinyint(1)", "tinyint(4)", "int(11)"
+    };
+
+    private long seed = 1L;
+    private int tableCount = 100;
+    private String tablePrefix = "t_";
+    /**
+     * 列数 (含主键与审计列) 在 [minColumns, maxColumns] 间偏向较小值分布, 少数表列数较多.
+     */
+    private int minColumns = 4;
+    private int maxColumns = 40;
+    /**
+     * 普通列的类型权重.
+     */
+    private Map<DataTypeEnum, Integer> typeWeights = defaultTypeWeights();
+    /**
+     * 每表平均二级索引数.
+     */
+    private double indexesPerTable = 2.0;
+    private int maxIndexColumns = 3;
+    /**
+     * 使用 (COMPANY_ID, id) 复合主键的表比例.
+     */
+    private double compositePrimaryKeyRatio = 0.1;
+    /**
+     * 带审计列 (创建/更新时间与人、删除标记、状态、版本) 的表比例.
+     */
+    private double auditColumnRatio = 0.5;
+    /**
+     * 带注释的列比例.
+     */
+    private double remarksRatio = 0.3;
+
+    /**
+     * 默认类型分布, 生成的 DDL 可直接在 H2 (MySQL 模式) 中执行; DOUBLE/FLOAT 的 (M,D) 写法 H2 不支持, 未包含.
+     */
+    public static Map<DataTypeEnum, Integer> defaultTypeWeights() {
+        Map<DataTypeEnum, Integer> weights = new EnumMap<>(DataTypeEnum.class);
+        weights.put(DataTypeEnum.VARCHAR, 30);
+        weights.put(DataTypeEnum.INT, 12);
+        weights.put(DataTypeEnum.BIGINT, 10);
+        weights.put(DataTypeEnum.DATETIME, 10);
+        weights.put(DataTypeEnum.DECIMAL, 8);
+        weights.put(DataTypeEnum.TINYINT, 6);
+        weights.put(DataTypeEnum.CHAR, 4);
+        weights.put(DataTypeEnum.TEXT, 4);
+        weights.put(DataTypeEnum.DATE, 3);
+        weights.put(DataTypeEnum.TIMESTAMP, 3);
+        weights.put(DataTypeEnum.ENUM, 3);
+        weights.put(DataTypeEnum.SMALLINT, 2);
+        weights.put(DataTypeEnum.JSON, 2);
+        weights.put(DataTypeEnum.VARBINARY, 1);
+        weights.put(DataTypeEnum.BLOB, 1);
+        return weights;
+    }
+
+    /**
+     * 生成完整 schema.
+     */
+    public DatabaseSchema generate() {
+        Naming naming = new Naming();
+        List<TableSchema> tables = new ArrayList<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            tables.add(generateTable(i, naming));
+        }
+        DatabaseSchema schema = new DatabaseSchema();
+        schema.setTables(tables);
+        return schema;
+    }
+
+    /**
+     * 逐表生成 DDL 写入 out, 同一时刻只持有一张表.
+     */
+    public void generateDDL(Appendable out) throws IOException {
+        Naming naming = new Naming();
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < tableCount; i++) {
+            ScriptGenerator.generate(generateTable(i, naming), out, buffer);
+        }
+    }
+
+    /**
+     * 生成第 tableIndex 张表, 结果只取决于 seed、tableIndex 与生成参数.
+     */
+    public TableSchema generateTable(int tableIndex) {
+        return generateTable(tableIndex, new Naming());
+    }
+
+    private TableSchema generateTable(int tableIndex, Naming naming) {
+        Random random = new Random(seed * 1_000_003L + tableIndex);
+        TableSchema table = new TableSchema(tablePrefix);
+        table.setTableName(naming.tableName(tableIndex));
+        table.setComment(Utils.randomLetterString(random, 8));
+
+        List<ColumnSchema> columns = new ArrayList<>();
+        List<ColumnSchema> primaryMembers = new ArrayList<>(2);
+        if (random.nextDouble() < compositePrimaryKeyRatio) {
+            ColumnSchema companyId = column(table, SchemaConstraints.COMPANY_ID.toLowerCase(), "bigint(20)");
+            primaryMembers.add(companyId);
+            columns.add(companyId);
+        }
+        ColumnSchema id = column(table, "id", "bigint(20) unsigned");
+        id.setAutoIncrement(primaryMembers.isEmpty());
+        primaryMembers.add(id);
+        columns.add(id);
+        for (ColumnSchema member : primaryMembers) {
+            member.setPrimary(true);
+            member.setNullable(false);
+        }
+        if (random.nextDouble() < auditColumnRatio) {
+            for (int i = 0; i < naming.auditNames.length; i++) {
+                String[] variants = naming.auditNames[i];
+                columns.add(column(table, variants[random.nextInt(variants.length)], AUDIT_COLUMN_TYPES[i]));
+            }
+        }
+
+        double skew = random.nextDouble();
+        int columnCount = Math.max(columns.size(), minColumns + (int) ((maxColumns - minColumns + 1) * skew * skew));
+        int[] cumulativeWeights = naming.cumulativeWeights;
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        for (int c = columns.size(); c < columnCount; c++) {
+            int pick = random.nextInt(totalWeight);
+            int type = 0;
+            while (cumulativeWeights[type] <= pick) {
+                type++;
+            }
+            ColumnSchema column = column(table, naming.columnName(c), columnType(random, naming.typeNames[type]));
+            if (random.nextDouble() < remarksRatio) {
+                column.setRemarks(Utils.randomLetterString(random, 6 + random.nextInt(10)));
+            }
+            columns.add(column);
+        }
+        table.setColumns(columns);
+
+        KeySchema primaryKey = new KeySchema();
+        primaryKey.setKeyName("PRIMARY");
+        primaryKey.setMemberColumns(primaryMembers);
+        table.setPrimaryKey(primaryKey);
+        table.setPrimaryColumn(id);
+        table.setIndexes(indexes(random, table.nameWithoutPrefix(), columns, primaryMembers.size()));
+        return table;
+    }
+
+    /**
+     * 索引名带表名, 在 H2 等索引名全库唯一的嵌入式数据库中也可直接建表.
+     */
+    private List<IndexSchema> indexes(Random random, String tableName, List<ColumnSchema> columns, int firstCandidate) {
+        List<ColumnSchema> candidates = new ArrayList<>();
+        for (int i = firstCandidate; i < columns.size(); i++) {
+            DataTypeEnum type = columns.get(i).getDataTypeEnum();
+            if (type != null && (type.hasLength() || type.isDate() || type.isEnumOrSet())) {
+                candidates.add(columns.get(i));
+            }
+        }
+        int indexCount = (int) indexesPerTable + (random.nextDouble() < indexesPerTable % 1 ? 1 : 0);
+        List<IndexSchema> indexes = new ArrayList<>(indexCount);
+        if (candidates.isEmpty()) {
+            return indexes;
+        }
+        for (int i = 0; i < indexCount; i++) {
+            IndexSchema index = new IndexSchema();
+            index.setUnique(random.nextInt(5) == 0);
+            index.setIndexName((index.isUnique() ? "uk_" : "idx_") + tableName + "_" + i);
+            int memberCount = 1 + random.nextInt(Math.max(1, Math.min(maxIndexColumns, candidates.size())));
+            List<ColumnSchema> members = new ArrayList<>(memberCount);
+            int keyBytes = 0;
+            for (int attempt = 0; attempt < memberCount * 2 && members.size() < memberCount; attempt++) {
+                ColumnSchema member = candidates.get(random.nextInt(candidates.size()));
+                int memberBytes = StorageEstimator.maxDataBytes(member);
+                // 保持索引可在 MySQL 中创建
+                if (!members.contains(member) && keyBytes + memberBytes <= StorageEstimator.MAX_KEY_BYTES) {
+                    members.add(member);
+                    keyBytes += memberBytes;
+                }
+            }
+            if (members.isEmpty()) {
+                continue;
+            }
+            index.setMemberColumns(members);
+            indexes.add(index);
+        }
+        return indexes;
+    }
+
+    private static String columnType(Random random, String typeName) {
+        switch (typeName) {
+            case "VARCHAR":
+            case "VARBINARY":
+                return typeName + "(" + VARCHAR_SIZES[random.nextInt(VARCHAR_SIZES.length)] + ")";
+            case "CHAR":
+                return "CHAR(" + (1 + random.nextInt(32)) + ")";
+            case "DECIMAL":
+                return random.nextBoolean() ? "DECIMAL(18,4)" : "DECIMAL(10,2)";
+            case "DOUBLE":
+            case "FLOAT":
+                return typeName + "(16,4)";
+            case "INT":
+                return "INT(11)";
+            case "BIGINT":
+                return "BIGINT(20)";
+            case "TINYINT":
+                return "TINYINT(4)";
+            case "ENUM":
+            case "SET":
+                StringBuilder sb = new StringBuilder(typeName).append("(");
+                int valueCount = 2 + random.nextInt(4);
+                for (int i = 0; i < valueCount; i++) {
+                    sb.append(i == 0 ? "'" : ",'")
+                            .append(Utils.randString(random, 3, LOWER_LETTER_CHAR)).append(i).append("'");
+                }
+                return sb.append(")").toString();
+            default:
+                return typeName;
+        }
+    }
+
+    private static ColumnSchema column(TableSchema table, String columnName, String columnType) {
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(table);
+        column.setColumnName(columnName);
+        column.setNullable(true);
+        ColumnTypeParser.parse(columnType, column);
+        return column;
+    }
+
+    /**
+     * 单次生成内共享的名称与类型表, 大量表复用同一批列名字符串.
+     */
+    private class Naming {
+
+        private final List<String> columnNames = new ArrayList<>();
+        private final int tableNameWidth = Integer.toString(Math.max(tableCount - 1, 0)).length();
+        private final String[][] auditNames;
+        private final String[] typeNames;
+        private final int[] cumulativeWeights;
+
+        Naming() {
+            List<Set<String>> conventions = Arrays.asList(
+                    SchemaConstraints.CREATE_TIME_COLUMN, SchemaConstraints.CREATE_USER_COLUMN,
+                    SchemaConstraints.UPDATE_TIME_COLUMN, SchemaConstraints.UPDATE_USER_COLUMN,
+                    SchemaConstraints.DELETE_COLUMN, SchemaConstraints.STATUS_COLUMN, SchemaConstraints.VERSION_COLUMN);
+            auditNames = new String[conventions.size()][];
+            for (int i = 0; i < auditNames.length; i++) {
+                List<String> variants = new ArrayList<>();
+                for (String name : conventions.get(i)) {
+                    variants.add(name.toLowerCase());
+                }
+                auditNames[i] = variants.toArray(new String[0]);
+            }
+
+            List<String> names = new ArrayList<>();
+            int[] weights = new int[typeWeights.size()];
+            int total = 0;
+            for (Map.Entry<DataTypeEnum, Integer> entry : new EnumMap<>(typeWeights).entrySet()) {
+                if (entry.getValue() == null || entry.getValue() <= 0) {
+                    continue;
+                }
+                total += entry.getValue();
+                weights[names.size()] = total;
+                names.add(entry.getKey().getDataTypeName());
+            }
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("typeWeights must contain at least one positive weight");
+            }
+            typeNames = names.toArray(new String[0]);
+            cumulativeWeights = Arrays.copyOf(weights, typeNames.length);
+        }
+
+        String tableName(int tableIndex) {
+            String index = Integer.toString(tableIndex);
+            StringBuilder sb = new StringBuilder(tablePrefix.length() + 4 + tableNameWidth).append(tablePrefix).append("tbl_");
+            for (int i = index.length(); i < tableNameWidth; i++) {
+                sb.append('0');
+            }
+            return sb.append(index).toString();
+        }
+
+        String columnName(int position) {
+            while (columnNames.size() <= position) {
+                columnNames.add("col_" + columnNames.size());
+            }
+            return columnNames.get(position);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 表的行宽与索引键宽估算, 由 {@link StorageEstimator} 生成.
+ */
+@Getter
+@AllArgsConstructor
+public class TableFootprint {
+
+    private final String tableName;
+    private final int maxRowBytes;
+    private final int avgRowBytes;
+    /**
+     * 主键在前, 其余按索引定义顺序.
+     */
+    private final List<IndexFootprint> indexes;
+    /**
+     * 超出键长限制或行宽超过半页等问题的说明.
+     */
+    private final List<String> warnings;
+
+    public boolean hasWarnings() {
+        return !warnings.isEmpty();
+    }
+}
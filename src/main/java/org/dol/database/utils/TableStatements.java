@@ -0,0 +1,371 @@
+package org.dol.database.utils;
+
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.IndexPart;
+import org.dol.database.schema.IndexSchema;
+import org.dol.database.schema.KeySchema;
+import org.dol.database.schema.TableSchema;
+
+import java.util.*;
+
+/**
+ * 一张表的 DAO 常用语句模板, 在 {@link #compile(TableSchema)} 时一次渲染完成, 之后只读.
+ * 通常经 {@link TableSchema#getStatements()} 获取, 随 TableSchema 缓存; 表结构变化后应重新加载 TableSchema.
+ * <p>
+ * 没有主键时按主键的语句为 null, 没有删除标记列时软删除语句为 null, 没有关键字列时关键字搜索为 null.
+ */
+public final class TableStatements {
+
+    /**
+     * {@link #select(long)} 可组合的条件类型.
+     */
+    public enum ConditionKind {
+        /**
+         * {@link ColumnSchema#isEqualWhere()}: {@code col = ?}.
+         */
+        EQUAL,
+        /**
+         * {@link ColumnSchema#isLikeWhere()}: {@code col LIKE ?}, 通配符由调用方放入参数.
+         */
+        LIKE,
+        /**
+         * {@link ColumnSchema#isRangeWhere()} 的下界: {@code col >= ?}.
+         */
+        RANGE_FROM,
+        /**
+         * {@link ColumnSchema#isRangeWhere()} 的上界: {@code col <= ?}.
+         */
+        RANGE_TO
+    }
+
+    /**
+     * 单个条件; 在 {@link #getConditions()} 中的下标即 {@link #select(long)} 掩码中的位.
+     * 与 {@link SqlTemplate} 一样只保存列名、属性名与 JDBC 类型.
+     */
+    public static final class Condition {
+
+        private final ConditionKind kind;
+        private final String columnName;
+        private final String propertyName;
+        private final int sqlType;
+        private final String sql;
+
+        private Condition(ConditionKind kind, ColumnSchema column, String sql) {
+            this.kind = kind;
+            this.columnName = column.getColumnName();
+            this.propertyName = column.getPropertyName();
+            this.sqlType = column.getDataType();
+            this.sql = sql;
+        }
+
+        public ConditionKind getKind() {
+            return kind;
+        }
+
+        public String getColumnName() {
+            return columnName;
+        }
+
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+
+    /**
+     * 掩码 → 语句的缓存槽数, 冲突时覆盖.
+     */
+    private static final int SELECT_CACHE_SIZE = 64;
+    private static final int MAX_CONDITIONS = 64;
+
+    private final String tableName;
+    private final SqlTemplate insert;
+    private final SqlTemplate updateByPrimaryKey;
+    private final SqlTemplate selectByPrimaryKey;
+    private final SqlTemplate deleteByPrimaryKey;
+    private final SqlTemplate softDeleteByPrimaryKey;
+    private final SqlTemplate selectAll;
+    private final SqlTemplate keywordSearch;
+    private final Map<String, SqlTemplate> selectByUniqueIndex;
+    private final List<Condition> conditions;
+    private final String selectPrefix;
+    private final SelectEntry[] selectCache = new SelectEntry[SELECT_CACHE_SIZE];
+
+    private TableStatements(TableSchema table) {
+        tableName = table.getTableName();
+        String quotedTable = quote(tableName);
+        List<ColumnSchema> columns = table.getColumns();
+        List<ColumnSchema> primaryKey = primaryKeyColumns(table);
+
+        List<ColumnSchema> insertColumns = new ArrayList<>();
+        List<ColumnSchema> updateColumns = new ArrayList<>();
+        ColumnSchema deletedColumn = table.getDeletedColumn();
+        for (ColumnSchema column : columns) {
+            if (column.isAutoIncrement()) {
+                continue;
+            }
+            insertColumns.add(column);
+            if (!primaryKey.contains(column) && column != deletedColumn
+                    && !column.isCreateTimeColumn() && !column.isCreateUserColumn()) {
+                updateColumns.add(column);
+            }
+        }
+        insert = new SqlTemplate("INSERT INTO " + quotedTable + " (" + join(insertColumns, ",")
+                + ") VALUES (" + placeholders(insertColumns.size()) + ")", insertColumns);
+
+        selectPrefix = "SELECT " + join(columns, ",") + " FROM " + quotedTable;
+        selectAll = new SqlTemplate(selectPrefix, Collections.emptyList());
+
+        if (primaryKey.isEmpty()) {
+            updateByPrimaryKey = null;
+            selectByPrimaryKey = null;
+            deleteByPrimaryKey = null;
+            softDeleteByPrimaryKey = null;
+        } else {
+            String where = " WHERE " + assignments(primaryKey, " AND ");
+            updateByPrimaryKey = updateColumns.isEmpty() ? null
+                    : new SqlTemplate("UPDATE " + quotedTable + " SET " + assignments(updateColumns, ",") + where,
+                    concat(updateColumns, primaryKey));
+            selectByPrimaryKey = new SqlTemplate(selectPrefix + where, primaryKey);
+            deleteByPrimaryKey = new SqlTemplate("DELETE FROM " + quotedTable + where, primaryKey);
+            if (deletedColumn == null) {
+                softDeleteByPrimaryKey = null;
+            } else {
+                List<ColumnSchema> softDeleteColumns = new ArrayList<>();
+                softDeleteColumns.add(deletedColumn);
+                if (table.getDeleteTimeColumn() != null) {
+                    softDeleteColumns.add(table.getDeleteTimeColumn());
+                }
+                if (table.getDeleteUserColumn() != null) {
+                    softDeleteColumns.add(table.getDeleteUserColumn());
+                }
+                softDeleteByPrimaryKey = new SqlTemplate("UPDATE " + quotedTable + " SET "
+                        + assignments(softDeleteColumns, ",") + where, concat(softDeleteColumns, primaryKey));
+            }
+        }
+
+        Map<String, SqlTemplate> uniqueSelects = new LinkedHashMap<>();
+        if (table.getIndexes() != null) {
+            for (IndexSchema index : table.getIndexes()) {
+                List<ColumnSchema> members = index.getMemberColumns();
+                // 函数索引或前缀索引的键部分不能按列等值定位单行
+                if (!index.isUnique() || members == null || members.isEmpty()
+                        || index.hasExplicitKeyParts() && hasPartialKeyParts(index)) {
+                    continue;
+                }
+                uniqueSelects.put(index.getIndexName().toLowerCase(),
+                        new SqlTemplate(selectPrefix + " WHERE " + assignments(members, " AND "), members));
+            }
+        }
+        selectByUniqueIndex = Collections.unmodifiableMap(uniqueSelects);
+
+        List<ColumnSchema> keywordColumns = table.getKeywordColumns();
+        if (keywordColumns.isEmpty()) {
+            keywordSearch = null;
+        } else {
+            StringBuilder sb = new StringBuilder(selectPrefix).append(" WHERE (");
+            for (int i = 0; i < keywordColumns.size(); i++) {
+                sb.append(i == 0 ? "" : " OR ").append(quote(keywordColumns.get(i).getColumnName())).append(" LIKE ?");
+            }
+            keywordSearch = new SqlTemplate(sb.append(")").toString(), keywordColumns);
+        }
+
+        List<Condition> compiled = new ArrayList<>();
+        for (ColumnSchema column : columns) {
+            String quoted = quote(column.getColumnName());
+            if (column.isEqualWhere()) {
+                compiled.add(new Condition(ConditionKind.EQUAL, column, quoted + " = ?"));
+            }
+            if (column.isLikeWhere()) {
+                compiled.add(new Condition(ConditionKind.LIKE, column, quoted + " LIKE ?"));
+            }
+            if (column.isRangeWhere()) {
+                compiled.add(new Condition(ConditionKind.RANGE_FROM, column, quoted + " >= ?"));
+                compiled.add(new Condition(ConditionKind.RANGE_TO, column, quoted + " <= ?"));
+            }
+        }
+        conditions = Collections.unmodifiableList(compiled.size() > MAX_CONDITIONS
+                ? new ArrayList<>(compiled.subList(0, MAX_CONDITIONS)) : compiled);
+    }
+
+    public static TableStatements compile(TableSchema table) {
+        return new TableStatements(table);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 插入除自增列外的所有列.
+     */
+    public SqlTemplate getInsert() {
+        return insert;
+    }
+
+    /**
+     * 按主键更新除主键、自增、创建人/创建时间与删除标记外的列; 参数为 SET 列, 然后是主键列.
+     */
+    public SqlTemplate getUpdateByPrimaryKey() {
+        return updateByPrimaryKey;
+    }
+
+    public SqlTemplate getSelectByPrimaryKey() {
+        return selectByPrimaryKey;
+    }
+
+    public SqlTemplate getDeleteByPrimaryKey() {
+        return deleteByPrimaryKey;
+    }
+
+    /**
+     * 按主键设置删除标记 (以及删除时间、删除人列, 若存在); 参数为这些列, 然后是主键列.
+     */
+    public SqlTemplate getSoftDeleteByPrimaryKey() {
+        return softDeleteByPrimaryKey;
+    }
+
+    public SqlTemplate getSelectAll() {
+        return selectAll;
+    }
+
+    /**
+     * 所有 {@link TableSchema#getKeywordColumns()} 的 LIKE 条件以 OR 连接, 每个参数绑定同一个关键字模式.
+     */
+    public SqlTemplate getKeywordSearch() {
+        return keywordSearch;
+    }
+
+    /**
+     * 按唯一索引等值查询, 索引名忽略大小写; 非唯一、函数或前缀索引不生成.
+     */
+    public SqlTemplate getSelectByUniqueIndex(String indexName) {
+        SqlTemplate template = selectByUniqueIndex.get(indexName);
+        return template != null ? template : selectByUniqueIndex.get(indexName.toLowerCase());
+    }
+
+    public Collection<SqlTemplate> getSelectByUniqueIndexes() {
+        return selectByUniqueIndex.values();
+    }
+
+    /**
+     * 由列的 isEqualWhere / isLikeWhere / isRangeWhere 得到的条件, 按列顺序, 最多 64 个.
+     */
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * 以 AND 组合 mask 中各位对应的条件; mask 为 0 时等同 {@link #getSelectAll()}.
+     * 首次使用的组合渲染一次后缓存, 命中时不分配对象. 缓存项不可变, 并发时至多重复渲染.
+     */
+    public SqlTemplate select(long mask) {
+        if (mask == 0) {
+            return selectAll;
+        }
+        int slot = (int) ((mask * 0x9E3779B97F4A7C15L) >>> 58);
+        SelectEntry entry = selectCache[slot];
+        if (entry != null && entry.mask == mask) {
+            return entry.template;
+        }
+        SqlTemplate template = renderSelect(mask);
+        selectCache[slot] = new SelectEntry(mask, template);
+        return template;
+    }
+
+    private SqlTemplate renderSelect(long mask) {
+        if (conditions.size() < MAX_CONDITIONS && mask >>> conditions.size() != 0) {
+            throw new IllegalArgumentException("Condition mask " + Long.toBinaryString(mask)
+                    + " exceeds the " + conditions.size() + " conditions of " + tableName);
+        }
+        StringBuilder sb = new StringBuilder(selectPrefix);
+        int count = Long.bitCount(mask);
+        String[] columnNames = new String[count];
+        String[] propertyNames = new String[count];
+        int[] sqlTypes = new int[count];
+        int parameter = 0;
+        for (int i = 0; i < conditions.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                Condition condition = conditions.get(i);
+                sb.append(parameter == 0 ? " WHERE " : " AND ").append(condition.sql);
+                columnNames[parameter] = condition.columnName;
+                propertyNames[parameter] = condition.propertyName;
+                sqlTypes[parameter] = condition.sqlType;
+                parameter++;
+            }
+        }
+        return new SqlTemplate(sb.toString(), columnNames, propertyNames, sqlTypes);
+    }
+
+    private static List<ColumnSchema> primaryKeyColumns(TableSchema table) {
+        KeySchema primaryKey = table.getPrimaryKey();
+        if (primaryKey != null && primaryKey.getMemberColumns() != null && !primaryKey.getMemberColumns().isEmpty()) {
+            return primaryKey.getMemberColumns();
+        }
+        if (table.getPrimaryColumn() != null) {
+            return Collections.singletonList(table.getPrimaryColumn());
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean hasPartialKeyParts(IndexSchema index) {
+        for (IndexPart part : index.getKeyParts()) {
+            if (part.isFunctional() || part.getSubPart() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String name) {
+        return "`" + name + "`";
+    }
+
+    private static String join(List<ColumnSchema> columns, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : separator).append(quote(columns.get(i).getColumnName()));
+        }
+        return sb.toString();
+    }
+
+    private static String assignments(List<ColumnSchema> columns, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(i == 0 ? "" : separator).append(quote(columns.get(i).getColumnName())).append(" = ?");
+        }
+        return sb.toString();
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    private static List<ColumnSchema> concat(List<ColumnSchema> first, List<ColumnSchema> second) {
+        List<ColumnSchema> result = new ArrayList<>(first.size() + second.size());
+        result.addAll(first);
+        result.addAll(second);
+        return result;
+    }
+
+    private static final class SelectEntry {
+        private final long mask;
+        private final SqlTemplate template;
+
+        SelectEntry(long mask, SqlTemplate template) {
+            this.mask = mask;
+            this.template = template;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.dol.database.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dol.database.schema.TableSchema;
+
+import java.time.Instant;
+
+/**
+ * {@link SchemaHistoryStore} 中一张表的一个版本, 从 validFrom 起生效直到下一个版本.
+ */
+@Getter
+@AllArgsConstructor
+public class TableVersion {
+
+    private final String tableName;
+    private final Instant validFrom;
+    /**
+     * 表在 validFrom 时被删除时为 null.
+     */
+    private final TableSchema table;
+
+    public boolean isDropped() {
+        return table == null;
+    }
+}
@@ -2,9 +2,13 @@ package org.dol.database.utils;
 
 
 import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class Utils {
@@ -15,6 +19,7 @@ public class Utils {
     public static final  String LETTER_NUMBER_CHAR  = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
     public static final  String LETTER_CHAR         = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
     public static final  String NUMBER_CHAR         = "0123456789";
+    private static final char[] HEX_DIGITS          = "0123456789abcdef".toCharArray();
     private static final String ALL_CHAR            = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789~!@#$%^&*()_-+=";
 
     public static boolean hasText(String str) {
@@ -29,6 +34,14 @@ public class Utils {
         return (str != null && !str.isEmpty());
     }
 
+    /**
+     * 忽略大小写判断后缀, 不创建新字符串.
+     */
+    public static boolean endsWithIgnoreCase(String str, String suffix) {
+        int offset = str.length() - suffix.length();
+        return offset >= 0 && str.regionMatches(true, offset, suffix, 0, suffix.length());
+    }
+
     public static String capitalize(String str) {
         return changeFirstCharacterCase(str, true);
     }
@@ -192,13 +205,24 @@ public class Utils {
     }
 
     public static String randString(int count, String chars) {
-        StringBuilder sb = new StringBuilder();
+        return randString(ThreadLocalRandom.current(), count, chars);
+    }
+
+    /**
+     * 使用指定的随机源, 相同 seed 的 random 生成相同的字符串.
+     */
+    public static String randString(Random random, int count, String chars) {
+        StringBuilder sb = new StringBuilder(count);
         for (int i = 0; i < count; i++) {
-            sb.append(chars.charAt(ThreadLocalRandom.current().nextInt(chars.length())));
+            sb.append(chars.charAt(random.nextInt(chars.length())));
         }
         return sb.toString();
     }
 
+    public static String randomLetterString(Random random, int count) {
+        return randString(random, count, LETTER_CHAR);
+    }
+
 
     public static String randomMobile() {
         return "1" + randomNumString(10);
@@ -298,5 +322,22 @@ public class Utils {
         return sb.length() == 0 ? "" : sb.substring(0, sb.length() - 1);
     }
 
-
+    /**
+     * 字符串 (UTF-8) 的 SHA-256, 小写十六进制.
+     */
+    public static String sha256Hex(String value) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
 }
@@ -0,0 +1,163 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * 热路径的分配预算: 用 ThreadMXBean 统计当前线程分配的字节数, 预热后取多次执行的平均值.
+ * JVM 不支持按线程统计分配时跳过.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static DatabaseSchema catalog;
+    private static DatabaseSchema halfCatalog;
+    private static int columnCount;
+    private static int halfColumnCount;
+    private static Object blackhole;
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    @BeforeClass
+    public static void setUp() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(7);
+        generator.setTableCount(50);
+        generator.setAuditColumnRatio(1);
+        catalog = generator.generate();
+        for (TableSchema table : catalog.getTables()) {
+            columnCount += table.getColumns().size();
+        }
+        generator.setTableCount(25);
+        halfCatalog = generator.generate();
+        for (TableSchema table : halfCatalog.getTables()) {
+            halfColumnCount += table.getColumns().size();
+        }
+    }
+
+    private static long bytesPerOperation(int iterations, Operation operation) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            blackhole = operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            blackhole = operation.run();
+        }
+        long after = threads.getThreadAllocatedBytes(threadId);
+        return (after - before) / iterations;
+    }
+
+    @Test
+    public void testColumnLookupAllocatesNothing() throws Exception {
+        TableSchema table = catalog.getTables().iterator().next();
+        List<ColumnSchema> columns = table.getColumns();
+        String lastColumn = columns.get(columns.size() - 1).getColumnName().toUpperCase();
+
+        Assert.assertEquals(0, bytesPerOperation(ITERATIONS, () -> table.getColumn(lastColumn)));
+        Assert.assertEquals(0, bytesPerOperation(ITERATIONS, () -> table.hasColumn("no_such_column")));
+    }
+
+    /**
+     * 预编译语句与已缓存的条件组合, 命中时不分配.
+     */
+    @Test
+    public void testStatementLookupAllocatesNothing() throws Exception {
+        TableSchema table = catalog.getTables().iterator().next();
+        long mask = (1L << table.getStatements().getConditions().size()) - 1;
+        table.getStatements().select(mask);
+
+        Assert.assertEquals(0, bytesPerOperation(ITERATIONS, () -> table.getStatements().getInsert()));
+        Assert.assertEquals(0, bytesPerOperation(ITERATIONS, () -> table.getStatements().select(mask)));
+    }
+
+    @Test
+    public void testColumnClassificationAllocatesNothing() throws Exception {
+        TableSchema table = catalog.getTables().iterator().next();
+        List<ColumnSchema> columns = table.getColumns();
+
+        long bytes = bytesPerOperation(ITERATIONS / 10, () -> {
+            int matches = 0;
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnSchema column = columns.get(i);
+                if (column.isCreateTimeColumn() || column.isUpdateUserColumn() || column.isDeletedColumn()
+                        || column.isDeleteColumn() || column.isVersionColumn() || column.isDateColumn()
+                        || column.isMobileColumn() || column.isUrlColumn() || column.isEmailColumn()) {
+                    matches++;
+                }
+            }
+            return matches > 0 ? table : null;
+        });
+        Assert.assertEquals(0, bytes);
+    }
+
+    /**
+     * 整库渲染到丢弃输出的 Writer. 每次调用固定分配两个 8K 缓冲, 因此用两个规模的 catalog
+     * 之差计算每列的边际分配, 不超过 8 字节.
+     */
+    @Test
+    public void testDdlRenderBudgetPerColumn() throws Exception {
+        Writer discard = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+        long half = bytesPerOperation(100, () -> {
+            ScriptGenerator.generate(halfCatalog, discard);
+            return discard;
+        });
+        long full = bytesPerOperation(100, () -> {
+            ScriptGenerator.generate(catalog, discard);
+            return discard;
+        });
+        long perColumn = (full - half) / (columnCount - halfColumnCount);
+        Assert.assertTrue("bytes per column: " + perColumn, perColumn <= 8);
+    }
+
+    /**
+     * 比较两份独立生成但内容相同的表, 每列平均分配不超过 8 字节
+     * (只有每表一次的 TableDiff).
+     */
+    @Test
+    public void testUnchangedTableDiffBudgetPerColumn() throws Exception {
+        long bytes = bytesPerOperation(100, () -> {
+            Object diff = null;
+            for (TableSchema table : halfCatalog.getTables()) {
+                diff = SchemaDiffer.diffTable(table, catalog.getTableSchema(table.getTableName()));
+            }
+            return diff;
+        });
+        Assert.assertTrue("bytes per column: " + bytes / halfColumnCount, bytes / halfColumnCount <= 8);
+    }
+}
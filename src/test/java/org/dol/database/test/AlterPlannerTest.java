@@ -0,0 +1,153 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.*;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.MigrationLane;
+import org.dol.database.utils.MigrationScheduler;
+import org.dol.database.utils.ScriptGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class AlterPlannerTest {
+
+    @Test
+    public void testClassifyColumnChanges() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.getColumn("name").setColumnSize(32);
+        currentUser.getColumn("name").setCharacterSet("utf8mb4");
+        target.getTableSchema("t_user").getColumn("name").setCharacterSet("utf8mb4");
+        target.getTableSchema("t_user").getColumn("name").setColumnSize(60);
+        currentUser.getColumn("amount").setRemarks("old comment");
+        currentUser.getColumn("status").setEnumValues(Collections.singletonList("on"));
+
+        List<AlterStep> steps = AlterPlanner.plan(SchemaDiffer.diff(target, current).getTable("t_user"));
+        Assert.assertEquals(3, steps.size());
+        Assert.assertEquals(OnlineDdl.INPLACE_METADATA, steps.get(0).getOnlineDdl());
+        Assert.assertEquals(OnlineDdl.INSTANT, steps.get(1).getOnlineDdl());
+        Assert.assertEquals(OnlineDdl.INSTANT, steps.get(2).getOnlineDdl());
+
+        // 32 * 4 字节 < 256 <= 128 * 4 字节, 长度前缀变为 2 字节, 需要 COPY
+        target.getTableSchema("t_user").getColumn("name").setColumnSize(128);
+        steps = AlterPlanner.plan(SchemaDiffer.diff(target, current).getTable("t_user"));
+        Assert.assertEquals(OnlineDdl.COPY, steps.get(0).getOnlineDdl());
+    }
+
+    @Test
+    public void testOnlineSQL() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.getIndexes().get(1).setIndexName("idx_old_status_name");
+        currentUser.getColumn("amount").setRemarks("old comment");
+        currentUser.getColumn("name").setNullable(false);
+        target.getTableSchema("t_user").getColumn("id").setUnsigned(false);
+
+        String sql = ScriptGenerator.generateOnlineModifySQL(target, current, false);
+        Assert.assertEquals("ALTER TABLE `t_user`\n"
+                + "MODIFY COLUMN   `amount` DECIMAL(18,4),\n"
+                + "ALGORITHM=INSTANT;\n"
+                + "ALTER TABLE `t_user`\n"
+                + "RENAME INDEX `idx_old_status_name` TO `idx_status_name`,\n"
+                + "ALGORITHM=INPLACE, LOCK=NONE;\n"
+                + "ALTER TABLE `t_user`\n"
+                + "MODIFY COLUMN   `id` BIGINT(20) NOT NULL,\n"
+                + "MODIFY COLUMN   `name` VARCHAR(64) COMMENT 'user''s name',\n"
+                + "ALGORITHM=COPY, LOCK=SHARED;\n\n", sql);
+    }
+
+    @Test
+    public void testCostScheduling() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.setDataLength(64L * 1024 * 1024 * 1024);
+        currentUser.setIndexLength(16L * 1024 * 1024 * 1024);
+        currentUser.getColumn("name").setNullable(false);
+        TableSchema currentLog = current.getTableSchema("t_log");
+        currentLog.setDataLength(1024 * 1024);
+        currentLog.getColumn("content").setRemarks("old comment");
+
+        SchemaDiff diff = SchemaDiffer.diff(target, current);
+        MigrationCostEstimator estimator = new MigrationCostEstimator();
+        List<MigrationCost> costs = MigrationScheduler.estimate(diff, estimator);
+        Assert.assertEquals("t_log", costs.get(0).getTableName());
+        Assert.assertEquals(0, costs.get(0).getRebuildBytes());
+        Assert.assertEquals(OnlineDdl.INPLACE_REBUILD, costs.get(1).getOnlineDdl());
+        Assert.assertEquals(80L * 1024 * 1024 * 1024, costs.get(1).getRebuildBytes());
+
+        String script = MigrationScheduler.cheapestFirst(diff, estimator, false);
+        Assert.assertTrue(script.indexOf("`t_log`") < script.indexOf("`t_user`"));
+
+        List<MigrationLane> lanes = MigrationScheduler.lanes(diff, estimator, 2, false);
+        Assert.assertEquals(1, lanes.get(0).getTables().size());
+        Assert.assertEquals("t_user", lanes.get(0).getTables().get(0).getTableName());
+        Assert.assertEquals("t_log", lanes.get(1).getTables().get(0).getTableName());
+    }
+
+    @Test
+    public void testIndexOnRebuiltColumnJoinsRebuildStatement() {
+        TableSchema targetNote = table("t_note", "id int(11)", "note varchar(255)", "title varchar(64)");
+        primaryKey(targetNote, "id");
+        index(targetNote, "idx_note", false, "note");
+        index(targetNote, "idx_title", false, "title");
+        TableSchema currentNote = table("t_note", "id int(11)", "note text", "title varchar(64)");
+        primaryKey(currentNote, "id");
+
+        // TEXT 列改为 VARCHAR 之后才能建不带前缀的索引
+        String sql = ScriptGenerator.generateOnlineModifySQL(schema(targetNote), schema(currentNote), false);
+        Assert.assertEquals("ALTER TABLE `t_note`\n"
+                + "ADD INDEX `idx_title` (`title`) USING BTREE,\n"
+                + "ALGORITHM=INPLACE, LOCK=NONE;\n"
+                + "ALTER TABLE `t_note`\n"
+                + "MODIFY COLUMN   `note` VARCHAR(255),\n"
+                + "ADD INDEX `idx_note` (`note`) USING BTREE,\n"
+                + "ALGORITHM=COPY, LOCK=SHARED;\n\n", sql);
+    }
+
+    @Test
+    public void testAutoIncrementColumnKeepsItsKey() {
+        TableSchema targetSeq = table("t_seq", "code varchar(32)", "id bigint(20)");
+        targetSeq.getColumn("id").setAutoIncrement(true);
+        index(targetSeq, "uk_id", true, "id");
+        TableSchema currentSeq = table("t_seq", "code varchar(32)");
+
+        String sql = ScriptGenerator.generateOnlineModifySQL(schema(targetSeq), schema(currentSeq), false);
+        Assert.assertEquals(1, sql.split("ALTER TABLE").length - 1);
+        Assert.assertTrue(sql, sql.contains("ADD COLUMN   `id` BIGINT(20) AUTO_INCREMENT,\n"
+                + "ADD UNIQUE INDEX `uk_id` (`id`) USING BTREE,\n"
+                + "ALGORITHM=COPY"));
+    }
+
+    @Test
+    public void testNewTablesWithForeignKeysShareLane() {
+        DatabaseSchema target = TableDependencyGraphTest.shopSchema();
+        List<TableSchema> tables = new ArrayList<>(target.getTables());
+        TableSchema log = table("t_log", "id int(11)");
+        primaryKey(log, "id");
+        tables.add(log);
+        target.setTables(tables);
+        SchemaDiff diff = SchemaDiffer.diff(target, schema());
+
+        List<MigrationLane> lanes = MigrationScheduler.lanes(diff, new MigrationCostEstimator(), 2, true);
+        Assert.assertEquals(6, lanes.get(0).getTables().size());
+        Assert.assertEquals("t_user", lanes.get(0).getTables().get(0).getTableName());
+        Assert.assertEquals("t_log", lanes.get(1).getTables().get(0).getTableName());
+        String script = lanes.get(0).getScript();
+        Assert.assertTrue(script.indexOf("CREATE TABLE `t_order`") < script.indexOf("CREATE TABLE `t_order_item`"));
+        Assert.assertTrue(script.endsWith("ALTER TABLE `t_cycle_b`\nADD CONSTRAINT `fk_t_cycle_b_a_id` FOREIGN KEY (`a_id`)"
+                + " REFERENCES `t_cycle_a` (`id`);\n\n"));
+
+        String cheapestFirst = MigrationScheduler.cheapestFirst(diff, new MigrationCostEstimator(), true);
+        Assert.assertTrue(cheapestFirst.indexOf("CREATE TABLE `t_user`") < cheapestFirst.indexOf("CREATE TABLE `t_address`"));
+        Assert.assertTrue(cheapestFirst.endsWith(script.substring(script.indexOf("ALTER TABLE `t_cycle_a`"))));
+    }
+}
@@ -0,0 +1,77 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.ColumnTypeParser;
+import org.dol.database.schema.DataTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class ColumnTypeParserTest {
+
+    @Test
+    public void testDataTypeLookup() {
+        for (DataTypeEnum dataTypeEnum : DataTypeEnum.values()) {
+            Assert.assertSame(dataTypeEnum, DataTypeEnum.get(dataTypeEnum.getDataTypeName()));
+            Assert.assertSame(dataTypeEnum, DataTypeEnum.get(dataTypeEnum.getDataTypeName().toLowerCase()));
+        }
+        Assert.assertSame(DataTypeEnum.INT, DataTypeEnum.get("int(11)", 0, 3));
+        Assert.assertNull(DataTypeEnum.get("VARCHAR2"));
+        Assert.assertNull(DataTypeEnum.get(""));
+        Assert.assertNull(DataTypeEnum.get(null));
+    }
+
+    @Test
+    public void testIntegerType() {
+        ColumnSchema column = parse("int(10) unsigned zerofill");
+        Assert.assertSame(DataTypeEnum.INT, column.getDataTypeEnum());
+        Assert.assertEquals(10, column.getDisplayWidth());
+        Assert.assertTrue(column.getUnsigned());
+        Assert.assertTrue(column.isZerofill());
+
+        column = parse("BIGINT UNSIGNED");
+        Assert.assertSame(DataTypeEnum.BIGINT, column.getDataTypeEnum());
+        Assert.assertEquals(0, column.getDisplayWidth());
+        Assert.assertTrue(column.getUnsigned());
+        Assert.assertFalse(column.isZerofill());
+    }
+
+    @Test
+    public void testSizedType() {
+        ColumnSchema column = parse("decimal(18,4)");
+        Assert.assertSame(DataTypeEnum.DECIMAL, column.getDataTypeEnum());
+        Assert.assertEquals(18, column.getColumnSize());
+        Assert.assertEquals(4, column.getDecimalDigits());
+
+        column = parse("varchar(64)");
+        Assert.assertEquals("VARCHAR", column.getDataTypeName());
+        Assert.assertEquals(64, column.getColumnSize());
+        Assert.assertFalse(column.getUnsigned());
+
+        column = parse("datetime(3)");
+        Assert.assertEquals(0, column.getColumnSize());
+        Assert.assertEquals(3, column.getDecimalDigits());
+    }
+
+    @Test
+    public void testEnumType() {
+        ColumnSchema column = parse("enum('a','b''c','')");
+        Assert.assertSame(DataTypeEnum.ENUM, column.getDataTypeEnum());
+        Assert.assertEquals(Arrays.asList("a", "b'c", ""), column.getEnumValues());
+    }
+
+    @Test
+    public void testUnknownType() {
+        ColumnSchema column = parse("vector(3)");
+        Assert.assertNull(column.getDataTypeEnum());
+        Assert.assertEquals("VECTOR", column.getDataTypeName());
+        Assert.assertEquals(3, column.getColumnSize());
+    }
+
+    private static ColumnSchema parse(String typeName) {
+        ColumnSchema column = new ColumnSchema();
+        ColumnTypeParser.parse(typeName, column);
+        return column;
+    }
+}
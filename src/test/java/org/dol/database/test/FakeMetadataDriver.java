@@ -0,0 +1,80 @@
+package org.dol.database.test;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * 进程内的假 JDBC 驱动, URL 为 {@code jdbc:fake-metadata:<name>}, name 对应
+ * {@link #register(String, FakeMetadataServer)} 注册的 {@link FakeMetadataServer}.
+ */
+public class FakeMetadataDriver implements Driver {
+
+    public static final String URL_PREFIX = "jdbc:fake-metadata:";
+
+    private static final Map<String, FakeMetadataServer> SERVERS = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new FakeMetadataDriver());
+        } catch (SQLException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /**
+     * 注册 server 并返回连接 URL.
+     */
+    public static String register(String name, FakeMetadataServer server) {
+        SERVERS.put(name, server);
+        return URL_PREFIX + name;
+    }
+
+    public static void unregister(String name) {
+        SERVERS.remove(name);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        FakeMetadataServer server = SERVERS.get(url.substring(URL_PREFIX.length()));
+        if (server == null) {
+            throw new SQLException("No fake metadata server registered for " + url);
+        }
+        return server.connect();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,586 @@
+package org.dol.database.test;
+
+import lombok.Getter;
+import org.dol.database.schema.*;
+import org.dol.database.utils.ScriptGenerator;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 以 {@link DatabaseSchema} 为数据源, 模拟 MySQL 的 {@link DatabaseMetaData} 与 information_schema 查询.
+ * <p>
+ * 每次 DatabaseMetaData 查询或语句执行计为一次往返, 先按 latency ± jitter 休眠再返回结果;
+ * 同时统计返回的行数与字节数 (字符串按 UTF-8, 数值按 8 字节, NULL 按 1 字节).
+ * connection.getCatalog()/getSchema()/getMetaData() 由驱动本地应答, 不计往返.
+ */
+public class FakeMetadataServer {
+
+    private final DatabaseSchema schema;
+    @Getter
+    private final String catalog;
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final Map<String, LongAdder> roundTripsByKind = new ConcurrentHashMap<>();
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+
+    public FakeMetadataServer(DatabaseSchema schema, String catalog) {
+        this.schema = schema;
+        this.catalog = catalog;
+    }
+
+    /**
+     * 每次往返的延迟为 latencyMillis 加上 [0, jitterMillis] 内的随机值.
+     */
+    public FakeMetadataServer latency(long latencyMillis, long jitterMillis) {
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.jitterNanos = jitterMillis * 1_000_000L;
+        return this;
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    /**
+     * 按类型统计的往返次数, kind 为 DatabaseMetaData 方法名 (如 getColumns) 或 information_schema 表名 (如 STATISTICS).
+     */
+    public long getRoundTrips(String kind) {
+        LongAdder adder = roundTripsByKind.get(kind);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public void reset() {
+        roundTrips.reset();
+        rows.reset();
+        bytes.reset();
+        roundTripsByKind.clear();
+    }
+
+    public Connection connect() {
+        return proxy(Connection.class, new ConnectionHandler());
+    }
+
+    // ---------------------------------------------------------------- 往返与结果集
+
+    private ResultSet respond(String kind, List<String> labels, List<Object[]> result) {
+        roundTrips.increment();
+        roundTripsByKind.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        rows.add(result.size());
+        long size = 0;
+        for (Object[] row : result) {
+            for (Object value : row) {
+                size += sizeOf(value);
+            }
+        }
+        bytes.add(size);
+        long delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        if (delay > 0) {
+            LockSupport.parkNanos(delay);
+        }
+        return FakeResultSet.of(labels, result);
+    }
+
+    private static long sizeOf(Object value) {
+        if (value == null) {
+            return 1;
+        }
+        if (value instanceof Number) {
+            return 8;
+        }
+        if (value instanceof Boolean) {
+            return 1;
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private boolean catalogMatches(String requested) {
+        return requested == null || requested.equalsIgnoreCase(catalog);
+    }
+
+    private List<TableSchema> tables(String requestedCatalog, String tableNamePattern) {
+        List<TableSchema> tables = new ArrayList<>();
+        if (!catalogMatches(requestedCatalog)) {
+            return tables;
+        }
+        for (TableSchema table : schema.getTables()) {
+            if (like(table.getTableName(), tableNamePattern)) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * SQL LIKE 匹配, 支持 % 与 _, pattern 为 null 时匹配全部.
+     */
+    private static boolean like(String value, String pattern) {
+        if (pattern == null || pattern.equals("%")) {
+            return true;
+        }
+        return like(value, 0, pattern, 0);
+    }
+
+    private static boolean like(String value, int v, String pattern, int p) {
+        if (p == pattern.length()) {
+            return v == value.length();
+        }
+        char c = pattern.charAt(p);
+        if (c == '%') {
+            for (int i = v; i <= value.length(); i++) {
+                if (like(value, i, pattern, p + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return v < value.length()
+                && (c == '_' || Character.toLowerCase(c) == Character.toLowerCase(value.charAt(v)))
+                && like(value, v + 1, pattern, p + 1);
+    }
+
+    // ---------------------------------------------------------------- DatabaseMetaData
+
+    private ResultSet getTables(String requestedCatalog, String tableNamePattern, String[] types) {
+        Set<String> accepted = new HashSet<>();
+        if (types != null) {
+            for (String type : types) {
+                accepted.add(type.toUpperCase());
+            }
+        }
+        List<Object[]> result = new ArrayList<>();
+        for (TableSchema table : tables(requestedCatalog, tableNamePattern)) {
+            String type = table.isView() ? "VIEW" : "TABLE";
+            if (types == null || accepted.contains(type)) {
+                result.add(new Object[]{catalog, null, table.getTableName(), type, table.getComment()});
+            }
+        }
+        return respond("getTables", Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "TABLE_TYPE", "REMARKS"), result);
+    }
+
+    private ResultSet getColumns(String requestedCatalog, String tableNamePattern, String columnNamePattern) {
+        List<Object[]> result = new ArrayList<>();
+        for (TableSchema table : tables(requestedCatalog, tableNamePattern)) {
+            int position = 0;
+            for (ColumnSchema column : table.getColumns()) {
+                position++;
+                if (!like(column.getColumnName(), columnNamePattern)) {
+                    continue;
+                }
+                DataTypeEnum type = column.getDataTypeEnum();
+                String typeName = column.getDataTypeName() + (Boolean.TRUE.equals(column.getUnsigned()) ? " UNSIGNED" : "");
+                // MySQL 对整数列返回精度, 比显示宽度小 1
+                int columnSize = type != null && type.isIntFamily() ? displayWidth(column) - 1 : column.getColumnSize();
+                result.add(new Object[]{catalog, null, table.getTableName(), column.getColumnName(),
+                        type != null ? type.getDataType() : Types.OTHER, typeName, columnSize, column.getDecimalDigits(),
+                        column.isNullable() ? DatabaseMetaData.columnNullable : DatabaseMetaData.columnNoNulls,
+                        column.getRemarks(), column.getDefaultValue(), position,
+                        column.isAutoIncrement() ? "YES" : "NO"});
+            }
+        }
+        return respond("getColumns", Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "DATA_TYPE",
+                "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "NULLABLE", "REMARKS", "COLUMN_DEF", "ORDINAL_POSITION",
+                "IS_AUTOINCREMENT"), result);
+    }
+
+    private ResultSet getPrimaryKeys(String requestedCatalog, String tableName) {
+        List<Object[]> result = new ArrayList<>();
+        for (TableSchema table : tables(requestedCatalog, tableName)) {
+            KeySchema primaryKey = table.getPrimaryKey();
+            if (primaryKey == null || primaryKey.getMemberColumns() == null) {
+                continue;
+            }
+            short seq = 0;
+            for (ColumnSchema column : primaryKey.getMemberColumns()) {
+                result.add(new Object[]{catalog, null, table.getTableName(), column.getColumnName(), ++seq, "PRIMARY"});
+            }
+        }
+        return respond("getPrimaryKeys", Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "KEY_SEQ", "PK_NAME"), result);
+    }
+
+    private ResultSet getIndexInfo(String requestedCatalog, String tableName) {
+        List<Object[]> result = new ArrayList<>();
+        for (TableSchema table : tables(requestedCatalog, tableName)) {
+            KeySchema primaryKey = table.getPrimaryKey();
+            if (primaryKey != null && primaryKey.getMemberColumns() != null) {
+                short seq = 0;
+                for (ColumnSchema column : primaryKey.getMemberColumns()) {
+                    result.add(indexInfoRow(table, "PRIMARY", false, ++seq, column.getColumnName(), false));
+                }
+            }
+            for (IndexSchema index : table.getIndexes()) {
+                short seq = 0;
+                for (IndexPart part : index.getKeyParts()) {
+                    if (!part.isFunctional()) {
+                        result.add(indexInfoRow(table, index.getIndexName(), !index.isUnique(), ++seq,
+                                part.getColumn().getColumnName(), part.isDescending()));
+                    }
+                }
+            }
+        }
+        return respond("getIndexInfo", Arrays.asList("TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "NON_UNIQUE", "INDEX_QUALIFIER",
+                "INDEX_NAME", "TYPE", "ORDINAL_POSITION", "COLUMN_NAME", "ASC_OR_DESC", "CARDINALITY", "PAGES", "FILTER_CONDITION"), result);
+    }
+
+    private Object[] indexInfoRow(TableSchema table, String indexName, boolean nonUnique, short seq, String columnName, boolean descending) {
+        return new Object[]{catalog, null, table.getTableName(), nonUnique, null, indexName,
+                DatabaseMetaData.tableIndexOther, seq, columnName, descending ? "D" : "A", 0L, 0L, null};
+    }
+
+    // ---------------------------------------------------------------- information_schema
+
+    private ResultSet executeQuery(String sql, Map<Integer, Object> parameters) throws SQLException {
+        String normalized = sql.replace("`", "").toUpperCase();
+        Object tableSchema = parameters.get(1);
+        boolean matches = tableSchema == null || catalogMatches(tableSchema.toString());
+        List<String> labels;
+        List<Object[]> result = new ArrayList<>();
+        String kind;
+        if (normalized.contains("CRC32(")) {
+            // SchemaWatcher 的校验和查询: 每表一行, 以 DDL 的哈希代替服务端 CRC32 汇总
+            if (matches) {
+                for (TableSchema table : schema.getTables()) {
+                    StringBuilder ddl = new StringBuilder();
+                    try {
+                        ScriptGenerator.generate(table, ddl);
+                    } catch (IOException ex) {
+                        throw new SQLException(ex);
+                    }
+                    result.add(new Object[]{table.getTableName(), (long) ddl.toString().hashCode()});
+                }
+            }
+            return respond("CHECKSUM", Arrays.asList("TABLE_NAME", "CHECKSUM"), result);
+        }
+        if (normalized.contains("INFORMATION_SCHEMA.PARTITIONS")) {
+            kind = "PARTITIONS";
+            labels = Arrays.asList("TABLE_NAME", "PARTITION_NAME", "PARTITION_METHOD", "PARTITION_EXPRESSION",
+                    "PARTITION_DESCRIPTION", "PARTITION_COMMENT", "TABLE_ROWS");
+            if (matches) {
+                partitionRows(result);
+            }
+        } else if (normalized.contains("INFORMATION_SCHEMA.KEY_COLUMN_USAGE")) {
+            kind = "KEY_COLUMN_USAGE";
+            labels = Arrays.asList("TABLE_NAME", "CONSTRAINT_NAME", "COLUMN_NAME", "REFERENCED_TABLE_SCHEMA",
+                    "REFERENCED_TABLE_NAME", "REFERENCED_COLUMN_NAME", "UPDATE_RULE", "DELETE_RULE");
+            if (matches) {
+                foreignKeyRows(result);
+            }
+        } else if (normalized.contains("INFORMATION_SCHEMA.STATISTICS")) {
+            kind = "STATISTICS";
+            labels = Arrays.asList("TABLE_NAME", "INDEX_NAME", "NON_UNIQUE", "SEQ_IN_INDEX", "COLUMN_NAME", "COLLATION",
+                    "CARDINALITY", "SUB_PART", "INDEX_TYPE", "INDEX_COMMENT", "IS_VISIBLE", "EXPRESSION");
+            if (matches) {
+                statisticsRows(result);
+            }
+        } else if (normalized.contains("INFORMATION_SCHEMA.COLUMNS")) {
+            kind = "COLUMNS";
+            labels = Arrays.asList("TABLE_NAME", "COLUMN_NAME", "CHARACTER_SET_NAME", "COLLATION_NAME", "COLUMN_TYPE");
+            if (matches) {
+                for (TableSchema table : schema.getTables()) {
+                    for (ColumnSchema column : table.getColumns()) {
+                        result.add(new Object[]{table.getTableName(), column.getColumnName(),
+                                column.getCharacterSet(), column.getCollation(), columnType(column)});
+                    }
+                }
+            }
+        } else if (normalized.contains("INFORMATION_SCHEMA.TABLES")) {
+            kind = "TABLES";
+            labels = Arrays.asList("TABLE_NAME", "TABLE_COLLATION", "ENGINE", "TABLE_ROWS", "DATA_LENGTH", "INDEX_LENGTH", "TABLE_COMMENT");
+            if (matches) {
+                for (TableSchema table : schema.getTables()) {
+                    result.add(new Object[]{table.getTableName(), table.getCollation(), table.getEngine(),
+                            table.getTableRows(), table.getDataLength(), table.getIndexLength(), table.getComment()});
+                }
+            }
+        } else {
+            roundTrips.increment();
+            throw new SQLSyntaxErrorException("Unsupported query: " + sql);
+        }
+        filterTables(normalized, parameters, result);
+        return project(kind, normalized, labels, result);
+    }
+
+    /**
+     * 支持 {@code TABLE_NAME IN (?,...)} 过滤, 第 2 个起的参数为表名; 各结果的第一列均为 TABLE_NAME.
+     */
+    private static void filterTables(String normalizedSql, Map<Integer, Object> parameters, List<Object[]> result) {
+        if (!normalizedSql.contains("TABLE_NAME IN (")) {
+            return;
+        }
+        Set<String> tableNames = new HashSet<>();
+        for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            if (parameter.getKey() > 1) {
+                tableNames.add(parameter.getValue().toString().toLowerCase());
+            }
+        }
+        result.removeIf(row -> !tableNames.contains(row[0].toString().toLowerCase()));
+    }
+
+    /**
+     * 按 SELECT 列表裁剪结果, 使字节统计接近真实服务端的返回量; SELECT * 返回全部列.
+     */
+    private ResultSet project(String kind, String normalizedSql, List<String> labels, List<Object[]> result) {
+        int select = normalizedSql.indexOf("SELECT ");
+        int from = normalizedSql.indexOf(" FROM ");
+        String selectList = normalizedSql.substring(select + 7, from).trim();
+        if (selectList.equals("*")) {
+            return respond(kind, labels, result);
+        }
+        List<String> projected = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (String item : selectList.split(",")) {
+            String column = item.trim();
+            column = column.substring(column.lastIndexOf('.') + 1).trim();
+            int index = labels.indexOf(column);
+            if (index >= 0) {
+                projected.add(column);
+                indexes.add(index);
+            }
+        }
+        List<Object[]> projectedRows = new ArrayList<>(result.size());
+        for (Object[] row : result) {
+            Object[] projectedRow = new Object[indexes.size()];
+            for (int i = 0; i < projectedRow.length; i++) {
+                projectedRow[i] = row[indexes.get(i)];
+            }
+            projectedRows.add(projectedRow);
+        }
+        return respond(kind, projected, projectedRows);
+    }
+
+    private void statisticsRows(List<Object[]> result) {
+        for (TableSchema table : schema.getTables()) {
+            for (IndexSchema index : table.getIndexes()) {
+                int seq = 0;
+                for (IndexPart part : index.getKeyParts()) {
+                    result.add(new Object[]{table.getTableName(), index.getIndexName(), index.isUnique() ? 0 : 1, ++seq,
+                            part.isFunctional() ? null : part.getColumn().getColumnName(),
+                            part.isDescending() ? "D" : "A", index.getCardinality(), part.getSubPart(),
+                            index.getIndexType() != null ? index.getIndexType() : "BTREE",
+                            index.getComment() != null ? index.getComment() : "",
+                            index.isVisible() ? "YES" : "NO", part.getExpression()});
+                }
+            }
+        }
+    }
+
+    private void foreignKeyRows(List<Object[]> result) {
+        for (TableSchema table : schema.getTables()) {
+            if (table.getForeignKeys() == null) {
+                continue;
+            }
+            for (ForeignKeySchema foreignKey : table.getForeignKeys()) {
+                for (int i = 0; i < foreignKey.getMemberColumns().size(); i++) {
+                    result.add(new Object[]{table.getTableName(), foreignKey.getConstraintName(),
+                            foreignKey.getMemberColumns().get(i).getColumnName(),
+                            foreignKey.getReferencedCatalog() != null ? foreignKey.getReferencedCatalog() : catalog,
+                            foreignKey.getReferencedTableName(), foreignKey.getReferencedColumnNames().get(i),
+                            foreignKey.getUpdateRule() != null ? foreignKey.getUpdateRule() : "RESTRICT",
+                            foreignKey.getDeleteRule() != null ? foreignKey.getDeleteRule() : "RESTRICT"});
+                }
+            }
+        }
+    }
+
+    private void partitionRows(List<Object[]> result) {
+        for (TableSchema table : schema.getTables()) {
+            PartitionSchema partitioning = table.getPartitioning();
+            if (partitioning == null) {
+                continue;
+            }
+            for (PartitionDefinition partition : partitioning.getPartitions()) {
+                result.add(new Object[]{table.getTableName(), partition.getPartitionName(), partitioning.getMethod(),
+                        partitioning.getExpression(), partition.getDescription(), partition.getComment(), partition.getTableRows()});
+            }
+        }
+    }
+
+    /**
+     * information_schema.COLUMNS.COLUMN_TYPE 格式, 如 {@code bigint(20) unsigned}, {@code enum('a','b')}.
+     */
+    static String columnType(ColumnSchema column) {
+        if (column.getColumnType() != null) {
+            return column.getColumnType();
+        }
+        DataTypeEnum type = column.getDataTypeEnum();
+        StringBuilder sb = new StringBuilder(column.getDataTypeName().toLowerCase());
+        if (type != null && type.isEnumOrSet() && column.getEnumValues() != null) {
+            sb.append('(');
+            for (int i = 0; i < column.getEnumValues().size(); i++) {
+                sb.append(i == 0 ? "'" : ",'").append(column.getEnumValues().get(i).replace("'", "''")).append('\'');
+            }
+            sb.append(')');
+        } else if (type != null && type.hasLength()) {
+            if (type == DataTypeEnum.BIT || type == DataTypeEnum.BOOLEAN) {
+                sb.append("(1)");
+            } else if (type.isIntFamily()) {
+                sb.append('(').append(displayWidth(column)).append(')');
+            } else if (type.isNumeric()) {
+                sb.append('(').append(column.getColumnSize()).append(',').append(column.getDecimalDigits()).append(')');
+            } else {
+                sb.append('(').append(column.getColumnSize()).append(')');
+            }
+        }
+        if (Boolean.TRUE.equals(column.getUnsigned())) {
+            sb.append(" unsigned");
+        }
+        if (column.isZerofill()) {
+            sb.append(" zerofill");
+        }
+        return sb.toString();
+    }
+
+    private static int displayWidth(ColumnSchema column) {
+        return column.getDisplayWidth() > 0 ? column.getDisplayWidth() : column.getColumnSize() + 1;
+    }
+
+    // ---------------------------------------------------------------- JDBC 代理
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeMetadataServer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) throws SQLException {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + "@fake";
+            case "isWrapperFor":
+                return false;
+            default:
+                throw new SQLFeatureNotSupportedException(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private boolean closed;
+        private boolean autoCommit = true;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return FakeMetadataServer.proxy(DatabaseMetaData.class, new MetaDataHandler((Connection) proxy));
+                case "prepareStatement":
+                    return FakeMetadataServer.proxy(PreparedStatement.class, new StatementHandler((String) args[0]));
+                case "createStatement":
+                    return FakeMetadataServer.proxy(Statement.class, new StatementHandler(null));
+                case "getCatalog":
+                    return catalog;
+                case "getSchema":
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "setReadOnly":
+                case "clearWarnings":
+                    return null;
+                case "getWarnings":
+                    return null;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+    }
+
+    private class MetaDataHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        MetaDataHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getTables":
+                    return FakeMetadataServer.this.getTables((String) args[0], (String) args[2], (String[]) args[3]);
+                case "getColumns":
+                    return FakeMetadataServer.this.getColumns((String) args[0], (String) args[2], (String) args[3]);
+                case "getPrimaryKeys":
+                    return FakeMetadataServer.this.getPrimaryKeys((String) args[0], (String) args[2]);
+                case "getIndexInfo":
+                    return FakeMetadataServer.this.getIndexInfo((String) args[0], (String) args[2]);
+                case "getConnection":
+                    return connection;
+                case "getDatabaseProductName":
+                    return "MySQL";
+                case "getIdentifierQuoteString":
+                    return "`";
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final String sql;
+        private final Map<Integer, Object> parameters = new HashMap<>();
+        private boolean closed;
+
+        StatementHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args[1]);
+                return null;
+            }
+            switch (name) {
+                case "executeQuery":
+                    return FakeMetadataServer.this.executeQuery(args != null ? (String) args[0] : sql, parameters);
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "setQueryTimeout":
+                case "setFetchSize":
+                    return null;
+                default:
+                    return objectMethod(proxy, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.dol.database.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+
+/**
+ * 基于内存行的只读 {@link ResultSet}, 只实现元数据加载用到的读取方法, 其余方法抛出
+ * {@link SQLFeatureNotSupportedException}.
+ */
+class FakeResultSet implements InvocationHandler {
+
+    private final List<String> labels;
+    private final List<Object[]> rows;
+    private int cursor = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    private FakeResultSet(List<String> labels, List<Object[]> rows) {
+        this.labels = labels;
+        this.rows = rows;
+    }
+
+    static ResultSet of(List<String> labels, List<Object[]> rows) {
+        return (ResultSet) Proxy.newProxyInstance(FakeResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new FakeResultSet(labels, rows));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "next":
+                return ++cursor < rows.size();
+            case "close":
+                closed = true;
+                return null;
+            case "isClosed":
+                return closed;
+            case "wasNull":
+                return wasNull;
+            case "findColumn":
+                return indexOf(args[0]) + 1;
+            case "getMetaData":
+                return metaData();
+            case "getString":
+                Object value = value(args[0]);
+                return value == null ? null : value.toString();
+            case "getObject":
+                return value(args[0]);
+            case "getInt":
+                return number(args[0]).intValue();
+            case "getLong":
+                return number(args[0]).longValue();
+            case "getShort":
+                return number(args[0]).shortValue();
+            case "getBoolean":
+                return bool(value(args[0]));
+            case "unwrap":
+                throw new SQLException("Not a wrapper");
+            case "isWrapperFor":
+                return false;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeResultSet" + labels;
+            default:
+                throw new SQLFeatureNotSupportedException("ResultSet." + name);
+        }
+    }
+
+    private Object value(Object column) throws SQLException {
+        if (cursor < 0 || cursor >= rows.size()) {
+            throw new SQLException("No current row");
+        }
+        Object value = rows.get(cursor)[indexOf(column)];
+        wasNull = value == null;
+        return value;
+    }
+
+    private Number number(Object column) throws SQLException {
+        Object value = value(column);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return value instanceof Number ? (Number) value : Long.valueOf(value.toString());
+    }
+
+    private static boolean bool(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        return value != null && ("YES".equalsIgnoreCase(value.toString()) || "true".equalsIgnoreCase(value.toString()));
+    }
+
+    private int indexOf(Object column) throws SQLException {
+        if (column instanceof Integer) {
+            int index = (Integer) column - 1;
+            if (index < 0 || index >= labels.size()) {
+                throw new SQLException("Column index out of range: " + column);
+            }
+            return index;
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i).equalsIgnoreCase((String) column)) {
+                return i;
+            }
+        }
+        throw new SQLException("Column '" + column + "' not found");
+    }
+
+    private ResultSetMetaData metaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(FakeResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.size();
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels.get((Integer) args[0] - 1);
+                        default:
+                            throw new SQLFeatureNotSupportedException("ResultSetMetaData." + method.getName());
+                    }
+                });
+    }
+}
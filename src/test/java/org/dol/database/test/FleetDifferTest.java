@@ -0,0 +1,49 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.utils.FleetDiff;
+import org.dol.database.utils.FleetDiffGroup;
+import org.dol.database.utils.FleetDiffer;
+import org.dol.database.utils.ScriptGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.dol.database.test.ScriptGeneratorTest.sampleSchema;
+
+public class FleetDifferTest {
+
+    @Test
+    public void testGroupByScript() {
+        DatabaseSchema target = sampleSchema();
+        Map<String, DatabaseSchema> shards = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            DatabaseSchema shard = sampleSchema();
+            if (i % 4 == 0) {
+                shard.getTableSchema("t_user").getColumn("name").setColumnSize(32);
+            } else if (i == 5) {
+                shard.getTableSchema("t_log").getColumn("content").setRemarks("old comment");
+            }
+            shards.put(String.format("shard_%02d", i), shard);
+        }
+
+        FleetDiff fleetDiff = FleetDiffer.diff(target, shards, false);
+        Assert.assertFalse(fleetDiff.hasErrors());
+        Assert.assertEquals(3, fleetDiff.getGroups().size());
+
+        FleetDiffGroup inSync = fleetDiff.getGroups().get(0);
+        Assert.assertTrue(inSync.isInSync());
+        Assert.assertEquals(11, inSync.getShardNames().size());
+
+        FleetDiffGroup resized = fleetDiff.getGroups().get(1);
+        Assert.assertEquals("shard_00", resized.getShardNames().get(0));
+        Assert.assertEquals(4, resized.getShardNames().size());
+        Assert.assertEquals(ScriptGenerator.generateModifySQL(target, shards.get("shard_04"), false), resized.getScript());
+        Assert.assertSame(resized, fleetDiff.getGroup("shard_12"));
+        Assert.assertEquals("shard_05", fleetDiff.getGroups().get(2).getShardNames().get(0));
+
+        Assert.assertTrue(fleetDiff.summary().startsWith("-- group 1 [" + inSync.getFingerprint().substring(0, 12) + "] in sync, 11 shard(s): shard_01,"));
+    }
+}
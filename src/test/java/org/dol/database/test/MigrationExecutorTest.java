@@ -0,0 +1,198 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.*;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class MigrationExecutorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static JdbcDataSource h2(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static int countTables(JdbcDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        List<MigrationStatement> statements = SqlScripts.split("-- header\n"
+                + "CREATE TABLE `a;b` (`c` varchar(8) DEFAULT 'x;''y');\n\n"
+                + "ALTER TABLE t_user\n-- WARNING: column `x` (not dropped),\nADD COLUMN `d` int;\n"
+                + "SET foreign_key_checks = 0");
+        Assert.assertEquals(3, statements.size());
+        Assert.assertEquals("a;b", statements.get(0).getTableName());
+        Assert.assertTrue(statements.get(0).getSql().endsWith("'x;''y')"));
+        Assert.assertEquals("t_user", statements.get(1).getTableName());
+        Assert.assertFalse(statements.get(1).getSql().contains("WARNING"));
+        Assert.assertNull(statements.get(2).getTableName());
+    }
+
+    @Test
+    public void testParallelBootstrap() throws Exception {
+        List<TableSchema> tables = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            TableSchema table = table(String.format("t_%03d", i), "id bigint(20)", "name varchar(64)", "amount decimal(18,4)");
+            primaryKey(table, "id");
+            index(table, "idx_name_" + i, false, "name");
+            tables.add(table);
+        }
+        DatabaseSchema schema = schema(tables.toArray(new TableSchema[0]));
+        JdbcDataSource dataSource = h2("bootstrap");
+
+        AtomicInteger applied = new AtomicInteger();
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        executor.setMaxConcurrency(8);
+        executor.setStatementTimeoutSeconds(30);
+        executor.setJournal(new FileMigrationJournal(temporaryFolder.getRoot().toPath().resolve("journal.log")));
+        executor.setListener(new MigrationListener() {
+            @Override
+            public void onStatementApplied(MigrationStatement statement, long elapsedMillis, int completed, int total) {
+                applied.incrementAndGet();
+            }
+        });
+        MigrationReport report = executor.execute("release-1", ScriptGenerator.generate(schema));
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(300, report.getApplied().size());
+        Assert.assertEquals(300, applied.get());
+        Assert.assertEquals(300, countTables(dataSource));
+
+        // 中断后重跑同一版本脚本: 已执行的语句从 journal 中跳过
+        MigrationExecutor resumed = new MigrationExecutor(dataSource);
+        resumed.setJournal(new FileMigrationJournal(temporaryFolder.getRoot().toPath().resolve("journal.log")));
+        report = resumed.execute("release-1", ScriptGenerator.generate(schema) + "ALTER TABLE `t_000` ADD COLUMN `extra` int;");
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(300, report.getSkipped().size());
+        Assert.assertEquals(1, report.getApplied().size());
+    }
+
+    @Test
+    public void testFailureStopsOnlyThatTable() throws Exception {
+        JdbcDataSource dataSource = h2("failure");
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        MigrationReport report = executor.execute("CREATE TABLE `t_a` (`id` int);\n"
+                + "ALTER TABLE `t_missing` ADD COLUMN `x` int;\n"
+                + "ALTER TABLE `t_missing` ADD COLUMN `y` int;\n"
+                + "ALTER TABLE `t_a` ADD COLUMN `x` int;\n");
+        Assert.assertFalse(report.isSuccess());
+        Assert.assertEquals(2, report.getApplied().size());
+        Assert.assertEquals(1, report.getFailed().size());
+        Assert.assertEquals(1, report.getFailed().get(0).getStatement().getIndex());
+        Assert.assertEquals(2, report.getNotRun().get(0).getIndex());
+    }
+
+    @Test
+    public void testJournalScopedToScript() throws Exception {
+        JdbcDataSource dataSource = h2("journal");
+        FileMigrationJournal journal = new FileMigrationJournal(temporaryFolder.getRoot().toPath().resolve("scoped.log"));
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        executor.setJournal(journal);
+        String release1 = "CREATE TABLE `t_a` (`id` int);\n"
+                + "SET @step = 1;\n"
+                + "ALTER TABLE `t_a` ADD COLUMN `x` int;\n"
+                + "SET @step = 1;\n";
+        MigrationReport report = executor.execute(release1);
+        // 同一脚本中内容相同的语句各自执行
+        Assert.assertEquals(4, report.getApplied().size());
+        Assert.assertEquals(4, executor.execute(release1).getSkipped().size());
+
+        // 后续版本重新添加同名列: 内容相同但不属于同一脚本, 不跳过
+        String release2 = "ALTER TABLE `t_a` DROP COLUMN `x`;\n"
+                + "ALTER TABLE `t_a` ADD COLUMN `x` int;\n";
+        report = executor.execute(release2);
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(2, report.getApplied().size());
+    }
+
+    @Test
+    public void testJournalFailureIsNotStatementFailure() {
+        JdbcDataSource dataSource = h2("journal_failure");
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        AtomicInteger journalFailures = new AtomicInteger();
+        executor.setJournal(new MigrationJournal() {
+            @Override
+            public boolean isApplied(MigrationStatement statement) {
+                return false;
+            }
+
+            @Override
+            public void markApplied(MigrationStatement statement) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        executor.setListener(new MigrationListener() {
+            @Override
+            public void onJournalFailed(MigrationStatement statement, Throwable error) {
+                journalFailures.incrementAndGet();
+            }
+        });
+        MigrationReport report = executor.execute("CREATE TABLE `t_a` (`id` int);\n"
+                + "ALTER TABLE `t_a` ADD COLUMN `x` int;\n");
+        Assert.assertTrue(report.getFailed().isEmpty());
+        Assert.assertEquals(2, report.getApplied().size());
+        Assert.assertEquals(2, report.getJournalErrors().size());
+        Assert.assertEquals(2, journalFailures.get());
+    }
+
+    /**
+     * 同层的表只引用前一层的表, 不合并为一组, 在不同连接上并行执行.
+     */
+    @Test
+    public void testSameLevelTablesRunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger timeouts = new AtomicInteger();
+        MigrationExecutor executor = new MigrationExecutor(h2("same_level"));
+        executor.setListener(new MigrationListener() {
+            @Override
+            public void onStatementApplied(MigrationStatement statement, long elapsedMillis, int completed, int total) {
+                if (statement.getTableName().equals("t_address") || statement.getTableName().equals("t_order")) {
+                    threads.add(Thread.currentThread().getName());
+                    bothStarted.countDown();
+                    try {
+                        // 两张表在同一组时, 另一张表要等这里返回才会执行
+                        if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                            timeouts.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        MigrationReport report = executor.executeLevels(ScriptGenerator.generateLevels(TableDependencyGraphTest.shopSchema()));
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(0, timeouts.get());
+        Assert.assertEquals(2, threads.size());
+    }
+}
@@ -0,0 +1,49 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.RedundantIndex;
+import org.dol.database.utils.RedundantIndexAnalyzer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class RedundantIndexAnalyzerTest {
+
+    @Test
+    public void testAnalyze() {
+        TableSchema order = table("t_order", "id bigint(20)", "user_id bigint(20)", "status tinyint(4)", "no varchar(32)");
+        primaryKey(order, "id");
+        index(order, "idx_user", false, "user_id");
+        index(order, "idx_user_status", false, "user_id", "status");
+        index(order, "idx_user_status_2", false, "user_id", "status");
+        index(order, "uk_id", true, "id");
+        index(order, "uk_no", true, "no");
+        index(order, "idx_no", false, "no");
+        order.setTableRows(1000);
+        DatabaseSchema schema = schema(order, sampleSchema().getTableSchema("t_user"));
+
+        List<RedundantIndex> result = RedundantIndexAnalyzer.analyze(schema);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals("idx_no", result.get(0).getIndexName());
+        Assert.assertEquals(RedundantIndex.Type.DUPLICATE, result.get(0).getType());
+        Assert.assertEquals("uk_no", result.get(0).getCoveredBy());
+        Assert.assertEquals(RedundantIndex.Type.LEFT_PREFIX, result.get(1).getType());
+        Assert.assertEquals("idx_user_status", result.get(1).getCoveredBy());
+        Assert.assertEquals(1000L * (14 + 8 + 8), result.get(1).getEstimatedBytes());
+        Assert.assertEquals("idx_user_status_2", result.get(2).getIndexName());
+        Assert.assertEquals("uk_id", result.get(3).getIndexName());
+        Assert.assertEquals(RedundantIndex.Type.PRIMARY_KEY_OVERLAP, result.get(3).getType());
+
+        String sql = RedundantIndexAnalyzer.toSQL(result);
+        Assert.assertTrue(sql.startsWith("-- `idx_no` duplicates `uk_no`, saves ~"));
+        Assert.assertTrue(sql.endsWith("ALTER TABLE `t_order`\n"
+                + "DROP INDEX `idx_no`,\n"
+                + "DROP INDEX `idx_user`,\n"
+                + "DROP INDEX `idx_user_status_2`,\n"
+                + "DROP INDEX `uk_id`;\n\n"));
+    }
+}
@@ -0,0 +1,141 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.ColumnTypeParser;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.SchemaDelta;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SchemaDeltaTest {
+
+    private static final int TABLES = 200;
+
+    private static SyntheticCatalogGenerator generator() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(5);
+        generator.setTableCount(TABLES);
+        return generator;
+    }
+
+    /**
+     * 与 base 内容相同的新实例上每 20 张表修改 1 张 (改列注释、追加列、删索引), 删除 1 张并新增 1 张.
+     */
+    private static DatabaseSchema target(List<String> modified, List<String> dropped) {
+        SyntheticCatalogGenerator generator = generator();
+        DatabaseSchema schema = generator.generate();
+        List<TableSchema> tables = new ArrayList<>();
+        int i = 0;
+        for (TableSchema table : schema.getTables()) {
+            if (i++ == 7) {
+                dropped.add(table.getTableName());
+                continue;
+            }
+            if (i % 20 == 0) {
+                modified.add(table.getTableName());
+                table.getColumns().get(table.getColumns().size() - 1).setRemarks("变更后的注释");
+                ColumnSchema column = new ColumnSchema();
+                column.setTableSchema(table);
+                column.setColumnName("added_col");
+                column.setNullable(true);
+                ColumnTypeParser.parse("varchar(64)", column);
+                table.getColumns().add(column);
+                if (!table.getIndexes().isEmpty()) {
+                    table.getIndexes().remove(table.getIndexes().size() - 1);
+                }
+            }
+            tables.add(table);
+        }
+        tables.add(generator.generateTable(TABLES));
+        schema.setTables(tables);
+        return schema;
+    }
+
+    private static String ddl(DatabaseSchema schema) {
+        StringBuilder sb = new StringBuilder();
+        for (TableSchema table : schema.getTables()) {
+            sb.append(ddl(table));
+        }
+        return sb.toString();
+    }
+
+    private static String ddl(TableSchema table) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            ScriptGenerator.generate(table, sb);
+            return sb.toString();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void testApplyReusesUnchangedTables() {
+        DatabaseSchema base = generator().generate();
+        String baseDdl = ddl(base);
+        List<String> modified = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        DatabaseSchema target = target(modified, dropped);
+
+        byte[] delta = SchemaDelta.encode(base, target);
+        DatabaseSchema empty = new DatabaseSchema();
+        empty.setTables(new ArrayList<>());
+        byte[] full = SchemaDelta.encode(empty, target);
+        Assert.assertTrue(delta.length * 10 < full.length);
+
+        DatabaseSchema applied = SchemaDelta.apply(base, delta);
+        Assert.assertTrue(SchemaDiffer.diff(target, applied).isEmpty());
+        Assert.assertEquals(target.getTables().size(), applied.getTables().size());
+        Assert.assertNull(applied.getTableSchema(dropped.get(0)));
+        for (TableSchema table : target.getTables()) {
+            TableSchema copy = applied.getTableSchema(table.getTableName());
+            Assert.assertEquals(ddl(table), ddl(copy));
+            TableSchema baseTable = base.getTableSchema(table.getTableName());
+            if (modified.contains(table.getTableName()) || baseTable == null) {
+                Assert.assertNotSame(baseTable, copy);
+                for (ColumnSchema column : copy.getColumns()) {
+                    Assert.assertSame(copy, column.getTableSchema());
+                }
+            } else {
+                Assert.assertSame(baseTable, copy);
+            }
+        }
+        // base 不受影响
+        Assert.assertEquals(baseDdl, ddl(base));
+        // 目标与基线相同时增量为空, 全部按引用复用
+        DatabaseSchema again = SchemaDelta.apply(applied, SchemaDelta.encode(applied, target));
+        for (TableSchema table : applied.getTables()) {
+            Assert.assertSame(table, again.getTableSchema(table.getTableName()));
+        }
+    }
+
+    @Test
+    public void testApplyRejectsDifferentBase() {
+        DatabaseSchema base = generator().generate();
+        List<String> modified = new ArrayList<>();
+        byte[] delta = SchemaDelta.encode(base, target(modified, new ArrayList<>()));
+
+        // 只校验增量涉及的表
+        DatabaseSchema other = generator().generate();
+        other.getTableSchema(modified.get(0)).setComment("concurrently changed");
+        try {
+            SchemaDelta.apply(other, delta);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // 基线不一致
+        }
+        try {
+            SchemaDelta.apply(base, new byte[]{1, 2, 3});
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            // 格式错误
+        }
+    }
+}
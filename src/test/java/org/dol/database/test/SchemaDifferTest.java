@@ -0,0 +1,260 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.*;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.IndexPart;
+import org.dol.database.schema.IndexSchema;
+import org.dol.database.schema.PartitionDefinition;
+import org.dol.database.schema.PartitionSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.ScriptGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class SchemaDifferTest {
+
+    @Test
+    public void testNoChange() {
+        SchemaDiff diff = SchemaDiffer.diff(sampleSchema(), sampleSchema());
+        Assert.assertTrue(diff.isEmpty());
+        Assert.assertEquals("", ScriptGenerator.toSQL(diff, true));
+    }
+
+    @Test
+    public void testColumnAttributes() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.getColumn("name").setColumnSize(32);
+        currentUser.getColumn("name").setNullable(false);
+        currentUser.getColumn("amount").setDecimalDigits(2);
+        currentUser.getColumn("amount").setRemarks("amount");
+
+        TableDiff tableDiff = SchemaDiffer.diff(target, current).getTable("t_user");
+        Assert.assertEquals(ChangeType.MODIFIED, tableDiff.getChangeType());
+        Assert.assertEquals(2, tableDiff.getColumns().size());
+        ColumnDiff name = tableDiff.getColumns().get(0);
+        Assert.assertEquals(EnumSet.of(ColumnAttribute.LENGTH, ColumnAttribute.NULLABLE), name.getChangedAttributes());
+        Assert.assertEquals(32, name.getOldValue(ColumnAttribute.LENGTH));
+        Assert.assertEquals(64, name.getNewValue(ColumnAttribute.LENGTH));
+        ColumnDiff amount = tableDiff.getColumns().get(1);
+        Assert.assertEquals(EnumSet.of(ColumnAttribute.SCALE, ColumnAttribute.COMMENT), amount.getChangedAttributes());
+    }
+
+    @Test
+    public void testIntLengthWithoutDisplayWidth() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        // JDBC 加载的 int 没有显示宽度, 只有 COLUMN_SIZE=10
+        ColumnSchema loaded = current.getTableSchema("t_log").getColumn("id");
+        loaded.setDisplayWidth(0);
+        loaded.setColumnSize(10);
+        Assert.assertTrue(SchemaDiffer.diff(target, current).isEmpty());
+
+        target.getTableSchema("t_log").getColumn("id").setDisplayWidth(10);
+        ColumnDiff id = SchemaDiffer.diff(target, current).getTable("t_log").getColumns().get(0);
+        Assert.assertEquals(EnumSet.of(ColumnAttribute.LENGTH), id.getChangedAttributes());
+        Assert.assertEquals(11, id.getOldValue(ColumnAttribute.LENGTH));
+        Assert.assertEquals(10, id.getNewValue(ColumnAttribute.LENGTH));
+    }
+
+    @Test
+    public void testTableAndIndexChanges() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.getIndexes().remove(1);
+        currentUser.getIndexes().get(0).setUnique(false);
+        index(currentUser, "idx_amount", false, "amount");
+        List<TableSchema> currentTables = new ArrayList<>(current.getTables());
+        currentTables.remove(current.getTableSchema("t_log"));
+        currentTables.add(table("t_old", "id int"));
+        current.setTables(currentTables);
+
+        SchemaDiff diff = SchemaDiffer.diff(target, current);
+        Assert.assertEquals(1, diff.getTables(ChangeType.ADDED).size());
+        Assert.assertEquals("t_log", diff.getTables(ChangeType.ADDED).get(0).getTableName());
+        Assert.assertEquals("t_old", diff.getTables(ChangeType.REMOVED).get(0).getTableName());
+
+        List<IndexDiff> indexes = diff.getTable("t_user").getIndexes();
+        Assert.assertEquals(3, indexes.size());
+        Assert.assertEquals(ChangeType.MODIFIED, indexes.get(0).getChangeType());
+        Assert.assertEquals(ChangeType.ADDED, indexes.get(1).getChangeType());
+        Assert.assertEquals(ChangeType.REMOVED, indexes.get(2).getChangeType());
+
+        String sql = ScriptGenerator.toSQL(diff, false);
+        Assert.assertEquals("ALTER TABLE `t_user`\n"
+                + "DROP INDEX `uk_name`,\n"
+                + "ADD UNIQUE INDEX `uk_name` (`name`) USING BTREE,\n"
+                + "ADD INDEX `idx_status_name` (`status`,`name`) USING BTREE,\n"
+                + "DROP INDEX `idx_amount`;\n\n"
+                + "-- WARNING: table `t_old` exists in current but not in target (not dropped)\n", sql);
+    }
+
+    @Test
+    public void testPrimaryKeyChange() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        primaryKey(current.getTableSchema("t_user"), "id", "name");
+
+        PrimaryKeyDiff primaryKey = SchemaDiffer.diff(target, current).getTable("t_user").getPrimaryKey();
+        Assert.assertEquals(ChangeType.MODIFIED, primaryKey.getChangeType());
+    }
+
+    @Test
+    public void testRenameDetection() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        currentUser.getColumn("name").setColumnName("user_name");
+        currentUser.getIndexes().get(1).setIndexName("idx_old_status_name");
+
+        // 不识别重命名时: 删除+新增列, 引用该列的索引全部重建
+        TableDiff plain = SchemaDiffer.diff(target, current).getTable("t_user");
+        Assert.assertEquals(ChangeType.ADDED, plain.getColumns().get(0).getChangeType());
+        Assert.assertEquals(3, plain.getIndexes().size());
+
+        SchemaDiff diff = SchemaDiffer.diff(target, current, new RenameDetector());
+        TableDiff tableDiff = diff.getTable("t_user");
+        Assert.assertEquals(1, tableDiff.getColumns().size());
+        Assert.assertEquals(ChangeType.RENAMED, tableDiff.getColumns().get(0).getChangeType());
+        Assert.assertEquals(1, tableDiff.getIndexes().size());
+        Assert.assertEquals(ChangeType.RENAMED, tableDiff.getIndexes().get(0).getChangeType());
+        Assert.assertEquals("ALTER TABLE `t_user`\n"
+                + "RENAME COLUMN `user_name` TO `name`,\n"
+                + "RENAME INDEX `idx_old_status_name` TO `idx_status_name`;\n\n", ScriptGenerator.toSQL(diff, false));
+
+        List<AlterStep> steps = AlterPlanner.plan(tableDiff);
+        Assert.assertEquals(AlterStep.Action.RENAME_COLUMN, steps.get(0).getAction());
+        Assert.assertEquals(OnlineDdl.INPLACE_METADATA, steps.get(0).getOnlineDdl());
+
+        // 改名同时改长度: CHANGE COLUMN
+        currentUser.getColumn("user_name").setColumnSize(32);
+        diff = SchemaDiffer.diff(target, current, new RenameDetector());
+        Assert.assertTrue(ScriptGenerator.toSQL(diff, false).startsWith("ALTER TABLE `t_user`\n"
+                + "CHANGE COLUMN `user_name`  `name` VARCHAR(64)"));
+
+        // 改名列上的索引只切换可见性: ALTER INDEX, 不重建索引
+        currentUser.getColumn("user_name").setColumnSize(64);
+        target.getTableSchema("t_user").getIndexes().get(0).setVisible(false);
+        diff = SchemaDiffer.diff(target, current, new RenameDetector());
+        String sql = ScriptGenerator.toSQL(diff, false);
+        Assert.assertTrue(sql, sql.contains("ALTER INDEX `uk_name` INVISIBLE"));
+        Assert.assertFalse(sql, sql.contains("DROP INDEX"));
+        Assert.assertEquals(AlterStep.Action.ALTER_INDEX_VISIBILITY,
+                AlterPlanner.plan(diff.getTable("t_user")).get(1).getAction());
+        target.getTableSchema("t_user").getIndexes().get(0).setVisible(true);
+
+        // 类型不同则不视为重命名
+        currentUser.getColumn("user_name").setDataTypeName("INT");
+        diff = SchemaDiffer.diff(target, current, new RenameDetector());
+        Assert.assertEquals(ChangeType.ADDED, diff.getTable("t_user").getColumns().get(0).getChangeType());
+    }
+
+    @Test
+    public void testIndexMetadata() {
+        DatabaseSchema target = sampleSchema();
+        TableSchema user = target.getTableSchema("t_user");
+        IndexSchema fulltext = index(user, "ft_name", false, "name");
+        fulltext.setIndexType("FULLTEXT");
+        IndexSchema functional = index(user, "idx_name_prefix", false, "name", "amount");
+        functional.setKeyParts(new ArrayList<>());
+        IndexPart prefix = IndexPart.of(user.getColumn("name"));
+        prefix.setSubPart(10);
+        functional.getKeyParts().add(prefix);
+        IndexPart amount = IndexPart.of(user.getColumn("amount"));
+        amount.setDescending(true);
+        functional.getKeyParts().add(amount);
+        functional.getKeyParts().add(IndexPart.ofExpression("lower(`name`)"));
+        functional.setVisible(false);
+
+        String ddl = ScriptGenerator.generate(schema(user));
+        Assert.assertTrue(ddl.contains("  FULLTEXT KEY `ft_name` (`name`),\n"));
+        Assert.assertTrue(ddl.contains("  KEY `idx_name_prefix` (`name`(10),`amount` DESC,(lower(`name`))) USING BTREE INVISIBLE\n"));
+
+        DatabaseSchema current = sampleSchema();
+        TableSchema currentUser = current.getTableSchema("t_user");
+        index(currentUser, "ft_name", false, "name").setIndexType("FULLTEXT");
+        IndexSchema currentFunctional = index(currentUser, "idx_name_prefix", false, "name", "amount");
+        currentFunctional.setKeyParts(new ArrayList<>(functional.getKeyParts()));
+        Assert.assertEquals("ALTER TABLE `t_user`\n"
+                + "ALTER INDEX `idx_name_prefix` INVISIBLE;\n\n", ScriptGenerator.generateModifySQL(target, current, false));
+
+        currentFunctional.setVisible(false);
+        currentFunctional.getKeyParts().set(0, IndexPart.of(currentUser.getColumn("name")));
+        String sql = ScriptGenerator.generateModifySQL(target, current, false);
+        Assert.assertTrue(sql.contains("DROP INDEX `idx_name_prefix`,\nADD INDEX `idx_name_prefix` (`name`(10),"));
+    }
+
+    @Test
+    public void testPartitionChanges() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        target.getTableSchema("t_log").setPartitioning(rangePartitioning("p0:100", "p1:200", "p2:300", "pmax:MAXVALUE"));
+        current.getTableSchema("t_log").setPartitioning(rangePartitioning("p0:100", "p1:200", "pmax:MAXVALUE", "p_old:400"));
+
+        String ddl = ScriptGenerator.generate(schema(target.getTableSchema("t_log")));
+        Assert.assertTrue(ddl.contains(") ENGINE=InnoDB\n"
+                + "PARTITION BY RANGE (`id`)\n"
+                + "(PARTITION `p0` VALUES LESS THAN (100),\n"
+                + " PARTITION `p1` VALUES LESS THAN (200),\n"
+                + " PARTITION `p2` VALUES LESS THAN (300),\n"
+                + " PARTITION `pmax` VALUES LESS THAN MAXVALUE);\n"));
+
+        PartitionDiff partitionDiff = SchemaDiffer.diff(target, current).getTable("t_log").getPartition();
+        Assert.assertFalse(partitionDiff.isRepartition());
+        Assert.assertEquals("p_old", partitionDiff.getDropped().get(0).getPartitionName());
+        Assert.assertEquals(1, partitionDiff.getReorganized().size());
+        Assert.assertEquals(2, partitionDiff.getReorganizedInto().size());
+        Assert.assertEquals("ALTER TABLE `t_log`\n"
+                + "DROP PARTITION `p_old`;\n"
+                + "ALTER TABLE `t_log`\n"
+                + "REORGANIZE PARTITION `pmax` INTO\n"
+                + "(PARTITION `p2` VALUES LESS THAN (300),\n"
+                + " PARTITION `pmax` VALUES LESS THAN MAXVALUE);\n\n", ScriptGenerator.generateModifySQL(target, current, false));
+
+        current.getTableSchema("t_log").setPartitioning(rangePartitioning("p0:100", "p1:200"));
+        target.getTableSchema("t_log").setPartitioning(rangePartitioning("p0:100", "p1:200", "p2:300"));
+        Assert.assertEquals("ALTER TABLE `t_log`\n"
+                + "ADD PARTITION\n"
+                + "(PARTITION `p2` VALUES LESS THAN (300));\n\n", ScriptGenerator.generateModifySQL(target, current, false));
+
+        target.getTableSchema("t_log").getPartitioning().setExpression("`id` DIV 2");
+        Assert.assertTrue(SchemaDiffer.diff(target, current).getTable("t_log").getPartition().isRepartition());
+        target.getTableSchema("t_log").setPartitioning(null);
+        Assert.assertTrue(ScriptGenerator.generateModifySQL(target, current, false).contains("REMOVE PARTITIONING;"));
+
+        PartitionSchema hash = new PartitionSchema();
+        hash.setMethod("HASH");
+        hash.setExpression("`id`");
+        hash.getPartitions().add(new PartitionDefinition("p0", null));
+        current.getTableSchema("t_log").setPartitioning(hash);
+        PartitionSchema moreHash = new PartitionSchema();
+        moreHash.setMethod("HASH");
+        moreHash.setExpression("id");
+        for (int i = 0; i < 4; i++) {
+            moreHash.getPartitions().add(new PartitionDefinition("p" + i, null));
+        }
+        target.getTableSchema("t_log").setPartitioning(moreHash);
+        Assert.assertEquals("ALTER TABLE `t_log`\n"
+                + "ADD PARTITION PARTITIONS 3;\n\n", ScriptGenerator.generateModifySQL(target, current, false));
+    }
+
+    private static PartitionSchema rangePartitioning(String... partitions) {
+        PartitionSchema partitioning = new PartitionSchema();
+        partitioning.setMethod("RANGE");
+        partitioning.setExpression("`id`");
+        for (String partition : partitions) {
+            String[] nameAndBound = partition.split(":");
+            partitioning.getPartitions().add(new PartitionDefinition(nameAndBound[0], nameAndBound[1]));
+        }
+        return partitioning;
+    }
+}
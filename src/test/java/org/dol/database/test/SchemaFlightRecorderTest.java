@@ -0,0 +1,70 @@
+package org.dol.database.test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.DatabaseSchemaLoader;
+import org.dol.database.utils.SchemaFlightRecorder;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * surefire 通过系统属性开启事件; 运行时没有 jdk.jfr 时跳过.
+ */
+public class SchemaFlightRecorderTest {
+
+    private static final int TABLES = 8;
+
+    @After
+    public void tearDown() {
+        FakeMetadataDriver.unregister("jfr");
+    }
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        Assume.assumeTrue(SchemaFlightRecorder.isEnabled());
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(5);
+        generator.setTableCount(TABLES);
+        DatabaseSchema source = generator.generate();
+        generator.setTableCount(TABLES + 1);
+        DatabaseSchema target = generator.generate();
+        String url = FakeMetadataDriver.register("jfr", new FakeMetadataServer(source, "shop"));
+
+        File file = File.createTempFile("schema-events", ".jfr");
+        Map<String, Integer> counts = new HashMap<>();
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"CatalogLoad", "BulkMetadataQuery", "TableLoad", "TableDiff", "DdlRender"}) {
+                recording.enable("org.dol.database." + name).withThreshold(java.time.Duration.ZERO);
+            }
+            recording.start();
+            DatabaseSchema loaded = DatabaseSchemaLoader.load(FakeMetadataDriver.class.getName(), url, "u", "p", "t_", true);
+            ScriptGenerator.generateModifySQL(target, loaded, true);
+            recording.stop();
+            recording.dump(file.toPath());
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+                counts.merge(event.getEventType().getName(), 1, Integer::sum);
+                if (event.getEventType().getName().equals("org.dol.database.DdlRender")) {
+                    Assert.assertEquals("CREATE TABLE", event.getString("statement"));
+                    Assert.assertTrue(event.getLong("bytes") > 0);
+                }
+            }
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+        Assert.assertEquals(Integer.valueOf(1), counts.get("org.dol.database.CatalogLoad"));
+        Assert.assertEquals(Integer.valueOf(7), counts.get("org.dol.database.BulkMetadataQuery"));
+        Assert.assertEquals(Integer.valueOf(TABLES), counts.get("org.dol.database.TableLoad"));
+        Assert.assertEquals(Integer.valueOf(TABLES + 1), counts.get("org.dol.database.TableDiff"));
+        Assert.assertEquals(Integer.valueOf(1), counts.get("org.dol.database.DdlRender"));
+    }
+}
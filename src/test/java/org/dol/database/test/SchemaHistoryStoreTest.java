@@ -0,0 +1,136 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.ChangeType;
+import org.dol.database.diff.SchemaDiff;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.ColumnTypeParser;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.SchemaHistoryStore;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.dol.database.utils.TableVersion;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SchemaHistoryStoreTest {
+
+    private static final Instant DAY1 = Instant.parse("2024-03-01T02:00:00Z");
+    private static final Instant DAY2 = DAY1.plus(Duration.ofDays(1));
+    private static final Instant DAY3 = DAY2.plus(Duration.ofDays(1));
+    private static final Instant DAY4 = DAY3.plus(Duration.ofDays(1));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static DatabaseSchema catalog() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(17);
+        generator.setTableCount(30);
+        return generator.generate();
+    }
+
+    private static List<TableSchema> tables(DatabaseSchema schema) {
+        return new ArrayList<>(schema.getTables());
+    }
+
+    /**
+     * 第 2 天: 第一张表追加列, 第二张表被删除.
+     */
+    private static DatabaseSchema day2() {
+        DatabaseSchema schema = catalog();
+        List<TableSchema> tables = tables(schema);
+        TableSchema altered = tables.get(0);
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(altered);
+        column.setColumnName("audit_note");
+        column.setNullable(true);
+        ColumnTypeParser.parse("varchar(255)", column);
+        altered.getColumns().add(column);
+        tables.remove(1);
+        schema.setTables(tables);
+        return schema;
+    }
+
+    @Test
+    public void testAppendAndQueryPointsInTime() throws Exception {
+        Path directory = temporaryFolder.newFolder("history").toPath();
+        DatabaseSchema day1 = catalog();
+        String altered = tables(day1).get(0).getTableName();
+        String dropped = tables(day1).get(1).getTableName();
+
+        try (SchemaHistoryStore store = new SchemaHistoryStore(directory)) {
+            Assert.assertEquals(30, store.append(day1, DAY1));
+            Assert.assertEquals(0, store.append(day1, DAY1.plusSeconds(60)));
+            Assert.assertEquals(2, store.append(day2(), DAY2));
+            long stored = Files.size(directory.resolve("tables.dat"));
+            // 内容相同的新实例不写入表版本
+            Assert.assertEquals(0, store.append(day2(), DAY3));
+            // 回到第 1 天的结构: 两张表的旧版本按内容去重, 不再写入
+            Assert.assertEquals(2, store.append(catalog(), DAY4));
+            Assert.assertEquals(stored, Files.size(directory.resolve("tables.dat")));
+            try {
+                store.append(catalog(), DAY3);
+                Assert.fail();
+            } catch (IllegalArgumentException expected) {
+                // 时间倒退
+            }
+        }
+
+        try (SchemaHistoryStore store = new SchemaHistoryStore(directory)) {
+            Assert.assertEquals(5, store.getSnapshots().size());
+            Assert.assertTrue(store.asOf(DAY1.minusMillis(1)).getTables().isEmpty());
+            Assert.assertTrue(SchemaDiffer.diff(catalog(), store.asOf(DAY1.plusSeconds(3600))).isEmpty());
+            Assert.assertTrue(SchemaDiffer.diff(day2(), store.asOf(DAY3)).isEmpty());
+
+            Assert.assertNull(store.asOf(DAY1, altered).getColumn("audit_note"));
+            Assert.assertNotNull(store.asOf(DAY2, altered).getColumn("audit_note"));
+            Assert.assertNull(store.asOf(DAY3, dropped));
+            Assert.assertNotNull(store.asOf(DAY4, dropped));
+
+            List<TableVersion> history = store.history(dropped);
+            Assert.assertEquals(3, history.size());
+            Assert.assertEquals(DAY1, history.get(0).getValidFrom());
+            Assert.assertTrue(history.get(1).isDropped());
+            Assert.assertEquals(dropped, history.get(1).getTableName());
+            Assert.assertEquals(DAY4, history.get(2).getValidFrom());
+            Assert.assertEquals(3, store.history(altered).size());
+
+            SchemaDiff diff = store.diff(DAY1, DAY3);
+            Assert.assertEquals(2, diff.getTables().size());
+            Assert.assertEquals(ChangeType.MODIFIED, diff.getTable(altered).getChangeType());
+            Assert.assertEquals(ChangeType.REMOVED, diff.getTable(dropped).getChangeType());
+            Assert.assertEquals(2, store.diff(DAY2, DAY4).getTables().size());
+            Assert.assertTrue(store.diff(DAY1, DAY4).isEmpty());
+            Assert.assertTrue(store.diff(DAY2, DAY3).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTruncatesTornIndexRecord() throws Exception {
+        Path directory = temporaryFolder.newFolder("torn").toPath();
+        try (SchemaHistoryStore store = new SchemaHistoryStore(directory)) {
+            store.append(catalog(), DAY1);
+        }
+        Path index = directory.resolve("history.idx");
+        long size = Files.size(index);
+        Files.write(index, new byte[]{0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+
+        try (SchemaHistoryStore store = new SchemaHistoryStore(directory)) {
+            Assert.assertEquals(size, Files.size(index));
+            Assert.assertEquals(1, store.getSnapshots().size());
+            Assert.assertEquals(2, store.append(day2(), DAY2));
+            Assert.assertEquals(29, store.asOf(DAY2).getTables().size());
+        }
+    }
+}
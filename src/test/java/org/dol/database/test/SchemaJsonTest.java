@@ -0,0 +1,157 @@
+package org.dol.database.test;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.*;
+import org.dol.database.utils.SchemaJsonReader;
+import org.dol.database.utils.SchemaJsonWriter;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class SchemaJsonTest {
+
+    private static DatabaseSchema catalog() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(11);
+        generator.setTableCount(40);
+        DatabaseSchema schema = generator.generate();
+
+        TableSchema table = schema.getTables().iterator().next();
+        ColumnSchema status = new ColumnSchema();
+        status.setTableSchema(table);
+        status.setColumnName("order_status");
+        status.setNullable(false);
+        status.setDefaultValue("new");
+        status.setRemarks("订单状态 \"新建\"\n\t😀 \u0001");
+        ColumnTypeParser.parse("enum('new','it''s paid','关闭')", status);
+        status.setColumnType("enum('new','it''s paid','关闭')");
+        table.getColumns().add(status);
+
+        IndexSchema index = new IndexSchema();
+        index.setIndexName("idx_status_expr");
+        index.setMemberColumns(new ArrayList<>(Collections.singletonList(status)));
+        IndexPart prefix = IndexPart.of(status);
+        prefix.setSubPart(4);
+        prefix.setDescending(true);
+        index.setKeyParts(new ArrayList<>(Arrays.asList(prefix, IndexPart.ofExpression("lower(`order_status`)"))));
+        table.getIndexes().add(index);
+
+        PartitionSchema partitioning = new PartitionSchema();
+        partitioning.setMethod("HASH");
+        partitioning.setExpression("`" + table.getColumns().get(0).getColumnName() + "`");
+        partitioning.getPartitions().add(new PartitionDefinition("p0", null));
+        partitioning.getPartitions().add(new PartitionDefinition("p1", null));
+        table.setPartitioning(partitioning);
+        return schema;
+    }
+
+    private static byte[] write(SchemaJsonWriter writer, DatabaseSchema schema) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(schema, out);
+        return out.toByteArray();
+    }
+
+    private static String ddl(TableSchema table) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        ScriptGenerator.generate(table, sb);
+        return sb.toString();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DatabaseSchema source = catalog();
+        byte[] json = write(new SchemaJsonWriter(), source);
+
+        DatabaseSchema loaded = new SchemaJsonReader().read(new ByteArrayInputStream(json));
+        Assert.assertTrue(SchemaDiffer.diff(source, loaded).isEmpty());
+        Assert.assertEquals(source.getTables().size(), loaded.getTables().size());
+        for (TableSchema table : source.getTables()) {
+            TableSchema copy = loaded.getTableSchema(table.getTableName());
+            Assert.assertEquals(ddl(table), ddl(copy));
+            Assert.assertEquals(table.getModelName(), copy.getModelName());
+            // 引用指向同表的列实例, 回指为所在的表
+            for (IndexSchema index : copy.getIndexes()) {
+                for (ColumnSchema member : index.getMemberColumns()) {
+                    Assert.assertSame(copy.getColumn(member.getColumnName()), member);
+                }
+            }
+            for (ColumnSchema column : copy.getColumns()) {
+                Assert.assertSame(copy, column.getTableSchema());
+            }
+        }
+
+        TableSchema table = source.getTables().iterator().next();
+        ColumnSchema status = loaded.getTableSchema(table.getTableName()).getColumn("order_status");
+        Assert.assertEquals(table.getColumn("order_status").getRemarks(), status.getRemarks());
+        Assert.assertEquals(Arrays.asList("new", "it's paid", "关闭"), status.getEnumValues());
+        Assert.assertEquals("HASH", loaded.getTableSchema(table.getTableName()).getPartitioning().getMethod());
+
+        // 输出是合法 JSON, 且与通用解析器结果一致
+        JSONObject parsed = JSON.parseObject(new String(json, StandardCharsets.UTF_8));
+        Assert.assertEquals(source.getTables().size(), parsed.getJSONArray("tables").size());
+        boolean found = false;
+        for (Object item : parsed.getJSONArray("tables")) {
+            for (Object column : ((JSONObject) item).getJSONArray("columns")) {
+                if ("order_status".equals(((JSONObject) column).getString("columnName"))) {
+                    Assert.assertEquals(status.getRemarks(), ((JSONObject) column).getString("remarks"));
+                    found = true;
+                }
+            }
+        }
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        DatabaseSchema source = catalog();
+        SchemaJsonWriter writer = new SchemaJsonWriter();
+        writer.setTableFields(new HashSet<>(Arrays.asList("comment", "columns")));
+        writer.setColumnFields(new HashSet<>(Collections.singletonList("dataTypeName")));
+        byte[] json = write(writer, source);
+        Assert.assertTrue(json.length * 3 < write(new SchemaJsonWriter(), source).length);
+
+        JSONArray tables = JSON.parseObject(new String(json, StandardCharsets.UTF_8)).getJSONArray("tables");
+        JSONObject table = tables.getJSONObject(0);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("prefix", "tableName", "comment", "columns")), table.keySet());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("columnName", "dataTypeName")),
+                table.getJSONArray("columns").getJSONObject(0).keySet());
+
+        DatabaseSchema loaded = new SchemaJsonReader().read(new ByteArrayInputStream(json));
+        TableSchema copy = loaded.getTableSchema(table.getString("tableName"));
+        Assert.assertEquals(table.getJSONArray("columns").size(), copy.getColumns().size());
+        Assert.assertTrue(copy.getIndexes().isEmpty());
+    }
+
+    @Test
+    public void testReadsReorderedAndUnknownFields() throws Exception {
+        String json = "{ \"version\": [1, {\"x\": null}],\n"
+                + "  \"tables\": [ {\"prefix\": \"t_\", \"indexes\": [{\"indexName\": \"uk_code\", \"unique\": true,"
+                + " \"columns\": [\"code\"], \"extra\": 1.5e3}],"
+                + " \"primaryKey\": {\"keyName\": \"PRIMARY\", \"columns\": [\"id\"]}, \"primaryColumn\": \"id\","
+                + " \"tableName\": \"t_item\", \"comment\": \"\\u5546\\u54c1\\/item\","
+                + " \"columns\": [{\"columnName\": \"id\", \"dataTypeName\": \"BIGINT\", \"primary\": true, \"nullable\": false},"
+                + " {\"columnName\": \"code\", \"dataTypeName\": \"VARCHAR\", \"columnSize\": 32, \"remarks\": null}]} ] }";
+
+        DatabaseSchema loaded = new SchemaJsonReader().read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        TableSchema table = loaded.getTableSchema("t_item");
+        Assert.assertEquals("商品/item", table.getComment());
+        Assert.assertEquals("Item", table.getModelName());
+        Assert.assertSame(table.getColumn("code"), table.getIndexes().get(0).getMemberColumns().get(0));
+        Assert.assertSame(table.getColumn("id"), table.getPrimaryKey().getMemberColumns().get(0));
+        Assert.assertSame(table.getColumn("id"), table.getPrimaryColumn());
+        Assert.assertEquals(DataTypeEnum.VARCHAR, table.getColumn("code").getDataTypeEnum());
+        Assert.assertEquals(32, table.getColumn("code").getColumnSize());
+    }
+}
@@ -0,0 +1,75 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.*;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SchemaLoadListenerTest {
+
+    private static final int TABLES = 12;
+
+    private static String register() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(11);
+        generator.setTableCount(TABLES);
+        return FakeMetadataDriver.register("listener", new FakeMetadataServer(generator.generate(), "shop"));
+    }
+
+    @After
+    public void tearDown() {
+        FakeMetadataDriver.unregister("listener");
+    }
+
+    @Test
+    public void testSummaryOfBulkLoad() {
+        SchemaLoadSummary summary = new SchemaLoadSummary();
+        DatabaseSchema loaded = DatabaseSchemaLoader.load(FakeMetadataDriver.class.getName(), register(), "u", "p",
+                "shop", null, "t_", true, summary);
+
+        Assert.assertEquals(TABLES, summary.getTableCount());
+        Assert.assertEquals(1, summary.getCalls(SchemaLoadPhase.CONNECTION));
+        Assert.assertEquals(1, summary.getCalls(SchemaLoadPhase.TABLE_LIST));
+        Assert.assertEquals(TABLES, summary.getRows(SchemaLoadPhase.TABLE_LIST));
+        Assert.assertEquals(1, summary.getCalls(SchemaLoadPhase.INDEX_STATISTICS));
+        Assert.assertEquals(TABLES, summary.getCalls(SchemaLoadPhase.COLUMNS));
+        Assert.assertEquals(TABLES, summary.getCalls(SchemaLoadPhase.PRIMARY_KEY));
+        Assert.assertEquals(0, summary.getCalls(SchemaLoadPhase.INDEXES));
+
+        int columns = 0;
+        for (TableSchema table : loaded.getTables()) {
+            columns += table.getColumns().size();
+        }
+        Assert.assertEquals(columns, summary.getRows(SchemaLoadPhase.COLUMNS));
+        Assert.assertEquals(3, summary.slowestTables(3).size());
+        Assert.assertTrue(summary.report(3).contains("COLUMNS"));
+    }
+
+    @Test
+    public void testMetricsOfJdbcMetadataLoad() {
+        Map<String, Long> counters = new HashMap<>();
+        SchemaLoadMetricsListener listener = new SchemaLoadMetricsListener(new SchemaLoadMetricsListener.Sink() {
+            @Override
+            public void increment(String name, SchemaLoadPhase phase, long amount) {
+                counters.merge(name + ":" + phase, amount, Long::sum);
+            }
+
+            @Override
+            public void record(String name, SchemaLoadPhase phase, long nanos) {
+                counters.merge(name + ":" + phase, 1L, Long::sum);
+            }
+        });
+        DatabaseSchemaLoader.load(FakeMetadataDriver.class.getName(), register(), "u", "p",
+                "shop", null, "t_", false, listener);
+
+        Assert.assertEquals(Long.valueOf(TABLES), counters.get(SchemaLoadMetricsListener.QUERIES + ":" + SchemaLoadPhase.INDEXES));
+        Assert.assertEquals(Long.valueOf(TABLES), counters.get(SchemaLoadMetricsListener.TABLE_DURATION + ":null"));
+        Assert.assertEquals(Long.valueOf(TABLES), counters.get(SchemaLoadMetricsListener.TABLES + ":null"));
+        Assert.assertEquals(Long.valueOf(1), counters.get(SchemaLoadMetricsListener.LOAD_DURATION + ":null"));
+        Assert.assertNull(counters.get(SchemaLoadMetricsListener.QUERIES + ":" + SchemaLoadPhase.INDEX_STATISTICS));
+    }
+}
@@ -0,0 +1,61 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.SchemaDiff;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.DatabaseSchemaLoader;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SchemaLoaderRoundTripTest {
+
+    private static final int TABLES = 30;
+
+    private static DatabaseSchema catalog() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(3);
+        generator.setTableCount(TABLES);
+        return generator.generate();
+    }
+
+    @After
+    public void tearDown() {
+        FakeMetadataDriver.unregister("round_trip");
+    }
+
+    @Test
+    public void testBulkLoadRoundTrips() {
+        DatabaseSchema source = catalog();
+        FakeMetadataServer server = new FakeMetadataServer(source, "shop");
+        String url = FakeMetadataDriver.register("round_trip", server);
+
+        DatabaseSchema loaded = DatabaseSchemaLoader.load(FakeMetadataDriver.class.getName(), url, "u", "p", "t_", true);
+
+        // getTables + 6 条 information_schema 批量查询 + 每表 getColumns/getPrimaryKeys
+        Assert.assertEquals(1 + 6 + 2 * TABLES, server.getRoundTrips());
+        Assert.assertEquals(TABLES, server.getRoundTrips("getColumns"));
+        Assert.assertEquals(0, server.getRoundTrips("getIndexInfo"));
+        Assert.assertEquals(1, server.getRoundTrips("STATISTICS"));
+        Assert.assertTrue(server.getRows() > 0 && server.getBytes() > server.getRows());
+
+        SchemaDiff diff = SchemaDiffer.diff(source, loaded);
+        Assert.assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testJdbcMetadataRoundTripsWithLatency() throws Exception {
+        FakeMetadataServer server = new FakeMetadataServer(catalog(), "shop").latency(2, 1);
+        String url = FakeMetadataDriver.register("round_trip", server);
+
+        long start = System.nanoTime();
+        DatabaseSchema loaded = DatabaseSchemaLoader.load(FakeMetadataDriver.class.getName(), url, "u", "p", "t_", false);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // getTables + 表注释批量查询 + 每表 getColumns/getIndexInfo/getPrimaryKeys
+        Assert.assertEquals(2 + 3 * TABLES, server.getRoundTrips());
+        Assert.assertTrue(elapsedMillis >= 2 * server.getRoundTrips());
+        Assert.assertEquals(TABLES, loaded.getTables().size());
+    }
+}
@@ -0,0 +1,232 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.ChangeType;
+import org.dol.database.diff.ColumnDiff;
+import org.dol.database.diff.IndexDiff;
+import org.dol.database.diff.TableDiff;
+import org.dol.database.schema.ColumnSchema;
+import org.dol.database.schema.ColumnTypeParser;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.SchemaChangeListener;
+import org.dol.database.utils.SchemaWatcher;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SchemaWatcherTest {
+
+    private static class RecordingListener implements SchemaChangeListener {
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onTableAdded(String catalog, TableSchema table) {
+            events.add("added " + table.getTableName());
+        }
+
+        @Override
+        public void onTableDropped(String catalog, TableSchema table) {
+            events.add("dropped " + table.getTableName());
+        }
+
+        @Override
+        public void onColumnChanged(String catalog, TableSchema table, ColumnDiff change) {
+            events.add("column " + change.getChangeType() + " " + table.getTableName() + "." + change.getColumnName());
+        }
+
+        @Override
+        public void onIndexChanged(String catalog, TableSchema table, IndexDiff change) {
+            events.add("index " + change.getChangeType() + " " + table.getTableName());
+        }
+
+        @Override
+        public void onTableChanged(String catalog, TableDiff tableDiff) {
+            events.add("changed " + tableDiff.getTableName());
+        }
+    }
+
+    private static SyntheticCatalogGenerator generator() {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(21);
+        generator.setTableCount(10);
+        generator.setIndexesPerTable(3);
+        return generator;
+    }
+
+    private static TableSchema withIndexes(DatabaseSchema schema) {
+        for (TableSchema table : schema.getTables()) {
+            if (!table.getIndexes().isEmpty()) {
+                return table;
+            }
+        }
+        throw new AssertionError("no table with indexes");
+    }
+
+    @Test
+    public void testPollReloadsOnlyChangedTables() throws Exception {
+        SyntheticCatalogGenerator generator = generator();
+        DatabaseSchema schema = generator.generate();
+        FakeMetadataServer server = new FakeMetadataServer(schema, "shop");
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+
+        try (SchemaWatcher watcher = new SchemaWatcher()) {
+            watcher.setIntervalMillis(TimeUnit.HOURS.toMillis(1));
+            watcher.subscribe("shop", first);
+            watcher.subscribe("shop", second);
+            Assert.assertEquals(10, watcher.watch("shop", server::connect).getTables().size());
+
+            server.reset();
+            Assert.assertEquals(0, watcher.poll("shop"));
+            Assert.assertEquals(1, server.getRoundTrips());
+
+            TableSchema indexed = withIndexes(schema);
+            indexed.getIndexes().remove(0);
+            TableSchema altered = null;
+            TableSchema dropped = null;
+            List<TableSchema> tables = new ArrayList<>();
+            for (TableSchema table : schema.getTables()) {
+                if (table == indexed) {
+                    tables.add(table);
+                } else if (altered == null) {
+                    altered = table;
+                    tables.add(table);
+                } else if (dropped == null) {
+                    dropped = table;
+                } else {
+                    tables.add(table);
+                }
+            }
+            ColumnSchema column = new ColumnSchema();
+            column.setTableSchema(altered);
+            column.setColumnName("watch_note");
+            column.setNullable(true);
+            ColumnTypeParser.parse("VARCHAR(64)", column);
+            altered.getColumns().add(column);
+            TableSchema added = generator.generateTable(10);
+            tables.add(added);
+            schema.setTables(tables);
+
+            server.reset();
+            Assert.assertEquals(4, watcher.poll("shop"));
+            // 只重新加载新增与修改的 3 张表
+            Assert.assertEquals(3, server.getRoundTrips("getColumns"));
+
+            List<String> events = first.events;
+            Assert.assertEquals(events, second.events);
+            Assert.assertTrue(events.contains("added " + added.getTableName()));
+            Assert.assertTrue(events.contains("dropped " + dropped.getTableName()));
+            Assert.assertTrue(events.contains("column ADDED " + altered.getTableName() + ".watch_note"));
+            Assert.assertTrue(events.contains("index REMOVED " + indexed.getTableName()));
+            Assert.assertTrue(events.contains("changed " + altered.getTableName()));
+            Assert.assertTrue(events.contains("changed " + indexed.getTableName()));
+            Assert.assertEquals(6, events.size());
+
+            DatabaseSchema snapshot = watcher.getSnapshot("shop");
+            Assert.assertEquals(10, snapshot.getTables().size());
+            Assert.assertNotNull(snapshot.getTableSchema(altered.getTableName()).getColumn("watch_note"));
+            Assert.assertNull(snapshot.getTableSchema(dropped.getTableName()));
+            Assert.assertEquals(0, watcher.poll("shop"));
+        }
+    }
+
+    @Test
+    public void testBackgroundPollingAndErrors() throws Exception {
+        SyntheticCatalogGenerator generator = generator();
+        DatabaseSchema schema = generator.generate();
+        FakeMetadataServer server = new FakeMetadataServer(schema, "shop");
+        AtomicBoolean down = new AtomicBoolean();
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch added = new CountDownLatch(1);
+
+        try (SchemaWatcher watcher = new SchemaWatcher()) {
+            watcher.setIntervalMillis(20);
+            watcher.setMaxBackoffMillis(40);
+            watcher.subscribe("shop", new SchemaChangeListener() {
+                @Override
+                public void onTableAdded(String catalog, TableSchema table) {
+                    added.countDown();
+                }
+
+                @Override
+                public void onError(String catalog, Throwable error) {
+                    failed.countDown();
+                }
+            });
+            watcher.watch("shop", () -> {
+                if (down.get()) {
+                    throw new SQLException("connection refused");
+                }
+                return server.connect();
+            });
+
+            down.set(true);
+            Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+            List<TableSchema> tables = new ArrayList<>(schema.getTables());
+            tables.add(generator.generateTable(10));
+            schema.setTables(tables);
+            down.set(false);
+            Assert.assertTrue(added.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testConcurrentWatchSeesLoadedBaseline() throws Exception {
+        DatabaseSchema schema = generator().generate();
+        FakeMetadataServer server = new FakeMetadataServer(schema, "shop");
+        RecordingListener listener = new RecordingListener();
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean firstConnection = new AtomicBoolean(true);
+
+        try (SchemaWatcher watcher = new SchemaWatcher()) {
+            watcher.setIntervalMillis(TimeUnit.HOURS.toMillis(1));
+            watcher.subscribe("shop", listener);
+            SchemaWatcher.ConnectionSource connections = () -> {
+                if (firstConnection.getAndSet(false)) {
+                    connecting.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                }
+                return server.connect();
+            };
+            List<DatabaseSchema> slow = Collections.synchronizedList(new ArrayList<>());
+            Thread thread = new Thread(() -> {
+                try {
+                    slow.add(watcher.watch("shop", connections));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            Assert.assertTrue(connecting.await(5, TimeUnit.SECONDS));
+
+            // 基线加载中: 尚未发布, 不能对空的校验和轮询
+            Assert.assertNull(watcher.getSnapshot("shop"));
+            try {
+                watcher.poll("shop");
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                // 未监视
+            }
+            Assert.assertEquals(10, watcher.watch("shop", connections).getTables().size());
+
+            release.countDown();
+            thread.join(5000);
+            Assert.assertEquals(10, slow.get(0).getTables().size());
+            Assert.assertEquals(0, watcher.poll("shop"));
+            Assert.assertTrue(listener.events.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.*;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.ScriptResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScriptGeneratorTest {
+
+    static TableSchema table(String tableName, String... columnDefs) {
+        TableSchema table = new TableSchema("t_");
+        table.setTableName(tableName);
+        List<ColumnSchema> columns = new ArrayList<>();
+        for (String columnDef : columnDefs) {
+            int space = columnDef.indexOf(' ');
+            ColumnSchema column = new ColumnSchema();
+            column.setTableSchema(table);
+            column.setColumnName(columnDef.substring(0, space));
+            column.setNullable(true);
+            ColumnTypeParser.parse(columnDef.substring(space + 1), column);
+            columns.add(column);
+        }
+        table.setColumns(columns);
+        table.setIndexes(new ArrayList<>());
+        return table;
+    }
+
+    static void primaryKey(TableSchema table, String... columnNames) {
+        KeySchema key = new KeySchema();
+        key.setKeyName("PRIMARY");
+        List<ColumnSchema> members = new ArrayList<>();
+        for (String columnName : columnNames) {
+            ColumnSchema column = table.getColumn(columnName);
+            column.setPrimary(true);
+            column.setNullable(false);
+            members.add(column);
+        }
+        key.setMemberColumns(members);
+        table.setPrimaryKey(key);
+        table.setPrimaryColumn(members.get(0));
+    }
+
+    static IndexSchema index(TableSchema table, String indexName, boolean unique, String... columnNames) {
+        IndexSchema index = new IndexSchema();
+        index.setIndexName(indexName);
+        index.setUnique(unique);
+        List<ColumnSchema> members = new ArrayList<>();
+        for (String columnName : columnNames) {
+            members.add(table.getColumn(columnName));
+        }
+        index.setMemberColumns(members);
+        table.getIndexes().add(index);
+        return index;
+    }
+
+    static DatabaseSchema schema(TableSchema... tables) {
+        DatabaseSchema schema = new DatabaseSchema();
+        List<TableSchema> list = new ArrayList<>();
+        Collections.addAll(list, tables);
+        schema.setTables(list);
+        return schema;
+    }
+
+    static DatabaseSchema sampleSchema() {
+        TableSchema user = table("t_user",
+                "id bigint(20) unsigned",
+                "name varchar(64)",
+                "status enum('on','off')",
+                "amount decimal(18,4)");
+        primaryKey(user, "id");
+        index(user, "uk_name", true, "name");
+        index(user, "idx_status_name", false, "status", "name");
+        user.getColumn("name").setRemarks("user's name");
+        TableSchema log = table("t_log", "id int(11)", "content text");
+        primaryKey(log, "id");
+        return schema(user, log);
+    }
+
+    @Test
+    public void testGenerate() {
+        String ddl = ScriptGenerator.generate(sampleSchema());
+        Assert.assertTrue(ddl.contains("CREATE TABLE `t_user` (\n"
+                + "  `id` BIGINT(20) UNSIGNED NOT NULL,\n"
+                + "  `name` VARCHAR(64) COMMENT 'user''s name',\n"
+                + "  `status` ENUM('on','off'),\n"
+                + "  `amount` DECIMAL(18,4),\n"
+                + "  PRIMARY KEY (`id`),\n"));
+        Assert.assertTrue(ddl.contains("  KEY `idx_status_name` (`status`,`name`) USING BTREE\n) ENGINE=InnoDB;\n\n"));
+    }
+
+    @Test
+    public void testStreamingGenerate() throws Exception {
+        DatabaseSchema schema = sampleSchema();
+        String expected = ScriptGenerator.generate(schema);
+
+        StringBuilder appendable = new StringBuilder();
+        ScriptGenerator.generate(schema, appendable);
+        Assert.assertEquals(expected, appendable.toString());
+
+        StringWriter writer = new StringWriter();
+        ScriptGenerator.generate(schema, writer);
+        Assert.assertEquals(expected, writer.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ScriptGenerator.generate(schema, Channels.newChannel(bytes));
+        Assert.assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testParallelGenerate() {
+        DatabaseSchema schema = sampleSchema();
+        ScriptResult result = ScriptGenerator.generate(schema, ForkJoinPool.commonPool());
+        Assert.assertFalse(result.hasErrors());
+        Assert.assertTrue(result.getScript().startsWith("CREATE TABLE `t_log`"));
+        Assert.assertEquals(ScriptGenerator.generate(schema).length(), result.getScript().length());
+    }
+
+    @Test
+    public void testFractionalSecondsRoundTrip() {
+        TableSchema event = table("t_event", "id int(11)", "created datetime(3)", "expired timestamp(6)", "at time(2)", "day datetime");
+        primaryKey(event, "id");
+        Assert.assertEquals(3, event.getColumn("created").getDecimalDigits());
+        String ddl = ScriptGenerator.generate(schema(event));
+        Assert.assertTrue(ddl.contains("  `created` DATETIME(3),\n"
+                + "  `expired` TIMESTAMP(6),\n"
+                + "  `at` TIME(2),\n"
+                + "  `day` DATETIME,\n"));
+
+        TableSchema current = table("t_event", "id int(11)", "created datetime(3)", "expired timestamp(6)", "at time(2)", "day datetime");
+        primaryKey(current, "id");
+        current.getColumn("created").setRemarks("old comment");
+        Assert.assertEquals("ALTER TABLE `t_event`\nMODIFY COLUMN   `created` DATETIME(3);\n\n",
+                ScriptGenerator.generateModifySQL(schema(event), schema(current), false));
+
+        current.getColumn("created").setRemarks(null);
+        current.getColumn("day").setDecimalDigits(3);
+        Assert.assertEquals("ALTER TABLE `t_event`\nMODIFY COLUMN   `day` DATETIME;\n\n",
+                ScriptGenerator.generateModifySQL(schema(event), schema(current), false));
+    }
+
+    @Test
+    public void testParallelModifySQL() {
+        DatabaseSchema target = sampleSchema();
+        DatabaseSchema current = sampleSchema();
+        current.getTableSchema("t_user").getColumn("name").setColumnSize(32);
+        TableSchema broken = table("t_broken", "id int");
+        broken.setIndexes(null);
+        List<TableSchema> targetTables = new ArrayList<>(target.getTables());
+        targetTables.add(broken);
+        target.setTables(targetTables);
+
+        ScriptResult result = ScriptGenerator.generateModifySQL(target, current, true, ForkJoinPool.commonPool());
+        Assert.assertEquals(1, result.getErrors().size());
+        Assert.assertEquals("t_broken", result.getErrors().get(0).getTableName());
+        Assert.assertEquals("ALTER TABLE `t_user`\nMODIFY COLUMN   `name` VARCHAR(64) COMMENT 'user''s name';\n\n",
+                result.getScript());
+    }
+}
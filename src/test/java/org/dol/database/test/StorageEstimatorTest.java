@@ -0,0 +1,49 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.StorageEstimator;
+import org.dol.database.utils.TableFootprint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class StorageEstimatorTest {
+
+    @Test
+    public void testRowAndKeyWidth() {
+        TableFootprint user = StorageEstimator.estimate(sampleSchema().getTableSchema("t_user"));
+        // 18 行开销 + 8 bigint + (64*4 + 2) varchar + 1 enum + 9 decimal(18,4) + 1 null 位图
+        Assert.assertEquals(295, user.getMaxRowBytes());
+        Assert.assertEquals(167, user.getAvgRowBytes());
+        Assert.assertEquals("PRIMARY", user.getIndexes().get(0).getIndexName());
+        Assert.assertEquals(8, user.getIndexes().get(0).getKeyBytes());
+        Assert.assertEquals(257, user.getIndexes().get(2).getKeyBytes());
+        Assert.assertFalse(user.hasWarnings());
+    }
+
+    @Test
+    public void testOversized() {
+        List<String> columns = new ArrayList<>();
+        columns.add("id bigint(20)");
+        for (int i = 0; i < 9; i++) {
+            columns.add("c" + i + " varchar(255)");
+        }
+        columns.add("body text");
+        TableSchema wide = table("t_wide", columns.toArray(new String[0]));
+        primaryKey(wide, "id");
+        wide.getColumn("c0").setCharacterSet("utf8mb4");
+        index(wide, "idx_c0_c3", false, "c0", "c1", "c2", "c3");
+        index(wide, "idx_body", false, "body");
+
+        TableFootprint footprint = StorageEstimator.estimate(wide);
+        Assert.assertEquals(4080, footprint.getIndexes().get(1).getKeyBytes());
+        Assert.assertEquals(3, footprint.getWarnings().size());
+        Assert.assertTrue(footprint.getWarnings().get(0).startsWith("index `idx_c0_c3` key is 4080"));
+        Assert.assertTrue(footprint.getWarnings().get(1).startsWith("index `idx_body`"));
+        Assert.assertTrue(footprint.getWarnings().get(2).startsWith("max row size"));
+    }
+}
@@ -0,0 +1,74 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.DatabaseSchemaLoader;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.MigrationStatement;
+import org.dol.database.utils.ScriptGenerator;
+import org.dol.database.utils.SqlScripts;
+import org.dol.database.utils.SyntheticCatalogGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+public class SyntheticCatalogGeneratorTest {
+
+    @Test
+    public void testDeterministicShape() throws Exception {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setSeed(42);
+        generator.setTableCount(200);
+        generator.setCompositePrimaryKeyRatio(1);
+        generator.setAuditColumnRatio(1);
+        DatabaseSchema schema = generator.generate();
+
+        Assert.assertEquals(200, schema.getTables().size());
+        for (TableSchema table : schema.getTables()) {
+            Assert.assertTrue(table.getColumns().size() <= generator.getMaxColumns());
+            Assert.assertEquals(2, table.getPrimaryKey().getMemberColumns().size());
+            Assert.assertTrue(table.hasCreateTimeColumn());
+            Assert.assertTrue(table.hasUpdateUserColumn());
+            Assert.assertTrue(table.hasDeleteColumn());
+        }
+        Assert.assertEquals("t_tbl_007", schema.getTableSchema("t_tbl_007").getTableName());
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            ScriptGenerator.generate(schema.getTableSchema(String.format("t_tbl_%03d", i)), expected);
+        }
+        StringBuilder streamed = new StringBuilder();
+        generator.generateDDL(streamed);
+        Assert.assertEquals(expected.toString(), streamed.toString());
+        Assert.assertEquals(ScriptGenerator.generate(schema(generator.generateTable(7))),
+                ScriptGenerator.generate(schema(schema.getTableSchema("t_tbl_007"))));
+
+        generator.setSeed(43);
+        StringBuilder reseeded = new StringBuilder();
+        generator.generateDDL(reseeded);
+        Assert.assertNotEquals(expected.toString(), reseeded.toString());
+    }
+
+    @Test
+    public void testLoadIntoEmbeddedDatabase() throws Exception {
+        SyntheticCatalogGenerator generator = new SyntheticCatalogGenerator();
+        generator.setTableCount(20);
+        StringBuilder ddl = new StringBuilder();
+        generator.generateDDL(ddl);
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:synthetic;MODE=MySQL;DB_CLOSE_DELAY=-1")) {
+            try (Statement statement = connection.createStatement()) {
+                for (MigrationStatement migrationStatement : SqlScripts.split(ddl.toString())) {
+                    statement.execute(migrationStatement.getSql());
+                }
+            }
+            DatabaseSchema loaded = DatabaseSchemaLoader.load(connection, "t_");
+            Assert.assertEquals(20, loaded.getTables().size());
+        }
+    }
+
+    private static DatabaseSchema schema(TableSchema table) {
+        return ScriptGeneratorTest.schema(table);
+    }
+}
@@ -0,0 +1,156 @@
+package org.dol.database.test;
+
+import org.dol.database.diff.SchemaDiff;
+import org.dol.database.diff.SchemaDiffer;
+import org.dol.database.schema.DatabaseSchema;
+import org.dol.database.schema.ForeignKeySchema;
+import org.dol.database.schema.TableDependencyGraph;
+import org.dol.database.schema.TableSchema;
+import org.dol.database.utils.MigrationExecutor;
+import org.dol.database.utils.MigrationReport;
+import org.dol.database.utils.ScriptGenerator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.dol.database.test.ScriptGeneratorTest.*;
+
+public class TableDependencyGraphTest {
+
+    static ForeignKeySchema foreignKey(TableSchema table, String column, String referencedTable, String deleteRule) {
+        ForeignKeySchema foreignKey = new ForeignKeySchema();
+        foreignKey.setConstraintName("fk_" + table.getTableName() + "_" + column);
+        foreignKey.setMemberColumns(new ArrayList<>(Collections.singletonList(table.getColumn(column))));
+        foreignKey.setReferencedTableName(referencedTable);
+        foreignKey.setReferencedColumnNames(new ArrayList<>(Collections.singletonList("id")));
+        foreignKey.setDeleteRule(deleteRule);
+        foreignKey.setUpdateRule("RESTRICT");
+        table.getForeignKeys().add(foreignKey);
+        return foreignKey;
+    }
+
+    private static TableSchema entity(String name, String... columns) {
+        List<String> defs = new ArrayList<>();
+        defs.add("id int(11)");
+        for (String column : columns) {
+            defs.add(column + " int(11)");
+        }
+        TableSchema table = table(name, defs.toArray(new String[0]));
+        primaryKey(table, "id");
+        return table;
+    }
+
+    private static List<String> names(List<TableSchema> tables) {
+        return tables.stream().map(TableSchema::getTableName).collect(Collectors.toList());
+    }
+
+    static DatabaseSchema shopSchema() {
+        TableSchema user = entity("t_user");
+        TableSchema order = entity("t_order", "user_id");
+        foreignKey(order, "user_id", "t_user", "CASCADE");
+        TableSchema item = entity("t_order_item", "order_id", "parent_id");
+        foreignKey(item, "order_id", "t_order", null);
+        foreignKey(item, "parent_id", "t_order_item", null);
+        TableSchema address = entity("t_address", "user_id");
+        foreignKey(address, "user_id", "t_user", null);
+        TableSchema a = entity("t_cycle_a", "b_id");
+        TableSchema b = entity("t_cycle_b", "a_id", "user_id");
+        foreignKey(a, "b_id", "t_cycle_b", null);
+        foreignKey(b, "a_id", "t_cycle_a", null);
+        foreignKey(b, "user_id", "t_user", null);
+        return schema(user, order, item, address, a, b);
+    }
+
+    @Test
+    public void testLevels() {
+        TableDependencyGraph graph = TableDependencyGraph.of(shopSchema());
+        List<List<TableSchema>> levels = graph.getLevels();
+        Assert.assertEquals(4, levels.size());
+        Assert.assertEquals(Collections.singletonList("t_user"), names(levels.get(0)));
+        Assert.assertEquals(Arrays.asList("t_address", "t_order"), names(levels.get(1)));
+        Assert.assertEquals(Collections.singletonList("t_order_item"), names(levels.get(2)));
+        Assert.assertTrue(graph.hasCycle());
+        Assert.assertEquals(Arrays.asList("t_cycle_a", "t_cycle_b"), names(graph.getCyclicTables()));
+    }
+
+    @Test
+    public void testApplyLevelsWithForeignKeyChecks() {
+        List<String> scripts = ScriptGenerator.generateLevels(shopSchema());
+        Assert.assertEquals(5, scripts.size());
+        Assert.assertTrue(scripts.get(1).contains(
+                "  CONSTRAINT `fk_t_order_user_id` FOREIGN KEY (`user_id`) REFERENCES `t_user` (`id`) ON DELETE CASCADE\n"));
+        Assert.assertFalse(scripts.get(3).contains("REFERENCES `t_cycle_a`"));
+        Assert.assertTrue(scripts.get(3).contains("REFERENCES `t_user`"));
+        Assert.assertTrue(scripts.get(4).startsWith("ALTER TABLE `t_cycle_a`\nADD CONSTRAINT `fk_t_cycle_a_b_id`"));
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:levels;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        executor.setMaxConcurrency(4);
+        MigrationReport report = executor.executeLevels(scripts);
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(8, report.getApplied().size());
+    }
+
+    @Test
+    public void testFlatScriptInDependencyOrder() throws Exception {
+        DatabaseSchema shop = shopSchema();
+        List<TableSchema> reversed = new ArrayList<>(shop.getTables());
+        Collections.reverse(reversed);
+        shop.setTables(reversed);
+
+        String ddl = ScriptGenerator.generate(shop);
+        Assert.assertTrue(ddl.indexOf("CREATE TABLE `t_user`") < ddl.indexOf("CREATE TABLE `t_order`"));
+        Assert.assertTrue(ddl.indexOf("CREATE TABLE `t_order`") < ddl.indexOf("CREATE TABLE `t_order_item`"));
+        Assert.assertTrue(ddl.endsWith("ALTER TABLE `t_cycle_b`\nADD CONSTRAINT `fk_t_cycle_b_a_id` FOREIGN KEY (`a_id`)"
+                + " REFERENCES `t_cycle_a` (`id`);\n\n"));
+        StringWriter writer = new StringWriter();
+        ScriptGenerator.generate(shop, writer);
+        Assert.assertEquals(ddl, writer.toString());
+        Assert.assertEquals(ddl, ScriptGenerator.generate(shop, ForkJoinPool.commonPool()).getScript());
+
+        // 外键关联的表在同一组内按脚本顺序执行
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:flat;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        executor.setMaxConcurrency(4);
+        MigrationReport report = executor.execute(ddl);
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(8, report.getApplied().size());
+    }
+    @Test
+    public void testDiffCreatesNewTablesInDependencyOrder() {
+        DatabaseSchema current = schema(entity("t_log"));
+        DatabaseSchema target = shopSchema();
+        List<TableSchema> tables = new ArrayList<>(target.getTables());
+        tables.add(entity("t_log", "level"));
+        target.setTables(tables);
+        SchemaDiff diff = SchemaDiffer.diff(target, current);
+
+        String sql = ScriptGenerator.toSQL(diff, true);
+        Assert.assertTrue(sql.indexOf("CREATE TABLE `t_user`") < sql.indexOf("CREATE TABLE `t_address`"));
+        Assert.assertTrue(sql.indexOf("CREATE TABLE `t_order`") < sql.indexOf("CREATE TABLE `t_order_item`"));
+        Assert.assertTrue(sql.endsWith("ALTER TABLE `t_cycle_b`\nADD CONSTRAINT `fk_t_cycle_b_a_id` FOREIGN KEY (`a_id`)"
+                + " REFERENCES `t_cycle_a` (`id`);\n\n"));
+        Assert.assertEquals(sql, ScriptGenerator.generateModifySQL(target, current, true, ForkJoinPool.commonPool()).getScript());
+
+        String online = ScriptGenerator.toOnlineSQL(diff, true);
+        Assert.assertTrue(online.indexOf("CREATE TABLE `t_user`") < online.indexOf("CREATE TABLE `t_address`"));
+        Assert.assertTrue(online.endsWith(sql.substring(sql.indexOf("ALTER TABLE `t_cycle_a`"))));
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:diff_order;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        MigrationExecutor executor = new MigrationExecutor(dataSource);
+        MigrationReport report = executor.execute(ScriptGenerator.toOnlineSQL(SchemaDiffer.diff(shopSchema(), schema()), true));
+        Assert.assertTrue(report.isSuccess());
+        Assert.assertEquals(8, report.getApplied().size());
+    }
+}
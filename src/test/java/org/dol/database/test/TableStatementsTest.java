@@ -0,0 +1,155 @@
+package org.dol.database.test;
+
+import org.dol.database.schema.*;
+import org.dol.database.utils.SqlTemplate;
+import org.dol.database.utils.TableStatements;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TableStatementsTest {
+
+    private static ColumnSchema column(TableSchema table, String columnName, String columnType, int dataType) {
+        ColumnSchema column = new ColumnSchema();
+        column.setTableSchema(table);
+        column.setColumnName(columnName);
+        column.setDataType(dataType);
+        column.setNullable(true);
+        ColumnTypeParser.parse(columnType, column);
+        table.getColumns().add(column);
+        return column;
+    }
+
+    private static TableSchema orderTable() {
+        TableSchema table = new TableSchema("t_");
+        table.setTableName("t_order");
+        table.setColumns(new ArrayList<>());
+        table.setIndexes(new ArrayList<>());
+        ColumnSchema id = column(table, "id", "bigint(20)", Types.BIGINT);
+        id.setAutoIncrement(true);
+        id.setPrimary(true);
+        ColumnSchema code = column(table, "order_code", "varchar(32)", Types.VARCHAR);
+        column(table, "buyer_name", "varchar(64)", Types.VARCHAR);
+        column(table, "amount", "decimal(10,2)", Types.DECIMAL);
+        column(table, "create_time", "datetime", Types.TIMESTAMP);
+        column(table, "is_deleted", "tinyint(1)", Types.TINYINT);
+        column(table, "delete_time", "datetime", Types.TIMESTAMP);
+
+        KeySchema primaryKey = new KeySchema();
+        primaryKey.setKeyName("PRIMARY");
+        primaryKey.setMemberColumns(Collections.singletonList(id));
+        table.setPrimaryKey(primaryKey);
+        table.setPrimaryColumn(id);
+
+        IndexSchema unique = new IndexSchema();
+        unique.setIndexName("uk_order_code");
+        unique.setUnique(true);
+        unique.setMemberColumns(Collections.singletonList(code));
+        table.getIndexes().add(unique);
+        IndexSchema prefix = new IndexSchema();
+        prefix.setIndexName("uk_buyer_prefix");
+        prefix.setUnique(true);
+        prefix.setMemberColumns(Collections.singletonList(table.getColumn("buyer_name")));
+        IndexPart part = IndexPart.of(table.getColumn("buyer_name"));
+        part.setSubPart(8);
+        prefix.setKeyParts(Collections.singletonList(part));
+        table.getIndexes().add(prefix);
+        return table;
+    }
+
+    private static List<String> parameters(SqlTemplate template) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < template.getParameterCount(); i++) {
+            names.add(template.getColumnName(i));
+        }
+        return names;
+    }
+
+    @Test
+    public void testCompilesStatements() {
+        TableSchema table = orderTable();
+        TableStatements statements = table.getStatements();
+        Assert.assertSame(statements, table.getStatements());
+
+        SqlTemplate insert = statements.getInsert();
+        Assert.assertEquals("INSERT INTO `t_order` (`order_code`,`buyer_name`,`amount`,`create_time`,`is_deleted`,`delete_time`)"
+                + " VALUES (?,?,?,?,?,?)", insert.getSql());
+        Assert.assertEquals("orderCode", insert.getPropertyName(0));
+        Assert.assertEquals(Types.VARCHAR, insert.getSqlType(0));
+
+        SqlTemplate update = statements.getUpdateByPrimaryKey();
+        Assert.assertEquals("UPDATE `t_order` SET `order_code` = ?,`buyer_name` = ?,`amount` = ?,`delete_time` = ?"
+                + " WHERE `id` = ?", update.getSql());
+        Assert.assertEquals(Arrays.asList("order_code", "buyer_name", "amount", "delete_time", "id"), parameters(update));
+
+        String columns = "`id`,`order_code`,`buyer_name`,`amount`,`create_time`,`is_deleted`,`delete_time`";
+        Assert.assertEquals("SELECT " + columns + " FROM `t_order` WHERE `id` = ?",
+                statements.getSelectByPrimaryKey().getSql());
+        Assert.assertEquals("DELETE FROM `t_order` WHERE `id` = ?", statements.getDeleteByPrimaryKey().getSql());
+        SqlTemplate softDelete = statements.getSoftDeleteByPrimaryKey();
+        Assert.assertEquals("UPDATE `t_order` SET `is_deleted` = ?,`delete_time` = ? WHERE `id` = ?", softDelete.getSql());
+        Assert.assertEquals(Arrays.asList("is_deleted", "delete_time", "id"), parameters(softDelete));
+
+        Assert.assertEquals("SELECT " + columns + " FROM `t_order` WHERE `order_code` = ?",
+                statements.getSelectByUniqueIndex("UK_ORDER_CODE").getSql());
+        // 前缀唯一索引不能按列等值定位
+        Assert.assertNull(statements.getSelectByUniqueIndex("uk_buyer_prefix"));
+        Assert.assertEquals(1, statements.getSelectByUniqueIndexes().size());
+
+        SqlTemplate search = statements.getKeywordSearch();
+        Assert.assertEquals("SELECT " + columns + " FROM `t_order` WHERE (`order_code` LIKE ? OR `buyer_name` LIKE ?)",
+                search.getSql());
+    }
+
+    @Test
+    public void testConditionMaskSelects() {
+        TableStatements statements = orderTable().getStatements();
+        List<TableStatements.Condition> conditions = statements.getConditions();
+        long mask = 0;
+        for (int i = 0; i < conditions.size(); i++) {
+            TableStatements.Condition condition = conditions.get(i);
+            if (condition.getKind() == TableStatements.ConditionKind.LIKE && condition.getColumnName().equals("buyer_name")
+                    || condition.getKind() == TableStatements.ConditionKind.RANGE_FROM && condition.getColumnName().equals("create_time")
+                    || condition.getKind() == TableStatements.ConditionKind.EQUAL && condition.getColumnName().equals("is_deleted")) {
+                mask |= 1L << i;
+            }
+        }
+        Assert.assertEquals(3, Long.bitCount(mask));
+
+        SqlTemplate select = statements.select(mask);
+        Assert.assertTrue(select.getSql().endsWith(
+                " FROM `t_order` WHERE `buyer_name` LIKE ? AND `create_time` >= ? AND `is_deleted` = ?"));
+        Assert.assertEquals(Arrays.asList("buyer_name", "create_time", "is_deleted"), parameters(select));
+        Assert.assertEquals("createTime", select.getPropertyName(1));
+        Assert.assertEquals(Types.TIMESTAMP, select.getSqlType(1));
+        Assert.assertSame(select, statements.select(mask));
+        Assert.assertSame(statements.getSelectAll(), statements.select(0));
+        try {
+            statements.select(1L << conditions.size());
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            // 超出条件个数
+        }
+    }
+
+    @Test
+    public void testTableWithoutPrimaryKey() {
+        TableSchema table = new TableSchema("t_");
+        table.setTableName("t_log");
+        table.setColumns(new ArrayList<>());
+        column(table, "message", "text", Types.LONGVARCHAR);
+
+        TableStatements statements = table.getStatements();
+        Assert.assertEquals("INSERT INTO `t_log` (`message`) VALUES (?)", statements.getInsert().getSql());
+        Assert.assertNull(statements.getUpdateByPrimaryKey());
+        Assert.assertNull(statements.getSelectByPrimaryKey());
+        Assert.assertNull(statements.getSoftDeleteByPrimaryKey());
+        Assert.assertNull(statements.getKeywordSearch());
+        Assert.assertTrue(statements.getConditions().isEmpty());
+    }
+}